@@ -0,0 +1,49 @@
+#!/usr/bin/env bash
+# Compares cold-start time and peak RSS of the plain shaded jar, the AppCDS launch and the native CLI.
+#
+# Build first:
+#   mvn -Pappcds verify        -> target/expense-tracker-1.0.0.jar + target/expense-tracker.jsa
+#   mvn -Pnative package       -> target/expense-cli (optional, needs GraalVM)
+#
+# The native profile has not been built or measured yet (no GraalVM where it was written): the native row is only
+# printed when target/expense-cli exists, and it is the first real measurement of it.
+#
+# Usage: scripts/measure-startup.sh [runs]
+# Each variant prints the median wall time (launch to exit) and the median peak RSS reported by StartupTimer.
+set -euo pipefail
+
+RUNS=${1:-10}
+TARGET="$(dirname "$0")/../target"
+JAR="$TARGET/expense-tracker-1.0.0.jar"
+JSA="$TARGET/expense-tracker.jsa"
+NATIVE="$TARGET/expense-cli"
+
+median() {
+  sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'
+}
+
+measure() {
+  local name=$1
+  shift
+  local times=() rss=()
+  for _ in $(seq "$RUNS"); do
+    local start end output
+    start=$(date +%s%N)
+    output=$("$@" 2>&1 || true)
+    end=$(date +%s%N)
+    times+=($(( (end - start) / 1000000 )))
+    rss+=("$(echo "$output" | awk '/peak RSS/ { print $3 }')")
+  done
+  printf '%-22s %6s ms %10s kB\n' "$name" \
+    "$(printf '%s\n' "${times[@]}" | median)" "$(printf '%s\n' "${rss[@]}" | median)"
+}
+
+printf '%-22s %9s %13s\n' "variant" "wall" "peak RSS"
+measure "shaded jar" java -Djava.awt.headless=true -Xshare:auto -jar "$JAR" --exit-after-startup
+if [ -f "$JSA" ]; then
+  measure "shaded jar + AppCDS" java -Djava.awt.headless=true -XX:SharedArchiveFile="$JSA" -jar "$JAR" --exit-after-startup
+fi
+measure "CLI check (JVM)" java -cp "$JAR" com.expense.cli.ExpenseCli check
+if [ -x "$NATIVE" ]; then
+  measure "CLI check (native)" "$NATIVE" check
+fi
@@ -0,0 +1,46 @@
+package com.expense.dao;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.model.ExpenseView;
+
+/**
+ * Deterministic expense rows shaped like the expenses table, for the benchmarks
+ * The dates are also present as epoch seconds (the extra columns of ExpenseViewMapper.COLUMNS)
+ */
+final class ExpenseRows {
+    static final String[] LABELS = {"expense_id", "category_id", "payment_method", "amount", "description",
+            "expense_date", "created_at", "version", "expense_date_seconds", "created_at_seconds"};
+    static final int CATEGORIES = 20;
+
+    private ExpenseRows() {
+    }
+
+    /**
+     * @return a rewound ResultSet over 'count' rows; descriptions are 20 characters
+     */
+    static InMemoryResultSet resultSet(int count) {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 30);
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocalDateTime expenseDate = start.plusMinutes(37L * i);
+            LocalDateTime createdAt = expenseDate.plusSeconds(90);
+            rows.add(new Object[] {
+                i + 1,
+                1 + i % CATEGORIES,
+                i % 3 == 0 ? "BANK_ACCOUNT" : "CASH",
+                BigDecimal.valueOf(100 + i % 900),
+                "Grocery store #" + (10000 + i % 90000),
+                expenseDate,
+                createdAt,
+                1,
+                ExpenseView.epochSeconds(expenseDate),
+                ExpenseView.epochSeconds(createdAt)
+            });
+        }
+        return new InMemoryResultSet(LABELS, rows);
+    }
+}
@@ -0,0 +1,84 @@
+package com.expense.dao;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.model.CategoryRef;
+
+/**
+ * Retained heap of a fully loaded expense list, Expense vs ExpenseView (the numbers quoted in ExpenseView)
+ *
+ * Run: mvn -B -Pbenchmarks test-compile exec:exec@heap [-Dheap.rows=1000000]
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. Builds 'rows' in-memory rows (ExpenseRows: 20-character descriptions) and maps all of them with one mapper
+ * 2. Drops the ResultSet, so only the mapped list is reachable (each kept row owns its description and dates,
+ *    as with a real driver, which hands out new objects per row)
+ * 3. Runs System.gc() until used heap stops shrinking and reports used heap minus the baseline taken before step 1
+ * Each model runs twice and the second run is reported, so class loading and JIT metadata stay out of the numbers
+ *
+ * Not a JMH benchmark: JMH measures allocation rate, not what stays live; use a fixed heap and a stop-the-world
+ * collector (the heap execution in pom.xml passes -Xms2g -Xmx2g -XX:+UseSerialGC) so used heap is exact after gc
+ */
+public final class HeapFootprint {
+    private HeapFootprint() {
+    }
+
+    public static void main(String[] args) throws SQLException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        for (int run = 0; run < 2; run++) {
+            long expense = retained(rows, false);
+            long view = retained(rows, true);
+            if (run == 1) {
+                report("Expense", expense, rows);
+                report("ExpenseView", view, rows);
+                System.out.printf("ExpenseView saves %.0f%%%n", 100.0 * (expense - view) / expense);
+            }
+        }
+    }
+
+    private static long retained(int rows, boolean view) throws SQLException {
+        long baseline = usedAfterGc();
+        List<Object> kept = load(rows, view);
+        long used = usedAfterGc() - baseline;
+        if (kept.size() != rows) {
+            throw new IllegalStateException("Mapped " + kept.size() + " rows, expected " + rows);
+        }
+        return used;
+    }
+
+    private static List<Object> load(int rows, boolean view) throws SQLException {
+        InMemoryResultSet rs = ExpenseRows.resultSet(rows);
+        List<Object> kept = new ArrayList<>(rows);
+        RowMapper<?> mapper = view
+                ? new ExpenseViewMapper(new CategoryRef.Table(Collections.emptyList()))
+                : new ExpenseRowMapper();
+        while (rs.next()) {
+            kept.add(mapper.mapRow(rs));
+        }
+        return kept;
+    }
+
+    private static long usedAfterGc() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long now = memory.getHeapMemoryUsage().getUsed();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+
+    private static void report(String model, long bytes, int rows) {
+        System.out.printf("%-12s %,d rows: %,.1f MB retained, %d bytes per row%n",
+                model, rows, bytes / (1024.0 * 1024.0), bytes / rows);
+    }
+}
@@ -0,0 +1,123 @@
+package com.expense.dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.StreamSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.model.CategoryRef;
+import com.model.Expense;
+import com.model.PaymentMethod;
+
+/**
+ * Row mapping and read-path comparisons over an in-memory ResultSet (no server round trips in the numbers)
+ *
+ * Run: mvn -B -Pbenchmarks compile exec:exec@jmh -Djmh.args="RowMappingBenchmark -prof gc"
+ *
+ * BENCHMARKS:
+ * - labelMapping: the original getExpenseRow() - a label lookup per field, PaymentMethod.valueOf, BigDecimal amount,
+ *   Timestamp -> LocalDateTime
+ * - indexMapping: ExpenseRowMapper - indexes resolved once per ResultSet, cached enum decoding, LocalDateTime directly
+ * - viewMapping: ExpenseViewMapper - same index lookups, dates as epoch seconds, compact ExpenseView rows
+ * - materializedList: what getAllExpenses() does - every row mapped into an ArrayList, then read
+ * - streamed: what streamExpenses() does - rows mapped lazily through ResultSetSpliterator and read once
+ * With -prof gc, gc.alloc.rate.norm shows the bytes allocated per call (divide by 'rows' for bytes per row);
+ * materializedList also holds all rows at once, which the streamed path never does
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+public class RowMappingBenchmark {
+    @Param({"100000"})
+    int rows;
+
+    private InMemoryResultSet rs;
+
+    @Setup
+    public void setUp() {
+        rs = ExpenseRows.resultSet(rows);
+    }
+
+    @Benchmark
+    public void labelMapping(Blackhole blackhole) throws SQLException {
+        rs.rewind();
+        while (rs.next()) {
+            blackhole.consume(mapByLabel(rs));
+        }
+    }
+
+    @Benchmark
+    public void indexMapping(Blackhole blackhole) throws SQLException {
+        rs.rewind();
+        ExpenseRowMapper mapper = new ExpenseRowMapper();
+        while (rs.next()) {
+            blackhole.consume(mapper.mapRow(rs));
+        }
+    }
+
+    @Benchmark
+    public void viewMapping(Blackhole blackhole) throws SQLException {
+        rs.rewind();
+        ExpenseViewMapper mapper = new ExpenseViewMapper(new CategoryRef.Table(Collections.emptyList()));
+        while (rs.next()) {
+            blackhole.consume(mapper.mapRow(rs));
+        }
+    }
+
+    @Benchmark
+    public long materializedList() throws SQLException {
+        rs.rewind();
+        ExpenseRowMapper mapper = new ExpenseRowMapper();
+        List<Expense> expenses = new ArrayList<>();
+        while (rs.next()) {
+            expenses.add(mapper.mapRow(rs));
+        }
+        long total = 0;
+        for (Expense expense : expenses) {
+            total += expense.getAmount();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long streamed() {
+        rs.rewind();
+        return StreamSupport.stream(new ResultSetSpliterator<>(rs, new ExpenseRowMapper()), false)
+                .mapToLong(Expense::getAmount)
+                .sum();
+    }
+
+    /**
+     * Copy of MainDAO.getExpenseRow() as it was before the row mappers, kept as the baseline
+     */
+    private static Expense mapByLabel(InMemoryResultSet rs) throws SQLException {
+        Expense expense = new Expense(
+                rs.getInt("expense_id"),
+                rs.getInt("category_id"),
+                PaymentMethod.valueOf(rs.getString("payment_method")),
+                rs.getBigDecimal("amount").intValue()
+        );
+        expense.setDescription(rs.getString("description"));
+        expense.setExpense_date(rs.getTimestamp("expense_date").toLocalDateTime());
+        expense.setCreated_at(rs.getTimestamp("created_at").toLocalDateTime());
+        return expense;
+    }
+}
@@ -1,79 +1,280 @@
 package com.expense;
 
+import com.expense.dao.MainDAO;
 import com.expense.gui.MainGUI;
+import com.expense.recurring.RecurringExpenseScheduler;
+import com.expense.storage.LocalStore;
+import com.expense.storage.LocalStoreDAO;
+import com.expense.storage.OfflineSynchronizer;
+import com.expense.util.AppConfig;
 import com.expense.util.DatabaseConnection;
+import com.expense.util.StartupTimer;
+import com.model.Category;
 
-import java.sql.Connection;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+import java.awt.GraphicsEnvironment;
 import javax.swing.*;
 
 /**
  * Main entry point for the Expense Tracker application
  * 
  * FLOW DETAILED EXPLANATION:
- * 1. Application starts -> main() method is called by JVM
- * 2. Database connection test -> ensures database is accessible before GUI loads
- * 3. UI Look and Feel setup -> makes application look native to operating system
- * 4. GUI creation on EDT -> ensures thread-safe GUI creation
- * 5. MainGUI constructor -> initializes all components and event listeners
+ * 1. Application starts -> main() method is called by JVM -> AppConfig is read and validated
+ * 2. Database check + pool warm-up start on a background thread -> category preload follows as soon as it connects
+ * 3. UI Look and Feel setup runs on the main thread at the same time
+ * 4. Main window is built on the EDT and shown immediately in a "connecting" state
+ * 5. When storage is ready (MySQL, or the local journal in offline mode) it is attached to the window
+ * 6. A startup timing report is printed once the window is usable
+ * 7. Offline only: once the journal is synced, MySQL is attached to the window in its place
  * 
  * WHY THIS FLOW:
- * - Database test first prevents GUI from loading if database is unavailable
- * - Look and feel setup makes application look professional and native
+ * - The TCP/auth handshake, LAF loading and Swing construction no longer wait for each other
+ * - The user sees a window right away instead of a blank wait on the connection test
+ * - Category and Expense windows are built lazily by MainGUI on first open, so they cost nothing at startup
  * - EDT (Event Dispatch Thread) ensures GUI operations are thread-safe
- * - Lambda expression simplifies the GUI creation code
  */
 public class Main {
+    // Connections opened ahead of time so the first window's queries skip the handshake (expense.pool.warmConnections;
+    // openStorage() opens at least one regardless, to find out whether MySQL is reachable)
+    private static final int WARM_CONNECTIONS = AppConfig.get().getWarmConnections();
+
+    // Training run for the AppCDS archive (see the appcds profile in pom.xml): start up fully, report, exit
+    private static final String EXIT_AFTER_STARTUP = "--exit-after-startup";
+
+    // Set in offline mode; started once the window is attached so it can hand the window back to MySQL
+    private static volatile OfflineSynchronizer offlineSync;
+
     /**
      * Main method - entry point of the application
      * 
      * INVOCATION FLOW:
-     * 1. JVM calls main() when application starts
-     * 2. Database connection test using try-with-resources (auto-closes connection)
-     * 3. If database fails -> System.exit(1) terminates application
-     * 4. UIManager setup -> changes appearance to match OS (Windows/Mac/Linux)
-     * 5. SwingUtilities.invokeLater() -> schedules GUI creation on EDT
-     * 6. Lambda expression -> creates MainGUI instance and makes it visible
+     * 1. StartupTimer.begin() -> records JVM start -> main() time
+     * 2. CompletableFuture -> database check + warm-up on "startup-db" thread, then category preload
+     * 3. UIManager setup on the main thread while the database check runs
+     * 4. SwingUtilities.invokeAndWait() -> MainGUI built on the EDT with no DAO (connecting state) and shown
+     * 5. When storage and categories are ready -> MainGUI.attach() on the EDT -> timing report printed
      * 
      * WHY EACH STEP:
-     * - Database test first: Prevents user from seeing broken GUI if database is down
-     * - Try-with-resources: Automatically closes database connection, prevents memory leaks
-     * - System.exit(1): Clean termination with error code for debugging
-     * - UIManager: Makes application look professional and native to user's OS
-     * - EDT: Swing requires all GUI operations on Event Dispatch Thread for thread safety
-     * - Lambda: Simplifies code and makes it more readable than anonymous inner class
+     * - Background database check: Connecting to MySQL is the slowest step and needs no GUI
+     * - Offline mode: If MySQL is unreachable the local journal is opened and synced in the background
+     * - LAF before the frame: Components pick up the look and feel when they are created
+     * - invokeAndWait: The window exists before storage is attached, whichever finishes first
+     * - System.exit(1): Only used if the configuration is invalid or neither MySQL nor the local journal can be opened
      */
-    public static void main(String[] args) {
-        // STEP 1: Test database connection before starting GUI
-        // WHY: Prevents GUI from loading if database is unavailable
-        // HOW: Uses try-with-resources to automatically close connection
-        // INVOKES: DatabaseConnection.getDBConnection() -> creates connection to MySQL
-        try (Connection cn = DatabaseConnection.getDBConnection()) {
-            System.out.println("Connected to database successfully");
-        } catch (Exception e) {
-            System.out.println("Database connection failed: " + e.getMessage());
-            System.exit(1); // Clean termination with error code
+    public static void main(String[] args) throws Exception {
+        StartupTimer.begin();
+
+        // STEP 0: Read the configuration before anything uses it
+        // WHY: Every bad setting is reported at once here, instead of a failure halfway through startup
+        try {
+            AppConfig.get();
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
         }
-        
+        boolean trainingRun = Arrays.asList(args).contains(EXIT_AFTER_STARTUP);
+
+        // STEP 1: Database check, pool warm-up and category preload in the background
+        // WHY: Runs while the look and feel and the main window are being created
+        ExecutorService startup = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "startup-db");
+            thread.setDaemon(true);
+            return thread;
+        });
+        CompletableFuture<MainDAO> storage = CompletableFuture.supplyAsync(
+                () -> timed("database check + warm-up", () -> openStorage(trainingRun)), startup);
+        CompletableFuture<List<Category>> categories = storage.thenApplyAsync(
+                dao -> timed("category preload", dao::getAllCategories), startup)
+                .exceptionally(e -> null); // The windows load categories themselves if the preload fails
+
         // STEP 2: Set system look and feel for better UI appearance
         // WHY: Makes application look native to user's operating system
-        // HOW: UIManager changes the visual appearance of Swing components
-        // INVOKES: UIManager.getSystemLookAndFeelClassName() -> gets OS-specific look and feel
         try {
-            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+            StartupTimer.time("look and feel", () -> {
+                UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+                return null;
+            });
         } catch (Exception e) {
             System.err.println("Failed to set look and feel: " + e.getMessage());
         }
         
-        // STEP 3: Launch GUI on Event Dispatch Thread using lambda expression
-        // WHY: Swing requires all GUI operations on EDT for thread safety
-        // HOW: SwingUtilities.invokeLater() schedules GUI creation on EDT
-        // INVOKES: MainGUI constructor -> initializes all components and event listeners
-        SwingUtilities.invokeLater(() -> {
-            try {
-                new MainGUI().setVisible(true); // Creates MainGUI and makes it visible
-            } catch (Exception e) {
-                System.err.println("Failed to start GUI: " + e.getMessage());
+        // STEP 3: Build and show the main window on the EDT, before storage is ready
+        // WHY: Swing requires all GUI operations on EDT; the window shows "connecting" until attach()
+        // A headless training run (CI) skips the window but still exercises storage and startup
+        MainGUI[] gui = new MainGUI[1];
+        if (!(trainingRun && GraphicsEnvironment.isHeadless())) {
+            SwingUtilities.invokeAndWait(() -> {
+                try {
+                    gui[0] = StartupTimer.time("main window", () -> new MainGUI(null));
+                    gui[0].setVisible(true);
+                } catch (Exception e) {
+                    System.err.println("Failed to start GUI: " + e.getMessage());
+                }
+            });
+            if (gui[0] == null) {
+                System.exit(1);
             }
-        });
+        }
+
+        // STEP 4: Attach storage once connected, then report where the startup time went
+        CompletableFuture<Void> ready = storage.thenAcceptBoth(categories, (dao, preloaded) -> SwingUtilities.invokeLater(() -> {
+            if (gui[0] != null) {
+                gui[0].attach(dao, preloaded, dao instanceof LocalStoreDAO);
+            }
+            OfflineSynchronizer synchronizer = offlineSync;
+            if (synchronizer != null) {
+                synchronizer.setOnlineListener(() -> switchOnline(gui[0]));
+                synchronizer.setConflictListener(conflicts -> {
+                    if (gui[0] != null) {
+                        SwingUtilities.invokeLater(() -> gui[0].resolveOfflineConflicts(conflicts, synchronizer));
+                    } else {
+                        conflicts.forEach(conflict -> System.err.println("Offline change not pushed: " + conflict));
+                    }
+                });
+                synchronizer.start(AppConfig.get().getSyncPeriodSeconds());
+            }
+            StartupTimer.report();
+        }));
+        if (trainingRun) {
+            ready.join();
+            SwingUtilities.invokeAndWait(() -> { }); // Lets the attach/report task above finish
+            System.exit(0);
+        }
+    }
+
+    /**
+     * Connects to MySQL and warms the pool, or falls back to the local journal
+     * A training run only reads: it starts no recurring scheduler (which would insert due expenses) and, offline,
+     * opens a throwaway journal with no synchroniser instead of the user's
+     * @return DAO for the GUI - MainDAO online, LocalStoreDAO offline
+     */
+    private static MainDAO openStorage(boolean trainingRun) {
+        try {
+            // At least one connection even with warmConnections=0: it is the reachability test for offline mode
+            DatabaseConnection.getPool().warmUp(Math.max(1, WARM_CONNECTIONS));
+            System.out.println("Connected to database successfully");
+            MainDAO dao = new MainDAO();
+            if (!trainingRun) {
+                startRecurringScheduler(dao);
+            }
+            return dao;
+        } catch (Exception e) {
+            System.out.println("Database connection failed: " + e.getMessage() + " - starting in offline mode");
+            return trainingRun ? openTrainingStore() : openOfflineStore();
+        }
+    }
+
+    /**
+     * Runs a startup phase through StartupTimer, rethrowing failures unchecked for CompletableFuture
+     */
+    private static <T> T timed(String phase, Callable<T> work) {
+        try {
+            return StartupTimer.time(phase, work);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Starts generating due recurring expenses (catch-up now, then every expense.recurring.periodMinutes)
+     * Flow: RecurringExpenseScheduler runs on a daemon thread -> one transaction per run -> closed on shutdown
+     */
+    private static void startRecurringScheduler(MainDAO dao) {
+        RecurringExpenseScheduler scheduler = new RecurringExpenseScheduler(dao);
+        scheduler.setListener(inserted -> System.out.println("Generated " + inserted + " recurring expenses"));
+        scheduler.start(AppConfig.get().getRecurringPeriodMinutes());
+        Runtime.getRuntime().addShutdownHook(new Thread(scheduler::close));
+    }
+
+    /**
+     * Opens the local journal and prepares background synchronisation with MySQL
+     * Flow: LocalStore.open() in ~/.expense-tracker/journal -> LocalStoreDAO for the GUI -> OfflineSynchronizer
+     *       (started in STEP 4) retries every expense.sync.periodSeconds
+     * @return DAO backed by the local journal
+     */
+    private static MainDAO openOfflineStore() {
+        Path directory = Paths.get(System.getProperty("user.home"), ".expense-tracker", "journal");
+        try {
+            LocalStore store = LocalStore.open(directory);
+            OfflineSynchronizer synchronizer = new OfflineSynchronizer(store, new MainDAO());
+            offlineSync = synchronizer;
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                synchronizer.close();
+                try {
+                    store.close();
+                } catch (Exception e) {
+                    System.err.println("Failed to close local journal: " + e.getMessage());
+                }
+            }));
+            return new LocalStoreDAO(store);
+        } catch (Exception e) {
+            System.out.println("Local journal unavailable: " + e.getMessage());
+            System.exit(1); // Neither MySQL nor local storage can be used
+            return null;
+        }
+    }
+
+    /**
+     * Opens an empty journal in a temporary directory for an offline training run, deleted again on exit
+     * Flow: same LocalStore/LocalStoreDAO classes as openOfflineStore() (so they land in the AppCDS archive), but
+     *       nothing under ~/.expense-tracker is created and nothing is ever pushed to MySQL
+     */
+    private static MainDAO openTrainingStore() {
+        try {
+            Path directory = Files.createTempDirectory("expense-training-journal");
+            LocalStore store = LocalStore.open(directory);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    store.close();
+                    try (Stream<Path> files = Files.walk(directory)) {
+                        for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                            Files.delete(file);
+                        }
+                    }
+                } catch (Exception e) {
+                    System.err.println("Failed to delete training journal " + directory + ": " + e.getMessage());
+                }
+            }));
+            return new LocalStoreDAO(store);
+        } catch (Exception e) {
+            System.out.println("Training journal unavailable: " + e.getMessage());
+            System.exit(1);
+            return null;
+        }
+    }
+
+    /**
+     * Leaves offline mode once the synchroniser has pushed every local change
+     * Flow: Sync thread -> new MainDAO + recurring scheduler -> MainGUI.attach() on the EDT; waits for the attach,
+     *       so the synchroniser's last cycle runs after the window stopped writing to the journal
+     */
+    private static void switchOnline(MainGUI gui) {
+        System.out.println("Database reachable again - leaving offline mode");
+        MainDAO dao = new MainDAO();
+        startRecurringScheduler(dao);
+        if (gui == null) {
+            return;
+        }
+        try {
+            SwingUtilities.invokeAndWait(() -> gui.attach(dao, null, false));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (InvocationTargetException e) {
+            System.err.println("Failed to switch the window to the database: " + e.getCause().getMessage());
+        }
     }
 }
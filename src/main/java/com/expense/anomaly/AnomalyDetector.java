@@ -0,0 +1,88 @@
+package com.expense.anomaly;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.expense.dao.MainDAO;
+import com.model.Expense;
+
+/**
+ * Flags unusual expenses as they are entered, using per-category online statistics
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. build() streams existing expenses once to seed the statistics (no history is kept)
+ * 2. GUI calls observe() after each createExpense -> the expense is checked against the current statistics
+ * 3. The statistics are then updated with it - every step is O(1) and needs no query
+ *
+ * RULES:
+ * - Amount outlier: at least MIN_SAMPLES amounts seen and |amount - mean| > Z_THRESHOLD standard deviations
+ * - Frequency spike: today's count reaches MIN_SPIKE_COUNT and exceeds SPIKE_FACTOR x the rolling daily average
+ *
+ * Not thread-safe: built off the EDT, then used from the Swing event thread only
+ */
+public class AnomalyDetector {
+    private static final int MIN_SAMPLES = 10;
+    private static final double Z_THRESHOLD = 3.0;
+    private static final double EMA_ALPHA = 0.1;
+    private static final int MIN_SPIKE_COUNT = 3;
+    private static final double SPIKE_FACTOR = 3.0;
+
+    private final Map<Integer, CategoryStats> stats = new HashMap<>();
+
+    /**
+     * Seeds the detector from every stored expense in a single streamed pass
+     */
+    public static AnomalyDetector build(MainDAO dao) throws SQLException {
+        AnomalyDetector detector = new AnomalyDetector();
+        dao.forEachExpense(detector::update);
+        return detector;
+    }
+
+    /**
+     * Checks a newly saved expense, then folds it into its category's statistics
+     * @return anomalies found (empty when the expense looks normal)
+     */
+    public List<ExpenseAnomaly> observe(Expense expense) {
+        CategoryStats category = stats.get(expense.getCategory_id());
+        List<ExpenseAnomaly> anomalies = category == null ? Collections.emptyList() : check(expense, category);
+        update(expense);
+        return anomalies;
+    }
+
+    private List<ExpenseAnomaly> check(Expense expense, CategoryStats category) {
+        List<ExpenseAnomaly> anomalies = new ArrayList<>(2);
+        double amount = expense.getAmount();
+        double stdDev = category.stdDev();
+        if (category.count >= MIN_SAMPLES && stdDev > 0
+                && Math.abs(amount - category.mean) > Z_THRESHOLD * stdDev) {
+            anomalies.add(new ExpenseAnomaly(ExpenseAnomaly.Kind.AMOUNT_OUTLIER,
+                    expense.getCategory_id(), amount, category.ema));
+        }
+        if (expense.getExpense_date() != null) {
+            long day = expense.getExpense_date().toLocalDate().toEpochDay();
+            int today = category.countOn(day) + 1;
+            double average = category.averagePerDayBefore(day);
+            if (isSpike(today, average) && !isSpike(today - 1, average)) { // Reported once, when the spike starts
+                anomalies.add(new ExpenseAnomaly(ExpenseAnomaly.Kind.FREQUENCY_SPIKE,
+                        expense.getCategory_id(), today, average));
+            }
+        }
+        return anomalies;
+    }
+
+    private static boolean isSpike(int count, double averagePerDay) {
+        return count >= MIN_SPIKE_COUNT && count > SPIKE_FACTOR * averagePerDay;
+    }
+
+    private void update(Expense expense) {
+        CategoryStats category = stats.computeIfAbsent(expense.getCategory_id(), k -> new CategoryStats());
+        category.addAmount(expense.getAmount(), EMA_ALPHA);
+        if (expense.getExpense_date() != null) {
+            category.addDay(expense.getExpense_date().toLocalDate().toEpochDay());
+        }
+    }
+}
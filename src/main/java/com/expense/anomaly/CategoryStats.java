@@ -0,0 +1,71 @@
+package com.expense.anomaly;
+
+import java.util.Arrays;
+
+/**
+ * Running statistics for one category, each updated in O(1) per expense
+ *
+ * - Welford mean/variance over all amounts (numerically stable, no stored history)
+ * - Exponential moving average of amounts, so the "usual" amount follows recent habits
+ * - Rolling window of daily counts in a ring buffer indexed by epoch day
+ */
+final class CategoryStats {
+    static final int WINDOW_DAYS = 28;
+
+    long count;
+    double mean;
+    double m2;      // Sum of squared differences from the mean (Welford)
+    double ema;     // Exponential moving average of amount
+
+    private final long[] dayStamps = new long[WINDOW_DAYS];
+    private final int[] dayCounts = new int[WINDOW_DAYS];
+
+    CategoryStats() {
+        Arrays.fill(dayStamps, Long.MIN_VALUE);
+    }
+
+    void addAmount(double amount, double emaAlpha) {
+        count++;
+        double delta = amount - mean;
+        mean += delta / count;
+        m2 += delta * (amount - mean);
+        ema = count == 1 ? amount : ema + emaAlpha * (amount - ema);
+    }
+
+    double stdDev() {
+        return count > 1 ? Math.sqrt(m2 / (count - 1)) : 0;
+    }
+
+    /**
+     * Counts one expense on its day; days older than the slot's current day fall outside the window and are ignored
+     */
+    void addDay(long epochDay) {
+        int slot = (int) Math.floorMod(epochDay, (long) WINDOW_DAYS);
+        if (dayStamps[slot] < epochDay) {
+            dayStamps[slot] = epochDay;
+            dayCounts[slot] = 0;
+        }
+        if (dayStamps[slot] == epochDay) {
+            dayCounts[slot]++;
+        }
+    }
+
+    int countOn(long epochDay) {
+        int slot = (int) Math.floorMod(epochDay, (long) WINDOW_DAYS);
+        return dayStamps[slot] == epochDay ? dayCounts[slot] : 0;
+    }
+
+    /**
+     * @return average expenses per day over the window days before the given day
+     */
+    double averagePerDayBefore(long epochDay) {
+        int total = 0;
+        for (int i = 0; i < WINDOW_DAYS; i++) {
+            long stamp = dayStamps[i];
+            if (stamp < epochDay && stamp > epochDay - WINDOW_DAYS) {
+                total += dayCounts[i];
+            }
+        }
+        return total / (double) (WINDOW_DAYS - 1);
+    }
+}
@@ -0,0 +1,55 @@
+package com.expense.anomaly;
+
+/**
+ * One reason an expense looks unusual for its category
+ */
+public class ExpenseAnomaly {
+    public enum Kind {
+        // Amount far from the category's mean (measured in standard deviations)
+        AMOUNT_OUTLIER,
+        // Many more expenses in this category today than its recent daily average
+        FREQUENCY_SPIKE
+    }
+
+    private final Kind kind;
+    private final int categoryId;
+    private final double observed;
+    private final double expected;
+
+    ExpenseAnomaly(Kind kind, int categoryId, double observed, double expected) {
+        this.kind = kind;
+        this.categoryId = categoryId;
+        this.observed = observed;
+        this.expected = expected;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    /**
+     * @return the amount (AMOUNT_OUTLIER) or today's count (FREQUENCY_SPIKE)
+     */
+    public double getObserved() {
+        return observed;
+    }
+
+    /**
+     * @return the recent average amount (AMOUNT_OUTLIER) or average per day (FREQUENCY_SPIKE)
+     */
+    public double getExpected() {
+        return expected;
+    }
+
+    @Override
+    public String toString() {
+        if (kind == Kind.AMOUNT_OUTLIER) {
+            return String.format("amount %.0f is far from the usual %.0f", observed, expected);
+        }
+        return String.format("%.0f expenses today vs %.1f per day normally", observed, expected);
+    }
+}
@@ -0,0 +1,55 @@
+package com.expense.budget;
+
+import java.time.YearMonth;
+
+/**
+ * Raised when a change pushes a category's monthly total across a budget threshold
+ */
+public class BudgetAlert {
+    private final int categoryId;
+    private final YearMonth month;
+    private final int thresholdPercent;
+    private final long total;
+    private final long limit;
+
+    BudgetAlert(int categoryId, YearMonth month, int thresholdPercent, long total, long limit) {
+        this.categoryId = categoryId;
+        this.month = month;
+        this.thresholdPercent = thresholdPercent;
+        this.total = total;
+        this.limit = limit;
+    }
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    /**
+     * @return the threshold that was crossed (80 or 100)
+     */
+    public int getThresholdPercent() {
+        return thresholdPercent;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public boolean isExceeded() {
+        return total > limit;
+    }
+
+    @Override
+    public String toString() {
+        return month + ": " + total + " of " + limit + " spent ("
+                + (limit == 0 ? 100 : total * 100 / limit) + "%)";
+    }
+}
@@ -0,0 +1,146 @@
+package com.expense.budget;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.model.Budget;
+import com.model.Expense;
+
+/**
+ * Keeps running per-category/month totals in memory and evaluates budgets incrementally
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. MainDAO.getBudgetMonitor() seeds totals with one GROUP BY query and loads the limits
+ * 2. GUI reports every saved change -> expenseCreated / expenseUpdated / expenseDeleted
+ * 3. Each call adjusts at most two counters and compares them with the limit -> alerts returned at once
+ *
+ * WHY: Re-summing a month after every save costs a query over all its expenses; a counter update is O(1)
+ * HOW: Totals are keyed by a single long (category id in the high 32 bits, month index in the low 32)
+ *      and hold a mutable long[1], so an update is one hash lookup with no boxing
+ *
+ * Not thread-safe: used from the Swing event thread only
+ */
+public class BudgetMonitor {
+    // Thresholds in ascending order; only the highest one crossed by a change is reported
+    private static final int[] THRESHOLDS = {80, 100};
+
+    private final Map<Long, long[]> totals;
+    private final Map<Integer, Integer> limits;
+
+    private BudgetMonitor(Map<Long, long[]> totals, Map<Integer, Integer> limits) {
+        this.totals = totals;
+        this.limits = limits;
+    }
+
+    /**
+     * Folds a newly saved expense into its month
+     * @return alerts for thresholds crossed by this expense (empty when none)
+     */
+    public List<BudgetAlert> expenseCreated(Expense expense) {
+        return add(expense.getCategory_id(), expense.getExpense_date(), expense.getAmount());
+    }
+
+    /**
+     * Moves an expense's amount from its old category/month to its new one
+     * @param before the expense as it was stored before the update
+     * @param after the expense as saved
+     * @return alerts for thresholds crossed in the new category/month
+     */
+    public List<BudgetAlert> expenseUpdated(Expense before, Expense after) {
+        add(before.getCategory_id(), before.getExpense_date(), -before.getAmount());
+        return add(after.getCategory_id(), after.getExpense_date(), after.getAmount());
+    }
+
+    /**
+     * Removes a deleted expense from its month; lowering a total never raises an alert
+     */
+    public void expenseDeleted(Expense expense) {
+        add(expense.getCategory_id(), expense.getExpense_date(), -expense.getAmount());
+    }
+
+    /**
+     * Sets or replaces the monthly limit of a category
+     */
+    public void setLimit(int categoryId, int monthlyLimit) {
+        limits.put(categoryId, monthlyLimit);
+    }
+
+    public void removeLimit(int categoryId) {
+        limits.remove(categoryId);
+    }
+
+    /**
+     * @return the monthly limit of a category, or -1 when it has no budget
+     */
+    public int getLimit(int categoryId) {
+        return limits.getOrDefault(categoryId, -1);
+    }
+
+    public long getTotal(int categoryId, YearMonth month) {
+        long[] total = totals.get(key(categoryId, month));
+        return total == null ? 0 : total[0];
+    }
+
+    private List<BudgetAlert> add(int categoryId, LocalDateTime date, long amount) {
+        if (date == null || amount == 0) {
+            return Collections.emptyList();
+        }
+        YearMonth month = YearMonth.from(date);
+        long[] total = totals.computeIfAbsent(key(categoryId, month), k -> new long[1]);
+        long before = total[0];
+        total[0] += amount;
+
+        Integer limit = limits.get(categoryId);
+        if (limit == null || amount < 0) {
+            return Collections.emptyList();
+        }
+        for (int i = THRESHOLDS.length - 1; i >= 0; i--) {
+            // Crossed when before < threshold <= after, compared in percent to stay in integers
+            long threshold = (long) limit * THRESHOLDS[i];
+            if (before * 100 < threshold && total[0] * 100 >= threshold) {
+                List<BudgetAlert> alerts = new ArrayList<>(1);
+                alerts.add(new BudgetAlert(categoryId, month, THRESHOLDS[i], total[0], limit));
+                return alerts;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private static long key(int categoryId, YearMonth month) {
+        return ((long) categoryId << 32) | ((month.getYear() * 12L + month.getMonthValue() - 1) & 0xFFFFFFFFL);
+    }
+
+    public static class Builder {
+        private final Map<Long, long[]> totals = new HashMap<>();
+        private final Map<Integer, Integer> limits = new HashMap<>();
+
+        public Builder addTotal(int categoryId, YearMonth month, long total) {
+            totals.computeIfAbsent(key(categoryId, month), k -> new long[1])[0] += total;
+            return this;
+        }
+
+        public Builder addBudget(Budget budget) {
+            limits.put(budget.getCategoryId(), budget.getMonthlyLimit());
+            return this;
+        }
+
+        /**
+         * Folds one expense into its category/month (used when aggregating without SQL)
+         */
+        public Builder add(Expense expense) {
+            if (expense.getExpense_date() != null) {
+                addTotal(expense.getCategory_id(), YearMonth.from(expense.getExpense_date()), expense.getAmount());
+            }
+            return this;
+        }
+
+        public BudgetMonitor build() {
+            return new BudgetMonitor(totals, limits);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.expense.changes;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.expense.dao.MainDAO;
+import com.expense.util.AppConfig;
+import com.model.Category;
+import com.model.Expense;
+
+/**
+ * Keeps a client current by reading only the change_log entries written since its last poll
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. start() records the newest change id as the high-water mark; tables loaded after that are up to date
+ * 2. Each poll reads change_log entries above the mark (a primary key range scan), page by page
+ * 3. Entries are collapsed per row, the surviving rows are fetched by id in IN-list chunks
+ * 4. The listener gets a ChangeSet with current rows and deleted ids - cost follows the number of changes
+ * 5. The mark advances past every delivered entry, but never past a gap (see below)
+ *
+ * WHY GAPS MATTER:
+ * - AUTO_INCREMENT ids are handed out at insert time, not commit time, so change 11 can be visible
+ *   while change 10 is still in an open transaction
+ * - The mark stops in front of the gap and entries above it are remembered, so 10 is picked up when it commits
+ * - A gap still open after GAP_TIMEOUT_MILLIS belongs to a rolled-back transaction and is skipped
+ *
+ * FALLING BEHIND: entries older than RETENTION_HOURS are pruned, so a client that has not polled for
+ * half of that (or sees more than MAX_ROWS_PER_POLL changes at once) gets a reload request instead
+ */
+public class ChangeFeedPoller implements AutoCloseable {
+    // Limits come from AppConfig (expense.changes.*)
+    private static final AppConfig CONFIG = AppConfig.get();
+    private static final int PAGE_SIZE = CONFIG.getChangePageSize();
+    private static final int MAX_ROWS_PER_POLL = CONFIG.getChangeMaxRowsPerPoll();
+    private static final long GAP_TIMEOUT_MILLIS = CONFIG.getChangeGapTimeoutMillis();
+    private static final int RETENTION_HOURS = CONFIG.getChangeRetentionHours();
+    private static final long PRUNE_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final MainDAO dao;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "change-feed");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile Consumer<ChangeSet> listener = changes -> { };
+
+    // Every change id <= highWaterMark has been delivered; -1 until the first poll
+    private long highWaterMark = -1;
+    // Delivered ids above the mark, waiting for the gap in front of them to close
+    private final TreeSet<Long> deliveredAboveMark = new TreeSet<>();
+    private long stuckAtMark = -1;
+    private long stuckSinceMillis;
+    private long lastPollMillis;
+    private long lastPruneMillis;
+
+    public ChangeFeedPoller(MainDAO dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * @param listener called on the poller thread with each non-empty ChangeSet
+     */
+    public void setListener(Consumer<ChangeSet> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Sets the high-water mark now, then polls every periodSeconds until close() is called
+     */
+    public void start(long periodSeconds) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                pollNow();
+            } catch (SQLException e) {
+                System.err.println("Change feed poll failed: " + e.getMessage());
+            }
+        }, 0, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Fetches and delivers everything changed since the previous poll
+     * @return the delivered changes (empty on the first call, which only sets the mark)
+     */
+    public synchronized ChangeSet pollNow() throws SQLException {
+        long now = System.currentTimeMillis();
+        pruneIfDue(now);
+        if (highWaterMark < 0 || now - lastPollMillis > TimeUnit.HOURS.toMillis(RETENTION_HOURS) / 2) {
+            boolean first = highWaterMark < 0;
+            resetMark(now);
+            return first ? empty() : deliver(ChangeSet.reload());
+        }
+
+        List<ChangeLogEntry> entries = new ArrayList<>();
+        long cursor = highWaterMark;
+        List<ChangeLogEntry> page;
+        do {
+            page = dao.getChangesSince(cursor, PAGE_SIZE);
+            for (ChangeLogEntry entry : page) {
+                if (!deliveredAboveMark.contains(entry.getChangeId())) {
+                    entries.add(entry);
+                }
+            }
+            if (entries.size() > MAX_ROWS_PER_POLL) {
+                resetMark(now); // Reloading the tables is cheaper than fetching this many rows by id
+                return deliver(ChangeSet.reload());
+            }
+            if (!page.isEmpty()) {
+                cursor = page.get(page.size() - 1).getChangeId();
+            }
+        } while (page.size() == PAGE_SIZE);
+        lastPollMillis = now;
+        if (entries.isEmpty()) {
+            advanceMark(now);
+            return empty();
+        }
+
+        // Collapse to the last entry per row: a row changed five times is fetched once
+        Map<Integer, Boolean> categoryChanges = new LinkedHashMap<>();
+        Map<Integer, Boolean> expenseChanges = new LinkedHashMap<>();
+        for (ChangeLogEntry entry : entries) {
+            Map<Integer, Boolean> target = entry.getEntity() == ChangeLogEntry.CATEGORY ? categoryChanges : expenseChanges;
+            target.remove(entry.getRowId()); // Keep insertion order = order of the latest change
+            target.put(entry.getRowId(), entry.isDeleted());
+        }
+        Set<Integer> deletedCategories = new HashSet<>();
+        List<Category> categories = dao.getCategoriesByIds(liveIds(categoryChanges, deletedCategories));
+        categories.forEach(category -> categoryChanges.remove(category.getCategoryid()));
+        deletedCategories.addAll(categoryChanges.keySet()); // Changed, then deleted before we read it
+
+        Set<Integer> deletedExpenses = new HashSet<>();
+        List<Expense> expenses = dao.getExpensesByIds(liveIds(expenseChanges, deletedExpenses));
+        expenses.forEach(expense -> expenseChanges.remove(expense.getExpense_id()));
+        deletedExpenses.addAll(expenseChanges.keySet());
+
+        entries.forEach(entry -> deliveredAboveMark.add(entry.getChangeId()));
+        advanceMark(now);
+        return deliver(new ChangeSet(categories, deletedCategories, expenses, deletedExpenses, false));
+    }
+
+    /**
+     * @param deleted receives the ids whose latest entry is a delete
+     * @return ids whose latest entry is a write
+     */
+    private static int[] liveIds(Map<Integer, Boolean> changes, Set<Integer> deleted) {
+        int[] ids = new int[changes.size()];
+        int count = 0;
+        for (Map.Entry<Integer, Boolean> change : changes.entrySet()) {
+            if (change.getValue()) {
+                deleted.add(change.getKey());
+            } else {
+                ids[count++] = change.getKey();
+            }
+        }
+        return Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * Moves the mark over contiguous delivered ids; a gap holds it until it closes or times out
+     */
+    private void advanceMark(long now) {
+        while (!deliveredAboveMark.isEmpty()) {
+            long next = deliveredAboveMark.first();
+            if (next == highWaterMark + 1) {
+                highWaterMark = deliveredAboveMark.pollFirst();
+                continue;
+            }
+            if (stuckAtMark != highWaterMark) {
+                stuckAtMark = highWaterMark;
+                stuckSinceMillis = now;
+            }
+            if (now - stuckSinceMillis < GAP_TIMEOUT_MILLIS) {
+                return; // An older transaction may still commit into the gap
+            }
+            highWaterMark = next - 1; // Gap left by a rollback
+        }
+    }
+
+    private void resetMark(long now) throws SQLException {
+        highWaterMark = dao.getLatestChangeId();
+        deliveredAboveMark.clear();
+        stuckAtMark = -1;
+        lastPollMillis = now;
+    }
+
+    private void pruneIfDue(long now) throws SQLException {
+        if (now - lastPruneMillis >= PRUNE_INTERVAL_MILLIS) {
+            lastPruneMillis = now;
+            dao.pruneChangeLog(RETENTION_HOURS);
+        }
+    }
+
+    private ChangeSet deliver(ChangeSet changes) {
+        listener.accept(changes);
+        return changes;
+    }
+
+    private static ChangeSet empty() {
+        return new ChangeSet(new ArrayList<>(), new HashSet<>(), new ArrayList<>(), new HashSet<>(), false);
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,45 @@
+package com.expense.changes;
+
+/**
+ * One row of the change_log table: "this category/expense was written (or deleted) by some client"
+ *
+ * Entries only name the row; readers fetch its current values, so replaying an entry twice is harmless
+ */
+public final class ChangeLogEntry {
+    public static final char CATEGORY = 'C';
+    public static final char EXPENSE = 'E';
+
+    private final long changeId;
+    private final char entity;
+    private final int rowId;
+    private final boolean deleted;
+
+    public ChangeLogEntry(long changeId, char entity, int rowId, boolean deleted) {
+        this.changeId = changeId;
+        this.entity = entity;
+        this.rowId = rowId;
+        this.deleted = deleted;
+    }
+
+    /**
+     * @return position in the log (AUTO_INCREMENT, so increasing but not necessarily in commit order)
+     */
+    public long getChangeId() {
+        return changeId;
+    }
+
+    /**
+     * @return CATEGORY or EXPENSE
+     */
+    public char getEntity() {
+        return entity;
+    }
+
+    public int getRowId() {
+        return rowId;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
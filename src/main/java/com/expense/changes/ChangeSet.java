@@ -0,0 +1,67 @@
+package com.expense.changes;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import com.model.Category;
+import com.model.Expense;
+
+/**
+ * Everything other clients changed since the previous poll, already deduplicated per row
+ *
+ * Rows hold their current values; a row that was changed and then deleted only appears in the deleted ids.
+ * reloadRequired means the client fell too far behind the change log and must reload its tables instead.
+ */
+public final class ChangeSet {
+    private final List<Category> categories;
+    private final Set<Integer> deletedCategoryIds;
+    private final List<Expense> expenses;
+    private final Set<Integer> deletedExpenseIds;
+    private final boolean reloadRequired;
+
+    ChangeSet(List<Category> categories, Set<Integer> deletedCategoryIds,
+              List<Expense> expenses, Set<Integer> deletedExpenseIds, boolean reloadRequired) {
+        this.categories = Collections.unmodifiableList(categories);
+        this.deletedCategoryIds = Collections.unmodifiableSet(deletedCategoryIds);
+        this.expenses = Collections.unmodifiableList(expenses);
+        this.deletedExpenseIds = Collections.unmodifiableSet(deletedExpenseIds);
+        this.reloadRequired = reloadRequired;
+    }
+
+    static ChangeSet reload() {
+        return new ChangeSet(Collections.emptyList(), Collections.emptySet(),
+                Collections.emptyList(), Collections.emptySet(), true);
+    }
+
+    /**
+     * @return created or updated categories with their current values
+     */
+    public List<Category> getCategories() {
+        return categories;
+    }
+
+    public Set<Integer> getDeletedCategoryIds() {
+        return deletedCategoryIds;
+    }
+
+    /**
+     * @return created or updated expenses with their current values
+     */
+    public List<Expense> getExpenses() {
+        return expenses;
+    }
+
+    public Set<Integer> getDeletedExpenseIds() {
+        return deletedExpenseIds;
+    }
+
+    public boolean isReloadRequired() {
+        return reloadRequired;
+    }
+
+    public boolean isEmpty() {
+        return !reloadRequired && categories.isEmpty() && deletedCategoryIds.isEmpty()
+                && expenses.isEmpty() && deletedExpenseIds.isEmpty();
+    }
+}
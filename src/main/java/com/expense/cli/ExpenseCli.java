@@ -0,0 +1,121 @@
+package com.expense.cli;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import com.expense.dao.MainDAO;
+import com.expense.export.ExpenseExporter;
+import com.expense.export.ExportFormat;
+import com.expense.export.ExportOptions;
+import com.expense.partition.ExpenseArchiver;
+import com.expense.sketch.SketchBuilder;
+import com.expense.util.AppConfig;
+import com.expense.util.DatabaseConnection;
+import com.expense.util.StartupTimer;
+
+/**
+ * Headless entry point for scripted jobs (cron, CI) - no Swing classes are loaded
+ *
+ * COMMANDS:
+ * - export <file>          streams all expenses to .csv/.jsonl/.expb (format from the extension)
+ * - generate-recurring     materialises recurring expenses due up to today
+ * - rebuild-sketches       rebuilds every category/month sketch that still has its rows (archived months keep theirs)
+ * - partition-init         one-time migration of expenses to monthly range partitions
+ * - partition-maintain     adds partitions for the coming months and lists them (run monthly, e.g. from cron)
+ * - archive                writes months before yyyy-mm to gzip files in a directory and drops their partitions
+ * - check                  prints the effective configuration and circuit breaker state, connects (and to the read replica, if configured),
+ *                          warms the pool and prints the startup timing report
+ *
+ * WHY A SEPARATE MAIN: These paths are what the GraalVM native-image profile compiles; short jobs like these
+ * spend much of a JVM run warming up. The native build is unverified so far (see the native profile in pom.xml)
+ */
+public final class ExpenseCli {
+    private ExpenseCli() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        StartupTimer.begin();
+        if (args.length == 0) {
+            usage();
+            System.exit(2);
+        }
+        AppConfig config;
+        try {
+            config = AppConfig.get();
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        // Monthly partitions kept ready ahead of time; later dates fall into pmax until the next maintenance run
+        int monthsAhead = config.getPartitionMonthsAhead();
+
+        MainDAO dao = new MainDAO();
+        switch (args[0]) {
+            case "export":
+                if (args.length < 2) {
+                    usage();
+                    System.exit(2);
+                }
+                ExportOptions options = new ExportOptions(ExportFormat.fromFileName(args[1])).withCategoryNames();
+                if (args[1].toLowerCase().endsWith(".gz")) {
+                    options.compressed();
+                }
+                System.out.println(new ExpenseExporter(dao).export(Paths.get(args[1]), options));
+                break;
+            case "generate-recurring":
+                System.out.println(dao.materializeRecurringExpenses(LocalDate.now()) + " recurring expenses generated");
+                break;
+            case "rebuild-sketches":
+                System.out.println(SketchBuilder.rebuild(dao, null) + " category/month sketches written");
+                break;
+            case "partition-init":
+                dao.partitionExpenses(monthsAhead);
+                dao.getExpensePartitions().forEach(System.out::println);
+                break;
+            case "partition-maintain":
+                System.out.println(dao.addExpensePartitions(monthsAhead) + " partitions added");
+                dao.getExpensePartitions().forEach(System.out::println);
+                break;
+            case "archive":
+                if (args.length < 3) {
+                    usage();
+                    System.exit(2);
+                }
+                for (Path file : ExpenseArchiver.archiveBefore(dao, YearMonth.parse(args[1]), Paths.get(args[2]))) {
+                    System.out.println("Archived " + file);
+                }
+                break;
+            case "check":
+                System.out.print(config.describe());
+                try {
+                    StartupTimer.time("database check + warm-up", () -> {
+                        DatabaseConnection.getPool().warmUp(1);
+                        return null;
+                    });
+                    if (DatabaseConnection.getReplicaPool() != null) {
+                        DatabaseConnection.getReplicaPool().warmUp(1);
+                        System.out.println("Read replica reachable at " + DatabaseConnection.replicaUrl);
+                    }
+                } catch (SQLException e) {
+                    System.err.println("Database unreachable: " + e.getMessage());
+                } finally {
+                    System.out.println("Circuit breaker: " + DatabaseConnection.getPool().getCircuitBreaker());
+                    StartupTimer.report();
+                }
+                break;
+            default:
+                usage();
+                System.exit(2);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: expense-cli export <file.csv|file.jsonl|file.expb>[.gz]");
+        System.err.println("       expense-cli archive <yyyy-mm> <directory>");
+        System.err.println("       expense-cli generate-recurring | rebuild-sketches | partition-init | partition-maintain | check");
+    }
+}
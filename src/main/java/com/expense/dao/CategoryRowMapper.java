@@ -0,0 +1,44 @@
+package com.expense.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.model.Category;
+
+/**
+ * Maps category rows by column index instead of column label
+ * Flow: First row of a ResultSet -> resolve() looks up every column index once -> each later row reads by index only
+ * Same caching rules as ExpenseRowMapper: one instance per query, not thread-safe
+ */
+public class CategoryRowMapper implements RowMapper<Category> {
+    // Explicit column list - keeps the row shape stable even if columns are added to the table
+    public static final String COLUMNS = "category_id, name, description, version";
+
+    private ResultSet resolvedFor;
+    private int idColumn;
+    private int nameColumn;
+    private int descriptionColumn;
+    private int versionColumn;
+
+    @Override
+    public Category mapRow(ResultSet rs) throws SQLException {
+        if (rs != resolvedFor) {
+            resolve(rs);
+        }
+        Category category = new Category(
+                rs.getInt(idColumn),
+                rs.getString(nameColumn),
+                rs.getString(descriptionColumn)
+        );
+        category.setVersion(rs.getInt(versionColumn));
+        return category;
+    }
+
+    private void resolve(ResultSet rs) throws SQLException {
+        idColumn = rs.findColumn("category_id");
+        nameColumn = rs.findColumn("name");
+        descriptionColumn = rs.findColumn("description");
+        versionColumn = rs.findColumn("version");
+        resolvedFor = rs;
+    }
+}
@@ -0,0 +1,18 @@
+package com.expense.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown when the connection failed during COMMIT: the transaction may or may not have been applied
+ *
+ * Never retried automatically (ResilientExecutor treats it as permanent) - running a non-idempotent
+ * transaction again could apply it twice. The caller should reload before trying again
+ */
+public class CommitOutcomeUnknownException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    public CommitOutcomeUnknownException(SQLException cause) {
+        super("The database connection failed while saving; the change may or may not have been stored - "
+                + "please reload before trying again (" + cause.getMessage() + ")", cause.getSQLState(), cause.getErrorCode(), cause);
+    }
+}
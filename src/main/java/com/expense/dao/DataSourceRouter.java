@@ -0,0 +1,214 @@
+package com.expense.dao;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.sql.Statement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.expense.util.ConnectionPool;
+import com.expense.util.DatabaseConnection;
+
+/**
+ * Decides whether a read may go to the read replica or has to go to the primary
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. Writes always use DatabaseConnection.getDBConnection() (the primary) - this class is only asked about reads
+ * 2. Every lagCheckMillis (expense.replica.lagCheckMillis) the replica's SHOW REPLICA STATUS is read; it is usable while replication runs
+ *    and Seconds_Behind_Source is at most maxLagSeconds
+ *    The measurement runs on the "replica-lag" thread, started by the first read that finds it stale; reads never
+ *    wait for it and route by the last result (the primary until the first measurement is in)
+ * 3. Report reads (aggregates, exports, sketches) go to a usable replica
+ * 4. Session reads (the tables a user just edited) also stay on the primary for a while after this client
+ *    wrote or saw newer data from the primary, so nobody sees their own change disappear
+ * 5. A replica connection failure marks it unusable and the read is re-run on the primary
+ *
+ * WHY: reporting queries scan whole tables; on the replica they no longer compete with data entry
+ *
+ * Without a configured replica (DatabaseConnection.getReplicaPool() == null) everything goes to the primary
+ */
+public class DataSourceRouter {
+    /**
+     * Work to run on whichever connection the router picks
+     */
+    @FunctionalInterface
+    public interface Read<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    private final ConnectionPool replica;
+    private final long maxLagSeconds;
+    private final long lagCheckMillis;
+    private final long stickyMillis;
+
+    private final ExecutorService lagChecker;
+    private final AtomicBoolean measuring = new AtomicBoolean();
+
+    // Last measurement, published by refreshLag() and markDown(); read without locking
+    private volatile long checkedAt;
+    private volatile boolean usable;
+    private volatile long lagSeconds = -1;
+    private volatile long primaryNewerAt;
+
+    /**
+     * @param replica pool of replica connections, or null if there is no replica
+     * @param maxLagSeconds largest replication delay at which reads are still sent to the replica
+     * @param lagCheckMillis how long a lag measurement is trusted before it is taken again
+     */
+    public DataSourceRouter(ConnectionPool replica, long maxLagSeconds, long lagCheckMillis) {
+        this.replica = replica;
+        this.maxLagSeconds = maxLagSeconds;
+        this.lagCheckMillis = lagCheckMillis;
+        // Within this window a replica that is at most maxLagSeconds behind may still miss the change
+        this.stickyMillis = maxLagSeconds * 1000 + lagCheckMillis;
+        this.lagChecker = replica == null ? null : Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "replica-lag");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs a report read: replica when it is within the lag bound, primary otherwise
+     */
+    public <T> T readReport(Read<T> work) throws SQLException {
+        return read(work, false);
+    }
+
+    /**
+     * Runs a read that must not be older than what this client already wrote or saw
+     */
+    public <T> T readSession(Read<T> work) throws SQLException {
+        return read(work, true);
+    }
+
+    /**
+     * Borrows a connection for a report that keeps it open (streams); the caller closes it
+     */
+    public Connection reportConnection() throws SQLException {
+        if (useReplica(false)) {
+            try {
+                return replica.borrow();
+            } catch (SQLException e) {
+                markDown(e);
+            }
+        }
+        return DatabaseConnection.getDBConnection();
+    }
+
+    /**
+     * Tells the router this client now knows of primary data the replica may not have yet (own commit, change feed)
+     */
+    public void primaryIsNewer() {
+        primaryNewerAt = System.currentTimeMillis();
+    }
+
+    /**
+     * @return last measured replication delay in seconds, or -1 if unknown / not replicating / no replica
+     */
+    public long getLagSeconds() {
+        return lagSeconds;
+    }
+
+    public boolean isReplicaConfigured() {
+        return replica != null;
+    }
+
+    private <T> T read(Read<T> work, boolean session) throws SQLException {
+        if (useReplica(session)) {
+            try (Connection conn = replica.borrow()) {
+                return work.run(conn);
+            } catch (SQLException e) {
+                if (!ResilientExecutor.isConnectionFailure(e)) { // Includes the replica's open circuit breaker
+                    throw e;
+                }
+                markDown(e); // Fall through and run the read on the primary
+            }
+        }
+        try (Connection conn = DatabaseConnection.getDBConnection()) {
+            return work.run(conn);
+        }
+    }
+
+    private boolean useReplica(boolean session) {
+        if (replica == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (now - checkedAt >= lagCheckMillis && measuring.compareAndSet(false, true)) {
+            lagChecker.execute(this::refreshLag); // Only one measurement in flight; this read uses the last one
+        }
+        if (session && now - primaryNewerAt < stickyMillis) {
+            return false;
+        }
+        return usable;
+    }
+
+    /**
+     * Takes a lag measurement on the replica-lag thread and publishes it
+     * Flow: SHOW REPLICA STATUS without any lock held -> result published under the monitor, unless markDown()
+     *       saw the replica fail after the measurement started (the failure is newer)
+     */
+    private void refreshLag() {
+        try {
+            long started = System.currentTimeMillis();
+            long lag = measureLag();
+            boolean nowUsable = lag >= 0 && lag <= maxLagSeconds;
+            synchronized (this) {
+                if (checkedAt > started) {
+                    return;
+                }
+                if (nowUsable != usable) {
+                    System.out.println(nowUsable ? "Reading reports from the replica (" + lag + "s behind)"
+                            : "Replica not usable (lag " + (lag < 0 ? "unknown" : lag + "s") + ") - reading from the primary");
+                }
+                lagSeconds = lag;
+                usable = nowUsable;
+                checkedAt = System.currentTimeMillis();
+            }
+        } finally {
+            measuring.set(false);
+        }
+    }
+
+    /**
+     * @return Seconds_Behind_Source of the replica, or -1 if it cannot be reached or is not replicating
+     */
+    private long measureLag() {
+        try (Connection conn = replica.borrow(); Statement stmt = conn.createStatement()) {
+            ResultSet status;
+            try {
+                status = stmt.executeQuery("SHOW REPLICA STATUS");
+            } catch (SQLSyntaxErrorException e) {
+                status = stmt.executeQuery("SHOW SLAVE STATUS"); // Servers before MySQL 8.0.22
+            }
+            try (ResultSet rs = status) {
+                if (!rs.next()) {
+                    return -1; // Not configured as a replica
+                }
+                int column;
+                try {
+                    column = rs.findColumn("Seconds_Behind_Source");
+                } catch (SQLException e) {
+                    column = rs.findColumn("Seconds_Behind_Master");
+                }
+                long lag = rs.getLong(column);
+                return rs.wasNull() ? -1 : lag; // NULL while the replication threads are stopped
+            }
+        } catch (SQLException e) {
+            return -1;
+        }
+    }
+
+    private synchronized void markDown(SQLException cause) {
+        if (usable) {
+            System.out.println("Replica connection failed (" + cause.getMessage() + ") - reading from the primary");
+        }
+        usable = false;
+        lagSeconds = -1;
+        checkedAt = System.currentTimeMillis();
+    }
+}
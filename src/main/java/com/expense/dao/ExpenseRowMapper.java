@@ -0,0 +1,68 @@
+package com.expense.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+import com.model.Expense;
+import com.model.PaymentMethod;
+
+/**
+ * Maps expense rows by column index instead of column label
+ * Flow: First row of a ResultSet -> resolve() looks up every column index once -> each later row reads by index only
+ *
+ * WHY INDEXES:
+ * - rs.getXxx("label") does a case-insensitive name lookup for every field of every row
+ * - The indexes never change within one ResultSet, so they are resolved once and cached in int fields
+ * - Timestamps are read as LocalDateTime directly, skipping the intermediate java.sql.Timestamp
+ *
+ * A mapper instance caches indexes for the ResultSet it last saw, so use one instance per query (not thread-safe)
+ */
+public class ExpenseRowMapper implements RowMapper<Expense> {
+    // Explicit column list - keeps the row shape stable even if columns are added to the table
+    public static final String COLUMNS = "expense_id, category_id, payment_method, amount, description, expense_date, created_at, version";
+
+    private ResultSet resolvedFor;
+    private int idColumn;
+    private int categoryColumn;
+    private int paymentColumn;
+    private int amountColumn;
+    private int descriptionColumn;
+    private int expenseDateColumn;
+    private int createdAtColumn;
+    private int versionColumn;
+
+    @Override
+    public Expense mapRow(ResultSet rs) throws SQLException {
+        if (rs != resolvedFor) {
+            resolve(rs);
+        }
+        Expense expense = new Expense(
+                rs.getInt(idColumn),
+                rs.getInt(categoryColumn),
+                PaymentMethod.fromDatabase(rs.getString(paymentColumn)),
+                rs.getInt(amountColumn) // Driver truncates DECIMAL to int without a BigDecimal
+        );
+        expense.setDescription(rs.getString(descriptionColumn));
+        expense.setExpense_date(rs.getObject(expenseDateColumn, LocalDateTime.class));
+        expense.setCreated_at(rs.getObject(createdAtColumn, LocalDateTime.class));
+        expense.setVersion(rs.getInt(versionColumn));
+        return expense;
+    }
+
+    /**
+     * Resolves all column indexes for a new ResultSet
+     * Flow: Called once per ResultSet from mapRow() -> rs.findColumn() for each label -> stored in fields
+     */
+    private void resolve(ResultSet rs) throws SQLException {
+        idColumn = rs.findColumn("expense_id");
+        categoryColumn = rs.findColumn("category_id");
+        paymentColumn = rs.findColumn("payment_method");
+        amountColumn = rs.findColumn("amount");
+        descriptionColumn = rs.findColumn("description");
+        expenseDateColumn = rs.findColumn("expense_date");
+        createdAtColumn = rs.findColumn("created_at");
+        versionColumn = rs.findColumn("version");
+        resolvedFor = rs;
+    }
+}
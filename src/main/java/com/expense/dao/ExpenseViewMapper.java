@@ -0,0 +1,81 @@
+package com.expense.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import com.model.CategoryRef;
+import com.model.ExpenseView;
+import com.model.PaymentMethod;
+
+/**
+ * Maps expense rows into compact ExpenseView objects, by column index like ExpenseRowMapper
+ * Flow: First row of a ResultSet -> resolve() looks up every column index once -> each later row reads by index only
+ *
+ * WHY A DIFFERENT COLUMN LIST:
+ * - The server turns expense_date/created_at into epoch seconds (TIMESTAMPDIFF from 1970-01-01, no time zone involved),
+ *   so each row reads two longs instead of building two LocalDateTime objects
+ * - The WHERE clauses are unchanged, so partition pruning on expense_date still works
+ * - Dates are whole seconds; the DATETIME columns carry no fractional part
+ *
+ * One instance per query (not thread-safe); the category table is shared by all rows of the query
+ */
+public class ExpenseViewMapper implements RowMapper<ExpenseView> {
+    public static final String COLUMNS = "expense_id, category_id, payment_method, amount, description, "
+            + "TIMESTAMPDIFF(SECOND, '1970-01-01', expense_date) AS expense_date_seconds, "
+            + "TIMESTAMPDIFF(SECOND, '1970-01-01', created_at) AS created_at_seconds, version";
+
+    private final CategoryRef.Table categories;
+
+    private ResultSet resolvedFor;
+    private int idColumn;
+    private int categoryColumn;
+    private int paymentColumn;
+    private int amountColumn;
+    private int descriptionColumn;
+    private int expenseDateColumn;
+    private int createdAtColumn;
+    private int versionColumn;
+
+    /**
+     * @param categories flyweight table the rows take their CategoryRef from
+     */
+    public ExpenseViewMapper(CategoryRef.Table categories) {
+        this.categories = categories;
+    }
+
+    @Override
+    public ExpenseView mapRow(ResultSet rs) throws SQLException {
+        if (rs != resolvedFor) {
+            resolve(rs);
+        }
+        String description = rs.getString(descriptionColumn);
+        return new ExpenseView(
+                rs.getInt(idColumn),
+                categories.ref(rs.getInt(categoryColumn)),
+                PaymentMethod.fromDatabase(rs.getString(paymentColumn)),
+                rs.getInt(amountColumn),
+                description != null ? description.getBytes(StandardCharsets.UTF_8) : null,
+                seconds(rs, expenseDateColumn),
+                seconds(rs, createdAtColumn),
+                rs.getInt(versionColumn)
+        );
+    }
+
+    private static long seconds(ResultSet rs, int column) throws SQLException {
+        long seconds = rs.getLong(column);
+        return rs.wasNull() ? ExpenseView.NULL_TIME : seconds;
+    }
+
+    private void resolve(ResultSet rs) throws SQLException {
+        idColumn = rs.findColumn("expense_id");
+        categoryColumn = rs.findColumn("category_id");
+        paymentColumn = rs.findColumn("payment_method");
+        amountColumn = rs.findColumn("amount");
+        descriptionColumn = rs.findColumn("description");
+        expenseDateColumn = rs.findColumn("expense_date_seconds");
+        createdAtColumn = rs.findColumn("created_at_seconds");
+        versionColumn = rs.findColumn("version");
+        resolvedFor = rs;
+    }
+}
@@ -2,26 +2,151 @@ package com.expense.dao;
 
 import java.sql.*;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import com.model.Budget;
 import com.model.Category;
+import com.model.CategoryRef;
 import com.model.Expense;
+import com.model.ExpenseView;
 import com.model.PaymentMethod;
+import com.model.RecurrenceFrequency;
+import com.model.RecurringExpense;
+import com.expense.budget.BudgetMonitor;
+import com.expense.changes.ChangeLogEntry;
+import com.expense.partition.ExpensePartition;
+import com.expense.report.ExpenseAggregates;
+import com.expense.sketch.DistinctCountSketch;
+import com.expense.sketch.MonthlySketch;
+import com.expense.sketch.QuantileSketch;
+import com.expense.util.AppConfig;
 import com.expense.util.DatabaseConnection;
+import com.expense.util.QueryScope;
 
 public class MainDAO {
     // SQL queries for Categories table (matching your actual database schema)
     private static final String INSERT_CATEGORY = "INSERT INTO categories(name, description) VALUES (?, ?)";
-    private static final String GET_ALL_CATEGORY = "SELECT * FROM categories";
-    private static final String UPDATE_CATEGORY = "UPDATE categories SET name=?, description=? WHERE category_id=?";
+    private static final String GET_ALL_CATEGORY = "SELECT " + CategoryRowMapper.COLUMNS + " FROM categories";
+    private static final String UPDATE_CATEGORY = "UPDATE categories SET name=?, description=?, version=version+1 WHERE category_id=?";
+    // Optimistic concurrency: the row is only updated if nobody changed it since it was read
+    // (categories and expenses both have: version INT NOT NULL DEFAULT 1; every UPDATE bumps it)
+    private static final String UPDATE_CATEGORY_VERSIONED = UPDATE_CATEGORY + " AND version=?";
+    private static final String GET_CATEGORY = GET_ALL_CATEGORY + " WHERE category_id=?";
     private static final String DELETE_CATEGORY = "DELETE FROM categories WHERE category_id=?";
     
     // SQL queries for Expenses table (matching your actual database schema)
     private static final String INSERT_EXPENSE = "INSERT INTO expenses(category_id, payment_method, amount, description, expense_date, created_at) VALUES (?, ?, ?, ?, ?, ?)";
     private static final String DELETE_EXPENSE = "DELETE FROM expenses WHERE expense_id=?";
-    private static final String GET_ALL_EXPENSE = "SELECT * FROM expenses";
-    private static final String UPDATE_EXPENSE = "UPDATE expenses SET category_id=?, payment_method=?, amount=?, description=?, expense_date=? WHERE expense_id=?";
+    private static final String GET_ALL_EXPENSE = "SELECT " + ExpenseRowMapper.COLUMNS + " FROM expenses";
+    private static final String GET_EXPENSES_BETWEEN = "SELECT " + ExpenseRowMapper.COLUMNS + " FROM expenses WHERE expense_date >= ? AND expense_date < ?";
+    private static final String GET_ALL_EXPENSE_VIEWS = "SELECT " + ExpenseViewMapper.COLUMNS + " FROM expenses";
+    private static final String GET_EXPENSE_VIEWS_BETWEEN = "SELECT " + ExpenseViewMapper.COLUMNS + " FROM expenses WHERE expense_date >= ? AND expense_date < ?";
+    private static final String REASSIGN_EXPENSES = "UPDATE expenses SET category_id=?, version=version+1 WHERE category_id=?";
+    private static final String DELETE_EXPENSES_BY_CATEGORY = "DELETE FROM expenses WHERE category_id=?";
+    private static final String DELETE_EXPENSES_BY_ID = "DELETE FROM expenses WHERE expense_id IN ";
+    // Aggregate queries for the dashboard - the server returns one row per day/category/payment method
+    private static final String DAILY_TOTALS = "SELECT DATE(expense_date) AS day, SUM(amount) AS total FROM expenses GROUP BY DATE(expense_date) ORDER BY day";
+    private static final String CATEGORY_TOTALS = "SELECT category_id, SUM(amount) AS total FROM expenses GROUP BY category_id";
+    private static final String PAYMENT_TOTALS = "SELECT payment_method, SUM(amount) AS total FROM expenses GROUP BY payment_method";
+    // Budgets: one monthly limit per category, written with an upsert so setting a budget is a single statement
+    private static final String GET_ALL_BUDGETS = "SELECT category_id, monthly_limit FROM budgets";
+    private static final String SAVE_BUDGET = "INSERT INTO budgets(category_id, monthly_limit) VALUES (?, ?) ON DUPLICATE KEY UPDATE monthly_limit=VALUES(monthly_limit)";
+    private static final String DELETE_BUDGET = "DELETE FROM budgets WHERE category_id=?";
+    private static final String MONTHLY_CATEGORY_TOTALS = "SELECT category_id, YEAR(expense_date), MONTH(expense_date), SUM(amount) FROM expenses WHERE expense_date IS NOT NULL GROUP BY category_id, YEAR(expense_date), MONTH(expense_date)";
+    // Recurring expense templates; generated expenses carry a unique idempotency_key so INSERT IGNORE skips repeats
+    private static final String RECURRING_COLUMNS = "template_id, category_id, payment_method, amount, description, frequency, interval_count, start_date, end_date, occurrences, next_due";
+    private static final String INSERT_RECURRING = "INSERT INTO recurring_expenses(category_id, payment_method, amount, description, frequency, interval_count, start_date, end_date, occurrences, next_due) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, ?)";
+    private static final String GET_ALL_RECURRING = "SELECT " + RECURRING_COLUMNS + " FROM recurring_expenses";
+    private static final String GET_DUE_RECURRING = "SELECT " + RECURRING_COLUMNS + " FROM recurring_expenses WHERE next_due <= ? FOR UPDATE";
+    private static final String ADVANCE_RECURRING = "UPDATE recurring_expenses SET occurrences=?, next_due=? WHERE template_id=?";
+    private static final String DELETE_RECURRING = "DELETE FROM recurring_expenses WHERE template_id=?";
+    private static final String INSERT_EXPENSE_IDEMPOTENT = "INSERT IGNORE INTO expenses(category_id, payment_method, amount, description, expense_date, created_at, idempotency_key) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    // Idempotency keys are claimed in their own, never partitioned table: a partitioned expenses table needs
+    // expense_date in every unique key, so its idempotency_key index only stops repeats of the same (key, date)
+    // (expense_idempotency: idempotency_key VARCHAR(64) PRIMARY KEY, expense_id INT NOT NULL; expense_id is 0 until
+    //  the claiming transaction has inserted the expense)
+    private static final String CLAIM_EXPENSE_KEY = "INSERT IGNORE INTO expense_idempotency(idempotency_key, expense_id) VALUES (?, 0)";
+    private static final String LINK_EXPENSE_KEY = "UPDATE expense_idempotency i JOIN expenses e ON e.idempotency_key = i.idempotency_key SET i.expense_id = e.expense_id WHERE i.idempotency_key=?";
+    private static final String RELEASE_EXPENSE_KEY = "DELETE FROM expense_idempotency WHERE idempotency_key=? AND expense_id=0";
+    private static final String GET_EXPENSE_ID_BY_KEY = "SELECT expense_id FROM expense_idempotency WHERE idempotency_key=?";
+    private static final String BACKFILL_EXPENSE_KEYS = "INSERT IGNORE INTO expense_idempotency(idempotency_key, expense_id) SELECT idempotency_key, MIN(expense_id) FROM expenses WHERE idempotency_key IS NOT NULL GROUP BY idempotency_key";
+    // Monthly sketches per category; period is yyyymm so a month range is a primary key range scan
+    private static final String SAVE_SKETCH = "INSERT INTO expense_sketches(category_id, period, amounts, merchants) VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE amounts=VALUES(amounts), merchants=VALUES(merchants)";
+    private static final String GET_SKETCHES = "SELECT category_id, period, amounts, merchants FROM expense_sketches WHERE category_id=? AND period BETWEEN ? AND ?";
+    private static final String DELETE_SKETCHES_FROM = "DELETE FROM expense_sketches WHERE period >= ?";
+    private static final String DELETE_SKETCH = "DELETE FROM expense_sketches WHERE category_id=? AND period=?";
+    // Category/months whose stored sketch may no longer match their expenses: every expense write marks the months it
+    // takes rows out of and puts rows into, in the same transaction, and SketchBuilder.refreshStale() rebuilds them
+    // (expense_sketch_stale: category_id INT, period INT, marks INT NOT NULL DEFAULT 1, PRIMARY KEY(category_id, period));
+    // marks counts the writes, so a refresh only clears a mark that no write has bumped since it was read
+    private static final String MARK_SKETCH_STALE = "INSERT INTO expense_sketch_stale(category_id, period) VALUES (?, ?) ON DUPLICATE KEY UPDATE marks = marks + 1";
+    private static final String MARK_SKETCHES_STALE_BY_ID = "INSERT INTO expense_sketch_stale(category_id, period) SELECT category_id, YEAR(expense_date) * 100 + MONTH(expense_date) FROM expenses WHERE expense_date IS NOT NULL AND expense_id IN ";
+    private static final String MARK_STALE_ON_DUPLICATE = " ON DUPLICATE KEY UPDATE marks = marks + 1";
+    private static final String MARK_SKETCHES_STALE_OF_CATEGORY = "INSERT INTO expense_sketch_stale(category_id, period) SELECT ?, YEAR(expense_date) * 100 + MONTH(expense_date) FROM expenses WHERE category_id=? AND expense_date IS NOT NULL GROUP BY 2" + MARK_STALE_ON_DUPLICATE;
+    private static final String GET_STALE_SKETCHES = "SELECT category_id, period, marks FROM expense_sketch_stale";
+    private static final String CLEAR_SKETCH_STALE = "DELETE FROM expense_sketch_stale WHERE category_id=? AND period=? AND marks=?";
+    private static final String UPDATE_EXPENSE = "UPDATE expenses SET category_id=?, payment_method=?, amount=?, description=?, expense_date=?, version=version+1 WHERE expense_id=?";
+    private static final String UPDATE_EXPENSE_VERSIONED = UPDATE_EXPENSE + " AND version=?";
+    private static final String GET_EXPENSE = GET_ALL_EXPENSE + " WHERE expense_id=?";
+    // Change feed: every write also appends (entity, row id) to change_log in the same transaction, so other
+    // clients read only what changed since their last poll
+    // (change_log: change_id BIGINT AUTO_INCREMENT PRIMARY KEY, entity CHAR(1), row_id INT, deleted BOOLEAN,
+    //  changed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP with an index for pruning)
+    private static final String LOG_CHANGE = "INSERT INTO change_log(entity, row_id, deleted) VALUES (?, ?, ?)";
+    private static final String LOG_EXPENSES_OF_CATEGORY = "INSERT INTO change_log(entity, row_id, deleted) SELECT 'E', expense_id, ? FROM expenses WHERE category_id=?";
+    private static final String LOG_IDEMPOTENT_EXPENSE = "INSERT INTO change_log(entity, row_id, deleted) SELECT 'E', expense_id, FALSE FROM expense_idempotency WHERE idempotency_key=?";
+    private static final String GET_CHANGES = "SELECT change_id, entity, row_id, deleted FROM change_log WHERE change_id > ? ORDER BY change_id LIMIT ?";
+    private static final String GET_LATEST_CHANGE = "SELECT COALESCE(MAX(change_id), 0) FROM change_log";
+    private static final String PRUNE_CHANGE_LOG = "DELETE FROM change_log WHERE changed_at < NOW() - INTERVAL ? HOUR";
+    // Time partitioning of expenses: RANGE COLUMNS(expense_date), one partition per month (pYYYYMM) plus a catch-all
+    // pmax. Queries that filter on expense_date directly (GET_EXPENSES_BETWEEN, COUNT_EXPENSES_BETWEEN) only read the
+    // partitions of their range; lookups by expense_id probe each partition's primary key once
+    private static final String GET_EXPENSE_PARTITIONS = "SELECT PARTITION_NAME, TABLE_ROWS, DATA_LENGTH + INDEX_LENGTH FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'expenses' AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION";
+    private static final String GET_EXPENSE_FOREIGN_KEYS = "SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = 'expenses'";
+    private static final String GET_EXPENSE_UNIQUE_KEYS = "SELECT INDEX_NAME, GROUP_CONCAT(COLUMN_NAME ORDER BY SEQ_IN_INDEX) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'expenses' AND NON_UNIQUE = 0 GROUP BY INDEX_NAME";
+    private static final String GET_FIRST_EXPENSE_DATE = "SELECT MIN(expense_date) FROM expenses";
+    private static final String COUNT_EXPENSES_BETWEEN = "SELECT COUNT(*) FROM expenses WHERE expense_date >= ? AND expense_date < ?";
+    // Partitioned tables cannot have foreign keys, so deleteCategory() checks for remaining expenses itself
+    private static final String CATEGORY_HAS_EXPENSES = "SELECT 1 FROM expenses WHERE category_id=? LIMIT 1";
+    private static final int ER_ROW_IS_REFERENCED = 1451;
+    private static final String GET_CATEGORIES_BY_ID = GET_ALL_CATEGORY + " WHERE category_id IN ";
+    private static final String GET_EXPENSES_BY_ID = GET_ALL_EXPENSE + " WHERE expense_id IN ";
+
+    // Tuning knobs, see AppConfig (expense.dao.*)
+    private static final AppConfig CONFIG = AppConfig.get();
+
+    // MySQL Connector/J only streams rows one at a time when the fetch size is exactly Integer.MIN_VALUE
+    // on a forward-only, read-only statement; any other value buffers the whole result in heap unless
+    // the URL enables useCursorFetch, in which case rows arrive in pages of that size
+    private static final int STREAMING_FETCH_SIZE = CONFIG.getFetchSize();
+
+    // Bulk operations bind ids in fixed-size IN lists; the last chunk is padded by repeating an id,
+    // so every chunk uses the same SQL text and hits the same cached prepared statement
+    private static final int BULK_CHUNK_SIZE = CONFIG.getBatchSize();
+
+    // Retries deadlocks and lock waits always, connection failures only for idempotent work (see ResilientExecutor)
+    private static final ResilientExecutor EXECUTOR = new ResilientExecutor(
+            CONFIG.getRetryAttempts(), CONFIG.getRetryBackoffMillis(), CONFIG.getRetryMaxBackoffMillis());
+
+    // Per-statement server time limits (seconds); interactive calls use expense.query.timeoutSeconds via QueryScope's default
+    private static final int REPORT_TIMEOUT_SECONDS = CONFIG.getReportTimeoutSeconds();
+    private static final int BULK_TIMEOUT_SECONDS = CONFIG.getBulkTimeoutSeconds();
+
+    // Sends report reads (and session reads when safe) to the read replica; writes always use the primary
+    private static final DataSourceRouter ROUTER =
+            new DataSourceRouter(DatabaseConnection.getReplicaPool(), DatabaseConnection.replicaMaxLagSeconds,
+                    CONFIG.getReplicaLagCheckMillis());
 
     /**
      * Creates a new category in the database
@@ -54,11 +179,19 @@ public class MainDAO {
      * @return Generated category ID from database, or -1 if failed
      */
     public int createCategory(Category category) throws SQLException {
-        // STEP 1: Get database connection and prepare SQL statement
-        // WHY: Need connection to MySQL server to execute INSERT query
-        // HOW: DatabaseConnection creates TCP socket connection to localhost:3306
-        try (Connection conn = DatabaseConnection.getDBConnection();
-             PreparedStatement stmt = conn.prepareStatement(INSERT_CATEGORY, Statement.RETURN_GENERATED_KEYS)) {
+        return inTransaction(work -> createCategory(work.getConnection(), category));
+    }
+
+    /**
+     * Same as createCategory(Category) but runs on the caller's connection
+     * Flow: Used by the public method (own transaction) and by UnitOfWork (shared transaction);
+     *       the change_log entry is written on the same connection, so it commits with the row
+     */
+    int createCategory(Connection conn, Category category) throws SQLException {
+        // STEP 1: Prepare SQL statement
+        // WHY: Caller's connection decides which transaction the statement runs in
+        // HOW: StatementCache hands back an already-prepared statement when possible
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_CATEGORY, Statement.RETURN_GENERATED_KEYS)) {
             
             // STEP 2: Fill SQL placeholders with actual values
             // WHY: SQL injection prevention - placeholders are safe
@@ -79,7 +212,9 @@ public class MainDAO {
             // HOW: MySQL returns the auto-incremented category_id
             try (ResultSet rs = stmt.getGeneratedKeys()) {
                 if (rs.next()) {
-                    return rs.getInt(1); // Return the new category_id
+                    int id = rs.getInt(1);
+                    logChanges(conn, ChangeLogEntry.CATEGORY, new int[] {id}, false);
+                    return id; // Return the new category_id
                 }
             }
         }
@@ -94,10 +229,11 @@ public class MainDAO {
      * 2. DatabaseConnection.getDBConnection() -> creates TCP connection to MySQL server
      * 3. PreparedStatement created -> SQL UPDATE query prepared with placeholders
      * 4. stmt.setString() -> fills placeholders with new name and description
-     * 5. stmt.setInt() -> fills WHERE clause with existing category ID
+     * 5. stmt.setInt() -> fills WHERE clause with existing category ID (and the version the caller loaded, if known)
      * 6. stmt.executeUpdate() -> sends UPDATE query to MySQL server
-     * 7. MySQL server -> finds row by ID -> updates name and description -> returns affected rows
-     * 8. Method returns true if 1+ rows updated, false if no rows found
+     * 7. MySQL server -> finds row by ID (and version) -> updates name and description, bumps version -> returns affected rows
+     * 8. Method returns true if 1+ rows updated, false if no rows found; a row that still exists under another
+     *    version throws OptimisticLockException carrying the current row
      * 9. Connection closed -> automatically by try-with-resources
      * 
      * WHERE IT FETCHES DATA:
@@ -108,20 +244,34 @@ public class MainDAO {
      * WHAT HAPPENS IN BACKGROUND:
      * - TCP connection established to localhost:3306
      * - MySQL server authenticates credentials
-     * - SQL UPDATE query executed: "UPDATE categories SET name=?, description=? WHERE category_id=?"
-     * - MySQL finds row by category_id and updates name/description
+     * - SQL UPDATE query executed: "UPDATE categories SET name=?, description=?, version=version+1 WHERE category_id=?",
+     *   with " AND version=?" appended when category.getVersion() > 0 (a concurrent edit then matches no row)
+     * - MySQL finds row by category_id, updates name/description and increments version
      * - Returns number of affected rows (should be 1)
      * - Connection automatically closed
      * 
-     * @param category Category object with updated information and existing ID
-     * @return true if update successful (1+ rows affected), false otherwise
+     * @param category Category object with updated information, existing ID and the version it was loaded at
+     *                 (0 = unknown: update without the version check)
+     * @return true if update successful (1+ rows affected), false if the category no longer exists
+     * @throws OptimisticLockException if someone else changed the category since it was loaded
      */
     public boolean updateCategory(Category category) throws SQLException {
-        // STEP 1: Get database connection and prepare UPDATE statement
-        // WHY: Need connection to MySQL server to execute UPDATE query
-        // HOW: DatabaseConnection creates TCP socket connection to localhost:3306
-        try (Connection conn = DatabaseConnection.getDBConnection();
-             PreparedStatement stmt = conn.prepareStatement(UPDATE_CATEGORY)) {
+        return inTransaction(work -> work.updateCategory(category));
+    }
+
+    /**
+     * Same as updateCategory(Category) but runs on the caller's connection
+     * Flow: Used by UnitOfWork, for the public method (own transaction) and callers' shared transactions
+     * Leaves category.version alone: UnitOfWork advances it after COMMIT, so a retried transaction sends the same
+     * version again and a failed one leaves the caller's object as it was
+     */
+    boolean updateCategory(Connection conn, Category category) throws SQLException {
+        // STEP 1: Prepare UPDATE statement
+        // WHY: Caller's connection decides which transaction the statement runs in
+        // HOW: StatementCache hands back an already-prepared statement when possible
+        //      A known version adds "AND version=?" so a concurrent edit makes the UPDATE match nothing
+        boolean versioned = category.getVersion() > 0;
+        try (PreparedStatement stmt = conn.prepareStatement(versioned ? UPDATE_CATEGORY_VERSIONED : UPDATE_CATEGORY)) {
             
             // STEP 2: Fill SQL placeholders with updated values
             // WHY: SQL injection prevention - placeholders are safe
@@ -129,13 +279,30 @@ public class MainDAO {
             stmt.setString(1, category.getCategoryname()); // First ? becomes new name
             stmt.setString(2, category.getCategorydescription()); // Second ? becomes new description
             stmt.setInt(3, category.getCategoryid()); // Third ? becomes WHERE clause ID
+            if (versioned) {
+                stmt.setInt(4, category.getVersion()); // Version the caller loaded
+            }
 
             // STEP 3: Execute UPDATE query on MySQL server
             // WHY: Actually update the data in database
-            // HOW: MySQL server finds row by ID and updates name/description
-            // RETURNS: Number of affected rows (1 if successful, 0 if not found)
-            return stmt.executeUpdate() > 0; // Return true if 1+ rows were updated
+            // HOW: MySQL server finds row by ID (and version) and updates name/description
+            // RETURNS: Number of affected rows (1 if successful, 0 if not found or changed by someone else)
+            if (stmt.executeUpdate() > 0) {
+                logChanges(conn, ChangeLogEntry.CATEGORY, new int[] {category.getCategoryid()}, false);
+                return true;
+            }
+        }
+        if (!versioned) {
+            return false;
         }
+
+        // STEP 4: Nothing matched - tell "deleted" (false) apart from "changed by someone else" (exception)
+        Category current = findOne(conn, GET_CATEGORY, new CategoryRowMapper(), category.getCategoryid());
+        if (current == null) {
+            return false;
+        }
+        throw new OptimisticLockException("Category " + category.getCategoryid()
+                + " was changed by another user (now version " + current.getVersion() + ")", current);
     }
 
     /**
@@ -168,11 +335,28 @@ public class MainDAO {
      * @return true if deletion successful (1+ rows affected), false otherwise
      */
     public boolean deleteCategory(Category category) throws SQLException {
-        // STEP 1: Get database connection and prepare DELETE statement
-        // WHY: Need connection to MySQL server to execute DELETE query
-        // HOW: DatabaseConnection creates TCP socket connection to localhost:3306
-        try (Connection conn = DatabaseConnection.getDBConnection();
-             PreparedStatement stmt = conn.prepareStatement(DELETE_CATEGORY)) {
+        return inTransaction(work -> deleteCategory(work.getConnection(), category));
+    }
+
+    /**
+     * Same as deleteCategory(Category) but runs on the caller's connection
+     * Flow: Used by the public method (own transaction) and by UnitOfWork (shared transaction)
+     */
+    boolean deleteCategory(Connection conn, Category category) throws SQLException {
+        // STEP 1: Prepare DELETE statement
+        // WHY: Caller's connection decides which transaction the statement runs in
+        // HOW: StatementCache hands back an already-prepared statement when possible
+        try (PreparedStatement check = conn.prepareStatement(CATEGORY_HAS_EXPENSES)) {
+            check.setInt(1, category.getCategoryid());
+            try (ResultSet rs = check.executeQuery()) {
+                if (rs.next()) {
+                    // Same error the foreign key raised before expenses was partitioned
+                    throw new SQLException("Cannot delete category " + category.getCategoryid()
+                            + ": it still has expenses", "23000", ER_ROW_IS_REFERENCED);
+                }
+            }
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(DELETE_CATEGORY)) {
             
             // STEP 2: Fill SQL placeholder with category ID
             // WHY: SQL injection prevention - placeholders are safe
@@ -183,8 +367,12 @@ public class MainDAO {
             // WHY: Actually delete the data from database
             // HOW: MySQL server finds row by ID and deletes it
             // RETURNS: Number of affected rows (1 if successful, 0 if not found)
-            return stmt.executeUpdate() > 0; // Return true if 1+ rows were deleted
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
         }
+        logChanges(conn, ChangeLogEntry.CATEGORY, new int[] {category.getCategoryid()}, true);
+        return true; // 1+ rows were deleted
     }
     /**
      * Retrieves all categories from the database
@@ -197,7 +385,7 @@ public class MainDAO {
      * 5. MySQL server -> executes SELECT * FROM categories -> returns all rows
      * 6. ResultSet created -> contains all category data from database
      * 7. while(rs.next()) -> loops through each row in ResultSet
-     * 8. getCategoryRow() -> converts each database row to Category object
+     * 8. CategoryRowMapper -> converts each database row to Category object
      * 9. Category objects added to List -> returned to GUI
      * 10. Connection closed -> automatically by try-with-resources
      * 
@@ -209,7 +397,7 @@ public class MainDAO {
      * WHAT HAPPENS IN BACKGROUND:
      * - TCP connection established to localhost:3306
      * - MySQL server authenticates credentials
-     * - SQL SELECT query executed: "SELECT * FROM categories"
+     * - SQL SELECT query executed: "SELECT category_id, name, description FROM categories"
      * - MySQL returns all rows with category_id, name, description
      * - ResultSet processed row by row
      * - Each row converted to Category object
@@ -219,16 +407,24 @@ public class MainDAO {
      * @return List of all Category objects from database
      */
     public List<Category> getAllCategories() throws SQLException {
+        return EXECUTOR.execute("categories", true, () -> ROUTER.readSession(this::getAllCategories));
+    }
+
+    /**
+     * Same as getAllCategories() but runs on the caller's connection
+     * Flow: Used directly by the public method (auto-commit) and by UnitOfWork (shared transaction)
+     */
+    List<Category> getAllCategories(Connection conn) throws SQLException {
         // STEP 1: Create empty list to store Category objects
         // WHY: Need collection to hold multiple Category objects
         // HOW: ArrayList provides dynamic array functionality
         List<Category> categories = new ArrayList<>();
+        CategoryRowMapper mapper = new CategoryRowMapper();
         
-        // STEP 2: Get database connection and execute SELECT query
-        // WHY: Need connection to MySQL server to execute SELECT query
-        // HOW: DatabaseConnection creates TCP socket connection to localhost:3306
-        try (Connection conn = DatabaseConnection.getDBConnection();
-             PreparedStatement stmt = conn.prepareStatement(GET_ALL_CATEGORY);
+        // STEP 2: Execute SELECT query
+        // WHY: Caller's connection decides which transaction the statement runs in
+        // HOW: StatementCache hands back an already-prepared statement when possible
+        try (PreparedStatement stmt = conn.prepareStatement(GET_ALL_CATEGORY);
              ResultSet rs = stmt.executeQuery()) {
             
             // STEP 3: Process each row from database
@@ -237,8 +433,8 @@ public class MainDAO {
             while (rs.next()) {
                 // STEP 4: Convert database row to Category object
                 // WHY: GUI needs Category objects, not raw database data
-                // HOW: getCategoryRow() extracts data from ResultSet and creates Category
-                categories.add(getCategoryRow(rs));
+                // HOW: CategoryRowMapper reads columns by cached index and creates Category
+                categories.add(mapper.mapRow(rs));
             }
         }
         // STEP 5: Return list of Category objects to GUI
@@ -247,20 +443,6 @@ public class MainDAO {
         return categories;
     }
 
-    /**
-     * Helper method to create Category object from ResultSet row
-     * Flow: Receives ResultSet -> extracts data -> creates and returns Category object
-     * @param rs ResultSet pointing to current row
-     * @return Category object with data from current row
-     */
-    private Category getCategoryRow(ResultSet rs) throws SQLException {
-        return new Category(
-                rs.getInt("category_id"),
-                rs.getString("name"),
-                rs.getString("description")
-        );
-    }
-
     /**
      * Creates a new expense in the database
      * Flow: Receives Expense object -> inserts into Expense table -> returns generated ID
@@ -268,8 +450,15 @@ public class MainDAO {
      * @return Generated expense ID or -1 if failed
      */
     public int createExpense(Expense expense) throws SQLException {
-        try (Connection conn = DatabaseConnection.getDBConnection();
-             PreparedStatement stmt = conn.prepareStatement(INSERT_EXPENSE, Statement.RETURN_GENERATED_KEYS)) {
+        return inTransaction(work -> createExpense(work.getConnection(), expense));
+    }
+
+    /**
+     * Same as createExpense(Expense) but runs on the caller's connection
+     * Flow: Used by the public method (own transaction) and by UnitOfWork (shared transaction)
+     */
+    int createExpense(Connection conn, Expense expense) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_EXPENSE, Statement.RETURN_GENERATED_KEYS)) {
             
             stmt.setInt(1, expense.getCategory_id());
             stmt.setString(2, expense.getPaymentMethod().toString());
@@ -285,13 +474,81 @@ public class MainDAO {
             
             try (ResultSet rs = stmt.getGeneratedKeys()) {
                 if (rs.next()) {
-                    return rs.getInt(1);
+                    int id = rs.getInt(1);
+                    logChanges(conn, ChangeLogEntry.EXPENSE, new int[] {id}, false);
+                    markSketchStale(conn, expense.getCategory_id(), expense.getExpense_date());
+                    return id;
                 }
             }
         }
         return -1;
     }
 
+    /**
+     * Creates an expense at most once per idempotency key (offline sync, where a crash can repeat a push)
+     *
+     * FLOW:
+     * 1. Claims the key in expense_idempotency; if it is already taken (an earlier push got through, or is committing
+     *    right now - the claim waits for its row lock) returns the id recorded there
+     * 2. Inserts the expense and links the claim to it, all in one transaction; if no expense carries the key
+     *    afterwards (INSERT IGNORE swallowed a missing category) the transaction rolls back, releasing the claim
+     * The key outlives the expense: repeating a push after the row was deleted returns the deleted id instead of
+     * recreating it
+     *
+     * @param idempotencyKey unique key of the client-side row, at most 64 characters
+     * @return id of the expense carrying the key
+     */
+    public int createExpense(Expense expense, String idempotencyKey) throws SQLException {
+        return inTransaction(work -> createExpense(work.getConnection(), expense, idempotencyKey));
+    }
+
+    int createExpense(Connection conn, Expense expense, String idempotencyKey) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(CLAIM_EXPENSE_KEY)) {
+            stmt.setString(1, idempotencyKey);
+            if (stmt.executeUpdate() == 0) {
+                return expenseIdByKey(conn, idempotencyKey);
+            }
+        }
+        boolean inserted;
+        try (PreparedStatement stmt = conn.prepareStatement(INSERT_EXPENSE_IDEMPOTENT)) {
+            stmt.setInt(1, expense.getCategory_id());
+            stmt.setString(2, expense.getPaymentMethod().toString());
+            stmt.setBigDecimal(3, BigDecimal.valueOf(expense.getAmount()));
+            stmt.setString(4, expense.getDescription());
+            stmt.setTimestamp(5, Timestamp.valueOf(expense.getExpense_date()));
+            stmt.setTimestamp(6, Timestamp.valueOf(expense.getCreated_at()));
+            stmt.setString(7, idempotencyKey);
+            inserted = stmt.executeUpdate() > 0;
+        }
+        // Links the new row - or, when IGNORE skipped the insert, a row written with the key before
+        // expense_idempotency existed (the old unique index on expenses still rejects its repeats)
+        try (PreparedStatement stmt = conn.prepareStatement(LINK_EXPENSE_KEY)) {
+            stmt.setString(1, idempotencyKey);
+            if (stmt.executeUpdate() == 0) {
+                throw new SQLException("Expense with key " + idempotencyKey + " was not inserted (category "
+                        + expense.getCategory_id() + " missing?)");
+            }
+        }
+        int id = expenseIdByKey(conn, idempotencyKey);
+        if (inserted) {
+            logChanges(conn, ChangeLogEntry.EXPENSE, new int[] {id}, false);
+            markSketchStale(conn, expense.getCategory_id(), expense.getExpense_date());
+        }
+        return id;
+    }
+
+    private static int expenseIdByKey(Connection conn, String idempotencyKey) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(GET_EXPENSE_ID_BY_KEY)) {
+            stmt.setString(1, idempotencyKey);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        }
+        throw new SQLException("No expense claimed key " + idempotencyKey);
+    }
+
     /**
      * Updates an existing expense in the database
      * Flow: Receives updated Expense object -> updates Expense table -> returns success status
@@ -299,8 +556,17 @@ public class MainDAO {
      * @return true if update successful, false otherwise
      */
     public boolean updateExpense(Expense expense) throws SQLException {
-        try (Connection conn = DatabaseConnection.getDBConnection();
-             PreparedStatement stmt = conn.prepareStatement(UPDATE_EXPENSE)) {
+        return inTransaction(work -> work.updateExpense(expense));
+    }
+
+    /**
+     * Same as updateExpense(Expense) but runs on the caller's connection
+     * Flow: Used by UnitOfWork; same version rules as updateCategory(Connection, Category)
+     */
+    boolean updateExpense(Connection conn, Expense expense) throws SQLException {
+        boolean versioned = expense.getVersion() > 0;
+        markSketchesStale(conn, new int[] {expense.getExpense_id()}); // The month the row leaves
+        try (PreparedStatement stmt = conn.prepareStatement(versioned ? UPDATE_EXPENSE_VERSIONED : UPDATE_EXPENSE)) {
             
             stmt.setInt(1, expense.getCategory_id());
             stmt.setString(2, expense.getPaymentMethod().toString());
@@ -308,8 +574,37 @@ public class MainDAO {
             stmt.setString(4, expense.getDescription());
             stmt.setTimestamp(5, Timestamp.valueOf(expense.getExpense_date()));
             stmt.setInt(6, expense.getExpense_id());
+            if (versioned) {
+                stmt.setInt(7, expense.getVersion());
+            }
             
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() > 0) {
+                logChanges(conn, ChangeLogEntry.EXPENSE, new int[] {expense.getExpense_id()}, false);
+                markSketchStale(conn, expense.getCategory_id(), expense.getExpense_date());
+                return true;
+            }
+        }
+        if (!versioned) {
+            return false;
+        }
+        Expense current = findOne(conn, GET_EXPENSE, new ExpenseRowMapper(), expense.getExpense_id());
+        if (current == null) {
+            return false; // Deleted by someone else
+        }
+        throw new OptimisticLockException("Expense " + expense.getExpense_id()
+                + " was changed by another user (now version " + current.getVersion() + ")", current);
+    }
+
+    /**
+     * Reads a single row by id on the caller's connection
+     * @return mapped row, or null if it does not exist
+     */
+    private static <T> T findOne(Connection conn, String sql, RowMapper<T> mapper, int id) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? mapper.mapRow(rs) : null;
+            }
         }
     }
 
@@ -320,12 +615,24 @@ public class MainDAO {
      * @return true if deletion successful, false otherwise
      */
     public boolean deleteExpense(Expense expense) throws SQLException {
-        try (Connection conn = DatabaseConnection.getDBConnection();
-             PreparedStatement stmt = conn.prepareStatement(DELETE_EXPENSE)) {
+        return inTransaction(work -> deleteExpense(work.getConnection(), expense));
+    }
+
+    /**
+     * Same as deleteExpense(Expense) but runs on the caller's connection
+     * Flow: Used by the public method (own transaction) and by UnitOfWork (shared transaction)
+     */
+    boolean deleteExpense(Connection conn, Expense expense) throws SQLException {
+        markSketchesStale(conn, new int[] {expense.getExpense_id()});
+        try (PreparedStatement stmt = conn.prepareStatement(DELETE_EXPENSE)) {
             
             stmt.setInt(1, expense.getExpense_id());
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() == 0) {
+                return false;
+            }
         }
+        logChanges(conn, ChangeLogEntry.EXPENSE, new int[] {expense.getExpense_id()}, true);
+        return true;
     }
 
     /**
@@ -334,36 +641,1235 @@ public class MainDAO {
      * @return List of all expenses in the database
      */
     public List<Expense> getAllExpenses() throws SQLException {
+        return EXECUTOR.execute("expenses", true, () -> ROUTER.readSession(this::getAllExpenses));
+    }
+
+    /**
+     * Same as getAllExpenses() but runs on the caller's connection
+     * Flow: Used directly by the public method (auto-commit) and by UnitOfWork (shared transaction)
+     */
+    List<Expense> getAllExpenses(Connection conn) throws SQLException {
         List<Expense> expenses = new ArrayList<>();
-        try (Connection conn = DatabaseConnection.getDBConnection();
-             PreparedStatement stmt = conn.prepareStatement(GET_ALL_EXPENSE);
+        ExpenseRowMapper mapper = new ExpenseRowMapper();
+        try (PreparedStatement stmt = conn.prepareStatement(GET_ALL_EXPENSE);
              ResultSet rs = stmt.executeQuery()) {
             
             while (rs.next()) {
-                expenses.add(getExpenseRow(rs));
+                expenses.add(mapper.mapRow(rs));
             }
         }
         return expenses;
     }
+
     /**
-     * Helper method to create Expense object from ResultSet row
-     * Flow: Receives ResultSet -> extracts data -> creates and returns Expense object
-     * @param rs ResultSet pointing to current row
-     * @return Expense object with data from current row
+     * Retrieves all expenses in the compact read-only form used by list screens
+     * Flow: One read session -> categories into a CategoryRef.Table -> expenses mapped by ExpenseViewMapper
+     * Use ExpenseView.toExpense() for the row being edited
+     * @return List of all expenses, each sharing the CategoryRef of its category
      */
-    private Expense getExpenseRow(ResultSet rs) throws SQLException {
-        Expense expense = new Expense(
-                rs.getInt("expense_id"),
-                rs.getInt("category_id"),
-                PaymentMethod.valueOf(rs.getString("payment_method")), // Convert string to enum
-                rs.getBigDecimal("amount").intValue() // Convert decimal to int
-        );
-        
-        // Set additional fields
-        expense.setDescription(rs.getString("description"));
-        expense.setExpense_date(rs.getTimestamp("expense_date").toLocalDateTime());
-        expense.setCreated_at(rs.getTimestamp("created_at").toLocalDateTime());
-        
-        return expense;
+    public List<ExpenseView> getExpenseViews() throws SQLException {
+        return EXECUTOR.execute("expense views", true, () -> ROUTER.readSession(conn -> {
+            ExpenseViewMapper mapper = new ExpenseViewMapper(new CategoryRef.Table(getAllCategories(conn)));
+            List<ExpenseView> expenses = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(GET_ALL_EXPENSE_VIEWS);
+                 ResultSet rs = stmt.executeQuery()) {
+
+                while (rs.next()) {
+                    expenses.add(mapper.mapRow(rs));
+                }
+            }
+            return expenses;
+        }));
+    }
+    /**
+     * Computes spend per day, per category and per payment method on the server
+     * Flow: One connection (read replica when usable) -> three GROUP BY queries -> rows folded into ExpenseAggregates.Builder
+     * @return aggregates whose size depends on days/categories, not on the number of expenses
+     */
+    public ExpenseAggregates getExpenseAggregates() throws SQLException {
+        return EXECUTOR.execute("expense aggregates", true, () -> {
+            return QueryScope.call("expense aggregates", REPORT_TIMEOUT_SECONDS, () -> {
+                return ROUTER.readReport(conn -> {
+                    ExpenseAggregates.Builder builder = new ExpenseAggregates.Builder(); // Fresh per attempt if the replica fails midway
+                    try (PreparedStatement stmt = conn.prepareStatement(DAILY_TOTALS);
+                         ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            LocalDate day = rs.getObject(1, LocalDate.class);
+                            if (day != null) {
+                                builder.addDay(day, rs.getLong(2));
+                            }
+                        }
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(CATEGORY_TOTALS);
+                         ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            builder.addCategory(rs.getInt(1), rs.getLong(2));
+                        }
+                    }
+                    try (PreparedStatement stmt = conn.prepareStatement(PAYMENT_TOTALS);
+                         ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            PaymentMethod method = PaymentMethod.fromDatabase(rs.getString(1));
+                            if (method != null) {
+                                builder.addPayment(method, rs.getLong(2));
+                            }
+                        }
+                    }
+                    return builder.build();
+                });
+            });
+        });
+    }
+
+    /**
+     * Retrieves every category budget
+     * @return list of budgets, one per category that has a limit
+     */
+    public List<Budget> getAllBudgets() throws SQLException {
+        return EXECUTOR.execute("budgets", true, () -> {
+            List<Budget> budgets = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getDBConnection();
+                 PreparedStatement stmt = conn.prepareStatement(GET_ALL_BUDGETS);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    budgets.add(new Budget(rs.getInt(1), rs.getInt(2)));
+                }
+            }
+            return budgets;
+        });
+    }
+
+    /**
+     * Creates or replaces the monthly budget of a category
+     * Flow: Single INSERT ... ON DUPLICATE KEY UPDATE -> no read-before-write
+     */
+    public void saveBudget(Budget budget) throws SQLException {
+        EXECUTOR.execute("save budget", true, () -> {
+            try (Connection conn = DatabaseConnection.getDBConnection();
+                 PreparedStatement stmt = conn.prepareStatement(SAVE_BUDGET)) {
+                stmt.setInt(1, budget.getCategoryId());
+                stmt.setInt(2, budget.getMonthlyLimit());
+                stmt.executeUpdate();
+                ROUTER.primaryIsNewer();
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Removes the budget of a category
+     * @return true if a budget existed
+     */
+    public boolean deleteBudget(int categoryId) throws SQLException {
+        return EXECUTOR.execute("delete budget", true, () -> {
+            try (Connection conn = DatabaseConnection.getDBConnection();
+                 PreparedStatement stmt = conn.prepareStatement(DELETE_BUDGET)) {
+                stmt.setInt(1, categoryId);
+                boolean deleted = stmt.executeUpdate() > 0;
+                ROUTER.primaryIsNewer();
+                return deleted;
+            }
+        });
+    }
+
+    /**
+     * Builds a budget monitor seeded with per-category/month totals and all budgets
+     * Flow: One GROUP BY query (rows = categories x months, not expenses) + budgets query on the same connection
+     * After this, the monitor is kept current incrementally and never re-sums
+     */
+    public BudgetMonitor getBudgetMonitor() throws SQLException {
+        return EXECUTOR.execute("budget monitor", true, () -> {
+            return ROUTER.readSession(conn -> {
+                BudgetMonitor.Builder builder = new BudgetMonitor.Builder();
+                try (PreparedStatement stmt = conn.prepareStatement(MONTHLY_CATEGORY_TOTALS);
+                     ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        builder.addTotal(rs.getInt(1), YearMonth.of(rs.getInt(2), rs.getInt(3)), rs.getLong(4));
+                    }
+                }
+                try (PreparedStatement stmt = conn.prepareStatement(GET_ALL_BUDGETS);
+                     ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        builder.addBudget(new Budget(rs.getInt(1), rs.getInt(2)));
+                    }
+                }
+                return builder.build();
+            });
+        });
+    }
+
+    /**
+     * Saves a new recurring expense template
+     * @return generated template id
+     */
+    public int createRecurringExpense(RecurringExpense template) throws SQLException {
+        return EXECUTOR.execute("create recurring expense", false, () -> {
+            try (Connection conn = DatabaseConnection.getDBConnection();
+                 PreparedStatement stmt = conn.prepareStatement(INSERT_RECURRING, Statement.RETURN_GENERATED_KEYS)) {
+                stmt.setInt(1, template.getCategoryId());
+                stmt.setString(2, template.getPaymentMethod().name());
+                stmt.setInt(3, template.getAmount());
+                stmt.setString(4, template.getDescription());
+                stmt.setString(5, template.getFrequency().name());
+                stmt.setInt(6, template.getInterval());
+                stmt.setObject(7, template.getStartDate());
+                stmt.setObject(8, template.getEndDate());
+                stmt.setObject(9, template.getStartDate());
+                stmt.executeUpdate();
+                try (ResultSet keys = stmt.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        template.setTemplateId(keys.getInt(1));
+                        return template.getTemplateId();
+                    }
+                }
+            }
+            return -1;
+        });
+    }
+
+    public List<RecurringExpense> getAllRecurringExpenses() throws SQLException {
+        return EXECUTOR.execute("recurring expenses", true, () -> {
+            List<RecurringExpense> templates = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getDBConnection();
+                 PreparedStatement stmt = conn.prepareStatement(GET_ALL_RECURRING);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    templates.add(readRecurring(rs));
+                }
+            }
+            return templates;
+        });
+    }
+
+    /**
+     * Deletes a template; expenses it already generated are kept
+     */
+    public boolean deleteRecurringExpense(int templateId) throws SQLException {
+        return EXECUTOR.execute("delete recurring expense", true, () -> {
+            try (Connection conn = DatabaseConnection.getDBConnection();
+                 PreparedStatement stmt = conn.prepareStatement(DELETE_RECURRING)) {
+                stmt.setInt(1, templateId);
+                return stmt.executeUpdate() > 0;
+            }
+        });
+    }
+
+    /**
+     * Inserts every occurrence of every template that is due on or before a date
+     *
+     * FLOW:
+     * 1. One transaction locks the due templates (SELECT ... FOR UPDATE), so two running instances cannot both generate
+     * 2. All missed occurrences (e.g. months of backlog after the app was closed) are queued and written
+     *    BULK_CHUNK_SIZE at a time
+     * 3. Each occurrence claims its idempotency key in expense_idempotency first, so occurrences that already
+     *    exist are skipped even once expenses is partitioned (see insertOccurrences())
+     * 4. Each template's occurrence counter and next_due are advanced, then everything commits at once
+     *
+     * @param today last date to generate occurrences for
+     * @return number of expenses actually inserted
+     */
+    public int materializeRecurringExpenses(LocalDate today) throws SQLException {
+        return inBulkTransaction("recurring expenses", work -> {
+            Connection conn = work.getConnection();
+            List<RecurringExpense> due = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(GET_DUE_RECURRING)) {
+                stmt.setObject(1, today);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        due.add(readRecurring(rs));
+                    }
+                }
+            }
+            if (due.isEmpty()) {
+                return 0;
+            }
+
+            int inserted = 0;
+            LocalDateTime now = LocalDateTime.now();
+            List<RecurringExpense> templates = new ArrayList<>(BULK_CHUNK_SIZE);
+            List<LocalDate> dates = new ArrayList<>(BULK_CHUNK_SIZE);
+            try (PreparedStatement advance = conn.prepareStatement(ADVANCE_RECURRING)) {
+                for (RecurringExpense template : due) {
+                    int n = template.getOccurrences();
+                    LocalDate date = template.occurrence(n);
+                    while (date != null && !date.isAfter(today)) {
+                        templates.add(template);
+                        dates.add(date);
+                        if (dates.size() == BULK_CHUNK_SIZE) {
+                            inserted += insertOccurrences(conn, templates, dates, now);
+                        }
+                        date = template.occurrence(++n);
+                    }
+                    advance.setInt(1, n);
+                    advance.setObject(2, date); // null once the end date has passed
+                    advance.setInt(3, template.getTemplateId());
+                    advance.addBatch();
+                }
+                if (!dates.isEmpty()) {
+                    inserted += insertOccurrences(conn, templates, dates, now);
+                }
+                advance.executeBatch();
+            }
+            return inserted;
+        });
+    }
+
+    /**
+     * Inserts one chunk of recurring occurrences, skipping those whose idempotency key is already claimed
+     *
+     * FLOW (one JDBC batch per step):
+     * 1. Claims every key in expense_idempotency; INSERT IGNORE reports 0 for keys claimed by an earlier run
+     * 2. Inserts the expenses of the newly claimed keys
+     * 3. Links each claim to its expense, logs the inserted ones to change_log and marks their sketch months stale
+     * 4. Releases claims that got no expense (IGNORE skipped the row, e.g. its category is gone), so they do not
+     *    block the occurrence forever
+     *
+     * @param templates template of each occurrence, parallel to dates (both cleared afterwards)
+     * @return number of inserted expenses
+     */
+    private static int insertOccurrences(Connection conn, List<RecurringExpense> templates, List<LocalDate> dates,
+                                         LocalDateTime createdAt) throws SQLException {
+        try {
+            List<Integer> claimed = new ArrayList<>(dates.size()); // Indexes into templates/dates
+            int[] insertCounts;
+            try (PreparedStatement claim = conn.prepareStatement(CLAIM_EXPENSE_KEY);
+                 PreparedStatement insert = conn.prepareStatement(INSERT_EXPENSE_IDEMPOTENT)) {
+                for (int i = 0; i < dates.size(); i++) {
+                    claim.setString(1, templates.get(i).idempotencyKey(dates.get(i)));
+                    claim.addBatch();
+                }
+                int[] claimCounts = claim.executeBatch();
+                for (int i = 0; i < claimCounts.length; i++) {
+                    if (claimCounts[i] > 0) {
+                        RecurringExpense template = templates.get(i);
+                        insert.setInt(1, template.getCategoryId());
+                        insert.setString(2, template.getPaymentMethod().name());
+                        insert.setInt(3, template.getAmount());
+                        insert.setString(4, template.getDescription());
+                        insert.setObject(5, dates.get(i).atStartOfDay());
+                        insert.setObject(6, createdAt);
+                        insert.setString(7, template.idempotencyKey(dates.get(i)));
+                        insert.addBatch();
+                        claimed.add(i);
+                    }
+                }
+                if (claimed.isEmpty()) {
+                    return 0;
+                }
+                insertCounts = insert.executeBatch();
+            }
+
+            int inserted = 0;
+            try (PreparedStatement link = conn.prepareStatement(LINK_EXPENSE_KEY);
+                 PreparedStatement log = conn.prepareStatement(LOG_IDEMPOTENT_EXPENSE);
+                 PreparedStatement mark = conn.prepareStatement(MARK_SKETCH_STALE);
+                 PreparedStatement release = conn.prepareStatement(RELEASE_EXPENSE_KEY)) {
+                for (int i : claimed) {
+                    link.setString(1, templates.get(i).idempotencyKey(dates.get(i)));
+                    link.addBatch();
+                }
+                int[] linkCounts = link.executeBatch();
+                boolean released = false;
+                for (int c = 0; c < claimed.size(); c++) {
+                    RecurringExpense template = templates.get(claimed.get(c));
+                    LocalDate date = dates.get(claimed.get(c));
+                    if (insertCounts[c] > 0) {
+                        inserted += insertCounts[c];
+                        log.setString(1, template.idempotencyKey(date));
+                        log.addBatch();
+                        mark.setInt(1, template.getCategoryId());
+                        mark.setInt(2, MonthlySketch.period(YearMonth.from(date)));
+                        mark.addBatch();
+                    } else if (linkCounts[c] == 0) {
+                        release.setString(1, template.idempotencyKey(date));
+                        release.addBatch();
+                        released = true;
+                    }
+                }
+                if (inserted > 0) {
+                    log.executeBatch();
+                    mark.executeBatch();
+                }
+                if (released) {
+                    release.executeBatch();
+                }
+            }
+            return inserted;
+        } finally {
+            templates.clear();
+            dates.clear();
+        }
+    }
+
+    private static RecurringExpense readRecurring(ResultSet rs) throws SQLException {
+        RecurringExpense template = new RecurringExpense(rs.getInt(1), rs.getInt(2),
+                PaymentMethod.fromDatabase(rs.getString(3)), rs.getInt(4), rs.getString(5),
+                RecurrenceFrequency.valueOf(rs.getString(6)), rs.getInt(7),
+                rs.getObject(8, LocalDate.class), rs.getObject(9, LocalDate.class));
+        template.setOccurrences(rs.getInt(10));
+        template.setNextDue(rs.getObject(11, LocalDate.class));
+        return template;
+    }
+
+    /**
+     * Replaces stored sketches from a month onwards
+     * Flow: Transaction -> DELETE months >= from (drops category/months that no longer have expenses) -> batched upsert -> commit
+     * @param sketches freshly built sketches for every category/month from the given month on
+     * @param from first rebuilt month, or null when the whole history was rebuilt (only valid while nothing is
+     *             archived, see getFirstLiveMonth())
+     */
+    public void saveSketches(Collection<MonthlySketch> sketches, YearMonth from) throws SQLException {
+        inBulkTransaction("save sketches", work -> {
+            Connection conn = work.getConnection();
+            try (PreparedStatement delete = conn.prepareStatement(DELETE_SKETCHES_FROM)) {
+                delete.setInt(1, from == null ? 0 : MonthlySketch.period(from));
+                delete.executeUpdate();
+            }
+            writeSketches(conn, sketches);
+            return null;
+        });
+    }
+
+    /**
+     * Reads the category/months marked stale by expense writes
+     * @return marks per MonthlySketch.key() - pass them back to saveRefreshedSketches()
+     */
+    public Map<Long, Integer> getStaleSketches() throws SQLException {
+        return EXECUTOR.execute("stale sketches", true, () -> {
+            Map<Long, Integer> stale = new HashMap<>();
+            try (Connection conn = DatabaseConnection.getDBConnection();
+                 PreparedStatement stmt = conn.prepareStatement(GET_STALE_SKETCHES);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    stale.put(MonthlySketch.key(rs.getInt(1), MonthlySketch.month(rs.getInt(2))), rs.getInt(3));
+                }
+            }
+            return stale;
+        });
+    }
+
+    /**
+     * Replaces the sketches of rebuilt stale category/months and clears their marks
+     *
+     * FLOW: Transaction -> DELETE each rebuilt category/month (one that lost all of its expenses gets no new sketch)
+     * -> batched upsert of the new sketches -> DELETE each mark still holding the count that was read -> commit
+     * A write that bumped a mark after getStaleSketches() keeps it, so the next refresh picks that write up
+     *
+     * @param sketches new sketches, only for keys in rebuilt
+     * @param rebuilt marks of the category/months that were rebuilt
+     * @param dropped marks cleared without touching the sketch (archived months, whose stored sketch is the only copy)
+     */
+    public void saveRefreshedSketches(Collection<MonthlySketch> sketches, Map<Long, Integer> rebuilt,
+                                      Map<Long, Integer> dropped) throws SQLException {
+        inBulkTransaction("refresh sketches", work -> {
+            Connection conn = work.getConnection();
+            try (PreparedStatement delete = conn.prepareStatement(DELETE_SKETCH)) {
+                for (long key : rebuilt.keySet()) {
+                    delete.setInt(1, MonthlySketch.categoryOf(key));
+                    delete.setInt(2, MonthlySketch.periodOf(key));
+                    delete.addBatch();
+                }
+                delete.executeBatch();
+            }
+            writeSketches(conn, sketches);
+            try (PreparedStatement clear = conn.prepareStatement(CLEAR_SKETCH_STALE)) {
+                for (Map<Long, Integer> marks : Arrays.asList(rebuilt, dropped)) {
+                    for (Map.Entry<Long, Integer> mark : marks.entrySet()) {
+                        clear.setInt(1, MonthlySketch.categoryOf(mark.getKey()));
+                        clear.setInt(2, MonthlySketch.periodOf(mark.getKey()));
+                        clear.setInt(3, mark.getValue());
+                        clear.addBatch();
+                    }
+                }
+                clear.executeBatch();
+            }
+            return null;
+        });
+    }
+
+    private static void writeSketches(Connection conn, Collection<MonthlySketch> sketches) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(SAVE_SKETCH)) {
+            int queued = 0;
+            for (MonthlySketch sketch : sketches) {
+                stmt.setInt(1, sketch.getCategoryId());
+                stmt.setInt(2, MonthlySketch.period(sketch.getMonth()));
+                stmt.setBytes(3, sketch.getAmounts().toBytes());
+                stmt.setBytes(4, sketch.getMerchants().toBytes());
+                stmt.addBatch();
+                if (++queued == BULK_CHUNK_SIZE) {
+                    stmt.executeBatch();
+                    queued = 0;
+                }
+            }
+            if (queued > 0) {
+                stmt.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Loads the monthly sketches of one category for a month range (inclusive)
+     * Merge them with SketchSummary.of() to answer range queries
+     */
+    public List<MonthlySketch> getSketches(int categoryId, YearMonth from, YearMonth to) throws SQLException {
+        return EXECUTOR.execute("sketches", true, () -> {
+            return QueryScope.call("sketches", REPORT_TIMEOUT_SECONDS, () -> {
+                return ROUTER.readReport(conn -> {
+                    List<MonthlySketch> sketches = new ArrayList<>();
+                    try (PreparedStatement stmt = conn.prepareStatement(GET_SKETCHES)) {
+                        stmt.setInt(1, categoryId);
+                        stmt.setInt(2, MonthlySketch.period(from));
+                        stmt.setInt(3, MonthlySketch.period(to));
+                        try (ResultSet rs = stmt.executeQuery()) {
+                            while (rs.next()) {
+                                try {
+                                    sketches.add(new MonthlySketch(rs.getInt(1), MonthlySketch.month(rs.getInt(2)),
+                                            QuantileSketch.fromBytes(rs.getBytes(3)), DistinctCountSketch.fromBytes(rs.getBytes(4))));
+                                } catch (java.io.IOException e) {
+                                    throw new SQLException("Corrupt sketch for category " + categoryId + " period " + rs.getInt(2), e);
+                                }
+                            }
+                        }
+                    }
+                    return sketches;
+                });
+            });
+        });
+    }
+
+    /**
+     * @return the expenses table's partitions in range order, or an empty list if it is not partitioned
+     */
+    public List<ExpensePartition> getExpensePartitions() throws SQLException {
+        return EXECUTOR.execute("partitions", true, () -> {
+            List<ExpensePartition> partitions = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getDBConnection();
+                 PreparedStatement stmt = conn.prepareStatement(GET_EXPENSE_PARTITIONS);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    partitions.add(new ExpensePartition(rs.getString(1), rs.getLong(2), rs.getLong(3)));
+                }
+            }
+            return partitions;
+        });
+    }
+
+    /**
+     * First month whose expenses are all still in the table - months before it may have been archived and dropped
+     * Flow: the first monthly partition (ExpenseArchiver drops them oldest first), or null if expenses is not partitioned
+     */
+    public YearMonth getFirstLiveMonth() throws SQLException {
+        for (ExpensePartition partition : getExpensePartitions()) {
+            if (partition.getMonth() != null) {
+                return partition.getMonth();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * One-time migration: partitions the expenses table by month of expense_date
+     *
+     * FLOW:
+     * 1. Refuses if already partitioned, or if expenses still has foreign keys (InnoDB cannot partition those)
+     * 2. Copies every idempotency_key into expense_idempotency: step 3 weakens the unique index on it to
+     *    (idempotency_key, expense_date), so from here on only that table keeps keys unique
+     * 3. Every unique key, including the primary key, gets expense_date appended - MySQL requires the
+     *    partitioning column in all of them (expense_id stays first, so AUTO_INCREMENT keeps working)
+     * 4. One ALTER TABLE rebuilds the table with a partition per month from the oldest expense up to
+     *    monthsAhead months from now, plus pmax
+     *
+     * @param monthsAhead future months to create right away (addExpensePartitions() extends this later)
+     */
+    public void partitionExpenses(int monthsAhead) throws SQLException {
+        try (Connection conn = DatabaseConnection.getDBConnection()) {
+            try (PreparedStatement stmt = conn.prepareStatement(GET_EXPENSE_PARTITIONS);
+                 ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    throw new SQLException("expenses is already partitioned");
+                }
+            }
+            List<String> foreignKeys = new ArrayList<>();
+            try (PreparedStatement stmt = conn.prepareStatement(GET_EXPENSE_FOREIGN_KEYS);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    foreignKeys.add(rs.getString(1));
+                }
+            }
+            if (!foreignKeys.isEmpty()) {
+                throw new SQLException("Drop foreign key(s) " + foreignKeys + " on expenses first: partitioned tables "
+                        + "cannot have foreign keys (deleteCategory() checks for remaining expenses instead)");
+            }
+
+            try (Statement stmt = conn.createStatement()) {
+                stmt.executeUpdate(BACKFILL_EXPENSE_KEYS);
+            }
+
+            StringBuilder ddl = new StringBuilder("ALTER TABLE expenses ");
+            try (PreparedStatement stmt = conn.prepareStatement(GET_EXPENSE_UNIQUE_KEYS);
+                 ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    List<String> columns = Arrays.asList(rs.getString(2).split(","));
+                    if (columns.contains("expense_date")) {
+                        continue;
+                    }
+                    String keyColumns = "`" + String.join("`, `", columns) + "`, `expense_date`";
+                    if ("PRIMARY".equals(rs.getString(1))) {
+                        ddl.append("DROP PRIMARY KEY, ADD PRIMARY KEY (").append(keyColumns).append("), ");
+                    } else {
+                        ddl.append("DROP INDEX `").append(rs.getString(1)).append("`, ADD UNIQUE INDEX `")
+                                .append(rs.getString(1)).append("` (").append(keyColumns).append("), ");
+                    }
+                }
+            }
+            if (ddl.toString().endsWith(", ")) {
+                ddl.setLength(ddl.length() - 2);
+            }
+
+            YearMonth first = YearMonth.now();
+            try (PreparedStatement stmt = conn.prepareStatement(GET_FIRST_EXPENSE_DATE);
+                 ResultSet rs = stmt.executeQuery()) {
+                LocalDateTime oldest = rs.next() ? rs.getObject(1, LocalDateTime.class) : null;
+                if (oldest != null && YearMonth.from(oldest).isBefore(first)) {
+                    first = YearMonth.from(oldest);
+                }
+            }
+            ddl.append(" PARTITION BY RANGE COLUMNS(expense_date) (");
+            for (YearMonth month = first; !month.isAfter(YearMonth.now().plusMonths(monthsAhead)); month = month.plusMonths(1)) {
+                ddl.append(partitionClause(month)).append(", ");
+            }
+            ddl.append("PARTITION ").append(ExpensePartition.CATCH_ALL).append(" VALUES LESS THAN (MAXVALUE))");
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(ddl.toString());
+            }
+        }
+    }
+
+    /**
+     * Splits monthly partitions off pmax up to monthsAhead months from now, so new expenses land in their own month
+     * Flow: One REORGANIZE PARTITION pmax statement; pmax is normally empty, so no rows are copied
+     * @return number of partitions added (0 if they already exist)
+     */
+    public int addExpensePartitions(int monthsAhead) throws SQLException {
+        YearMonth last = null;
+        boolean partitioned = false;
+        for (ExpensePartition partition : getExpensePartitions()) {
+            partitioned = true;
+            if (partition.getMonth() != null) {
+                last = partition.getMonth();
+            }
+        }
+        if (!partitioned) {
+            throw new SQLException("expenses is not partitioned - run partitionExpenses() first");
+        }
+        YearMonth target = YearMonth.now().plusMonths(monthsAhead);
+        YearMonth month = last != null ? last.plusMonths(1) : YearMonth.now();
+        if (month.isAfter(target)) {
+            return 0;
+        }
+        StringBuilder ddl = new StringBuilder("ALTER TABLE expenses REORGANIZE PARTITION ")
+                .append(ExpensePartition.CATCH_ALL).append(" INTO (");
+        int added = 0;
+        for (; !month.isAfter(target); month = month.plusMonths(1)) {
+            ddl.append(partitionClause(month)).append(", ");
+            added++;
+        }
+        ddl.append("PARTITION ").append(ExpensePartition.CATCH_ALL).append(" VALUES LESS THAN (MAXVALUE))");
+        try (Connection conn = DatabaseConnection.getDBConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(ddl.toString());
+        }
+        return added;
+    }
+
+    /**
+     * Drops a monthly partition and every expense in it (instant, no row-by-row DELETE)
+     * Only ExpenseArchiver should call this, after the month has been written to an archive file
+     *
+     * FLOW: LOCK TABLES expenses WRITE, change_log WRITE -> COUNT(*) of the partition itself -> one change_log
+     * delete entry per expense in it -> DROP PARTITION -> UNLOCK TABLES
+     * WHY THE LOCK: a backdated insert committed after the archive was counted would otherwise be dropped with
+     * the partition without being in the file; under the write lock nothing can be added between count and drop
+     * WHY THE CHANGE LOG: DROP PARTITION deletes no rows one by one, so without these entries other clients and
+     * offline journals would keep showing the archived expenses (the entries are written before the DROP, which
+     * commits implicitly, so a failed drop at worst makes clients reload rows that still exist)
+     *
+     * @param expectedRows rows written to the archive file; the partition is kept if it holds any other number
+     */
+    public void dropExpensePartition(ExpensePartition partition, long expectedRows) throws SQLException {
+        if (partition.getMonth() == null) {
+            throw new SQLException("Only monthly partitions can be dropped, not " + partition.getName());
+        }
+        String name = ExpensePartition.nameOf(partition.getMonth());
+        try (Connection conn = DatabaseConnection.getDBConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("LOCK TABLES expenses WRITE, change_log WRITE");
+            try {
+                long rows;
+                try (ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM expenses PARTITION (" + name + ")")) {
+                    rows = rs.next() ? rs.getLong(1) : 0;
+                }
+                if (rows != expectedRows) {
+                    throw new SQLException("Partition " + name + " holds " + rows + " expenses, " + expectedRows
+                            + " were archived - partition kept");
+                }
+                stmt.executeUpdate("INSERT INTO change_log(entity, row_id, deleted) SELECT '"
+                        + ChangeLogEntry.EXPENSE + "', expense_id, TRUE FROM expenses PARTITION (" + name + ")");
+                stmt.execute("ALTER TABLE expenses DROP PARTITION " + name);
+            } finally {
+                stmt.execute("UNLOCK TABLES"); // Before the connection goes back to the pool
+            }
+        }
+        ROUTER.primaryIsNewer();
+    }
+
+    /**
+     * Exact number of expenses with expense_date in [from, to), counted on the primary (reads only the partitions of the range)
+     */
+    public long countExpensesBetween(LocalDateTime from, LocalDateTime to) throws SQLException {
+        return EXECUTOR.execute("count expenses", true, () -> {
+            return QueryScope.call("count expenses", REPORT_TIMEOUT_SECONDS, () -> {
+                try (Connection conn = DatabaseConnection.getDBConnection();
+                     PreparedStatement stmt = conn.prepareStatement(COUNT_EXPENSES_BETWEEN)) {
+                    stmt.setObject(1, from);
+                    stmt.setObject(2, to);
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        return rs.next() ? rs.getLong(1) : 0L;
+                    }
+                }
+            });
+        });
+    }
+
+    private static String partitionClause(YearMonth month) {
+        return "PARTITION " + ExpensePartition.nameOf(month) + " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + "')";
+    }
+
+    /**
+     * Moves every expense of one category to another category
+     * Flow: One UPDATE ... WHERE category_id=? executed on the server inside a transaction -> affected row count returned
+     * @param fromCategoryId category the expenses currently belong to
+     * @param toCategoryId category they are moved to
+     * @return number of expenses moved
+     */
+    public int reassignExpenses(int fromCategoryId, int toCategoryId) throws SQLException {
+        return inBulkTransaction("reassign expenses", work -> reassignExpenses(work.getConnection(), fromCategoryId, toCategoryId));
+    }
+
+    /**
+     * Merges one category into another: its expenses are moved to the target, then the source category is deleted
+     * Flow: Transaction -> UPDATE expenses (set-based) -> DELETE category -> single commit
+     * @param source category that disappears
+     * @param target category that receives the expenses
+     * @return number of expenses moved
+     */
+    public int mergeCategories(Category source, Category target) throws SQLException {
+        if (source.getCategoryid() == target.getCategoryid()) {
+            throw new SQLException("Cannot merge a category into itself");
+        }
+        return inBulkTransaction("merge categories", work -> {
+            int moved = reassignExpenses(work.getConnection(), source.getCategoryid(), target.getCategoryid());
+            if (!work.deleteCategory(source)) {
+                throw new SQLException("Category " + source.getCategoryid() + " no longer exists");
+            }
+            return moved;
+        });
+    }
+
+    /**
+     * Deletes a category together with all of its expenses
+     * Flow: Transaction -> DELETE expenses WHERE category_id=? (set-based) -> DELETE category -> single commit
+     * @param category category to remove
+     * @return number of expenses deleted along with the category
+     */
+    public int deleteCategoryWithExpenses(Category category) throws SQLException {
+        return inBulkTransaction("delete category with expenses", work -> {
+            int deleted;
+            logExpensesOfCategory(work.getConnection(), category.getCategoryid(), true);
+            markSketchesStaleOfCategory(work.getConnection(), category.getCategoryid(), category.getCategoryid());
+            try (PreparedStatement stmt = work.getConnection().prepareStatement(DELETE_EXPENSES_BY_CATEGORY)) {
+                stmt.setInt(1, category.getCategoryid());
+                deleted = stmt.executeUpdate();
+            }
+            if (!work.deleteCategory(category)) {
+                throw new SQLException("Category " + category.getCategoryid() + " no longer exists");
+            }
+            return deleted;
+        });
+    }
+
+    /**
+     * Deletes many expenses with a few set-based statements in one transaction
+     * Flow: ids split into IN-list chunks -> one DELETE per chunk -> single commit
+     * @param expenseIds ids of the expenses to delete
+     * @return number of expenses deleted
+     */
+    public int deleteExpenses(int[] expenseIds) throws SQLException {
+        return inBulkTransaction("delete expenses", work -> {
+            logChanges(work.getConnection(), ChangeLogEntry.EXPENSE, expenseIds, true);
+            markSketchesStale(work.getConnection(), expenseIds);
+            return updateByIds(work.getConnection(), DELETE_EXPENSES_BY_ID, "", expenseIds);
+        });
+    }
+
+    /**
+     * Changes category, payment method and/or date of many expenses in one transaction
+     *
+     * FLOW:
+     * 1. One UPDATE ... SET with only the changed columns (plus the version bump) is built; dates are shifted by the
+     *    server itself, so no row is read back into the client
+     * 2. inBulkTransaction runs it once per IN-list chunk, after one logChanges() call for all ids
+     * 3. Category and date changes mark the sketch months the rows leave and enter as stale (sketches ignore the
+     *    payment method)
+     * Either every change is applied to every row or none is
+     *
+     * @param expenseIds ids of the expenses to change
+     * @param categoryId new category id, or null to keep each row's category
+     * @param paymentMethod new payment method, or null to keep it
+     * @param shiftSeconds shift of expense_date in seconds (negative moves dates back, 0 keeps them)
+     * @return number of expenses changed
+     */
+    public int updateExpenses(int[] expenseIds, Integer categoryId, PaymentMethod paymentMethod, long shiftSeconds)
+            throws SQLException {
+        StringBuilder sql = new StringBuilder("UPDATE expenses SET ");
+        List<Object> params = new ArrayList<>(3);
+        if (categoryId != null) {
+            sql.append("category_id=?, ");
+            params.add(categoryId);
+        }
+        if (paymentMethod != null) {
+            sql.append("payment_method=?, ");
+            params.add(paymentMethod.name());
+        }
+        if (shiftSeconds != 0) {
+            sql.append("expense_date = expense_date + INTERVAL ? SECOND, ");
+            params.add(shiftSeconds);
+        }
+        if (params.isEmpty() || expenseIds.length == 0) {
+            return 0;
+        }
+        sql.append("version=version+1 WHERE expense_id IN ");
+        boolean movesSketches = categoryId != null || shiftSeconds != 0;
+        return inBulkTransaction("update expenses", work -> {
+            Connection conn = work.getConnection();
+            logChanges(conn, ChangeLogEntry.EXPENSE, expenseIds, false);
+            if (movesSketches) {
+                markSketchesStale(conn, expenseIds);
+            }
+            int changed = updateByIds(conn, sql.toString(), "", expenseIds, params.toArray());
+            if (movesSketches) {
+                markSketchesStale(conn, expenseIds);
+            }
+            return changed;
+        });
+    }
+
+    /**
+     * Runs "prefix (?, ?, ...) suffix" for the ids in fixed-size chunks
+     * @param sqlPrefix statement up to and including "IN "
+     * @param sqlSuffix clause after the IN list, or ""
+     * @param leadingParams values bound before the ids
+     * @return total affected rows
+     */
+    private int updateByIds(Connection conn, String sqlPrefix, String sqlSuffix, int[] ids, Object... leadingParams)
+            throws SQLException {
+        if (ids.length == 0) {
+            return 0;
+        }
+        int chunkSize = Math.min(BULK_CHUNK_SIZE, ids.length);
+        StringBuilder sql = new StringBuilder(sqlPrefix).append('(');
+        for (int i = 0; i < chunkSize; i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        sql.append(')').append(sqlSuffix);
+
+        int affected = 0;
+        int first = leadingParams.length + 1;
+        try (PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            for (int start = 0; start < ids.length; start += chunkSize) {
+                for (int i = 0; i < leadingParams.length; i++) {
+                    stmt.setObject(i + 1, leadingParams[i]);
+                }
+                for (int i = 0; i < chunkSize; i++) {
+                    // Pad the last chunk with its final id; duplicates in an IN list match the row only once
+                    stmt.setInt(first + i, ids[Math.min(start + i, ids.length - 1)]);
+                }
+                affected += stmt.executeUpdate();
+            }
+        }
+        return affected;
+    }
+
+    int reassignExpenses(Connection conn, int fromCategoryId, int toCategoryId) throws SQLException {
+        logExpensesOfCategory(conn, fromCategoryId, false); // Before the UPDATE, while the rows still match
+        markSketchesStaleOfCategory(conn, fromCategoryId, fromCategoryId);
+        markSketchesStaleOfCategory(conn, toCategoryId, fromCategoryId);
+        try (PreparedStatement stmt = conn.prepareStatement(REASSIGN_EXPENSES)) {
+            stmt.setInt(1, toCategoryId);
+            stmt.setInt(2, fromCategoryId);
+            return stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Appends change_log entries for the given rows on the caller's connection (same transaction as the change)
+     * Flow: one batched INSERT per BULK_CHUNK_SIZE ids; ids that no longer exist are harmless, readers treat them as deleted
+     * @param entity ChangeLogEntry.CATEGORY or ChangeLogEntry.EXPENSE
+     */
+    private static void logChanges(Connection conn, char entity, int[] ids, boolean deleted) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(LOG_CHANGE)) {
+            int queued = 0;
+            for (int id : ids) {
+                stmt.setString(1, String.valueOf(entity));
+                stmt.setInt(2, id);
+                stmt.setBoolean(3, deleted);
+                stmt.addBatch();
+                if (++queued == BULK_CHUNK_SIZE) {
+                    stmt.executeBatch();
+                    queued = 0;
+                }
+            }
+            if (queued > 0) {
+                stmt.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * Logs every expense of a category with one INSERT ... SELECT, so set-based edits stay set-based
+     */
+    private static void logExpensesOfCategory(Connection conn, int categoryId, boolean deleted) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(LOG_EXPENSES_OF_CATEGORY)) {
+            stmt.setBoolean(1, deleted);
+            stmt.setInt(2, categoryId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Marks the category/months the given expenses are in right now as stale (call before and after moving them)
+     * Flow: one INSERT ... SELECT per IN-list chunk on the caller's connection; ids that no longer exist mark nothing
+     */
+    private void markSketchesStale(Connection conn, int[] expenseIds) throws SQLException {
+        updateByIds(conn, MARK_SKETCHES_STALE_BY_ID, MARK_STALE_ON_DUPLICATE, expenseIds);
+    }
+
+    private static void markSketchStale(Connection conn, int categoryId, LocalDateTime expenseDate) throws SQLException {
+        if (expenseDate == null) {
+            return; // Undated expenses are in no month's sketch
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(MARK_SKETCH_STALE)) {
+            stmt.setInt(1, categoryId);
+            stmt.setInt(2, MonthlySketch.period(YearMonth.from(expenseDate)));
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Marks every month the expenses of one category are in, under sketchCategoryId (the category they are about to
+     * leave, or the one they are about to join)
+     */
+    private static void markSketchesStaleOfCategory(Connection conn, int sketchCategoryId, int expenseCategoryId)
+            throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(MARK_SKETCHES_STALE_OF_CATEGORY)) {
+            stmt.setInt(1, sketchCategoryId);
+            stmt.setInt(2, expenseCategoryId);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * @return id of the newest change_log entry (0 if the log is empty) - the starting high-water mark for a client
+     */
+    public long getLatestChangeId() throws SQLException {
+        return EXECUTOR.execute("latest change", true, () -> {
+            try (Connection conn = DatabaseConnection.getDBConnection();
+                 PreparedStatement stmt = conn.prepareStatement(GET_LATEST_CHANGE);
+                 ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        });
+    }
+
+    /**
+     * Reads change_log entries after a high-water mark
+     * Flow: change_id > ? ORDER BY change_id is a primary key range scan, so cost follows the number of new entries
+     * @param afterChangeId entries with a larger id are returned
+     * @param limit page size
+     * @return entries in change_id order
+     */
+    public List<ChangeLogEntry> getChangesSince(long afterChangeId, int limit) throws SQLException {
+        return EXECUTOR.execute("changes", true, () -> {
+            List<ChangeLogEntry> entries = new ArrayList<>();
+            try (Connection conn = DatabaseConnection.getDBConnection();
+                 PreparedStatement stmt = conn.prepareStatement(GET_CHANGES)) {
+                stmt.setLong(1, afterChangeId);
+                stmt.setInt(2, limit);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        entries.add(new ChangeLogEntry(rs.getLong(1), rs.getString(2).charAt(0), rs.getInt(3), rs.getBoolean(4)));
+                    }
+                }
+            }
+            if (!entries.isEmpty()) {
+                ROUTER.primaryIsNewer(); // The client is about to show rows the replica may not have yet
+            }
+            return entries;
+        });
+    }
+
+    /**
+     * Deletes change_log entries older than the retention period
+     * @return number of entries removed
+     */
+    public int pruneChangeLog(int retentionHours) throws SQLException {
+        return EXECUTOR.execute("prune change log", true, () -> {
+            return QueryScope.call("prune change log", BULK_TIMEOUT_SECONDS, () -> {
+                try (Connection conn = DatabaseConnection.getDBConnection();
+                     PreparedStatement stmt = conn.prepareStatement(PRUNE_CHANGE_LOG)) {
+                    stmt.setInt(1, retentionHours);
+                    return stmt.executeUpdate();
+                }
+            });
+        });
+    }
+
+    /**
+     * @return the categories that still exist among the given ids
+     */
+    public List<Category> getCategoriesByIds(int[] ids) throws SQLException {
+        return EXECUTOR.execute("categories by id", true, () -> findByIds(GET_CATEGORIES_BY_ID, new CategoryRowMapper(), ids));
+    }
+
+    /**
+     * @return the expenses that still exist among the given ids
+     */
+    public List<Expense> getExpensesByIds(int[] ids) throws SQLException {
+        return EXECUTOR.execute("expenses by id", true, () -> findByIds(GET_EXPENSES_BY_ID, new ExpenseRowMapper(), ids));
+    }
+
+    /**
+     * Reads rows by id with "prefix (?, ?, ...)" in fixed-size chunks (same padding trick as updateByIds)
+     */
+    private <T> List<T> findByIds(String sqlPrefix, RowMapper<T> mapper, int[] ids) throws SQLException {
+        List<T> rows = new ArrayList<>(ids.length);
+        if (ids.length == 0) {
+            return rows;
+        }
+        int chunkSize = Math.min(BULK_CHUNK_SIZE, ids.length);
+        StringBuilder sql = new StringBuilder(sqlPrefix).append('(');
+        for (int i = 0; i < chunkSize; i++) {
+            sql.append(i == 0 ? "?" : ",?");
+        }
+        sql.append(')');
+        try (Connection conn = DatabaseConnection.getDBConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql.toString())) {
+            for (int start = 0; start < ids.length; start += chunkSize) {
+                for (int i = 0; i < chunkSize; i++) {
+                    stmt.setInt(1 + i, ids[Math.min(start + i, ids.length - 1)]);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        rows.add(mapper.mapRow(rs));
+                    }
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Runs several DAO operations as one transaction on one connection
+     *
+     * FLOW:
+     * 1. Borrow a connection -> auto-commit off
+     * 2. callback.execute(UnitOfWork) -> operations share the connection
+     * 3. Commit once -> in-memory effects of the work (new versions on updated objects) applied -> return the result
+     * 4. Any failure -> rollback; ResilientExecutor runs the whole transaction again after deadlocks, lock wait
+     *    timeouts and connection failures before COMMIT (the server discards an uncommitted transaction)
+     * 5. A connection failure during COMMIT becomes CommitOutcomeUnknownException and is not retried
+     *
+     * @param callback work to run; may be executed again if the server picks it as a deadlock victim
+     * @return the callback's result after a successful commit
+     */
+    public <T> T inTransaction(TransactionCallback<T> callback) throws SQLException {
+        return EXECUTOR.execute("transaction", true, () -> runTransaction(callback));
+    }
+
+    private <T> T runTransaction(TransactionCallback<T> callback) throws SQLException {
+        try (Connection conn = DatabaseConnection.getDBConnection()) {
+            conn.setAutoCommit(false);
+            UnitOfWork work = new UnitOfWork(this, conn);
+            T result;
+            try {
+                result = callback.execute(work);
+            } catch (SQLException | RuntimeException e) {
+                rollbackQuietly(conn, e);
+                throw e;
+            }
+            try {
+                conn.commit();
+            } catch (SQLException e) {
+                if (ResilientExecutor.isConnectionFailure(e)) {
+                    throw new CommitOutcomeUnknownException(e);
+                }
+                rollbackQuietly(conn, e);
+                throw e;
+            }
+            ROUTER.primaryIsNewer();
+            work.committed();
+            return result;
+        } // ConnectionPool restores auto-commit when the connection is returned
+    }
+
+    /**
+     * inTransaction() with the bulk statement time limit and a name for the slow-query log
+     */
+    private <T> T inBulkTransaction(String operation, TransactionCallback<T> callback) throws SQLException {
+        return QueryScope.call(operation, BULK_TIMEOUT_SECONDS, () -> inTransaction(callback));
+    }
+
+    /**
+     * @return retry counters of the DAO operations, for monitoring
+     */
+    public static ResilientExecutor getExecutor() {
+        return EXECUTOR;
+    }
+
+    private static void rollbackQuietly(Connection conn, Exception cause) {
+        try {
+            conn.rollback();
+        } catch (SQLException rollbackFailure) {
+            cause.addSuppressed(rollbackFailure);
+        }
+    }
+
+    /**
+     * Streams all expenses from the database without materialising them in a list
+     * Flow: Opens a dedicated connection -> forward-only streaming query -> each row mapped lazily as the stream is consumed
+     * The caller MUST close the stream (try-with-resources) - closing it releases the ResultSet, statement and connection
+     * @return lazy Stream of Expense objects backed by an open cursor
+     */
+    public Stream<Expense> streamExpenses() throws SQLException {
+        return stream(GET_ALL_EXPENSE, new ExpenseRowMapper());
+    }
+
+    /**
+     * Streams expenses whose expense_date falls in [from, to) without materialising them
+     * Flow: Same as streamExpenses() but the server filters rows by date range before sending them
+     * @param from inclusive lower bound of expense_date
+     * @param to exclusive upper bound of expense_date
+     * @return lazy Stream of Expense objects; must be closed by the caller
+     */
+    public Stream<Expense> streamExpensesBetween(LocalDateTime from, LocalDateTime to) throws SQLException {
+        return stream(GET_EXPENSES_BETWEEN, new ExpenseRowMapper(), from, to);
+    }
+
+    /**
+     * Streams all expenses in compact read-only form (reports, exports)
+     * Flow: Categories loaded once into a CategoryRef.Table -> same streaming cursor as streamExpenses() mapped by ExpenseViewMapper
+     * @return lazy Stream of ExpenseView objects; must be closed by the caller
+     */
+    public Stream<ExpenseView> streamExpenseViews() throws SQLException {
+        return stream(GET_ALL_EXPENSE_VIEWS, new ExpenseViewMapper(new CategoryRef.Table(getAllCategories())));
+    }
+
+    /**
+     * Streams expenses whose expense_date falls in [from, to) in compact read-only form
+     * @param from inclusive lower bound of expense_date
+     * @param to exclusive upper bound of expense_date
+     * @return lazy Stream of ExpenseView objects; must be closed by the caller
+     */
+    public Stream<ExpenseView> streamExpenseViewsBetween(LocalDateTime from, LocalDateTime to) throws SQLException {
+        return stream(GET_EXPENSE_VIEWS_BETWEEN, new ExpenseViewMapper(new CategoryRef.Table(getAllCategories())), from, to);
+    }
+
+    /**
+     * Streams all categories from the database without materialising them in a list
+     * Flow: Same as streamExpenses() but maps rows with CategoryRowMapper
+     * @return lazy Stream of Category objects; must be closed by the caller
+     */
+    public Stream<Category> streamCategories() throws SQLException {
+        return stream(GET_ALL_CATEGORY, new CategoryRowMapper());
+    }
+
+    /**
+     * Callback-style cursor over all expenses for callers that prefer not to manage a Stream
+     * Flow: Opens streamExpenses() -> hands each row to the consumer -> closes the cursor when done or on error
+     * @param consumer receives each Expense in table order
+     */
+    public void forEachExpense(Consumer<? super Expense> consumer) throws SQLException {
+        try (Stream<Expense> expenses = streamExpenses()) {
+            expenses.forEach(consumer);
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Opens a streaming cursor for the given query and wraps it in a lazy Stream
+     * Flow: report connection (replica if usable, else primary) -> prepareStatement(forward-only, read-only) -> bind params -> streaming fetch size
+     *       -> executeQuery() (report time limit; it covers the wait for the first row, not the caller's consumption)
+     *       -> ResultSetSpliterator maps rows on demand -> onClose() releases rs, stmt and conn in reverse order
+     * @param sql SELECT query to execute
+     * @param mapper converts the current row into a model object
+     * @param params values bound to the query placeholders in order
+     * @return lazy Stream backed by the open ResultSet
+     */
+    private <T> Stream<T> stream(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        return EXECUTOR.execute("stream", true, () -> openStream(sql, mapper, params));
+    }
+
+    /**
+     * One attempt of stream(): retrying is only safe until the first row was handed out, so only the open is retried
+     */
+    private <T> Stream<T> openStream(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        Connection conn = ROUTER.reportConnection();
+        PreparedStatement stmt = null;
+        ResultSet rs = null;
+        try {
+            stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            stmt.setFetchSize(STREAMING_FETCH_SIZE);
+            rs = QueryScope.call("stream", REPORT_TIMEOUT_SECONDS, stmt::executeQuery); // The limit applies at execute
+        } catch (SQLException e) {
+            closeQuietly(rs, stmt, conn, e);
+            throw e;
+        }
+        ResultSet cursor = rs;
+        PreparedStatement statement = stmt;
+        return StreamSupport.stream(new ResultSetSpliterator<>(cursor, mapper), false)
+                .onClose(() -> {
+                    SQLException failure = closeQuietly(cursor, statement, conn, null);
+                    if (failure != null) {
+                        throw new UncheckedSQLException(failure);
+                    }
+                });
+    }
+
+    /**
+     * Closes JDBC resources in reverse order of creation, collecting failures instead of stopping at the first one
+     * @param primary exception already being thrown (close failures are added as suppressed), or null
+     * @return the primary exception, or the first close failure if there was no primary exception
+     */
+    private static SQLException closeQuietly(ResultSet rs, Statement stmt, Connection conn, SQLException primary) {
+        AutoCloseable[] resources = {rs, stmt, conn};
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                if (primary == null) {
+                    primary = e instanceof SQLException ? (SQLException) e : new SQLException(e);
+                } else {
+                    primary.addSuppressed(e);
+                }
+            }
+        }
+        return primary;
     }
 }
@@ -0,0 +1,28 @@
+package com.expense.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown when an UPDATE finds the row at a different version than the one the caller loaded,
+ * i.e. another user saved the row in between
+ *
+ * Carries the row as it is now, so the GUI can show both versions and merge or retry
+ * (retrying = sending the caller's values again with getCurrentVersion())
+ */
+public class OptimisticLockException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    private final Object current;
+
+    public OptimisticLockException(String message, Object current) {
+        super(message); // No SQLState on purpose: inTransaction must not retry a conflict automatically
+        this.current = current;
+    }
+
+    /**
+     * @return the stored row (Expense or Category) at its current version
+     */
+    public Object getCurrent() {
+        return current;
+    }
+}
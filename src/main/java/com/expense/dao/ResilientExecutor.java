@@ -0,0 +1,199 @@
+package com.expense.dao;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.expense.util.CircuitBreaker;
+import com.expense.util.QueryCancellation;
+
+/**
+ * Runs DAO operations with classified retries
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. MainDAO hands each public operation to execute(name, idempotent, work)
+ * 2. A failure is classified:
+ *    - CONTENTION (deadlock, lock wait timeout, serialization failure): the server rolled the statement/transaction
+ *      back, so running it again is always safe
+ *    - CONNECTION (communication failure, server gone away, connection killed, failover to a read-only server):
+ *      safe to repeat only if the operation is idempotent - a lost reply to a plain INSERT may mean it was applied
+ *    - PERMANENT (constraint or syntax errors, query timeouts, cancellation, open circuit, optimistic lock conflicts,
+ *      an unknown commit outcome): surfaced at once
+ * 3. Retries wait with exponential backoff and full jitter: random(0, min(max, base * 2^(retry-1))),
+ *    so clients that failed together do not come back together
+ * 4. The pool's CircuitBreaker sees the broken connections; once it opens, the next attempt fails fast with
+ *    CircuitOpenException, which is PERMANENT, so a dead server costs one quick error instead of every retry's wait
+ *
+ * MONITORING: getRetries(), getRecovered(), getExhausted()
+ */
+public class ResilientExecutor {
+    // MySQL client/server error codes for a connection that is gone or going away
+    private static final int ER_SERVER_SHUTDOWN = 1053;
+    private static final int ER_CONNECTION_KILLED = 1927;
+    private static final int ER_OPTION_PREVENTS_STATEMENT = 1290; // --read-only: primary demoted during failover
+    private static final int CR_CONNECTION_ERROR = 2002;
+    private static final int CR_CONN_HOST_ERROR = 2003;
+    private static final int CR_SERVER_GONE_ERROR = 2006;
+    private static final int CR_SERVER_LOST = 2013;
+    private static final int ER_LOCK_WAIT_TIMEOUT = 1205;
+    private static final int ER_LOCK_DEADLOCK = 1213;
+
+    enum Failure { CONTENTION, CONNECTION, PERMANENT }
+
+    /**
+     * One attempt of an operation
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        T run() throws SQLException;
+    }
+
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong recovered = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    /**
+     * @param maxAttempts tries per operation, the first one included
+     * @param baseBackoffMillis upper bound of the first retry's random wait
+     * @param maxBackoffMillis cap for the doubled bound
+     */
+    public ResilientExecutor(int maxAttempts, long baseBackoffMillis, long maxBackoffMillis) {
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    /**
+     * @param operation name for the log line written when a retry happens
+     * @param idempotent true if repeating a possibly applied attempt does no harm (reads, upserts, deletes by key,
+     *                   whole transactions before their commit)
+     * @return the first successful attempt's result
+     */
+    public <T> T execute(String operation, boolean idempotent, Work<T> work) throws SQLException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                T result = work.run();
+                if (attempt > 1) {
+                    recovered.incrementAndGet();
+                }
+                return result;
+            } catch (SQLException e) {
+                Failure failure = classify(e);
+                boolean retryable = failure == Failure.CONTENTION || (failure == Failure.CONNECTION && idempotent);
+                if (!retryable) {
+                    throw e;
+                }
+                if (attempt >= maxAttempts) {
+                    exhausted.incrementAndGet();
+                    throw e;
+                }
+                retries.incrementAndGet();
+                long wait = backoffMillis(attempt);
+                System.err.println("Retrying " + operation + " in " + wait + " ms after " + failure.name().toLowerCase()
+                        + " failure (attempt " + attempt + " of " + maxAttempts + "): " + e.getMessage());
+                sleep(wait);
+            }
+        }
+    }
+
+    /**
+     * @return random wait before retry number 'retry' (1-based), full jitter over an exponentially growing bound
+     */
+    long backoffMillis(int retry) {
+        long bound = baseBackoffMillis << Math.min(retry - 1, 30);
+        return ThreadLocalRandom.current().nextLong(Math.min(Math.max(bound, 1), maxBackoffMillis) + 1);
+    }
+
+    /**
+     * Sorts a failure into what may be retried; looks through wrapped causes
+     */
+    static Failure classify(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (!(t instanceof SQLException)) {
+                continue;
+            }
+            SQLException sql = (SQLException) t;
+            if (sql instanceof CircuitBreaker.CircuitOpenException
+                    || sql instanceof OptimisticLockException
+                    || sql instanceof CommitOutcomeUnknownException
+                    || sql instanceof SQLTimeoutException
+                    || QueryCancellation.SQL_STATE.equals(sql.getSQLState())) {
+                return Failure.PERMANENT;
+            }
+            if (sql instanceof SQLTransactionRollbackException
+                    || "40001".equals(sql.getSQLState())
+                    || sql.getErrorCode() == ER_LOCK_DEADLOCK
+                    || sql.getErrorCode() == ER_LOCK_WAIT_TIMEOUT) {
+                return Failure.CONTENTION;
+            }
+            if (isConnectionFailure(sql)) {
+                return Failure.CONNECTION;
+            }
+        }
+        return Failure.PERMANENT;
+    }
+
+    /**
+     * @return true if the statement failed because the connection or server went away
+     */
+    public static boolean isConnectionFailure(SQLException e) {
+        switch (e.getErrorCode()) {
+            case ER_SERVER_SHUTDOWN:
+            case ER_CONNECTION_KILLED:
+            case ER_OPTION_PREVENTS_STATEMENT:
+            case CR_CONNECTION_ERROR:
+            case CR_CONN_HOST_ERROR:
+            case CR_SERVER_GONE_ERROR:
+            case CR_SERVER_LOST:
+                return true;
+            default:
+                return e instanceof SQLRecoverableException
+                        || e instanceof SQLTransientConnectionException
+                        || e instanceof SQLNonTransientConnectionException
+                        || (e.getSQLState() != null && e.getSQLState().startsWith("08"));
+        }
+    }
+
+    private static void sleep(long millis) throws SQLException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting to retry", e);
+        }
+    }
+
+    /**
+     * @return retries made since startup
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * @return operations that failed at first and then succeeded on a retry
+     */
+    public long getRecovered() {
+        return recovered.get();
+    }
+
+    /**
+     * @return operations that still failed after the last allowed attempt
+     */
+    public long getExhausted() {
+        return exhausted.get();
+    }
+
+    @Override
+    public String toString() {
+        return "retries " + getRetries() + ", recovered " + getRecovered() + ", gave up " + getExhausted();
+    }
+}
@@ -0,0 +1,36 @@
+package com.expense.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator that walks a forward-only ResultSet and maps one row per advance
+ * Flow: Stream asks for the next element -> rs.next() -> RowMapper converts the row -> element handed to the consumer
+ * Only the current row is ever held in memory, so the stream size is bounded by the driver's fetch buffer
+ */
+class ResultSetSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+    private final ResultSet rs;
+    private final RowMapper<T> mapper;
+
+    ResultSetSpliterator(ResultSet rs, RowMapper<T> mapper) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        this.rs = rs;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        try {
+            if (!rs.next()) {
+                return false;
+            }
+            action.accept(mapper.mapRow(rs));
+            return true;
+        } catch (SQLException e) {
+            throw new UncheckedSQLException(e);
+        }
+    }
+}
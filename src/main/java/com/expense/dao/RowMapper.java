@@ -0,0 +1,14 @@
+package com.expense.dao;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Converts the current row of a ResultSet into a model object
+ * Flow: DAO positions the cursor with rs.next() -> mapRow() reads the columns -> returns the model object
+ * @param <T> model type produced for each row
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    T mapRow(ResultSet rs) throws SQLException;
+}
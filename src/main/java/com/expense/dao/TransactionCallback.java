@@ -0,0 +1,14 @@
+package com.expense.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Work executed inside MainDAO.inTransaction()
+ * Flow: inTransaction() opens the transaction -> execute() runs the DAO operations -> inTransaction() commits
+ * The callback may run more than once when a deadlock forces a retry, so it must not have side effects outside the UnitOfWork
+ * @param <T> result returned to the caller after commit
+ */
+@FunctionalInterface
+public interface TransactionCallback<T> {
+    T execute(UnitOfWork work) throws SQLException;
+}
@@ -0,0 +1,20 @@
+package com.expense.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Unchecked wrapper for SQLException thrown while a lazy stream is being consumed
+ * Flow: Stream.forEach() pulls the next row -> driver throws SQLException -> wrapped here -> caller unwraps with getCause()
+ */
+public class UncheckedSQLException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public UncheckedSQLException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -0,0 +1,128 @@
+package com.expense.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.model.Category;
+import com.model.Expense;
+
+/**
+ * Groups several category/expense operations on one connection and one transaction
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. MainDAO.inTransaction() borrows a connection and turns auto-commit off
+ * 2. The callback calls the same operations as MainDAO on this UnitOfWork
+ * 3. Every operation runs on the shared connection, so nothing is visible to other users yet
+ * 4. inTransaction() commits once at the end (one fsync), or rolls everything back on failure
+ *
+ * WHY:
+ * - Multi-step edits (e.g. move expenses, then delete the category) become atomic
+ * - One connection and one commit instead of one per operation
+ *
+ * VERSIONS: an update's new version is set on the caller's object only after COMMIT succeeds. A retried
+ * transaction therefore sends the version the caller loaded again, and a failed or rolled-back one leaves it unchanged
+ *
+ * A UnitOfWork is only valid inside its callback and must not be shared between threads
+ */
+public class UnitOfWork {
+    private final MainDAO dao;
+    private final Connection conn;
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private final Map<Savepoint, Integer> afterCommitMarks = new IdentityHashMap<>();
+
+    UnitOfWork(MainDAO dao, Connection conn) {
+        this.dao = dao;
+        this.conn = conn;
+    }
+
+    public int createCategory(Category category) throws SQLException {
+        return dao.createCategory(conn, category);
+    }
+
+    public boolean updateCategory(Category category) throws SQLException {
+        int version = category.getVersion();
+        boolean updated = dao.updateCategory(conn, category);
+        if (updated && version > 0) {
+            afterCommit.add(() -> category.setVersion(version + 1));
+        }
+        return updated;
+    }
+
+    public boolean deleteCategory(Category category) throws SQLException {
+        return dao.deleteCategory(conn, category);
+    }
+
+    public List<Category> getAllCategories() throws SQLException {
+        return dao.getAllCategories(conn);
+    }
+
+    public int createExpense(Expense expense) throws SQLException {
+        return dao.createExpense(conn, expense);
+    }
+
+    public boolean updateExpense(Expense expense) throws SQLException {
+        int version = expense.getVersion();
+        boolean updated = dao.updateExpense(conn, expense);
+        if (updated && version > 0) {
+            afterCommit.add(() -> expense.setVersion(version + 1));
+        }
+        return updated;
+    }
+
+    public boolean deleteExpense(Expense expense) throws SQLException {
+        return dao.deleteExpense(conn, expense);
+    }
+
+    public List<Expense> getAllExpenses() throws SQLException {
+        return dao.getAllExpenses(conn);
+    }
+
+    /**
+     * Marks a point the transaction can later be rolled back to without losing earlier work
+     * @param name savepoint name (for server logs)
+     * @return savepoint handle for rollbackTo()/releaseSavepoint()
+     */
+    public Savepoint setSavepoint(String name) throws SQLException {
+        Savepoint savepoint = conn.setSavepoint(name);
+        afterCommitMarks.put(savepoint, afterCommit.size());
+        return savepoint;
+    }
+
+    /**
+     * Undoes everything done after the savepoint; the transaction stays open
+     */
+    public void rollbackTo(Savepoint savepoint) throws SQLException {
+        conn.rollback(savepoint);
+        Integer mark = afterCommitMarks.get(savepoint);
+        if (mark != null) {
+            afterCommit.subList(mark, afterCommit.size()).clear(); // Undone updates keep their old version
+        }
+    }
+
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        conn.releaseSavepoint(savepoint);
+        afterCommitMarks.remove(savepoint);
+    }
+
+    /**
+     * Applies the in-memory effects of the committed work; called by MainDAO once COMMIT succeeded
+     */
+    void committed() {
+        for (Runnable action : afterCommit) {
+            action.run();
+        }
+        afterCommit.clear();
+    }
+
+    /**
+     * @return the transaction's connection, for DAO operations that run their own set-based SQL
+     */
+    Connection getConnection() {
+        return conn;
+    }
+}
@@ -0,0 +1,139 @@
+package com.expense.duplicate;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.expense.dao.MainDAO;
+import com.model.Expense;
+
+/**
+ * Hash index of expense fingerprints used to catch duplicate entries
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. build() streams every expense once and records fingerprint -> expense ids
+ * 2. GUI calls findMatches() before saving a new expense -> one hash lookup, no query
+ * 3. add()/remove() keep the index current after saves and deletes
+ * 4. findDuplicates() runs the batch scan for the review screen
+ *
+ * WHY: Comparing every expense with every other is O(n^2); grouping by fingerprint is one pass
+ * HOW: Two maps of primitives-in-boxes only - no Expense objects are retained, so the index stays small
+ *
+ * Not thread-safe: built off the EDT, then used from the Swing event thread only
+ */
+public class DuplicateIndex {
+    // Fingerprint -> ids of expenses with that fingerprint (usually exactly one)
+    private final Map<Long, int[]> byFingerprint = new HashMap<>();
+    // Expense id -> fingerprint, so remove() needs only the id
+    private final Map<Integer, Long> byId = new HashMap<>();
+
+    /**
+     * Builds the index from every stored expense in a single streamed pass
+     */
+    public static DuplicateIndex build(MainDAO dao) throws SQLException {
+        DuplicateIndex index = new DuplicateIndex();
+        dao.forEachExpense(index::add);
+        return index;
+    }
+
+    /**
+     * Batch scan for the review screen
+     * Flow: pass 1 builds the index (ids only) -> ids sharing a fingerprint are collected
+     *       -> pass 2 streams again and keeps just those expenses, grouped by fingerprint
+     * @return groups of two or more suspected duplicates, oldest id first in each group
+     */
+    public static List<List<Expense>> findDuplicates(MainDAO dao) throws SQLException {
+        DuplicateIndex index = build(dao);
+        Set<Integer> suspects = new HashSet<>();
+        for (int[] ids : index.byFingerprint.values()) {
+            if (ids.length > 1) {
+                for (int id : ids) {
+                    suspects.add(id);
+                }
+            }
+        }
+        if (suspects.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, List<Expense>> groups = new HashMap<>();
+        dao.forEachExpense(expense -> {
+            if (suspects.contains(expense.getExpense_id())) {
+                groups.computeIfAbsent(ExpenseFingerprint.of(expense), k -> new ArrayList<>()).add(expense);
+            }
+        });
+        List<List<Expense>> result = new ArrayList<>();
+        for (List<Expense> group : groups.values()) {
+            if (group.size() > 1) {
+                group.sort((a, b) -> Integer.compare(a.getExpense_id(), b.getExpense_id()));
+                result.add(group);
+            }
+        }
+        result.sort((a, b) -> Integer.compare(a.get(0).getExpense_id(), b.get(0).getExpense_id()));
+        return result;
+    }
+
+    /**
+     * @return ids of stored expenses with the same fingerprint (excluding the expense itself), empty if none
+     */
+    public int[] findMatches(Expense expense) {
+        int[] ids = byFingerprint.get(ExpenseFingerprint.of(expense));
+        if (ids == null) {
+            return new int[0];
+        }
+        int[] matches = new int[ids.length];
+        int count = 0;
+        for (int id : ids) {
+            if (id != expense.getExpense_id()) {
+                matches[count++] = id;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+
+    /**
+     * Adds or re-indexes an expense (an update is handled as remove + add)
+     */
+    public void add(Expense expense) {
+        remove(expense.getExpense_id());
+        long fingerprint = ExpenseFingerprint.of(expense);
+        int[] ids = byFingerprint.get(fingerprint);
+        if (ids == null) {
+            byFingerprint.put(fingerprint, new int[]{expense.getExpense_id()});
+        } else {
+            int[] grown = Arrays.copyOf(ids, ids.length + 1);
+            grown[ids.length] = expense.getExpense_id();
+            byFingerprint.put(fingerprint, grown);
+        }
+        byId.put(expense.getExpense_id(), fingerprint);
+    }
+
+    public void remove(int expenseId) {
+        Long fingerprint = byId.remove(expenseId);
+        if (fingerprint == null) {
+            return;
+        }
+        int[] ids = byFingerprint.get(fingerprint);
+        if (ids.length == 1) {
+            byFingerprint.remove(fingerprint);
+            return;
+        }
+        int[] shrunk = new int[ids.length - 1];
+        int count = 0;
+        for (int id : ids) {
+            if (id != expenseId) {
+                shrunk[count++] = id;
+            }
+        }
+        byFingerprint.put(fingerprint, shrunk);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+}
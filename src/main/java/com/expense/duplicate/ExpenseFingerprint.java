@@ -0,0 +1,65 @@
+package com.expense.duplicate;
+
+import com.model.Expense;
+
+/**
+ * 64-bit fingerprint of the fields that make two expenses "the same": category, amount, day and description
+ *
+ * NORMALISATION:
+ * - Time of day is dropped (bank imports often carry 00:00 while manual entries carry the current time)
+ * - Description is lower-cased, punctuation removed and whitespace collapsed, so "Netflix - Monthly" == "netflix monthly"
+ *
+ * HOW: FNV-1a over the normalised fields, computed without building intermediate strings
+ */
+final class ExpenseFingerprint {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ExpenseFingerprint() {
+    }
+
+    static long of(Expense expense) {
+        long hash = FNV_OFFSET;
+        hash = mix(hash, expense.getCategory_id());
+        hash = mix(hash, expense.getAmount());
+        long day = expense.getExpense_date() != null ? expense.getExpense_date().toLocalDate().toEpochDay() : Long.MIN_VALUE;
+        hash = mix(hash, (int) day);
+        hash = mix(hash, (int) (day >>> 32));
+        return mixDescription(hash, expense.getDescription());
+    }
+
+    private static long mix(long hash, int value) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            hash ^= (value >>> shift) & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes the description as lower-case letters/digits separated by single spaces
+     */
+    private static long mixDescription(long hash, String description) {
+        if (description == null) {
+            return hash;
+        }
+        boolean pendingSpace = false;
+        boolean started = false;
+        for (int i = 0; i < description.length(); i++) {
+            char c = description.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && started) {
+                    hash = (hash ^ ' ') * FNV_PRIME;
+                }
+                c = Character.toLowerCase(c);
+                hash = (hash ^ (c & 0xFF)) * FNV_PRIME;
+                hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+                started = true;
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,87 @@
+package com.expense.export;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import com.model.ExpenseView;
+
+/**
+ * Writes expenses as compact length-prefixed binary records (big-endian)
+ *
+ * FILE LAYOUT:
+ * - Header: magic "EXPB" (4 bytes), version (1 byte), flags (1 byte, bit 0 = category names present)
+ * - Record: int length of the record body that follows, then
+ *           int expense_id, int category_id, byte payment ordinal (-1 = null), int amount,
+ *           long expense_date and long created_at as epoch seconds of the local date-time (Long.MIN_VALUE = null),
+ *           int description byte length (-1 = null) + UTF-8 bytes,
+ *           [int category name byte length (-1 = null) + UTF-8 bytes when the flag is set]
+ * - Trailer: int -1 as end-of-records marker, then long record count
+ *
+ * WHY: Readers can skip records by length without decoding them and no field needs text parsing
+ * The record fields are the ExpenseView's own representation, so description bytes and dates are copied as stored
+ */
+class BinaryExpenseWriter implements ExpenseWriter {
+    static final byte[] MAGIC = {'E', 'X', 'P', 'B'};
+    static final byte VERSION = 1;
+    static final byte FLAG_CATEGORY_NAME = 1;
+
+    private final ChannelSink sink;
+    private final boolean withCategoryName;
+    private long records;
+
+    BinaryExpenseWriter(ChannelSink sink, boolean withCategoryName) {
+        this.sink = sink;
+        this.withCategoryName = withCategoryName;
+    }
+
+    @Override
+    public void writeHeader() throws IOException {
+        sink.putBytes(MAGIC);
+        sink.putByte(VERSION);
+        sink.putByte(withCategoryName ? FLAG_CATEGORY_NAME : 0);
+    }
+
+    @Override
+    public void write(ExpenseView expense, String categoryName) throws IOException {
+        byte[] description = expense.getDescriptionUtf8();
+        byte[] category = withCategoryName ? utf8(categoryName) : null;
+
+        int length = Integer.BYTES * 3 + 1 + Long.BYTES * 2
+                + Integer.BYTES + (description != null ? description.length : 0);
+        if (withCategoryName) {
+            length += Integer.BYTES + (category != null ? category.length : 0);
+        }
+
+        sink.putInt(length);
+        sink.putInt(expense.getId());
+        sink.putInt(expense.getCategoryId());
+        sink.putByte(expense.getPaymentMethod() != null ? expense.getPaymentMethod().ordinal() : -1);
+        sink.putInt(expense.getAmount());
+        sink.putLong(expense.getExpenseDateSeconds()); // NULL_TIME is Long.MIN_VALUE, the format's null marker
+        sink.putLong(expense.getCreatedAtSeconds());
+        putSized(description);
+        if (withCategoryName) {
+            putSized(category);
+        }
+        records++;
+    }
+
+    @Override
+    public void writeFooter() throws IOException {
+        sink.putInt(-1);
+        sink.putLong(records);
+    }
+
+    private void putSized(byte[] bytes) throws IOException {
+        if (bytes == null) {
+            sink.putInt(-1);
+        } else {
+            sink.putInt(bytes.length);
+            sink.putBytes(bytes);
+        }
+    }
+
+    private static byte[] utf8(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+}
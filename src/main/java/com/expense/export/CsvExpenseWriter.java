@@ -0,0 +1,83 @@
+package com.expense.export;
+
+import java.io.IOException;
+
+import com.model.ExpenseView;
+
+/**
+ * Writes expenses as CSV rows
+ * Flow: Each expense is formatted into a reused StringBuilder -> encoded into the ChannelSink in one call
+ */
+class CsvExpenseWriter implements ExpenseWriter {
+    private final ChannelSink sink;
+    private final boolean withCategoryName;
+    private final StringBuilder line = new StringBuilder(128);
+
+    CsvExpenseWriter(ChannelSink sink, boolean withCategoryName) {
+        this.sink = sink;
+        this.withCategoryName = withCategoryName;
+    }
+
+    @Override
+    public void writeHeader() throws IOException {
+        sink.putText(withCategoryName
+                ? "expense_id,category_id,category_name,payment_method,amount,description,expense_date,created_at\n"
+                : "expense_id,category_id,payment_method,amount,description,expense_date,created_at\n");
+    }
+
+    @Override
+    public void write(ExpenseView expense, String categoryName) throws IOException {
+        line.setLength(0);
+        line.append(expense.getId()).append(',')
+            .append(expense.getCategoryId()).append(',');
+        if (withCategoryName) {
+            appendQuoted(categoryName);
+            line.append(',');
+        }
+        line.append(expense.getPaymentMethod() != null ? expense.getPaymentMethod().name() : "").append(',')
+            .append(expense.getAmount()).append(',');
+        appendQuoted(expense.getDescription());
+        line.append(',');
+        if (expense.getExpenseDateSeconds() != ExpenseView.NULL_TIME) {
+            line.append(expense.getExpenseDate());
+        }
+        line.append(',');
+        if (expense.getCreatedAtSeconds() != ExpenseView.NULL_TIME) {
+            line.append(expense.getCreatedAt());
+        }
+        line.append('\n');
+        sink.putText(line);
+    }
+
+    @Override
+    public void writeFooter() {
+        // CSV has no trailer
+    }
+
+    /**
+     * Appends a field, quoting it only when it contains a separator, quote or line break
+     */
+    private void appendQuoted(String value) {
+        if (value == null) {
+            return;
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+}
@@ -0,0 +1,21 @@
+package com.expense.export;
+
+import java.io.IOException;
+
+import com.model.ExpenseView;
+
+/**
+ * Encodes expenses into one export format
+ * Flow: ExpenseExporter calls writeHeader() once -> write() for every streamed row -> writeFooter() once
+ */
+interface ExpenseWriter {
+    void writeHeader() throws IOException;
+
+    /**
+     * @param expense row to encode
+     * @param categoryName joined category name, or null when the export is not joined with categories
+     */
+    void write(ExpenseView expense, String categoryName) throws IOException;
+
+    void writeFooter() throws IOException;
+}
@@ -0,0 +1,44 @@
+package com.expense.export;
+
+/**
+ * Output formats supported by ExpenseExporter
+ * Flow: GUI or caller picks a format -> ExpenseExporter creates the matching ExpenseWriter -> rows streamed into the file
+ */
+public enum ExportFormat {
+    /** Comma separated values with a header row (RFC 4180 quoting) */
+    CSV("csv"),
+
+    /** One JSON object per line */
+    JSON_LINES("jsonl"),
+
+    /** Compact length-prefixed binary records, see BinaryExpenseWriter for the layout */
+    BINARY("expb");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Picks a format from a file name extension (a trailing ".gz" is ignored)
+     * @param fileName target file name
+     * @return matching format, or CSV if the extension is not recognised
+     */
+    public static ExportFormat fromFileName(String fileName) {
+        String lower = fileName.toLowerCase();
+        if (lower.endsWith(".gz")) {
+            lower = lower.substring(0, lower.length() - 3);
+        }
+        for (ExportFormat format : values()) {
+            if (lower.endsWith("." + format.extension)) {
+                return format;
+            }
+        }
+        return CSV;
+    }
+}
@@ -0,0 +1,73 @@
+package com.expense.export;
+
+import java.time.LocalDateTime;
+
+/**
+ * Settings for one export run
+ * Flow: Caller builds options -> ExpenseExporter reads the format, date range and join flag
+ */
+public class ExportOptions {
+    private final ExportFormat format;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private boolean includeCategoryNames;
+    private boolean compressed;
+
+    public ExportOptions(ExportFormat format) {
+        this.format = format;
+    }
+
+    /**
+     * Restricts the export to expenses with expense_date in [from, to)
+     * @param from inclusive lower bound
+     * @param to exclusive upper bound
+     * @return this options object for chaining
+     */
+    public ExportOptions between(LocalDateTime from, LocalDateTime to) {
+        this.from = from;
+        this.to = to;
+        return this;
+    }
+
+    /**
+     * Adds the category name next to every category_id in the output
+     * @return this options object for chaining
+     */
+    public ExportOptions withCategoryNames() {
+        this.includeCategoryNames = true;
+        return this;
+    }
+
+    /**
+     * Gzip-compresses the output (used for partition archives; also picked for ".gz" file names)
+     * @return this options object for chaining
+     */
+    public ExportOptions compressed() {
+        this.compressed = true;
+        return this;
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public boolean isIncludeCategoryNames() {
+        return includeCategoryNames;
+    }
+
+    public boolean isCompressed() {
+        return compressed;
+    }
+
+    public boolean hasDateRange() {
+        return from != null && to != null;
+    }
+}
@@ -0,0 +1,49 @@
+package com.expense.export;
+
+/**
+ * Throughput summary of a finished export
+ * Flow: ExpenseExporter counts rows and bytes while streaming -> returns an ExportReport -> GUI or log prints toString()
+ */
+public class ExportReport {
+    private final ExportFormat format;
+    private final long rows;
+    private final long bytes;
+    private final long elapsedNanos;
+
+    ExportReport(ExportFormat format, long rows, long bytes, long elapsedNanos) {
+        this.format = format;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    public double getMegabytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : bytes * 1_000_000_000.0 / elapsedNanos / (1024 * 1024);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s export: %,d rows, %,d bytes in %,d ms (%,.0f rows/s, %.2f MB/s)",
+                format, rows, bytes, getElapsedMillis(), getRowsPerSecond(), getMegabytesPerSecond());
+    }
+}
@@ -0,0 +1,80 @@
+package com.expense.export;
+
+import java.io.IOException;
+
+import com.model.ExpenseView;
+
+/**
+ * Writes expenses as JSON Lines (one JSON object per line)
+ * Flow: Each expense is formatted into a reused StringBuilder -> encoded into the ChannelSink in one call
+ */
+class JsonLinesExpenseWriter implements ExpenseWriter {
+    private final ChannelSink sink;
+    private final boolean withCategoryName;
+    private final StringBuilder line = new StringBuilder(160);
+
+    JsonLinesExpenseWriter(ChannelSink sink, boolean withCategoryName) {
+        this.sink = sink;
+        this.withCategoryName = withCategoryName;
+    }
+
+    @Override
+    public void writeHeader() {
+        // JSON Lines has no header
+    }
+
+    @Override
+    public void write(ExpenseView expense, String categoryName) throws IOException {
+        line.setLength(0);
+        line.append("{\"expense_id\":").append(expense.getId())
+            .append(",\"category_id\":").append(expense.getCategoryId());
+        if (withCategoryName) {
+            line.append(",\"category_name\":");
+            appendString(categoryName);
+        }
+        line.append(",\"payment_method\":");
+        appendString(expense.getPaymentMethod() != null ? expense.getPaymentMethod().name() : null);
+        line.append(",\"amount\":").append(expense.getAmount())
+            .append(",\"description\":");
+        appendString(expense.getDescription());
+        line.append(",\"expense_date\":");
+        appendString(expense.getExpenseDateSeconds() != ExpenseView.NULL_TIME ? expense.getExpenseDate().toString() : null);
+        line.append(",\"created_at\":");
+        appendString(expense.getCreatedAtSeconds() != ExpenseView.NULL_TIME ? expense.getCreatedAt().toString() : null);
+        line.append("}\n");
+        sink.putText(line);
+    }
+
+    @Override
+    public void writeFooter() {
+        // JSON Lines has no trailer
+    }
+
+    /**
+     * Appends a JSON string literal with the mandatory escapes, or null
+     */
+    private void appendString(String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': line.append("\\\""); break;
+                case '\\': line.append("\\\\"); break;
+                case '\n': line.append("\\n"); break;
+                case '\r': line.append("\\r"); break;
+                case '\t': line.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+            }
+        }
+        line.append('"');
+    }
+}
@@ -0,0 +1,194 @@
+package com.expense.gui;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Map;
+import javax.swing.JComponent;
+
+import com.expense.report.ExpenseAggregates;
+import com.model.PaymentMethod;
+
+/**
+ * Java2D dashboard drawn directly from ExpenseAggregates
+ *
+ * LAYOUT:
+ * - Top: spend over time as an area chart (downsampled to one bucket per pixel column)
+ * - Bottom left: horizontal bars per category, largest first
+ * - Bottom right: cash vs bank split as a stacked bar
+ *
+ * WHY: Painting only touches the pre-aggregated series, so a repaint costs the same for 100 or 10 million expenses
+ */
+class DashboardPanel extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    private static final Color BACKGROUND = new Color(30, 30, 30);
+    private static final Color GRID = new Color(70, 70, 70);
+    private static final Color TEXT = new Color(220, 220, 220);
+    private static final Color SERIES = new Color(64, 156, 255);
+    private static final Color CASH = new Color(255, 170, 60);
+    private static final Color BANK = new Color(90, 200, 120);
+    private static final int PADDING = 40;
+    private static final int MAX_CATEGORY_BARS = 12;
+
+    private ExpenseAggregates aggregates;
+    private Map<Integer, String> categoryNames = Collections.emptyMap();
+    private String status = "Loading...";
+
+    // Downsampled series cached for the last chart width, so repaints without resize do no work
+    private int cachedWidth = -1;
+    private long[][] cachedSeries;
+
+    void setStatus(String status) {
+        this.status = status;
+        repaint();
+    }
+
+    void setData(ExpenseAggregates aggregates, Map<Integer, String> categoryNames) {
+        this.aggregates = aggregates;
+        this.categoryNames = categoryNames;
+        this.status = null;
+        this.cachedWidth = -1;
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics graphics) {
+        Graphics2D g = (Graphics2D) graphics.create();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setColor(BACKGROUND);
+            g.fillRect(0, 0, getWidth(), getHeight());
+            g.setFont(new Font("SansSerif", Font.PLAIN, 12));
+            if (status != null || aggregates == null) {
+                drawCentered(g, status != null ? status : "No data", new Rectangle(0, 0, getWidth(), getHeight()));
+                return;
+            }
+            int half = getHeight() / 2;
+            drawTimeSeries(g, new Rectangle(PADDING, PADDING, getWidth() - 2 * PADDING, half - 2 * PADDING));
+            int bottomWidth = (getWidth() - 3 * PADDING) / 2;
+            drawCategories(g, new Rectangle(PADDING, half + PADDING / 2, bottomWidth, half - 2 * PADDING));
+            drawPaymentSplit(g, new Rectangle(2 * PADDING + bottomWidth, half + PADDING / 2, bottomWidth, half - 2 * PADDING));
+        } finally {
+            g.dispose();
+        }
+    }
+
+    private void drawTimeSeries(Graphics2D g, Rectangle area) {
+        drawTitle(g, "Spend over time", area);
+        if (aggregates.getDayCount() == 0 || area.width <= 0 || area.height <= 0) {
+            drawCentered(g, "No expenses", area);
+            return;
+        }
+        if (cachedWidth != area.width) {
+            cachedSeries = aggregates.downsample(area.width);
+            cachedWidth = area.width;
+        }
+        long[] totals = cachedSeries[1];
+        long max = 1;
+        for (long total : totals) {
+            max = Math.max(max, total);
+        }
+
+        g.setColor(GRID);
+        g.drawLine(area.x, area.y + area.height, area.x + area.width, area.y + area.height);
+        g.drawLine(area.x, area.y, area.x, area.y + area.height);
+
+        Path2D.Double path = new Path2D.Double();
+        double step = totals.length > 1 ? (double) area.width / (totals.length - 1) : 0;
+        path.moveTo(area.x, area.y + area.height);
+        for (int i = 0; i < totals.length; i++) {
+            double x = area.x + i * step;
+            double y = area.y + area.height - (double) totals[i] / max * area.height;
+            path.lineTo(x, y);
+        }
+        path.lineTo(area.x + (totals.length - 1) * step, area.y + area.height);
+        path.closePath();
+        g.setColor(new Color(SERIES.getRed(), SERIES.getGreen(), SERIES.getBlue(), 90));
+        g.fill(path);
+        g.setColor(SERIES);
+        g.setStroke(new BasicStroke(1.5f));
+        g.draw(path);
+
+        g.setColor(TEXT);
+        g.drawString(String.valueOf(max), area.x + 4, area.y + 12);
+        LocalDate first = aggregates.getFirstDay();
+        LocalDate last = aggregates.getLastDay();
+        g.drawString(first.toString(), area.x, area.y + area.height + 14);
+        String lastLabel = last.toString();
+        g.drawString(lastLabel, area.x + area.width - g.getFontMetrics().stringWidth(lastLabel), area.y + area.height + 14);
+    }
+
+    private void drawCategories(Graphics2D g, Rectangle area) {
+        drawTitle(g, "Per category", area);
+        Map<Integer, Long> totals = aggregates.getCategoryTotals();
+        if (totals.isEmpty()) {
+            drawCentered(g, "No expenses", area);
+            return;
+        }
+        int bars = Math.min(MAX_CATEGORY_BARS, totals.size());
+        int barHeight = Math.max(4, area.height / bars - 4);
+        long max = totals.values().iterator().next(); // Sorted largest first
+        int labelWidth = 120;
+        FontMetrics metrics = g.getFontMetrics();
+        int row = 0;
+        for (Map.Entry<Integer, Long> entry : totals.entrySet()) {
+            if (row == bars) {
+                break;
+            }
+            int y = area.y + row * (barHeight + 4);
+            String name = categoryNames.getOrDefault(entry.getKey(), "#" + entry.getKey());
+            g.setColor(TEXT);
+            g.drawString(name, area.x, y + barHeight / 2 + metrics.getAscent() / 2);
+            int width = (int) ((double) entry.getValue() / Math.max(1, max) * (area.width - labelWidth - 60));
+            g.setColor(SERIES);
+            g.fillRect(area.x + labelWidth, y, Math.max(1, width), barHeight);
+            g.setColor(TEXT);
+            g.drawString(String.valueOf(entry.getValue()), area.x + labelWidth + width + 6, y + barHeight / 2 + metrics.getAscent() / 2);
+            row++;
+        }
+    }
+
+    private void drawPaymentSplit(Graphics2D g, Rectangle area) {
+        drawTitle(g, "Cash vs bank", area);
+        long cash = aggregates.getPaymentTotal(PaymentMethod.CASH);
+        long bank = aggregates.getPaymentTotal(PaymentMethod.BANK_ACCOUNT);
+        long total = cash + bank;
+        if (total == 0) {
+            drawCentered(g, "No expenses", area);
+            return;
+        }
+        int barHeight = Math.min(60, area.height / 3);
+        int y = area.y + (area.height - barHeight) / 2;
+        int cashWidth = (int) ((double) cash / total * area.width);
+        g.setColor(CASH);
+        g.fillRect(area.x, y, cashWidth, barHeight);
+        g.setColor(BANK);
+        g.fillRect(area.x + cashWidth, y, area.width - cashWidth, barHeight);
+
+        g.setColor(TEXT);
+        g.drawString(String.format("Cash %d (%.0f%%)", cash, 100.0 * cash / total), area.x, y - 6);
+        String bankLabel = String.format("Bank %d (%.0f%%)", bank, 100.0 * bank / total);
+        g.drawString(bankLabel, area.x + area.width - g.getFontMetrics().stringWidth(bankLabel), y + barHeight + 16);
+    }
+
+    private void drawTitle(Graphics2D g, String title, Rectangle area) {
+        g.setColor(TEXT);
+        g.drawString(title, area.x, area.y - 8);
+    }
+
+    private void drawCentered(Graphics2D g, String text, Rectangle area) {
+        FontMetrics metrics = g.getFontMetrics();
+        g.setColor(TEXT);
+        g.drawString(text, area.x + (area.width - metrics.stringWidth(text)) / 2,
+                area.y + (area.height + metrics.getAscent()) / 2);
+    }
+}
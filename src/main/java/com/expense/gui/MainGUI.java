@@ -2,14 +2,54 @@ package com.expense.gui;
 
 import javax.swing.*;
 import com.expense.dao.MainDAO;
+import com.expense.dao.OptimisticLockException;
+import com.expense.export.ExpenseExporter;
+import com.expense.export.ExportFormat;
+import com.expense.export.ExportOptions;
+import com.expense.export.ExportReport;
+import com.expense.anomaly.AnomalyDetector;
+import com.expense.anomaly.ExpenseAnomaly;
+import com.expense.budget.BudgetAlert;
+import com.expense.budget.BudgetMonitor;
+import com.expense.changes.ChangeFeedPoller;
+import com.expense.changes.ChangeSet;
+import com.expense.duplicate.DuplicateIndex;
+import com.expense.report.ExpenseAggregates;
+import com.expense.sketch.SketchBuilder;
+import com.expense.sketch.SketchSummary;
+import com.expense.storage.OfflineSynchronizer;
+import com.expense.util.AppConfig;
+import com.expense.util.CircuitBreaker;
+import com.expense.util.DatabaseConnection;
+import com.expense.util.QueryCancellation;
+import com.expense.util.QueryScope;
+import com.model.Budget;
 import com.model.Category;
 import com.model.Expense;
+import com.model.ExpenseView;
 import com.model.PaymentMethod;
+import com.model.RecurrenceFrequency;
+import com.model.RecurringExpense;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.io.IOException;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.swing.JSpinner;
 import javax.swing.SpinnerDateModel;
 import java.util.Date;
@@ -19,12 +59,13 @@ public class MainGUI extends JFrame {
     // Attributes
     private MainDAO mainDAO;
     private JPanel panel;
-    private JButton category,expense;
+    private JButton category,expense,dashboard;
     private JTable categoryTable;
     private DefaultTableModel tableModel;
+    private PrimitiveRowSorter<DefaultTableModel> categorySorter;
     private JTextField nameField;
     private JTextArea descriptionArea;
-    private JButton addCategory, deleteCategory, updateCategory;
+    private JButton addCategory, deleteCategory, updateCategory, mergeCategory, deleteCategoryCascade, setBudget, categoryStatistics;
     
     // Expense form fields - same pattern as category
     private JComboBox<Category> categoryCombo;
@@ -34,14 +75,341 @@ public class MainGUI extends JFrame {
     private JSpinner dateSpinner;
     private JTable expenseTable;
     private DefaultTableModel expenseTableModel;
-    private JButton addExpense, deleteExpense, updateExpense;
+    private PrimitiveRowSorter<DefaultTableModel> expenseSorter;
+    private JButton addExpense, deleteExpense, updateExpense, bulkEditExpenses, exportExpenses, recurringExpenses, findDuplicates;
+
+    // Dashboard aggregate cache (expense.gui.aggregateCacheMillis)
+    private static final long AGGREGATE_CACHE_MILLIS = AppConfig.get().getAggregateCacheMillis();
+    private ExpenseAggregates cachedAggregates;
+    private Map<Integer, String> cachedCategoryNames;
+    private long aggregatesLoadedAt;
+
+    // Running per-category/month totals; loaded once, then updated on every expense save (null = reload on next use)
+    private BudgetMonitor budgetMonitor;
+
+    // Fingerprint index for duplicate checks on save; built in the background (null until ready)
+    private DuplicateIndex duplicateIndex;
+
+    // Per-category running statistics for anomaly flags; seeded in the background (null until ready)
+    private AnomalyDetector anomalyDetector;
+
+    // Windows are built on first open and then reused (hidden on close, refreshed on reopen)
+    private JFrame categoryFrame, expenseFrame;
+
+    // Row versions of the loaded rows (id -> version), sent back with updates for optimistic concurrency
+    private final Map<Integer, Integer> categoryVersions = new HashMap<>();
+    private final Map<Integer, Integer> expenseVersions = new HashMap<>();
+
+    // Polls the server's change log and patches the open tables with other clients' edits (online only)
+    private static final long CHANGE_POLL_SECONDS = AppConfig.get().getChangePollSeconds();
+    // Pause after the last keystroke before a table filter is applied (expense.gui.filterDebounceMillis)
+    private static final int FILTER_DEBOUNCE_MILLIS = AppConfig.get().getFilterDebounceMillis();
+    private ChangeFeedPoller changeFeed;
+
+    // Background loads that are cancelled (Statement.cancel + cooperative checks) when their window closes or a newer load starts
+    private final AtomicReference<QueryCancellation> statisticsLoad = new AtomicReference<>();
+    private final AtomicReference<QueryCancellation> duplicateIndexLoad = new AtomicReference<>();
+    private final AtomicReference<QueryCancellation> duplicateScan = new AtomicReference<>();
+
+    // Categories fetched during startup; used by the first window load instead of a query
+    private List<Category> preloadedCategories;
 
     // Constructor
     public MainGUI() {
-        mainDAO = new MainDAO();
+        this(new MainDAO());
+    }
+
+    /**
+     * Creates the GUI on top of a specific DAO (e.g. LocalStoreDAO when the database is unreachable)
+     * @param mainDAO data access object used by every window, or null to start in a "connecting" state until attach()
+     */
+    public MainGUI(MainDAO mainDAO) {
+        this.mainDAO = mainDAO;
         initializeComponents();
         setupComponents();
         setupEventListeners();
+        if (mainDAO == null) {
+            setTitle("Expense Tracker (connecting...)");
+            setNavigationEnabled(false);
+        }
+    }
+
+    /**
+     * Connects the window to its storage once startup has opened it
+     * Flow: Main's background startup finishes -> attach() on the EDT -> navigation buttons enabled
+     *       Called again when offline mode ends: open windows are reloaded from the new storage
+     * @param mainDAO storage chosen at startup, or MySQL once the offline journal has been synced
+     * @param preloadedCategories categories fetched in the background, or null to query on first use
+     * @param offline true when running on the local journal
+     */
+    public void attach(MainDAO mainDAO, List<Category> preloadedCategories, boolean offline) {
+        boolean switching = this.mainDAO != null && this.mainDAO != mainDAO;
+        this.mainDAO = mainDAO;
+        this.preloadedCategories = preloadedCategories;
+        if (switching) {
+            reloadOpenWindows(); // Local ids were replaced by server ids during the sync
+        }
+        setTitle(offline ? "Expense Tracker (offline)" : "Expense Tracker");
+        setNavigationEnabled(true);
+        if (!offline && changeFeed == null) {
+            // Title tells the user the database is down while the pool's circuit breaker fails calls fast
+            DatabaseConnection.getPool().getCircuitBreaker().addListener(state -> SwingUtilities.invokeLater(() ->
+                    setTitle(state == CircuitBreaker.State.OPEN ? "Expense Tracker (database unavailable)" : "Expense Tracker")));
+            changeFeed = new ChangeFeedPoller(mainDAO);
+            changeFeed.setListener(changes -> SwingUtilities.invokeLater(() -> applyChanges(changes)));
+            changeFeed.start(CHANGE_POLL_SECONDS);
+        }
+    }
+
+    /**
+     * Patches the loaded tables with rows other clients changed, instead of reloading them
+     * Flow: ChangeFeedPoller thread -> invokeLater -> category rows, combo and expense rows replaced/added/removed in place
+     *       -> budget, duplicate and anomaly caches follow the same before/after values as local edits
+     * Rows the table already holds in a newer version (reloaded after the poll read them) are left alone
+     */
+    private void applyChanges(ChangeSet changes) {
+        if (changes.isReloadRequired()) {
+            reloadOpenWindows();
+            return;
+        }
+        if (!changes.getCategories().isEmpty() || !changes.getDeletedCategoryIds().isEmpty()) {
+            applyCategoryChanges(changes);
+        }
+        if (!changes.getExpenses().isEmpty() || !changes.getDeletedExpenseIds().isEmpty()) {
+            cachedAggregates = null;
+            if (expenseTableModel != null) {
+                applyExpenseChanges(changes);
+            }
+        }
+    }
+
+    /**
+     * Drops cached aggregates and reloads the visible windows from the current DAO
+     */
+    private void reloadOpenWindows() {
+        budgetMonitor = null;
+        cachedAggregates = null;
+        if (categoryFrame != null && categoryFrame.isVisible()) {
+            loadCategories();
+        }
+        if (expenseFrame != null && expenseFrame.isVisible()) {
+            loadCategoriesForExpense();
+            loadExpenses();
+        }
+    }
+
+    /**
+     * Lets the user settle the offline changes the synchroniser could not push, once the window is back on MySQL
+     * Flow: Sync thread -> invokeLater -> edit conflicts go through saveCategory()/saveExpense() without a base
+     *       (fields both sides changed are asked about); changes the server refused are shown with the reason and
+     *       discarded on request -> synchronizer.resolve() stores the server's row locally
+     * A refused change the user keeps stays in the journal and is tried again on the next start
+     */
+    public void resolveOfflineConflicts(List<OfflineSynchronizer.Conflict> conflicts, OfflineSynchronizer synchronizer) {
+        for (OfflineSynchronizer.Conflict conflict : conflicts) {
+            try {
+                if (conflict.isEditConflict()) {
+                    if (conflict.isCategory()) {
+                        saveCategory((Category) conflict.getLocal(), null);
+                    } else {
+                        saveExpense((Expense) conflict.getLocal(), null);
+                    }
+                } else if (JOptionPane.showConfirmDialog(this, "A change made offline could not be saved:\n" + conflict
+                        + "\n\nDiscard it and keep the database version?", "Offline Sync",
+                        JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) != JOptionPane.YES_OPTION) {
+                    continue;
+                }
+                synchronizer.resolve(conflict);
+            } catch (SQLException | IOException e) {
+                JOptionPane.showMessageDialog(this, "Could not save the offline change (" + conflict + "): "
+                        + e.getMessage(), "Offline Sync", JOptionPane.ERROR_MESSAGE);
+            }
+        }
+        reloadOpenWindows();
+    }
+
+    private void applyCategoryChanges(ChangeSet changes) {
+        Map<String, String> renamed = new HashMap<>();
+        if (categoryCombo != null) {
+            DefaultComboBoxModel<Category> combo = (DefaultComboBoxModel<Category>) categoryCombo.getModel();
+            Object selected = combo.getSelectedItem();
+            for (Category category : changes.getCategories()) {
+                int index = comboIndex(combo, category.getCategoryid());
+                if (index < 0) {
+                    combo.addElement(category);
+                    continue;
+                }
+                String oldName = combo.getElementAt(index).getCategoryname();
+                if (!oldName.equals(category.getCategoryname())) {
+                    renamed.put(oldName, category.getCategoryname());
+                }
+                combo.removeElementAt(index);
+                combo.insertElementAt(category, index);
+            }
+            for (int id : changes.getDeletedCategoryIds()) {
+                int index = comboIndex(combo, id);
+                if (index >= 0) {
+                    combo.removeElementAt(index);
+                }
+            }
+            if (selected instanceof Category) {
+                int index = comboIndex(combo, ((Category) selected).getCategoryid());
+                combo.setSelectedItem(index >= 0 ? combo.getElementAt(index) : null);
+            }
+        }
+        if (!renamed.isEmpty() && expenseTableModel != null) {
+            for (Vector<Object> values : rowsOf(expenseTableModel)) {
+                values.set(1, renamed.getOrDefault(values.get(1), (String) values.get(1)));
+            }
+            expenseTableModel.fireTableDataChanged();
+        }
+        if (tableModel == null) {
+            return;
+        }
+
+        Object selectedId = categoryTable.getSelectedRow() >= 0 ? categoryTable.getValueAt(categoryTable.getSelectedRow(), 0) : null;
+        Vector<Vector<Object>> data = rowsOf(tableModel);
+        Map<Integer, Integer> rowOf = rowIndex(data);
+        for (Category category : changes.getCategories()) {
+            int id = category.getCategoryid();
+            if (categoryVersions.getOrDefault(id, 0) > category.getVersion()) {
+                continue;
+            }
+            Vector<Object> values = new Vector<>(Arrays.asList(
+                    id, category.getCategoryname(), category.getCategorydescription()));
+            Integer row = rowOf.get(id);
+            if (row != null) {
+                data.set(row, values);
+            } else {
+                data.add(values);
+            }
+            categoryVersions.put(id, category.getVersion());
+        }
+        removeRows(data, rowOf, changes.getDeletedCategoryIds());
+        changes.getDeletedCategoryIds().forEach(categoryVersions::remove);
+        tableModel.fireTableDataChanged();
+        reselect(categoryTable, selectedId);
+    }
+
+    private void applyExpenseChanges(ChangeSet changes) {
+        Map<Integer, String> categoryNames = new HashMap<>();
+        for (int i = 0; i < categoryCombo.getItemCount(); i++) {
+            Category category = categoryCombo.getItemAt(i);
+            categoryNames.put(category.getCategoryid(), category.getCategoryname());
+        }
+        Object selectedId = expenseTable.getSelectedRow() >= 0 ? expenseTable.getValueAt(expenseTable.getSelectedRow(), 0) : null;
+        Vector<Vector<Object>> data = rowsOf(expenseTableModel);
+        Map<Integer, Integer> rowOf = rowIndex(data);
+
+        for (Expense expense : changes.getExpenses()) {
+            int id = expense.getExpense_id();
+            if (expenseVersions.getOrDefault(id, 0) > expense.getVersion()) {
+                continue;
+            }
+            Integer row = rowOf.get(id);
+            Expense before = row != null ? expenseFromRow(row) : null;
+            Vector<Object> values = new Vector<>(Arrays.asList(expenseRow(expense, categoryNames)));
+            if (row != null) {
+                data.set(row, values);
+            } else {
+                data.add(values);
+            }
+            expenseVersions.put(id, expense.getVersion());
+            if (duplicateIndex != null) {
+                duplicateIndex.add(expense);
+            }
+            if (budgetMonitor != null) {
+                if (before != null) {
+                    budgetMonitor.expenseUpdated(before, expense);
+                } else {
+                    budgetMonitor.expenseCreated(expense);
+                }
+            }
+            if (anomalyDetector != null && before == null) {
+                anomalyDetector.observe(expense); // Keeps the statistics in step; alerts are only shown to the author
+            }
+        }
+        for (int id : changes.getDeletedExpenseIds()) {
+            Integer row = rowOf.get(id);
+            if (row != null && budgetMonitor != null) {
+                budgetMonitor.expenseDeleted(expenseFromRow(row));
+            }
+            if (duplicateIndex != null) {
+                duplicateIndex.remove(id);
+            }
+            expenseVersions.remove(id);
+        }
+        removeRows(data, rowOf, changes.getDeletedExpenseIds());
+        expenseTableModel.fireTableDataChanged();
+        reselect(expenseTable, selectedId);
+    }
+
+    private static int comboIndex(DefaultComboBoxModel<Category> combo, int categoryId) {
+        for (int i = 0; i < combo.getSize(); i++) {
+            if (combo.getElementAt(i).getCategoryid() == categoryId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the model's live row data, typed (DefaultTableModel declares it as a Vector of raw Vectors)
+     */
+    @SuppressWarnings("unchecked")
+    private static Vector<Vector<Object>> rowsOf(DefaultTableModel model) {
+        return (Vector<Vector<Object>>) (Vector<?>) model.getDataVector();
+    }
+
+    /**
+     * @return model row index per id (column 0)
+     */
+    private static Map<Integer, Integer> rowIndex(Vector<Vector<Object>> data) {
+        Map<Integer, Integer> rowOf = new HashMap<>(data.size() * 2);
+        for (int i = 0; i < data.size(); i++) {
+            rowOf.put((Integer) data.get(i).get(0), i);
+        }
+        return rowOf;
+    }
+
+    /**
+     * Removes the rows of the given ids, highest index first so earlier indexes stay valid
+     */
+    private static void removeRows(Vector<Vector<Object>> data, Map<Integer, Integer> rowOf,
+                                   Set<Integer> ids) {
+        ids.stream().map(rowOf::get).filter(Objects::nonNull)
+                .sorted(Comparator.reverseOrder())
+                .forEach(row -> data.remove((int) row));
+    }
+
+    /**
+     * Selects the row with the given id again after the model changed (fireTableDataChanged clears the selection)
+     */
+    private static void reselect(JTable table, Object id) {
+        if (id == null) {
+            return;
+        }
+        for (int row = 0; row < table.getRowCount(); row++) {
+            if (id.equals(table.getValueAt(row, 0))) {
+                table.setRowSelectionInterval(row, row);
+                return;
+            }
+        }
+    }
+
+    private void setNavigationEnabled(boolean enabled) {
+        category.setEnabled(enabled);
+        expense.setEnabled(enabled);
+        dashboard.setEnabled(enabled);
+    }
+
+    /**
+     * @return categories preloaded at startup (once), otherwise a fresh query
+     */
+    private List<Category> fetchCategories() throws SQLException {
+        List<Category> categories = preloadedCategories;
+        preloadedCategories = null;
+        return categories != null ? categories : mainDAO.getAllCategories();
     }
 
     /**
@@ -57,7 +425,6 @@ public class MainGUI extends JFrame {
 
     private void initializeComponents() {
         setTitle("Expense Tracker");
-        setVisible(true);
         setSize(1920,1200);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
     }
@@ -70,10 +437,13 @@ public class MainGUI extends JFrame {
 
         category = new JButton("Category");
         expense = new JButton("Expense");
+        dashboard = new JButton("Dashboard");
         category.setPreferredSize(new Dimension(150,50));
         expense.setPreferredSize(new Dimension(150,50));
+        dashboard.setPreferredSize(new Dimension(150,50));
         category.setFont(new Font("Serif", Font.BOLD, 20));
         expense.setFont(new Font("Serif", Font.BOLD, 20));
+        dashboard.setFont(new Font("Serif", Font.BOLD, 20));
 
         GridBagConstraints gbc = new GridBagConstraints();
         gbc.insets = new Insets(20, 20, 20, 20); // spacing between buttons
@@ -88,18 +458,36 @@ public class MainGUI extends JFrame {
         gbc.gridy = 0;
         panel.add(expense, gbc);
 
+        // Add third button
+        gbc.gridx = 2;
+        gbc.gridy = 0;
+        panel.add(dashboard, gbc);
+
         add(panel, BorderLayout.CENTER);
     }
 
     /**
      * Creates and displays the Category management window
      * This method sets up the UI for adding, updating, and deleting categories
-     * Flow: User clicks Category button -> This method creates new JFrame -> Sets up form fields and table -> Loads existing categories
+     * Flow: User clicks Category button -> JFrame built on first open (hidden and reused afterwards) -> Sets up form fields and table -> Loads existing categories
      */
     private void Category() {
+        if (categoryFrame != null) {
+            loadCategories();
+            categoryFrame.setVisible(true);
+            categoryFrame.toFront();
+            return;
+        }
         JFrame frame = new JFrame("Category");
-        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
-        frame.setSize(900, 600);
+        categoryFrame = frame;
+        frame.setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
+        frame.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                cancelLoad(statisticsLoad);
+            }
+        });
+        frame.setSize(1100, 600);
         frame.setResizable(false);
         frame.setLocationRelativeTo(null);
         frame.setLayout(new GridBagLayout());
@@ -149,10 +537,20 @@ public class MainGUI extends JFrame {
         };
 
         categoryTable = new JTable(tableModel);
-        JScrollPane tableScroll = new JScrollPane(categoryTable);
+        categorySorter = new PrimitiveRowSorter<>(tableModel,
+                PrimitiveRowSorter.KeyType.NUMBER, PrimitiveRowSorter.KeyType.TEXT, PrimitiveRowSorter.KeyType.TEXT);
+        categoryTable.setRowSorter(categorySorter);
+
+        // Filter row above the table
         gbc.gridx = 0;
         gbc.gridy = 2;
         gbc.gridwidth = 2;
+        frame.add(createFilterPanel(tableModel, categorySorter), gbc);
+
+        JScrollPane tableScroll = new JScrollPane(categoryTable);
+        gbc.gridx = 0;
+        gbc.gridy = 3;
+        gbc.gridwidth = 2;
         gbc.weighty = 1;
         gbc.fill = GridBagConstraints.BOTH;
         frame.add(tableScroll, gbc);
@@ -161,14 +559,22 @@ public class MainGUI extends JFrame {
         addCategory = new JButton("Add Category");
         deleteCategory = new JButton("Delete Category");
         updateCategory = new JButton("Update Category");
+        mergeCategory = new JButton("Merge Into...");
+        deleteCategoryCascade = new JButton("Delete With Expenses");
+        setBudget = new JButton("Set Budget...");
+        categoryStatistics = new JButton("Statistics...");
 
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 10));
         buttonPanel.add(addCategory);
         buttonPanel.add(deleteCategory);
         buttonPanel.add(updateCategory);
+        buttonPanel.add(mergeCategory);
+        buttonPanel.add(deleteCategoryCascade);
+        buttonPanel.add(setBudget);
+        buttonPanel.add(categoryStatistics);
 
         gbc.gridx = 0;
-        gbc.gridy = 3;
+        gbc.gridy = 4;
         gbc.gridwidth = 2;
         gbc.weighty = 0;
         gbc.fill = GridBagConstraints.NONE;
@@ -198,6 +604,204 @@ public class MainGUI extends JFrame {
         addCategory.addActionListener(e -> addCategory());
         deleteCategory.addActionListener(e -> deleteCategory());
         updateCategory.addActionListener(e -> updateCategory());
+        mergeCategory.addActionListener(e -> mergeCategory());
+        deleteCategoryCascade.addActionListener(e -> deleteCategoryWithExpenses());
+        setBudget.addActionListener(e -> setCategoryBudget());
+        categoryStatistics.addActionListener(e -> categoryStatistics());
+    }
+
+    /**
+     * Shows median, 95th percentile and distinct merchants of the selected category over a month range
+     * Flow: User picks range -> SwingWorker rebuilds the category/months marked stale by earlier writes and this
+     *       month's sketches (or every live month on request) -> loads one small sketch per month -> merges them
+     *       -> result shown
+     */
+    private void categoryStatistics() {
+        int row = categoryTable.getSelectedRow();
+        if (row == -1) {
+            JOptionPane.showMessageDialog(this, "Please select a category");
+            return;
+        }
+        int id = (int) categoryTable.getValueAt(row, 0);
+        String name = (String) categoryTable.getValueAt(row, 1);
+
+        JTextField fromField = new JTextField(YearMonth.now().minusMonths(11).toString());
+        JTextField toField = new JTextField(YearMonth.now().toString());
+        JCheckBox rebuildAll = new JCheckBox("Rebuild sketches for all live months first");
+        JPanel form = new JPanel(new GridLayout(3, 2, 8, 8));
+        form.add(new JLabel("From (yyyy-MM):"));
+        form.add(fromField);
+        form.add(new JLabel("To (yyyy-MM):"));
+        form.add(toField);
+        form.add(rebuildAll);
+        if (JOptionPane.showConfirmDialog(this, form, "Statistics for " + name,
+                JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        YearMonth from;
+        YearMonth to;
+        try {
+            from = YearMonth.parse(fromField.getText().trim());
+            to = YearMonth.parse(toField.getText().trim());
+        } catch (DateTimeParseException e) {
+            JOptionPane.showMessageDialog(this, "Please enter months as yyyy-MM");
+            return;
+        }
+
+        categoryStatistics.setEnabled(false);
+        QueryCancellation load = restartLoad(statisticsLoad);
+        new SwingWorker<SketchSummary, Void>() {
+            @Override
+            protected SketchSummary doInBackground() throws Exception {
+                return QueryScope.callCancellable(load, () -> {
+                    SketchBuilder.refreshStale(mainDAO); // Earlier months touched by edits, deletes and pushes
+                    SketchBuilder.rebuild(mainDAO, rebuildAll.isSelected() ? null : YearMonth.now());
+                    return SketchSummary.of(mainDAO.getSketches(id, from, to));
+                });
+            }
+
+            @Override
+            protected void done() {
+                categoryStatistics.setEnabled(true);
+                if (load.isCancelled()) {
+                    return; // Window was closed
+                }
+                try {
+                    JOptionPane.showMessageDialog(MainGUI.this, get().toString(),
+                            name + " (" + from + " to " + to + ")", JOptionPane.INFORMATION_MESSAGE);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(MainGUI.this, "Statistics failed: " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Sets, changes or removes the monthly budget of the selected category
+     * Flow: User selects row -> clicks Set Budget -> enters limit (empty removes it) -> DAO upsert/delete -> monitor limit updated
+     */
+    private void setCategoryBudget() {
+        int row = categoryTable.getSelectedRow();
+        if (row == -1) {
+            JOptionPane.showMessageDialog(this, "Please select a category");
+            return;
+        }
+
+        int id = (int) categoryTable.getValueAt(row, 0);
+        String name = (String) categoryTable.getValueAt(row, 1);
+        BudgetMonitor monitor = budgetMonitor();
+        int current = monitor != null ? monitor.getLimit(id) : -1;
+
+        String input = JOptionPane.showInputDialog(this,
+                "Monthly budget for " + name + " (leave empty to remove):",
+                current >= 0 ? String.valueOf(current) : "");
+        if (input == null) {
+            return;
+        }
+
+        try {
+            if (input.trim().isEmpty()) {
+                mainDAO.deleteBudget(id);
+                if (monitor != null) {
+                    monitor.removeLimit(id);
+                }
+                JOptionPane.showMessageDialog(this, "Budget removed for " + name);
+                return;
+            }
+            int limit = Integer.parseInt(input.trim());
+            if (limit <= 0) {
+                JOptionPane.showMessageDialog(this, "Budget must be greater than 0");
+                return;
+            }
+            mainDAO.saveBudget(new Budget(id, limit));
+            if (monitor != null) {
+                monitor.setLimit(id, limit);
+            }
+            JOptionPane.showMessageDialog(this, "Budget saved for " + name);
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Please enter a valid amount (numbers only)");
+        } catch (SQLException e) {
+            JOptionPane.showMessageDialog(this, "Budget update failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Moves all expenses of the selected category into another category and deletes the selected one
+     * Flow: User selects row -> clicks Merge -> picks target category -> DAO runs one UPDATE + DELETE in a transaction -> table refreshed
+     */
+    private void mergeCategory() {
+        int row = categoryTable.getSelectedRow();
+        if (row == -1) {
+            JOptionPane.showMessageDialog(this, "Please select a category to merge");
+            return;
+        }
+
+        int id = (int) categoryTable.getValueAt(row, 0);
+        String name = (String) categoryTable.getValueAt(row, 1);
+
+        try {
+            JComboBox<Category> targets = new JComboBox<>();
+            targets.setRenderer(new CategoryNameRenderer());
+            for (Category candidate : mainDAO.getAllCategories()) {
+                if (candidate.getCategoryid() != id) {
+                    targets.addItem(candidate);
+                }
+            }
+            if (targets.getItemCount() == 0) {
+                JOptionPane.showMessageDialog(this, "There is no other category to merge into");
+                return;
+            }
+
+            int choice = JOptionPane.showConfirmDialog(this, targets,
+                    "Merge " + name + " into:", JOptionPane.OK_CANCEL_OPTION);
+            Category target = (Category) targets.getSelectedItem();
+            if (choice != JOptionPane.OK_OPTION || target == null) {
+                return;
+            }
+
+            int moved = mainDAO.mergeCategories(new Category(id, name, ""), target);
+            budgetMonitor = null; // Whole months moved between categories - reseed on next use
+            duplicateIndex = null; // Rebuilt when the expense window is next opened
+            JOptionPane.showMessageDialog(this, "Merged " + name + " into " + target.getCategoryname()
+                    + " (" + moved + " expenses moved)");
+            clearCategoryForm();
+        } catch (SQLException e) {
+            JOptionPane.showMessageDialog(this, "Merge failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the selected category and every expense that belongs to it
+     * Flow: User selects row -> clicks Delete With Expenses -> confirms -> DAO runs one DELETE per table in a transaction -> table refreshed
+     */
+    private void deleteCategoryWithExpenses() {
+        int row = categoryTable.getSelectedRow();
+        if (row == -1) {
+            JOptionPane.showMessageDialog(this, "Please select a category to delete");
+            return;
+        }
+
+        int id = (int) categoryTable.getValueAt(row, 0);
+        String name = (String) categoryTable.getValueAt(row, 1);
+
+        int confirm = JOptionPane.showConfirmDialog(this,
+            "Delete category " + name + " and ALL of its expenses?",
+            "Confirm Delete",
+            JOptionPane.YES_NO_OPTION);
+
+        if (confirm == JOptionPane.YES_OPTION) {
+            try {
+                int deleted = mainDAO.deleteCategoryWithExpenses(new Category(id, name, ""));
+                budgetMonitor = null;
+                duplicateIndex = null;
+                JOptionPane.showMessageDialog(this, "Category deleted with " + deleted + " expenses");
+                clearCategoryForm();
+            } catch (SQLException e) {
+                JOptionPane.showMessageDialog(this, "Delete failed: " + e.getMessage());
+            }
+        }
     }
     /**
      * Adds a new category to the database
@@ -280,7 +884,9 @@ public class MainGUI extends JFrame {
         try {
             int id = (int) categoryTable.getValueAt(row, 0);
             Category category = new Category(id, name, description);
-            if (mainDAO.updateCategory(category)) {
+            category.setVersion(categoryVersions.getOrDefault(id, 0));
+            Category base = new Category(id, (String) categoryTable.getValueAt(row, 1), (String) categoryTable.getValueAt(row, 2));
+            if (saveCategory(category, base)) {
                 JOptionPane.showMessageDialog(this, "Category updated successfully!");
                 loadCategories();
             } else {
@@ -291,23 +897,86 @@ public class MainGUI extends JFrame {
         }
     }
     
+    /**
+     * Saves a category edit; on a concurrent change, merges field by field or lets the user choose
+     * Flow: versioned UPDATE -> OptimisticLockException -> 3-way merge (base = row as loaded, mine, theirs)
+     *       -> no overlapping fields: merged values saved on top of their version
+     *       -> overlapping fields: user keeps mine (overwrite) or theirs (reload)
+     * @param base the row as it was loaded, or null when unknown (an offline edit): every field both sides hold
+     *             differently then counts as overlapping
+     * @return true if saved, false if the row is gone or the user kept the other version
+     */
+    private boolean saveCategory(Category mine, Category base) throws SQLException {
+        try {
+            return mainDAO.updateCategory(mine);
+        } catch (OptimisticLockException conflict) {
+            Category theirs = (Category) conflict.getCurrent();
+            boolean[] overlap = new boolean[1];
+            Category merged = new Category(mine.getCategoryid(),
+                    (String) mergeField(base != null ? base.getCategoryname() : NO_BASE, mine.getCategoryname(), theirs.getCategoryname(), overlap),
+                    (String) mergeField(base != null ? base.getCategorydescription() : NO_BASE, mine.getCategorydescription(), theirs.getCategorydescription(), overlap));
+            if (overlap[0]) {
+                if (!keepMine("category", "Name: " + theirs.getCategoryname() + "\nDescription: " + theirs.getCategorydescription())) {
+                    reloadOpenWindows();
+                    return false;
+                }
+                merged = mine;
+            }
+            merged.setVersion(theirs.getVersion());
+            return saveCategory(merged, theirs); // Another conflict in the meantime goes through the same flow
+        }
+    }
+
+    // Base value of a field whose loaded value is unknown; equal to nothing, so any difference is an overlap
+    private static final Object NO_BASE = new Object();
+
+    /**
+     * Three-way merge of one field
+     * @param overlap set to true when both sides changed the field to different values
+     * @return the merged value (mine when both changed it)
+     */
+    private static Object mergeField(Object base, Object mine, Object theirs, boolean[] overlap) {
+        if (Objects.equals(mine, base) || Objects.equals(mine, theirs)) {
+            return theirs;
+        }
+        if (!Objects.equals(theirs, base)) {
+            overlap[0] = true;
+        }
+        return mine;
+    }
+
+    /**
+     * Asks how to resolve an edit that overlaps with another user's save
+     * @return true to overwrite with my values, false to keep theirs
+     */
+    private boolean keepMine(String what, String theirs) {
+        Object[] options = {"Keep Mine", "Keep Theirs"};
+        int choice = JOptionPane.showOptionDialog(this,
+                "Another user changed this " + what + " while you were editing it.\n\nTheir version:\n" + theirs,
+                "Edit Conflict", JOptionPane.DEFAULT_OPTION, JOptionPane.WARNING_MESSAGE, null, options, options[1]);
+        return choice == 0;
+    }
+
     /**
      * Loads all categories from database and populates the table
      * Flow: Called on window open and after CRUD operations -> fetches data from DAO -> clears table -> adds rows
      */
     private void loadCategories() {
         try {
-            List<Category> categories = mainDAO.getAllCategories();
-            tableModel.setRowCount(0); // Clear existing rows
+            List<Category> categories = fetchCategories();
+            List<Object[]> rows = new ArrayList<>(categories.size());
             
+            categoryVersions.clear();
             categories.forEach(category -> {
                 Object[] row = {
                     category.getCategoryid(),
                     category.getCategoryname(),
                     category.getCategorydescription()
                 };
-                tableModel.addRow(row);
+                rows.add(row);
+                categoryVersions.put(category.getCategoryid(), category.getVersion());
             });
+            replaceRows(tableModel, rows); // One change event instead of one per row
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this, "Error loading categories: " + e.getMessage(),
                     "Database Error", JOptionPane.ERROR_MESSAGE);
@@ -330,11 +999,29 @@ public class MainGUI extends JFrame {
     /**
      * Creates and displays the Expense management window
      * This method sets up the UI for adding, updating, and deleting expenses
-     * Flow: User clicks Expense button -> This method creates new JFrame -> Sets up form fields and table -> Loads existing expenses
+     * Flow: User clicks Expense button -> JFrame built on first open (hidden and reused afterwards) -> Sets up form fields and table -> Loads existing expenses
      */
     private void Expense() {
+        if (expenseFrame != null) {
+            loadCategoriesForExpense();
+            loadExpenses();
+            if (duplicateIndex == null) {
+                rebuildDuplicateIndex();
+            }
+            expenseFrame.setVisible(true);
+            expenseFrame.toFront();
+            return;
+        }
         JFrame frame = new JFrame("Expense Management");
-        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        expenseFrame = frame;
+        frame.setDefaultCloseOperation(JFrame.HIDE_ON_CLOSE);
+        frame.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                cancelLoad(duplicateScan);
+                cancelLoad(duplicateIndexLoad); // Rebuilt when the window is opened again
+            }
+        });
         frame.setSize(1200, 800);
         frame.setResizable(false);
         frame.setLocationRelativeTo(null);
@@ -360,16 +1047,7 @@ public class MainGUI extends JFrame {
             }
         };
         // Set custom renderer to display category names properly
-        categoryCombo.setRenderer(new DefaultListCellRenderer() {
-            @Override
-            public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
-                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
-                if (value instanceof Category) {
-                    setText(((Category) value).getCategoryname());
-                }
-                return this;
-            }
-        });
+        categoryCombo.setRenderer(new CategoryNameRenderer());
         gbc.gridx = 1;
         gbc.gridy = 0;
         frame.add(categoryCombo, gbc);
@@ -441,10 +1119,26 @@ public class MainGUI extends JFrame {
         };
 
         expenseTable = new JTable(expenseTableModel);
-        JScrollPane tableScroll = new JScrollPane(expenseTable);
+        expenseTable.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        expenseSorter = new PrimitiveRowSorter<>(expenseTableModel,
+                PrimitiveRowSorter.KeyType.NUMBER,     // ID
+                PrimitiveRowSorter.KeyType.TEXT,       // Category (sorted by name ordinal)
+                PrimitiveRowSorter.KeyType.TEXT,       // Payment Method
+                PrimitiveRowSorter.KeyType.NUMBER,     // Amount
+                PrimitiveRowSorter.KeyType.TEXT,       // Description
+                PrimitiveRowSorter.KeyType.DATE_TEXT); // Date
+        expenseTable.setRowSorter(expenseSorter);
+
+        // Filter row above the table
         gbc.gridx = 0;
         gbc.gridy = 5;
         gbc.gridwidth = 2;
+        frame.add(createFilterPanel(expenseTableModel, expenseSorter), gbc);
+
+        JScrollPane tableScroll = new JScrollPane(expenseTable);
+        gbc.gridx = 0;
+        gbc.gridy = 6;
+        gbc.gridwidth = 2;
         gbc.weighty = 1;
         gbc.fill = GridBagConstraints.BOTH;
         frame.add(tableScroll, gbc);
@@ -453,14 +1147,22 @@ public class MainGUI extends JFrame {
         addExpense = new JButton("Add Expense");
         deleteExpense = new JButton("Delete Expense");
         updateExpense = new JButton("Update Expense");
+        bulkEditExpenses = new JButton("Bulk Edit...");
+        exportExpenses = new JButton("Export...");
+        recurringExpenses = new JButton("Recurring...");
+        findDuplicates = new JButton("Find Duplicates...");
 
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 10));
         buttonPanel.add(addExpense);
         buttonPanel.add(deleteExpense);
         buttonPanel.add(updateExpense);
+        buttonPanel.add(bulkEditExpenses);
+        buttonPanel.add(exportExpenses);
+        buttonPanel.add(recurringExpenses);
+        buttonPanel.add(findDuplicates);
 
         gbc.gridx = 0;
-        gbc.gridy = 6;
+        gbc.gridy = 7;
         gbc.gridwidth = 2;
         gbc.weighty = 0;
         gbc.fill = GridBagConstraints.NONE;
@@ -473,6 +1175,8 @@ public class MainGUI extends JFrame {
         // Load categories and expenses
         loadCategoriesForExpense();
         loadExpenses();
+        rebuildDuplicateIndex();
+        loadAnomalyDetector();
         
         // Add table selection listener
         expenseTable.getSelectionModel().addListSelectionListener(e -> {
@@ -492,6 +1196,343 @@ public class MainGUI extends JFrame {
         addExpense.addActionListener(e -> addExpense());
         deleteExpense.addActionListener(e -> deleteExpense());
         updateExpense.addActionListener(e -> updateExpense());
+        bulkEditExpenses.addActionListener(e -> bulkEditExpenses());
+        exportExpenses.addActionListener(e -> exportExpenses());
+        recurringExpenses.addActionListener(e -> recurringExpenses());
+        findDuplicates.addActionListener(e -> findDuplicates());
+    }
+
+    /**
+     * Rebuilds the duplicate index off the EDT; saves made meanwhile skip the duplicate check
+     * Flow: Called when the expense window opens and after changes that bypass per-row index updates (bulk edit, merge, ...)
+     */
+    private void rebuildDuplicateIndex() {
+        duplicateIndex = null;
+        QueryCancellation load = restartLoad(duplicateIndexLoad); // An older rebuild would only be replaced
+        new SwingWorker<DuplicateIndex, Void>() {
+            @Override
+            protected DuplicateIndex doInBackground() throws Exception {
+                return QueryScope.callCancellable(load, () -> DuplicateIndex.build(mainDAO));
+            }
+
+            @Override
+            protected void done() {
+                if (load.isCancelled()) {
+                    return;
+                }
+                try {
+                    duplicateIndex = get();
+                } catch (Exception e) {
+                    System.err.println("Duplicate index unavailable: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Seeds the anomaly detector off the EDT, once per session; later expenses update it in O(1)
+     */
+    private void loadAnomalyDetector() {
+        if (anomalyDetector != null) {
+            return;
+        }
+        new SwingWorker<AnomalyDetector, Void>() {
+            @Override
+            protected AnomalyDetector doInBackground() throws Exception {
+                return AnomalyDetector.build(mainDAO);
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    anomalyDetector = get();
+                } catch (Exception e) {
+                    System.err.println("Anomaly detection unavailable: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Scans all expenses for suspected duplicates and shows them for review
+     * Flow: User clicks Find Duplicates -> SwingWorker runs the two-pass fingerprint scan -> dialog lists groups
+     *       -> user selects the copies to drop -> one batched delete
+     */
+    private void findDuplicates() {
+        findDuplicates.setEnabled(false);
+        QueryCancellation load = restartLoad(duplicateScan);
+        new SwingWorker<List<List<Expense>>, Void>() {
+            @Override
+            protected List<List<Expense>> doInBackground() throws Exception {
+                return QueryScope.callCancellable(load, () -> DuplicateIndex.findDuplicates(mainDAO));
+            }
+
+            @Override
+            protected void done() {
+                findDuplicates.setEnabled(true);
+                if (load.isCancelled()) {
+                    return; // Window was closed
+                }
+                try {
+                    List<List<Expense>> groups = get();
+                    if (groups.isEmpty()) {
+                        JOptionPane.showMessageDialog(MainGUI.this, "No duplicate expenses found");
+                    } else {
+                        showDuplicateReview(groups);
+                    }
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(MainGUI.this, "Duplicate scan failed: " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Review screen for suspected duplicates; every copy after the first in a group is pre-selected
+     */
+    private void showDuplicateReview(List<List<Expense>> groups) {
+        JDialog dialog = new JDialog(this, "Suspected Duplicates (" + groups.size() + " groups)", true);
+        dialog.setSize(900, 500);
+        dialog.setLocationRelativeTo(this);
+        dialog.setLayout(new BorderLayout());
+
+        Map<Integer, String> names = new HashMap<>();
+        for (int i = 0; i < categoryCombo.getItemCount(); i++) {
+            names.put(categoryCombo.getItemAt(i).getCategoryid(), categoryCombo.getItemAt(i).getCategoryname());
+        }
+        DefaultTableModel model = new DefaultTableModel(
+                new String[]{"Group", "ID", "Category", "Amount", "Description", "Date"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        List<Object[]> rows = new ArrayList<>();
+        for (int g = 0; g < groups.size(); g++) {
+            for (Expense expense : groups.get(g)) {
+                rows.add(new Object[]{
+                    g + 1,
+                    expense.getExpense_id(),
+                    names.getOrDefault(expense.getCategory_id(), "Unknown"),
+                    expense.getAmount(),
+                    expense.getDescription(),
+                    expense.getExpense_date() != null ? expense.getExpense_date().toString().substring(0, 16) : "N/A"
+                });
+            }
+        }
+        replaceRows(model, rows);
+
+        JTable table = new JTable(model);
+        table.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        for (int row = 1; row < model.getRowCount(); row++) {
+            if (model.getValueAt(row, 0).equals(model.getValueAt(row - 1, 0))) {
+                table.addRowSelectionInterval(row, row);
+            }
+        }
+        dialog.add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JButton delete = new JButton("Delete Selected");
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 10));
+        buttons.add(delete);
+        dialog.add(buttons, BorderLayout.SOUTH);
+
+        delete.addActionListener(e -> {
+            int[] selected = table.getSelectedRows();
+            if (selected.length == 0) {
+                return;
+            }
+            int[] ids = new int[selected.length];
+            for (int i = 0; i < selected.length; i++) {
+                ids[i] = (int) model.getValueAt(selected[i], 1);
+            }
+            try {
+                int deleted = mainDAO.deleteExpenses(ids);
+                for (int i = selected.length - 1; i >= 0; i--) {
+                    model.removeRow(selected[i]);
+                }
+                if (duplicateIndex != null) {
+                    for (int id : ids) {
+                        duplicateIndex.remove(id);
+                    }
+                }
+                budgetMonitor = null;
+                JOptionPane.showMessageDialog(dialog, deleted + " duplicate expenses deleted");
+                loadExpenses();
+            } catch (SQLException ex) {
+                JOptionPane.showMessageDialog(dialog, "Delete failed: " + ex.getMessage());
+            }
+        });
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Shows recurring expense templates and lets the user add, delete or generate them
+     * Flow: User clicks Recurring -> dialog lists templates -> "Add From Form" turns the current expense form into a template
+     *       -> "Generate Due Now" runs the same batched, idempotent catch-up the background scheduler uses
+     */
+    private void recurringExpenses() {
+        JDialog dialog = new JDialog(this, "Recurring Expenses", true);
+        dialog.setSize(800, 400);
+        dialog.setLocationRelativeTo(this);
+        dialog.setLayout(new BorderLayout());
+
+        DefaultTableModel model = new DefaultTableModel(
+                new String[]{"ID", "Category", "Amount", "Description", "Every", "Next Due"}, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable table = new JTable(model);
+        dialog.add(new JScrollPane(table), BorderLayout.CENTER);
+
+        JButton add = new JButton("Add From Form");
+        JButton delete = new JButton("Delete");
+        JButton generate = new JButton("Generate Due Now");
+        JPanel buttons = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 10));
+        buttons.add(add);
+        buttons.add(delete);
+        buttons.add(generate);
+        dialog.add(buttons, BorderLayout.SOUTH);
+
+        Runnable reload = () -> {
+            try {
+                Map<Integer, String> names = new HashMap<>();
+                for (int i = 0; i < categoryCombo.getItemCount(); i++) {
+                    names.put(categoryCombo.getItemAt(i).getCategoryid(), categoryCombo.getItemAt(i).getCategoryname());
+                }
+                List<Object[]> rows = new ArrayList<>();
+                for (RecurringExpense template : mainDAO.getAllRecurringExpenses()) {
+                    rows.add(new Object[]{
+                        template.getTemplateId(),
+                        names.getOrDefault(template.getCategoryId(), "Unknown"),
+                        template.getAmount(),
+                        template.getDescription(),
+                        template.getInterval() + " " + template.getFrequency(),
+                        template.getNextDue() != null ? template.getNextDue().toString() : "ended"
+                    });
+                }
+                replaceRows(model, rows);
+            } catch (SQLException e) {
+                JOptionPane.showMessageDialog(dialog, "Error loading recurring expenses: " + e.getMessage());
+            }
+        };
+
+        add.addActionListener(e -> {
+            RecurringExpense template = recurringTemplateFromForm(dialog);
+            if (template == null) {
+                return;
+            }
+            try {
+                mainDAO.createRecurringExpense(template);
+                reload.run();
+            } catch (SQLException ex) {
+                JOptionPane.showMessageDialog(dialog, "Failed to save recurring expense: " + ex.getMessage());
+            }
+        });
+        delete.addActionListener(e -> {
+            int row = table.getSelectedRow();
+            if (row == -1) {
+                JOptionPane.showMessageDialog(dialog, "Please select a recurring expense to delete");
+                return;
+            }
+            try {
+                mainDAO.deleteRecurringExpense((int) model.getValueAt(table.convertRowIndexToModel(row), 0));
+                reload.run();
+            } catch (SQLException ex) {
+                JOptionPane.showMessageDialog(dialog, "Delete failed: " + ex.getMessage());
+            }
+        });
+        generate.addActionListener(e -> {
+            try {
+                int inserted = mainDAO.materializeRecurringExpenses(LocalDate.now());
+                budgetMonitor = null; // Generated rows bypass the per-save counters
+                if (inserted > 0) {
+                    rebuildDuplicateIndex();
+                }
+                JOptionPane.showMessageDialog(dialog, inserted + " expenses generated");
+                reload.run();
+                loadExpenses();
+            } catch (SQLException ex) {
+                JOptionPane.showMessageDialog(dialog, "Generation failed: " + ex.getMessage());
+            }
+        });
+
+        reload.run();
+        dialog.setVisible(true);
+    }
+
+    /**
+     * Builds a recurring template from the expense form plus a frequency picked by the user
+     * @return the template, or null if the form is incomplete or the user cancelled
+     */
+    private RecurringExpense recurringTemplateFromForm(Component parent) {
+        Category selectedCategory = (Category) categoryCombo.getSelectedItem();
+        PaymentMethod paymentMethod = (PaymentMethod) paymentCombo.getSelectedItem();
+        String description = expenseDescriptionArea.getText().trim();
+        int amount;
+        try {
+            amount = Integer.parseInt(amountField.getText().trim());
+        } catch (NumberFormatException e) {
+            amount = 0;
+        }
+        if (selectedCategory == null || paymentMethod == null || description.isEmpty() || amount <= 0) {
+            JOptionPane.showMessageDialog(parent, "Fill in the expense form first (category, payment method, amount, description)");
+            return null;
+        }
+
+        JComboBox<RecurrenceFrequency> frequency = new JComboBox<>(RecurrenceFrequency.values());
+        frequency.setSelectedItem(RecurrenceFrequency.MONTHLY);
+        JSpinner interval = new JSpinner(new SpinnerNumberModel(1, 1, 365, 1));
+        JPanel form = new JPanel(new GridLayout(2, 2, 8, 8));
+        form.add(new JLabel("Repeat:"));
+        form.add(frequency);
+        form.add(new JLabel("Every:"));
+        form.add(interval);
+        if (JOptionPane.showConfirmDialog(parent, form, "Recurring: " + description,
+                JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) {
+            return null;
+        }
+
+        LocalDate start = ((Date) dateSpinner.getValue()).toInstant()
+                .atZone(ZoneId.systemDefault()).toLocalDate();
+        return new RecurringExpense(0, selectedCategory.getCategoryid(), paymentMethod, amount, description,
+                (RecurrenceFrequency) frequency.getSelectedItem(), (Integer) interval.getValue(), start, null);
+    }
+
+    /**
+     * Exports all expenses with category names to a file chosen by the user
+     * Flow: User clicks Export -> picks file (format from extension: .csv, .jsonl, .expb) -> SwingWorker streams rows off the EDT -> report shown
+     */
+    private void exportExpenses() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("Export expenses (.csv, .jsonl or .expb)");
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        java.nio.file.Path target = chooser.getSelectedFile().toPath();
+        ExportOptions options = new ExportOptions(ExportFormat.fromFileName(target.getFileName().toString()))
+                .withCategoryNames();
+        exportExpenses.setEnabled(false);
+
+        new SwingWorker<ExportReport, Void>() {
+            @Override
+            protected ExportReport doInBackground() throws Exception {
+                return new ExpenseExporter(mainDAO).export(target, options);
+            }
+
+            @Override
+            protected void done() {
+                exportExpenses.setEnabled(true);
+                try {
+                    JOptionPane.showMessageDialog(MainGUI.this, get().toString());
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(MainGUI.this, "Export failed: " + cause.getMessage());
+                }
+            }
+        }.execute();
     }
 
     /**
@@ -528,16 +1569,45 @@ public class MainGUI extends JFrame {
             }
             
             Date selectedDate = (Date) dateSpinner.getValue();
-            LocalDateTime expenseDate = selectedDate.toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDateTime();
+            LocalDateTime expenseDate = selectedDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
             
             Expense expense = new Expense(0, selectedCategory.getCategoryid(), paymentMethod, amount);
             expense.setDescription(description);
             expense.setExpense_date(expenseDate);
             expense.setCreated_at(LocalDateTime.now());
             
+            // O(1) fingerprint lookup - no query - before the expense is written
+            int[] matches = duplicateIndex != null ? duplicateIndex.findMatches(expense) : new int[0];
+            if (matches.length > 0) {
+                int confirm = JOptionPane.showConfirmDialog(this,
+                        "This looks like a duplicate of expense #" + matches[0] + ". Add it anyway?",
+                        "Possible Duplicate", JOptionPane.YES_NO_OPTION);
+                if (confirm != JOptionPane.YES_OPTION) {
+                    return;
+                }
+            }
+
+            BudgetMonitor monitor = budgetMonitor(); // Seeded before the write so the new expense is counted once
             int expenseId = mainDAO.createExpense(expense);
             if (expenseId > 0) {
+                expense.setExpense_id(expenseId);
+                if (duplicateIndex != null) {
+                    duplicateIndex.add(expense);
+                }
                 JOptionPane.showMessageDialog(this, "Expense added successfully!");
+                if (monitor != null) {
+                    showBudgetAlerts(monitor.expenseCreated(expense));
+                }
+                if (anomalyDetector != null) {
+                    List<ExpenseAnomaly> anomalies = anomalyDetector.observe(expense);
+                    if (!anomalies.isEmpty()) {
+                        StringBuilder message = new StringBuilder("This expense looks unusual for " + selectedCategory.getCategoryname() + ":");
+                        for (ExpenseAnomaly anomaly : anomalies) {
+                            message.append("\n- ").append(anomaly);
+                        }
+                        JOptionPane.showMessageDialog(this, message.toString(), "Unusual Expense", JOptionPane.WARNING_MESSAGE);
+                    }
+                }
                 clearExpenseForm();
                 loadExpenses();
             } else {
@@ -551,30 +1621,46 @@ public class MainGUI extends JFrame {
     }
 
     /**
-     * Deletes the selected expense from the database
-     * Flow: User selects row -> clicks Delete -> confirms deletion -> calls DAO delete method -> refreshes table
+     * Deletes the selected expense(s) from the database
+     * Flow: User selects one or more rows -> clicks Delete -> confirms once -> one batched DAO call -> rows removed from the table model
      */
     private void deleteExpense() {
-        int row = expenseTable.getSelectedRow();
-        if (row == -1) {
+        int[] rows = selectedExpenseModelRows();
+        if (rows.length == 0) {
             JOptionPane.showMessageDialog(this, "Please select an expense to delete");
             return;
         }
-        
-        int id = (int) expenseTable.getValueAt(row, 0);
-        String description = (String) expenseTable.getValueAt(row, 4);
-        
+
+        String message = rows.length == 1
+                ? "Are you sure you want to delete expense: " + expenseTableModel.getValueAt(rows[0], 4) + "?"
+                : "Are you sure you want to delete " + rows.length + " expenses?";
         int confirm = JOptionPane.showConfirmDialog(this,
-                "Are you sure you want to delete expense: " + description + "?",
+                message,
                 "Confirm Delete",
                 JOptionPane.YES_NO_OPTION);
-                
+
         if (confirm == JOptionPane.YES_OPTION) {
             try {
-                Expense expense = new Expense(id, 0, PaymentMethod.CASH, 0);
-                if (mainDAO.deleteExpense(expense)) {
-                    JOptionPane.showMessageDialog(this, "Expense deleted successfully!");
-                    loadExpenses();
+                BudgetMonitor monitor = budgetMonitor();
+                int[] ids = expenseIds(rows);
+                int deleted = mainDAO.deleteExpenses(ids);
+                if (duplicateIndex != null) {
+                    for (int id : ids) {
+                        duplicateIndex.remove(id);
+                    }
+                }
+                if (monitor != null && deleted == rows.length) {
+                    for (int modelRow : rows) {
+                        monitor.expenseDeleted(expenseFromRow(modelRow));
+                    }
+                } else {
+                    budgetMonitor = null; // Some rows were already gone - counters no longer known exactly
+                }
+                if (deleted > 0) {
+                    removeExpenseRows(rows);
+                    JOptionPane.showMessageDialog(this, deleted == 1
+                            ? "Expense deleted successfully!"
+                            : deleted + " expenses deleted successfully!");
                 } else {
                     JOptionPane.showMessageDialog(this, "Failed to delete expense");
                 }
@@ -584,6 +1670,236 @@ public class MainGUI extends JFrame {
         }
     }
 
+    /**
+     * Changes category, payment method and/or date of all selected expenses at once
+     * Flow: User selects rows -> clicks Bulk Edit -> picks changes -> one DAO call (one transaction) for all changed
+     *       fields -> table rows patched in place
+     */
+    private void bulkEditExpenses() {
+        int[] rows = selectedExpenseModelRows();
+        if (rows.length == 0) {
+            JOptionPane.showMessageDialog(this, "Please select the expenses to edit");
+            return;
+        }
+
+        JComboBox<Object> categoryChoice = new JComboBox<>();
+        categoryChoice.addItem("(unchanged)");
+        for (int i = 0; i < categoryCombo.getItemCount(); i++) {
+            categoryChoice.addItem(categoryCombo.getItemAt(i));
+        }
+        categoryChoice.setRenderer(new CategoryNameRenderer());
+        JComboBox<Object> paymentChoice = new JComboBox<>();
+        paymentChoice.addItem("(unchanged)");
+        for (PaymentMethod method : PaymentMethod.values()) {
+            paymentChoice.addItem(method);
+        }
+        JSpinner dayShift = new JSpinner(new SpinnerNumberModel(0, -3650, 3650, 1));
+
+        JPanel form = new JPanel(new GridLayout(3, 2, 8, 8));
+        form.add(new JLabel("Category:"));
+        form.add(categoryChoice);
+        form.add(new JLabel("Payment Method:"));
+        form.add(paymentChoice);
+        form.add(new JLabel("Shift date by days:"));
+        form.add(dayShift);
+
+        int choice = JOptionPane.showConfirmDialog(this, form,
+                "Edit " + rows.length + " expenses", JOptionPane.OK_CANCEL_OPTION);
+        if (choice != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        Object category = categoryChoice.getSelectedItem();
+        Object payment = paymentChoice.getSelectedItem();
+        int days = (Integer) dayShift.getValue();
+        int[] ids = expenseIds(rows);
+        try {
+            BudgetMonitor monitor = budgetMonitor();
+            Expense[] before = new Expense[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                before[i] = expenseFromRow(rows[i]);
+            }
+            mainDAO.updateExpenses(ids,
+                    category instanceof Category ? Integer.valueOf(((Category) category).getCategoryid()) : null,
+                    payment instanceof PaymentMethod ? (PaymentMethod) payment : null,
+                    days * 86_400L);
+            patchExpenseRows(rows,
+                    category instanceof Category ? ((Category) category).getCategoryname() : null,
+                    payment instanceof PaymentMethod ? payment.toString() : null,
+                    days);
+            JOptionPane.showMessageDialog(this, rows.length + " expenses updated successfully!");
+            if (category instanceof Category || days != 0) {
+                rebuildDuplicateIndex(); // Fingerprints changed for every edited row
+            }
+            if (monitor != null && (category instanceof Category || days != 0)) {
+                List<BudgetAlert> alerts = new ArrayList<>();
+                for (int i = 0; i < rows.length; i++) {
+                    alerts.addAll(monitor.expenseUpdated(before[i], expenseFromRow(rows[i])));
+                }
+                showBudgetAlerts(alerts);
+            }
+        } catch (SQLException e) {
+            budgetMonitor = null; // Unknown how many rows changed - reseed on next use
+            JOptionPane.showMessageDialog(this, "Bulk update failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return selected expense rows as model indexes, in ascending order
+     */
+    private int[] selectedExpenseModelRows() {
+        int[] rows = expenseTable.getSelectedRows();
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = expenseTable.convertRowIndexToModel(rows[i]);
+        }
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    private int[] expenseIds(int[] modelRows) {
+        int[] ids = new int[modelRows.length];
+        for (int i = 0; i < modelRows.length; i++) {
+            ids[i] = (int) expenseTableModel.getValueAt(modelRows[i], 0);
+        }
+        return ids;
+    }
+
+    /**
+     * Rebuilds an expense from a table row (date to the minute, no created_at)
+     * Used to capture the old values before an update or delete
+     */
+    private Expense expenseFromRow(int modelRow) {
+        int categoryId = -1;
+        String categoryName = (String) expenseTableModel.getValueAt(modelRow, 1);
+        for (int i = 0; i < categoryCombo.getItemCount(); i++) {
+            if (categoryCombo.getItemAt(i).getCategoryname().equals(categoryName)) {
+                categoryId = categoryCombo.getItemAt(i).getCategoryid();
+                break;
+            }
+        }
+        String payment = (String) expenseTableModel.getValueAt(modelRow, 2);
+        Expense expense = new Expense((int) expenseTableModel.getValueAt(modelRow, 0), categoryId,
+                "UNKNOWN".equals(payment) ? null : PaymentMethod.fromDatabase(payment),
+                (int) expenseTableModel.getValueAt(modelRow, 3));
+        expense.setDescription((String) expenseTableModel.getValueAt(modelRow, 4));
+        String date = (String) expenseTableModel.getValueAt(modelRow, 5);
+        if (date != null && !"N/A".equals(date)) {
+            expense.setExpense_date(LocalDateTime.parse(date + ":00"));
+        }
+        return expense;
+    }
+
+    /**
+     * Saves an expense edit; on a concurrent change, merges field by field or lets the user choose
+     * Same flow as saveCategory(); dates are compared to the minute because that is what the table shows
+     * @param base the expense as it was loaded into the table, or null when unknown (see saveCategory())
+     * @return the saved expense (possibly merged), or null if the row is gone or the user kept the other version
+     */
+    private Expense saveExpense(Expense mine, Expense base) throws SQLException {
+        try {
+            return mainDAO.updateExpense(mine) ? mine : null;
+        } catch (OptimisticLockException conflict) {
+            Expense theirs = (Expense) conflict.getCurrent();
+            boolean[] overlap = new boolean[1];
+            Expense merged = new Expense(mine.getExpense_id(),
+                    (Integer) mergeField(base != null ? base.getCategory_id() : NO_BASE, mine.getCategory_id(), theirs.getCategory_id(), overlap),
+                    (PaymentMethod) mergeField(base != null ? base.getPaymentMethod() : NO_BASE, mine.getPaymentMethod(), theirs.getPaymentMethod(), overlap),
+                    (Integer) mergeField(base != null ? base.getAmount() : NO_BASE, mine.getAmount(), theirs.getAmount(), overlap));
+            merged.setDescription((String) mergeField(base != null ? base.getDescription() : NO_BASE, mine.getDescription(), theirs.getDescription(), overlap));
+            LocalDateTime theirDate = theirs.getExpense_date() != null
+                    ? theirs.getExpense_date().truncatedTo(ChronoUnit.MINUTES) : null;
+            merged.setExpense_date((LocalDateTime) mergeField(base != null ? base.getExpense_date() : NO_BASE, mine.getExpense_date(), theirDate, overlap));
+            if (merged.getExpense_date() == theirDate && theirDate != null) {
+                merged.setExpense_date(theirs.getExpense_date()); // Keep their seconds when their date wins
+            }
+            if (overlap[0]) {
+                if (!keepMine("expense", "Amount: " + theirs.getAmount() + "\nPayment: " + theirs.getPaymentMethod()
+                        + "\nDescription: " + theirs.getDescription() + "\nDate: " + theirs.getExpense_date())) {
+                    reloadOpenWindows();
+                    return null;
+                }
+                merged = mine;
+            }
+            merged.setCreated_at(mine.getCreated_at());
+            merged.setVersion(theirs.getVersion());
+            Expense theirsAsBase = theirs;
+            theirsAsBase.setExpense_date(theirDate);
+            return saveExpense(merged, theirsAsBase);
+        }
+    }
+
+    /**
+     * @return the budget monitor, loading it on first use; null when it cannot be loaded (alerts are skipped)
+     */
+    private BudgetMonitor budgetMonitor() {
+        if (budgetMonitor == null) {
+            try {
+                budgetMonitor = mainDAO.getBudgetMonitor();
+            } catch (SQLException e) {
+                System.err.println("Budget monitor unavailable: " + e.getMessage());
+            }
+        }
+        return budgetMonitor;
+    }
+
+    /**
+     * Shows one warning dialog listing every budget threshold crossed by the last save
+     */
+    private void showBudgetAlerts(List<BudgetAlert> alerts) {
+        if (alerts.isEmpty()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder();
+        for (BudgetAlert alert : alerts) {
+            String name = "#" + alert.getCategoryId();
+            for (int i = 0; i < categoryCombo.getItemCount(); i++) {
+                if (categoryCombo.getItemAt(i).getCategoryid() == alert.getCategoryId()) {
+                    name = categoryCombo.getItemAt(i).getCategoryname();
+                    break;
+                }
+            }
+            message.append(alert.getThresholdPercent() >= 100 ? "Budget exceeded: " : "Budget at 80%: ")
+                    .append(name).append(" - ").append(alert).append('\n');
+        }
+        JOptionPane.showMessageDialog(this, message.toString().trim(), "Budget Alert", JOptionPane.WARNING_MESSAGE);
+    }
+
+    /**
+     * Removes rows from the expense table model with a single change event instead of one per row
+     */
+    private void removeExpenseRows(int[] modelRows) {
+        Vector<Vector<Object>> data = rowsOf(expenseTableModel);
+        for (int i = modelRows.length - 1; i >= 0; i--) {
+            data.remove(modelRows[i]);
+        }
+        expenseTable.clearSelection();
+        expenseTableModel.fireTableDataChanged();
+    }
+
+    /**
+     * Applies bulk edits to the table rows in place, then fires one change event
+     * @param categoryName new category name, or null if unchanged
+     * @param paymentMethod new payment method text, or null if unchanged
+     * @param days date shift in days
+     */
+    private void patchExpenseRows(int[] modelRows, String categoryName, String paymentMethod, int days) {
+        Vector<Vector<Object>> data = rowsOf(expenseTableModel);
+        for (int row : modelRows) {
+            Vector<Object> values = data.get(row);
+            if (categoryName != null) {
+                values.set(1, categoryName);
+            }
+            if (paymentMethod != null) {
+                values.set(2, paymentMethod);
+            }
+            if (days != 0 && !"N/A".equals(values.get(5))) {
+                LocalDateTime shifted = LocalDateTime.parse(values.get(5) + ":00").plusDays(days);
+                values.set(5, shifted.toString().substring(0, 16));
+            }
+        }
+        expenseTableModel.fireTableDataChanged();
+    }
+
     /**
      * Updates the selected expense with new information
      * Flow: User selects row -> modifies form fields -> clicks Update -> validates input -> calls DAO update method -> refreshes table
@@ -623,7 +1939,7 @@ public class MainGUI extends JFrame {
             }
             
             Date selectedDate = (Date) dateSpinner.getValue();
-            LocalDateTime expenseDate = selectedDate.toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDateTime();
+            LocalDateTime expenseDate = selectedDate.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
             
             int id = (int) expenseTable.getValueAt(row, 0);
             Expense expense = new Expense(id, selectedCategory.getCategoryid(), paymentMethod, amount);
@@ -631,8 +1947,18 @@ public class MainGUI extends JFrame {
             expense.setExpense_date(expenseDate);
             expense.setCreated_at(LocalDateTime.now());
             
-            if (mainDAO.updateExpense(expense)) {
+            BudgetMonitor monitor = budgetMonitor();
+            Expense before = expenseFromRow(expenseTable.convertRowIndexToModel(row));
+            expense.setVersion(expenseVersions.getOrDefault(id, 0));
+            expense = saveExpense(expense, before);
+            if (expense != null) {
+                if (duplicateIndex != null) {
+                    duplicateIndex.add(expense); // Re-indexes under the new fingerprint
+                }
                 JOptionPane.showMessageDialog(this, "Expense updated successfully!");
+                if (monitor != null) {
+                    showBudgetAlerts(monitor.expenseUpdated(before, expense));
+                }
                 loadExpenses();
             } else {
                 JOptionPane.showMessageDialog(this, "Failed to update expense");
@@ -650,7 +1976,7 @@ public class MainGUI extends JFrame {
      */
     private void loadCategoriesForExpense() {
         try {
-            List<Category> categories = mainDAO.getAllCategories();
+            List<Category> categories = fetchCategories();
             categoryCombo.removeAllItems();
             categories.forEach(categoryCombo::addItem);
         } catch (SQLException e) {
@@ -664,31 +1990,60 @@ public class MainGUI extends JFrame {
      */
     private void loadExpenses() {
         try {
-            List<Expense> expenses = mainDAO.getAllExpenses();
-            expenseTableModel.setRowCount(0); // Clear existing rows
+            List<ExpenseView> expenses = mainDAO.getExpenseViews(); // Compact rows; category names come with them
+            List<Object[]> rows = new ArrayList<>(expenses.size());
+            expenseVersions.clear();
             
             expenses.forEach(expense -> {
-                // Handle null values gracefully
-                String paymentMethod = expense.getPaymentMethod() != null ? 
-                    expense.getPaymentMethod().toString() : "UNKNOWN";
-                String expenseDate = expense.getExpense_date() != null ? 
-                    expense.getExpense_date().toString().substring(0, 16) : "N/A";
-                
-                Object[] row = {
-                    expense.getExpense_id(),
-                    getCategoryName(expense.getCategory_id()),
-                    paymentMethod,
-                    expense.getAmount(),
-                    expense.getDescription(),
-                    expenseDate
-                };
-                expenseTableModel.addRow(row);
+                expenseVersions.put(expense.getId(), expense.getVersion());
+                rows.add(expenseRow(expense));
             });
+            replaceRows(expenseTableModel, rows); // One change event instead of one per row
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this, "Error loading expenses: " + e.getMessage());
         }
     }
 
+    /**
+     * @return the expense table row for an expense (also used to patch rows from the change feed)
+     */
+    private static Object[] expenseRow(Expense expense, Map<Integer, String> categoryNames) {
+        // Handle null values gracefully
+        String paymentMethod = expense.getPaymentMethod() != null ? 
+            expense.getPaymentMethod().toString() : "UNKNOWN";
+        String expenseDate = expense.getExpense_date() != null ? 
+            expense.getExpense_date().toString().substring(0, 16) : "N/A";
+        
+        return new Object[] {
+            expense.getExpense_id(),
+            categoryNames.getOrDefault(expense.getCategory_id(), "Unknown"),
+            paymentMethod,
+            expense.getAmount(),
+            expense.getDescription(),
+            expenseDate
+        };
+    }
+
+    /**
+     * @return the expense table row for a compact expense; same cells as expenseRow(Expense, Map)
+     */
+    private static Object[] expenseRow(ExpenseView expense) {
+        String paymentMethod = expense.getPaymentMethod() != null ?
+            expense.getPaymentMethod().toString() : "UNKNOWN";
+        String expenseDate = expense.getExpenseDateSeconds() != ExpenseView.NULL_TIME ?
+            expense.getExpenseDate().toString().substring(0, 16) : "N/A";
+        String categoryName = expense.getCategory().getName();
+
+        return new Object[] {
+            expense.getId(),
+            categoryName != null ? categoryName : "Unknown",
+            paymentMethod,
+            expense.getAmount(),
+            expense.getDescription(),
+            expenseDate
+        };
+    }
+
     /**
      * Loads the selected expense data into the form fields for editing
      * Flow: User selects table row -> this method populates form fields with selected expense data
@@ -733,7 +2088,7 @@ public class MainGUI extends JFrame {
                 if (!"N/A".equals(dateString) && dateString != null) {
                     try {
                         LocalDateTime dateTime = LocalDateTime.parse(dateString + ":00");
-                        Date date = Date.from(dateTime.atZone(java.time.ZoneId.systemDefault()).toInstant());
+                        Date date = Date.from(dateTime.atZone(ZoneId.systemDefault()).toInstant());
                         dateSpinner.setValue(date);
                     } catch (Exception e) {
                         // If parsing fails, keep current date
@@ -760,19 +2115,176 @@ public class MainGUI extends JFrame {
     }
 
     /**
-     * Helper method to get category name by ID
-     * Flow: Searches through categories to find name by ID
+     * Replaces all rows of a table model and fires a single change event
+     * Flow: Old rows dropped -> new rows appended to the data vector -> fireTableDataChanged() -> sorter rebuilds once
+     * WHY: addRow() fires one event per row, and every event makes the sorter and JTable recompute their view
      */
-    private String getCategoryName(int categoryId) {
-        try {
-            List<Category> categories = mainDAO.getAllCategories();
-            return categories.stream()
-                    .filter(cat -> cat.getCategoryid() == categoryId)
-                    .findFirst()
-                    .map(Category::getCategoryname)
-                    .orElse("Unknown");
-        } catch (SQLException e) {
-            return "Unknown";
+    private void replaceRows(DefaultTableModel model, List<Object[]> rows) {
+        Vector<Vector<Object>> data = rowsOf(model);
+        data.clear();
+        data.ensureCapacity(rows.size());
+        for (Object[] row : rows) {
+            data.add(new Vector<>(Arrays.asList(row)));
+        }
+        model.fireTableDataChanged();
+    }
+
+    /**
+     * Creates the "Filter:" text field that narrows a table without touching its model
+     * Flow: User types -> FILTER_DEBOUNCE_MILLIS debounce timer -> sorter re-filters model rows by case-insensitive substring match
+     */
+    private JPanel createFilterPanel(DefaultTableModel model, PrimitiveRowSorter<DefaultTableModel> sorter) {
+        JTextField filterField = new JTextField(30);
+        Timer debounce = new Timer(FILTER_DEBOUNCE_MILLIS, e -> {
+            String text = filterField.getText().trim();
+            if (text.isEmpty()) {
+                sorter.setRowFilter(null);
+                return;
+            }
+            sorter.setRowFilter(row -> {
+                for (int column = 0; column < model.getColumnCount(); column++) {
+                    Object value = model.getValueAt(row, column);
+                    if (value instanceof String && containsIgnoreCase((String) value, text)) {
+                        return true;
+                    }
+                }
+                return false;
+            });
+        });
+        debounce.setRepeats(false);
+        filterField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                debounce.restart();
+            }
+
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                debounce.restart();
+            }
+
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+                debounce.restart();
+            }
+        });
+
+        JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        filterPanel.add(new JLabel("Filter:"));
+        filterPanel.add(filterField);
+        return filterPanel;
+    }
+
+    /**
+     * Substring test ignoring case without allocating lower-cased copies of every cell
+     */
+    private static boolean containsIgnoreCase(String value, String part) {
+        int last = value.length() - part.length();
+        for (int i = 0; i <= last; i++) {
+            if (value.regionMatches(true, i, part, 0, part.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates and displays the Dashboard window with charts
+     * Flow: User clicks Dashboard -> window opens at once -> SwingWorker fetches aggregates off the EDT -> panel repaints
+     * Aggregates are cached for a minute so reopening the dashboard draws immediately
+     */
+    private void Dashboard() {
+        JFrame frame = new JFrame("Dashboard");
+        frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+        frame.setSize(1200, 800);
+        frame.setLocationRelativeTo(null);
+        frame.setLayout(new BorderLayout());
+
+        DashboardPanel chart = new DashboardPanel();
+        // Load of this dashboard window; Refresh and closing the window cancel the one still running
+        AtomicReference<QueryCancellation> load = new AtomicReference<>();
+        frame.addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosing(java.awt.event.WindowEvent e) {
+                cancelLoad(load);
+            }
+        });
+        JButton refresh = new JButton("Refresh");
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 10));
+        buttonPanel.add(refresh);
+        frame.add(chart, BorderLayout.CENTER);
+        frame.add(buttonPanel, BorderLayout.SOUTH);
+
+        refresh.addActionListener(e -> loadDashboard(chart, load, true));
+        loadDashboard(chart, load, false);
+        frame.setVisible(true);
+    }
+
+    /**
+     * Loads aggregates for the dashboard, reusing the cached copy when it is fresh
+     * @param load the window's running load, replaced (and cancelled) by this one
+     * @param force true to ignore the cache (Refresh button)
+     */
+    private void loadDashboard(DashboardPanel chart, AtomicReference<QueryCancellation> load, boolean force) {
+        if (!force && cachedAggregates != null
+                && System.currentTimeMillis() - aggregatesLoadedAt < AGGREGATE_CACHE_MILLIS) {
+            chart.setData(cachedAggregates, cachedCategoryNames);
+            return;
+        }
+        chart.setStatus("Loading...");
+        QueryCancellation running = restartLoad(load);
+        new SwingWorker<ExpenseAggregates, Void>() {
+            private Map<Integer, String> names;
+
+            @Override
+            protected ExpenseAggregates doInBackground() throws Exception {
+                return QueryScope.callCancellable(running, () -> {
+                    names = new HashMap<>();
+                    for (Category category : mainDAO.getAllCategories()) {
+                        names.put(category.getCategoryid(), category.getCategoryname());
+                    }
+                    return mainDAO.getExpenseAggregates();
+                });
+            }
+
+            @Override
+            protected void done() {
+                if (running.isCancelled()) {
+                    return; // Window closed or a newer load replaced this one
+                }
+                try {
+                    cachedAggregates = get();
+                    cachedCategoryNames = names;
+                    aggregatesLoadedAt = System.currentTimeMillis();
+                    chart.setData(cachedAggregates, cachedCategoryNames);
+                } catch (Exception e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    chart.setStatus("Error loading dashboard: " + cause.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Cancels the load held in the slot, if any, and stores a fresh handle for the load about to start
+     * @return handle for the new load's QueryScope
+     */
+    private static QueryCancellation restartLoad(AtomicReference<QueryCancellation> slot) {
+        QueryCancellation next = new QueryCancellation();
+        QueryCancellation previous = slot.getAndSet(next);
+        if (previous != null) {
+            previous.cancel();
+        }
+        return next;
+    }
+
+    /**
+     * Cancels the load held in the slot, if any
+     */
+    private static void cancelLoad(AtomicReference<QueryCancellation> slot) {
+        QueryCancellation running = slot.getAndSet(null);
+        if (running != null) {
+            running.cancel();
         }
     }
 
@@ -783,5 +2295,22 @@ public class MainGUI extends JFrame {
     private void setupEventListeners() {
         expense.addActionListener(e -> Expense());
         category.addActionListener(e -> Category());
+        dashboard.addActionListener(e -> Dashboard());
+    }
+
+    /**
+     * Renders Category items in combo boxes by their name instead of Object.toString()
+     */
+    private static class CategoryNameRenderer extends DefaultListCellRenderer {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+            super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+            if (value instanceof Category) {
+                setText(((Category) value).getCategoryname());
+            }
+            return this;
+        }
     }
 }
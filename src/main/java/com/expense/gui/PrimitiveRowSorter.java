@@ -0,0 +1,303 @@
+package com.expense.gui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.TableModel;
+
+/**
+ * RowSorter that sorts on precomputed primitive long keys instead of comparing cell objects
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. User clicks a column header -> toggleSortOrder() -> sort key for that column is set
+ * 2. First sort on a column -> one long key per row is extracted from the model and cached
+ * 3. Visible model rows (after the filter) are merge-sorted by those keys in an int[] - no boxing, no Comparator
+ * 4. Model changes -> key caches are dropped and the view is rebuilt once per change event
+ *
+ * KEY TYPES:
+ * - NUMBER: Number cell values (ids, amounts) used as-is
+ * - DATE_TEXT: "yyyy-MM-ddTHH:mm" text packed into yyyyMMddHHmm digits, no date parsing
+ * - TEXT: rank of the value among the column's distinct values (case-insensitive), so names sort by ordinal
+ *
+ * WHY NOT TableRowSorter:
+ * - TableRowSorter compares boxed values/strings through a Comparator on every comparison,
+ *   and re-filters with per-row Entry objects; this sorter keeps everything in primitive arrays
+ */
+public class PrimitiveRowSorter<M extends TableModel> extends RowSorter<M> {
+    public enum KeyType { NUMBER, DATE_TEXT, TEXT }
+
+    private final M model;
+    private final KeyType[] keyTypes;
+    private final long[][] keyCache;
+    private List<SortKey> sortKeys = Collections.emptyList();
+    private IntPredicate filter;
+
+    // null means identity mapping (no filter, no sort)
+    private int[] viewToModel;
+    private int[] modelToView;
+
+    /**
+     * @param model table model to sort
+     * @param keyTypes how to build the sort key for each model column
+     */
+    public PrimitiveRowSorter(M model, KeyType... keyTypes) {
+        this.model = model;
+        this.keyTypes = keyTypes;
+        this.keyCache = new long[keyTypes.length][];
+    }
+
+    /**
+     * Shows only model rows accepted by the filter; the model itself is untouched
+     * @param modelRowFilter predicate on model row indexes, or null to show all rows
+     */
+    public void setRowFilter(IntPredicate modelRowFilter) {
+        this.filter = modelRowFilter;
+        rebuild();
+    }
+
+    @Override
+    public M getModel() {
+        return model;
+    }
+
+    @Override
+    public void toggleSortOrder(int column) {
+        SortOrder order = SortOrder.ASCENDING;
+        if (!sortKeys.isEmpty() && sortKeys.get(0).getColumn() == column
+                && sortKeys.get(0).getSortOrder() == SortOrder.ASCENDING) {
+            order = SortOrder.DESCENDING;
+        }
+        setSortKeys(Collections.singletonList(new SortKey(column, order)));
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> primary = new ArrayList<>();
+        if (keys != null && !keys.isEmpty() && keys.get(0).getSortOrder() != SortOrder.UNSORTED) {
+            primary.add(keys.get(0)); // Single-column sort: only the primary key is used
+        }
+        sortKeys = Collections.unmodifiableList(primary);
+        fireSortOrderChanged();
+        rebuild();
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        if (viewToModel == null) {
+            return index;
+        }
+        return viewToModel[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        if (modelToView == null) {
+            return index;
+        }
+        return index >= 0 && index < modelToView.length ? modelToView[index] : -1;
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return viewToModel == null ? model.getRowCount() : viewToModel.length;
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return model.getRowCount();
+    }
+
+    @Override
+    public void modelStructureChanged() {
+        sortKeys = Collections.emptyList();
+        allRowsChanged();
+    }
+
+    @Override
+    public void allRowsChanged() {
+        Arrays.fill(keyCache, null);
+        rebuild();
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        allRowsChanged();
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        allRowsChanged();
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        allRowsChanged();
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        if (column >= 0 && column < keyCache.length) {
+            keyCache[column] = null;
+        }
+        rebuild();
+    }
+
+    /**
+     * Recomputes the view: filter model rows into an int[], then sort them by the cached keys
+     */
+    private void rebuild() {
+        int[] previous = viewToModel;
+        int rowCount = model.getRowCount();
+        if (filter == null && sortKeys.isEmpty()) {
+            viewToModel = null;
+            modelToView = null;
+            fireRowSorterChanged(previous);
+            return;
+        }
+
+        int[] rows = new int[rowCount];
+        int visible = 0;
+        for (int row = 0; row < rowCount; row++) {
+            if (filter == null || filter.test(row)) {
+                rows[visible++] = row;
+            }
+        }
+        rows = Arrays.copyOf(rows, visible);
+
+        if (!sortKeys.isEmpty()) {
+            SortKey key = sortKeys.get(0);
+            long[] keys = keys(key.getColumn());
+            sort(rows, keys, key.getSortOrder() == SortOrder.DESCENDING);
+        }
+
+        int[] inverse = new int[rowCount];
+        Arrays.fill(inverse, -1);
+        for (int view = 0; view < rows.length; view++) {
+            inverse[rows[view]] = view;
+        }
+        viewToModel = rows;
+        modelToView = inverse;
+        fireRowSorterChanged(previous);
+    }
+
+    private long[] keys(int column) {
+        if (keyCache[column] == null || keyCache[column].length != model.getRowCount()) {
+            keyCache[column] = extractKeys(column);
+        }
+        return keyCache[column];
+    }
+
+    private long[] extractKeys(int column) {
+        int rowCount = model.getRowCount();
+        long[] keys = new long[rowCount];
+        switch (keyTypes[column]) {
+            case NUMBER:
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = model.getValueAt(row, column);
+                    keys[row] = value instanceof Number ? ((Number) value).longValue() : Long.MIN_VALUE;
+                }
+                break;
+            case DATE_TEXT:
+                for (int row = 0; row < rowCount; row++) {
+                    keys[row] = dateKey(model.getValueAt(row, column));
+                }
+                break;
+            case TEXT:
+            default:
+                Map<String, Integer> ranks = textRanks(column, rowCount);
+                for (int row = 0; row < rowCount; row++) {
+                    Object value = model.getValueAt(row, column);
+                    keys[row] = value == null ? -1 : ranks.get(value.toString());
+                }
+                break;
+        }
+        return keys;
+    }
+
+    /**
+     * Ranks each distinct text value of a column once, so rows compare by a small integer afterwards
+     */
+    private Map<String, Integer> textRanks(int column, int rowCount) {
+        Map<String, Integer> ranks = new HashMap<>();
+        for (int row = 0; row < rowCount; row++) {
+            Object value = model.getValueAt(row, column);
+            if (value != null) {
+                ranks.putIfAbsent(value.toString(), 0);
+            }
+        }
+        String[] distinct = ranks.keySet().toArray(new String[0]);
+        Arrays.sort(distinct, String.CASE_INSENSITIVE_ORDER);
+        for (int rank = 0; rank < distinct.length; rank++) {
+            ranks.put(distinct[rank], rank);
+        }
+        return ranks;
+    }
+
+    /**
+     * Packs "yyyy-MM-ddTHH:mm" into the number yyyyMMddHHmm by reading its digits
+     * @return sortable key, or Long.MIN_VALUE for missing/unparseable dates
+     */
+    static long dateKey(Object value) {
+        if (!(value instanceof String)) {
+            return Long.MIN_VALUE;
+        }
+        String text = (String) value;
+        long key = 0;
+        int digits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                key = key * 10 + (c - '0');
+                digits++;
+            }
+        }
+        return digits == 0 ? Long.MIN_VALUE : key;
+    }
+
+    /**
+     * Stable bottom-up merge sort of row indexes by their primitive keys
+     */
+    private static void sort(int[] rows, long[] keys, boolean descending) {
+        int[] buffer = new int[rows.length];
+        int[] from = rows;
+        int[] to = buffer;
+        for (int width = 1; width < rows.length; width *= 2) {
+            for (int left = 0; left < rows.length; left += 2 * width) {
+                int mid = Math.min(left + width, rows.length);
+                int right = Math.min(left + 2 * width, rows.length);
+                int i = left;
+                int j = mid;
+                int k = left;
+                while (i < mid && j < right) {
+                    long a = keys[from[i]];
+                    long b = keys[from[j]];
+                    boolean takeRight = descending ? b > a : b < a;
+                    to[k++] = takeRight ? from[j++] : from[i++];
+                }
+                while (i < mid) {
+                    to[k++] = from[i++];
+                }
+                while (j < right) {
+                    to[k++] = from[j++];
+                }
+            }
+            int[] swap = from;
+            from = to;
+            to = swap;
+        }
+        if (from != rows) {
+            System.arraycopy(from, 0, rows, 0, rows.length);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.expense.partition;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.expense.dao.MainDAO;
+import com.expense.export.ExpenseExporter;
+import com.expense.export.ExportFormat;
+import com.expense.export.ExportOptions;
+import com.expense.export.ExportReport;
+
+/**
+ * Moves old months of expenses out of MySQL into compressed archive files
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. Monthly partitions older than the cutoff month are handled oldest first
+ * 2. The month is exported with ExpenseExporter (binary records with category names, gzip) into a temp file;
+ *    the date-range query only reads that month's partition. The range starts at the oldest possible date
+ *    because the first partition also holds anything older than its month
+ * 3. The exported row count must match an exact COUNT(*) on the primary taken before and after the export,
+ *    otherwise the file is deleted and the partition is left alone (e.g. a lagging replica or a late insert)
+ * 4. The file is renamed to expenses-YYYY-MM.expb.gz, then DROP PARTITION removes the month instantly; the
+ *    partition is counted once more under LOCK TABLES right before the drop, so an expense backdated into the
+ *    month after the export is never dropped unarchived (the file is deleted and the partition kept instead)
+ *
+ * WHY PARTITIONS: dropping a partition frees the month without a row-by-row DELETE, and queries on recent
+ * months never touch archived history. Stored monthly sketches are kept, so percentiles and distinct counts
+ * for archived months stay available; a full SketchBuilder.rebuild() starts at the first remaining partition
+ * and leaves them alone.
+ */
+public final class ExpenseArchiver {
+    // Smallest MySQL DATETIME
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1000, 1, 1, 0, 0);
+
+    private ExpenseArchiver() {
+    }
+
+    /**
+     * @param cutoff months strictly before this one are archived
+     * @param directory where archive files are written (created if missing)
+     * @return archive files written, oldest first
+     */
+    public static List<Path> archiveBefore(MainDAO dao, YearMonth cutoff, Path directory) throws SQLException, IOException {
+        Files.createDirectories(directory);
+        List<Path> archived = new ArrayList<>();
+        ExpenseExporter exporter = new ExpenseExporter(dao);
+        for (ExpensePartition partition : dao.getExpensePartitions()) {
+            YearMonth month = partition.getMonth();
+            if (month == null || !month.isBefore(cutoff)) {
+                continue;
+            }
+            Path target = directory.resolve(String.format("expenses-%s.%s.gz", month, ExportFormat.BINARY.getExtension()));
+            Path temp = directory.resolve(target.getFileName() + ".tmp");
+
+            // Oldest first, so this partition is the first one when it is exported and dropped
+            LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+            long before = dao.countExpensesBetween(BEGINNING, end);
+            ExportReport report = exporter.export(temp, new ExportOptions(ExportFormat.BINARY)
+                    .between(BEGINNING, end)
+                    .withCategoryNames()
+                    .compressed());
+            long after = dao.countExpensesBetween(BEGINNING, end);
+            if (report.getRows() != before || before != after) {
+                Files.deleteIfExists(temp);
+                throw new SQLException("Archive of " + month + " incomplete (" + report.getRows() + " exported, "
+                        + before + "/" + after + " in the table) - partition kept, try again");
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            try {
+                dao.dropExpensePartition(partition, report.getRows());
+            } catch (SQLException e) {
+                if (stillExists(dao, partition)) {
+                    Files.deleteIfExists(target); // Partition kept: the file would be an incomplete copy of it
+                }
+                throw e;
+            }
+            archived.add(target);
+        }
+        return archived;
+    }
+
+    /**
+     * @return true if the partition is known to be still there; false if it is gone or that cannot be checked,
+     *         so the archive file is only deleted when the month's rows are certainly still in the table
+     */
+    private static boolean stillExists(MainDAO dao, ExpensePartition partition) {
+        try {
+            for (ExpensePartition current : dao.getExpensePartitions()) {
+                if (current.getName().equals(partition.getName())) {
+                    return true;
+                }
+            }
+        } catch (SQLException e) {
+            // Unknown outcome (e.g. the connection died during the drop): keep the file
+        }
+        return false;
+    }
+}
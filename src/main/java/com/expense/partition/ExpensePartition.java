@@ -0,0 +1,70 @@
+package com.expense.partition;
+
+import java.time.YearMonth;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One range partition of the expenses table as reported by information_schema.PARTITIONS
+ *
+ * NAMING: pYYYYMM holds the expenses of that month (VALUES LESS THAN the first day of the next month);
+ * the first monthly partition also holds anything older, and pmax catches dates past the last month
+ */
+public final class ExpensePartition {
+    public static final String CATCH_ALL = "pmax";
+    private static final Pattern MONTHLY = Pattern.compile("p(\\d{4})(\\d{2})");
+
+    private final String name;
+    private final YearMonth month;
+    private final long estimatedRows;
+    private final long bytes;
+
+    public ExpensePartition(String name, long estimatedRows, long bytes) {
+        this.name = name;
+        this.month = parseMonth(name);
+        this.estimatedRows = estimatedRows;
+        this.bytes = bytes;
+    }
+
+    /**
+     * @return partition name for a month, e.g. p202611
+     */
+    public static String nameOf(YearMonth month) {
+        return String.format("p%04d%02d", month.getYear(), month.getMonthValue());
+    }
+
+    private static YearMonth parseMonth(String name) {
+        Matcher matcher = MONTHLY.matcher(name);
+        return matcher.matches() ? YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))) : null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return month held by this partition, or null for pmax (and any partition not named by this scheme)
+     */
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    /**
+     * @return InnoDB's row estimate (TABLE_ROWS), not an exact count
+     */
+    public long getEstimatedRows() {
+        return estimatedRows;
+    }
+
+    /**
+     * @return data + index size in bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return name + " (~" + estimatedRows + " rows, " + bytes / 1024 + " KB)";
+    }
+}
@@ -0,0 +1,73 @@
+package com.expense.recurring;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import com.expense.dao.MainDAO;
+
+/**
+ * Materialises due recurring expenses in the background
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. start() runs once immediately, which catches up everything missed while the app was closed
+ * 2. After that it re-checks periodically so long-running sessions pick up new due dates
+ * 3. Each run is one MainDAO.materializeRecurringExpenses() call - a single transaction with batched inserts
+ * 4. The listener is told how many expenses were inserted so the GUI can refresh
+ *
+ * WHY SAFE TO RE-RUN: generated expenses carry idempotency keys, so overlapping runs or a crash
+ * between insert and commit never produce duplicates
+ */
+public class RecurringExpenseScheduler implements AutoCloseable {
+    private final MainDAO dao;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "recurring-expenses");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile IntConsumer listener = inserted -> { };
+
+    public RecurringExpenseScheduler(MainDAO dao) {
+        this.dao = dao;
+    }
+
+    /**
+     * @param listener called on the scheduler thread with the number of inserted expenses (only when > 0)
+     */
+    public void setListener(IntConsumer listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts catching up immediately, then re-checks every periodMinutes until close() is called
+     */
+    public void start(long periodMinutes) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                runNow();
+            } catch (SQLException e) {
+                System.err.println("Recurring expenses not generated: " + e.getMessage());
+            }
+        }, 0, periodMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Generates every occurrence due up to today
+     * @return number of expenses inserted
+     */
+    public synchronized int runNow() throws SQLException {
+        int inserted = dao.materializeRecurringExpenses(LocalDate.now());
+        if (inserted > 0) {
+            listener.accept(inserted);
+        }
+        return inserted;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,151 @@
+package com.expense.report;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.model.Expense;
+import com.model.PaymentMethod;
+
+/**
+ * Pre-aggregated expense totals used by the dashboard
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. MainDAO.getExpenseAggregates() runs GROUP BY queries on the server (or LocalStoreDAO folds local rows)
+ * 2. Results are collected through the Builder into primitive arrays and small maps
+ * 3. Dashboard draws straight from these series; downsample() shrinks long ranges to the chart width
+ *
+ * WHY: Chart cost depends on the number of days/categories, never on the number of expenses
+ */
+public class ExpenseAggregates {
+    private final long[] days;        // epoch days, ascending
+    private final long[] dailyTotals; // total spend per entry of days
+    private final Map<Integer, Long> categoryTotals;
+    private final Map<PaymentMethod, Long> paymentTotals;
+
+    private ExpenseAggregates(long[] days, long[] dailyTotals,
+                              Map<Integer, Long> categoryTotals, Map<PaymentMethod, Long> paymentTotals) {
+        this.days = days;
+        this.dailyTotals = dailyTotals;
+        this.categoryTotals = categoryTotals;
+        this.paymentTotals = paymentTotals;
+    }
+
+    public int getDayCount() {
+        return days.length;
+    }
+
+    public LocalDate getFirstDay() {
+        return days.length == 0 ? null : LocalDate.ofEpochDay(days[0]);
+    }
+
+    public LocalDate getLastDay() {
+        return days.length == 0 ? null : LocalDate.ofEpochDay(days[days.length - 1]);
+    }
+
+    /**
+     * @return category id -> total spend, largest total first
+     */
+    public Map<Integer, Long> getCategoryTotals() {
+        return categoryTotals;
+    }
+
+    public long getPaymentTotal(PaymentMethod method) {
+        return paymentTotals.getOrDefault(method, 0L);
+    }
+
+    public long getGrandTotal() {
+        long total = 0;
+        for (long value : paymentTotals.values()) {
+            total += value;
+        }
+        return total;
+    }
+
+    /**
+     * Sums daily totals into at most maxPoints equal-width buckets over the full date range
+     * Flow: Range split into buckets of ceil(span / maxPoints) days -> each day's total added to its bucket
+     * @param maxPoints usually the chart width in pixels
+     * @return {bucket start epoch days, bucket totals}; empty arrays when there is no data
+     */
+    public long[][] downsample(int maxPoints) {
+        if (days.length == 0 || maxPoints <= 0) {
+            return new long[][]{new long[0], new long[0]};
+        }
+        long first = days[0];
+        long span = days[days.length - 1] - first + 1;
+        long width = Math.max(1, (span + maxPoints - 1) / maxPoints);
+        int buckets = (int) ((span + width - 1) / width);
+        long[] starts = new long[buckets];
+        long[] totals = new long[buckets];
+        for (int i = 0; i < buckets; i++) {
+            starts[i] = first + i * width;
+        }
+        for (int i = 0; i < days.length; i++) {
+            totals[(int) ((days[i] - first) / width)] += dailyTotals[i];
+        }
+        return new long[][]{starts, totals};
+    }
+
+    /**
+     * Collects totals from GROUP BY rows or from individual expenses
+     */
+    public static class Builder {
+        private final TreeMap<Long, Long> daily = new TreeMap<>();
+        private final Map<Integer, Long> categories = new HashMap<>();
+        private final Map<PaymentMethod, Long> payments = new EnumMap<>(PaymentMethod.class);
+
+        public Builder addDay(LocalDate day, long total) {
+            daily.merge(day.toEpochDay(), total, Long::sum);
+            return this;
+        }
+
+        public Builder addCategory(int categoryId, long total) {
+            categories.merge(categoryId, total, Long::sum);
+            return this;
+        }
+
+        public Builder addPayment(PaymentMethod method, long total) {
+            payments.merge(method, total, Long::sum);
+            return this;
+        }
+
+        /**
+         * Folds one expense into all three series (used when aggregating without SQL)
+         */
+        public Builder add(Expense expense) {
+            if (expense.getExpense_date() != null) {
+                addDay(expense.getExpense_date().toLocalDate(), expense.getAmount());
+            }
+            addCategory(expense.getCategory_id(), expense.getAmount());
+            if (expense.getPaymentMethod() != null) {
+                addPayment(expense.getPaymentMethod(), expense.getAmount());
+            }
+            return this;
+        }
+
+        public ExpenseAggregates build() {
+            long[] dayKeys = new long[daily.size()];
+            long[] dayTotals = new long[daily.size()];
+            int i = 0;
+            for (Map.Entry<Long, Long> entry : daily.entrySet()) {
+                dayKeys[i] = entry.getKey();
+                dayTotals[i++] = entry.getValue();
+            }
+            List<Map.Entry<Integer, Long>> sorted = new ArrayList<>(categories.entrySet());
+            sorted.sort(Map.Entry.<Integer, Long>comparingByValue().reversed());
+            Map<Integer, Long> categoryTotals = new LinkedHashMap<>();
+            for (Map.Entry<Integer, Long> entry : sorted) {
+                categoryTotals.put(entry.getKey(), entry.getValue());
+            }
+            return new ExpenseAggregates(dayKeys, dayTotals,
+                    Collections.unmodifiableMap(categoryTotals), new EnumMap<>(payments));
+        }
+    }
+}
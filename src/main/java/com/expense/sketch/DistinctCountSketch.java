@@ -0,0 +1,128 @@
+package com.expense.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * HyperLogLog distinct-count sketch
+ *
+ * HOW IT WORKS:
+ * - Each item is hashed to 64 bits; the top PRECISION bits pick a register
+ * - The register keeps the longest run of leading zeros seen in the remaining bits
+ * - The harmonic mean of the registers estimates the number of distinct items (~3% standard error)
+ * - Merging two sketches takes the maximum of each register, so months combine into any range
+ *
+ * WHY: Distinct merchants over years in 1 KB per category/month instead of a set of every name
+ */
+public class DistinctCountSketch {
+    private static final int PRECISION = 10;
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+    private static final byte SPARSE = 0;
+    private static final byte DENSE = 1;
+
+    private final byte[] registers = new byte[REGISTERS];
+
+    /**
+     * Adds an already hashed item (see hash())
+     */
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (64 - PRECISION));
+        long rest = hash << PRECISION;
+        int rank = rest == 0 ? 64 - PRECISION + 1 : Long.numberOfLeadingZeros(rest) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public void merge(DistinctCountSketch other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros); // Linear counting for small sets
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * 64-bit hash of a string: FNV-1a followed by a MurmurHash3 finaliser so the top bits are well mixed
+     */
+    public static long hash(CharSequence value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Sparse (index, value) pairs while few registers are set, raw registers otherwise
+     */
+    public byte[] toBytes() {
+        int used = 0;
+        for (byte register : registers) {
+            if (register != 0) {
+                used++;
+            }
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (used * 3 < REGISTERS) {
+                out.writeByte(SPARSE);
+                for (int i = 0; i < REGISTERS; i++) {
+                    if (registers[i] != 0) {
+                        out.writeShort(i);
+                        out.writeByte(registers[i]);
+                    }
+                }
+            } else {
+                out.writeByte(DENSE);
+                out.write(registers);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // In-memory stream
+        }
+        return bytes.toByteArray();
+    }
+
+    public static DistinctCountSketch fromBytes(byte[] data) throws IOException {
+        DistinctCountSketch sketch = new DistinctCountSketch();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            byte mode = in.readByte();
+            if (mode == DENSE) {
+                in.readFully(sketch.registers);
+            } else if (mode == SPARSE) {
+                while (in.available() > 0) {
+                    int index = in.readUnsignedShort();
+                    sketch.registers[index] = in.readByte();
+                }
+            } else {
+                throw new IOException("Unsupported distinct-count sketch format");
+            }
+        }
+        return sketch;
+    }
+}
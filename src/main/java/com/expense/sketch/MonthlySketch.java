@@ -0,0 +1,100 @@
+package com.expense.sketch;
+
+import java.time.YearMonth;
+
+import com.model.Expense;
+
+/**
+ * Amount quantiles and distinct merchants for one category in one month
+ *
+ * Table: expense_sketches(category_id INT, period INT (yyyymm), amounts BLOB, merchants BLOB,
+ *                         PRIMARY KEY(category_id, period))
+ *
+ * The expenses table has no merchant column, so the normalised description (lower-case letters and digits)
+ * stands in for the merchant name
+ */
+public class MonthlySketch {
+    private final int categoryId;
+    private final YearMonth month;
+    private final QuantileSketch amounts;
+    private final DistinctCountSketch merchants;
+
+    public MonthlySketch(int categoryId, YearMonth month) {
+        this(categoryId, month, new QuantileSketch(), new DistinctCountSketch());
+    }
+
+    public MonthlySketch(int categoryId, YearMonth month, QuantileSketch amounts, DistinctCountSketch merchants) {
+        this.categoryId = categoryId;
+        this.month = month;
+        this.amounts = amounts;
+        this.merchants = merchants;
+    }
+
+    public void add(Expense expense) {
+        amounts.add(expense.getAmount());
+        if (expense.getDescription() != null) {
+            merchants.addHash(DistinctCountSketch.hash(normalise(expense.getDescription())));
+        }
+    }
+
+    /**
+     * Folds another month (or category) into this one
+     */
+    public void merge(MonthlySketch other) {
+        amounts.merge(other.amounts);
+        merchants.merge(other.merchants);
+    }
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public QuantileSketch getAmounts() {
+        return amounts;
+    }
+
+    public DistinctCountSketch getMerchants() {
+        return merchants;
+    }
+
+    /**
+     * @return month encoded as yyyymm for the period column
+     */
+    public static int period(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthValue();
+    }
+
+    public static YearMonth month(int period) {
+        return YearMonth.of(period / 100, period % 100);
+    }
+
+    /**
+     * @return category and month packed into one map key (category in the high 32 bits, period in the low ones)
+     */
+    public static long key(int categoryId, YearMonth month) {
+        return ((long) categoryId << 32) | period(month);
+    }
+
+    public static int categoryOf(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static int periodOf(long key) {
+        return (int) key;
+    }
+
+    private static CharSequence normalise(String description) {
+        StringBuilder merchant = new StringBuilder(description.length());
+        for (int i = 0; i < description.length(); i++) {
+            char c = description.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                merchant.append(Character.toLowerCase(c));
+            }
+        }
+        return merchant;
+    }
+}
@@ -0,0 +1,131 @@
+package com.expense.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch with relative-error guarantees (DDSketch-style logarithmic buckets)
+ *
+ * HOW IT WORKS:
+ * - A positive value x goes to bucket ceil(log_gamma(x)), gamma = (1 + a) / (1 - a)
+ * - Every value in a bucket is within a relative error a of the bucket's representative value
+ * - Two sketches merge by adding bucket counts, so per-month sketches combine into any range exactly
+ *   as if the range had been sketched directly
+ *
+ * WHY: Median/95th percentile over years of data without sorting or even loading the rows;
+ *      with a = 1% an int amount needs at most ~1100 buckets and typical months use a few dozen
+ */
+public class QuantileSketch {
+    private static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final byte FORMAT_VERSION = 1;
+
+    private long[] counts = new long[16];
+    private long zeroCount;   // Values <= 0 have no logarithm; reported as 0
+    private long count;
+    private long max = Long.MIN_VALUE;
+
+    public void add(long value) {
+        count++;
+        max = Math.max(max, value);
+        if (value <= 0) {
+            zeroCount++;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        }
+        counts[index]++;
+    }
+
+    public void merge(QuantileSketch other) {
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        max = Math.max(max, other.max);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @param q quantile in [0, 1], e.g. 0.5 for the median or 0.95 for the 95th percentile
+     * @return approximate value (within 1% relative error), or NaN for an empty sketch
+     */
+    public double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.floor(q * (count - 1));
+        if (rank < zeroCount) {
+            return 0;
+        }
+        long seen = zeroCount;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                // Bucket representative, capped so the top quantile never exceeds the real maximum
+                return Math.min(2 * Math.pow(GAMMA, i) / (GAMMA + 1), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Compact binary form: only non-empty buckets are written, as (index gap, count) varints
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT_VERSION);
+            Varints.write(out, count);
+            Varints.write(out, zeroCount);
+            Varints.write(out, max == Long.MIN_VALUE ? 0 : max);
+            int previous = -1;
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] != 0) {
+                    Varints.write(out, i - previous);
+                    Varints.write(out, counts[i]);
+                    previous = i;
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // In-memory stream
+        }
+        return bytes.toByteArray();
+    }
+
+    public static QuantileSketch fromBytes(byte[] data) throws IOException {
+        QuantileSketch sketch = new QuantileSketch();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readByte() != FORMAT_VERSION) {
+                throw new IOException("Unsupported quantile sketch format");
+            }
+            sketch.count = Varints.read(in);
+            sketch.zeroCount = Varints.read(in);
+            long max = Varints.read(in);
+            sketch.max = sketch.count == 0 ? Long.MIN_VALUE : max;
+            int index = -1;
+            while (in.available() > 0) {
+                index += (int) Varints.read(in);
+                if (index >= sketch.counts.length) {
+                    sketch.counts = Arrays.copyOf(sketch.counts, Math.max(index + 1, sketch.counts.length * 2));
+                }
+                sketch.counts[index] = Varints.read(in);
+            }
+        }
+        return sketch;
+    }
+}
@@ -0,0 +1,111 @@
+package com.expense.sketch;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import com.expense.dao.MainDAO;
+import com.expense.dao.UncheckedSQLException;
+import com.model.Expense;
+
+/**
+ * Builds monthly sketches from expenses and stores them
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. Expenses from the first month to rebuild onwards are streamed once (never all loaded)
+ * 2. Each expense is added to the sketch of its category/month
+ * 3. MainDAO.saveSketches() replaces the stored sketches for those months in one transaction
+ *
+ * Before answering a query the GUI refreshes the current month and every category/month an expense write marked
+ * stale (refreshStale()), so edits, deletes, date shifts, merges and offline pushes into earlier months are
+ * reflected without a full rebuild. A full rebuild starts at the first live month
+ * (MainDAO.getFirstLiveMonth()): archived months have no rows left to rebuild from, so their stored sketches
+ * are the only copy and are never replaced
+ */
+public final class SketchBuilder {
+    private SketchBuilder() {
+    }
+
+    /**
+     * @param from first month to rebuild, or null to rebuild every month that still has its rows
+     * @return number of category/month sketches written
+     */
+    public static int rebuild(MainDAO dao, YearMonth from) throws SQLException {
+        if (from == null) {
+            from = dao.getFirstLiveMonth(); // Still null if nothing can have been archived
+        }
+        Map<Long, MonthlySketch> sketches = new HashMap<>();
+        if (from == null) {
+            dao.forEachExpense(expense -> add(sketches, expense));
+        } else {
+            try (Stream<Expense> expenses = dao.streamExpensesBetween(
+                    from.atDay(1).atStartOfDay(), LocalDateTime.of(9999, 12, 31, 0, 0))) {
+                expenses.forEach(expense -> add(sketches, expense));
+            } catch (UncheckedSQLException e) {
+                throw e.getCause();
+            }
+        }
+        dao.saveSketches(sketches.values(), from);
+        return sketches.size();
+    }
+
+    /**
+     * Rebuilds the category/months that expense writes marked stale (see MainDAO's expense_sketch_stale)
+     *
+     * FLOW:
+     * 1. Reads the marks; marked months before the first live month are archived - nothing is left to rebuild them
+     *    from, so their marks are only cleared
+     * 2. Streams each marked month once (the date range reads only that month's partition) and sketches the
+     *    expenses of its marked categories
+     * 3. MainDAO.saveRefreshedSketches() replaces those sketches and clears the marks it read, in one transaction
+     *
+     * @return number of category/month sketches refreshed
+     */
+    public static int refreshStale(MainDAO dao) throws SQLException {
+        Map<Long, Integer> rebuilt = dao.getStaleSketches();
+        if (rebuilt.isEmpty()) {
+            return 0;
+        }
+        YearMonth firstLive = dao.getFirstLiveMonth();
+        Map<Long, Integer> dropped = new HashMap<>();
+        Set<YearMonth> months = new TreeSet<>();
+        for (Iterator<Map.Entry<Long, Integer>> it = rebuilt.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, Integer> mark = it.next();
+            YearMonth month = MonthlySketch.month(MonthlySketch.periodOf(mark.getKey()));
+            if (firstLive != null && month.isBefore(firstLive)) {
+                dropped.put(mark.getKey(), mark.getValue());
+                it.remove();
+            } else {
+                months.add(month);
+            }
+        }
+
+        Map<Long, MonthlySketch> sketches = new HashMap<>();
+        for (YearMonth month : months) {
+            try (Stream<Expense> expenses = dao.streamExpensesBetween(
+                    month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay())) {
+                expenses.filter(expense -> rebuilt.containsKey(MonthlySketch.key(expense.getCategory_id(), month)))
+                        .forEach(expense -> add(sketches, expense));
+            } catch (UncheckedSQLException e) {
+                throw e.getCause();
+            }
+        }
+        dao.saveRefreshedSketches(sketches.values(), rebuilt, dropped);
+        return rebuilt.size();
+    }
+
+    private static void add(Map<Long, MonthlySketch> sketches, Expense expense) {
+        if (expense.getExpense_date() == null) {
+            return;
+        }
+        YearMonth month = YearMonth.from(expense.getExpense_date());
+        sketches.computeIfAbsent(MonthlySketch.key(expense.getCategory_id(), month),
+                k -> new MonthlySketch(expense.getCategory_id(), month)).add(expense);
+    }
+}
@@ -0,0 +1,59 @@
+package com.expense.sketch;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Statistics for one category over a range of months, answered by merging the stored monthly sketches
+ */
+public class SketchSummary {
+    private final long count;
+    private final double median;
+    private final double p95;
+    private final long distinctMerchants;
+
+    private SketchSummary(long count, double median, double p95, long distinctMerchants) {
+        this.count = count;
+        this.median = median;
+        this.p95 = p95;
+        this.distinctMerchants = distinctMerchants;
+    }
+
+    /**
+     * Merges monthly sketches - cost depends on the number of months, not the number of expenses
+     */
+    public static SketchSummary of(List<MonthlySketch> sketches) {
+        MonthlySketch merged = new MonthlySketch(0, YearMonth.now());
+        for (MonthlySketch sketch : sketches) {
+            merged.merge(sketch);
+        }
+        QuantileSketch amounts = merged.getAmounts();
+        return new SketchSummary(amounts.getCount(), amounts.quantile(0.5), amounts.quantile(0.95),
+                merged.getMerchants().estimate());
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMedian() {
+        return median;
+    }
+
+    public double getP95() {
+        return p95;
+    }
+
+    public long getDistinctMerchants() {
+        return distinctMerchants;
+    }
+
+    @Override
+    public String toString() {
+        if (count == 0) {
+            return "No expenses in this range";
+        }
+        return String.format("Expenses: %d%nMedian: %.0f%n95th percentile: %.0f%nDistinct merchants: ~%d",
+                count, median, p95, distinctMerchants);
+    }
+}
@@ -0,0 +1,914 @@
+package com.expense.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.model.Category;
+import com.model.Expense;
+import com.model.PaymentMethod;
+
+/**
+ * Local storage engine for categories and expenses backed by a memory-mapped append-only journal
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. open() maps the newest sealed journal generation file and replays its records into the in-memory id index
+ * 2. Writes encode one record and append it at the tail of the mapped buffer (no system call per write)
+ * 3. Reads look up the record offset in the index and decode it straight from the mapped buffer
+ * 4. When superseded records outweigh live ones, compaction copies live records into the next generation file
+ * 5. OfflineSynchronizer pushes dirty rows to MySQL and pulls server changes back through applyServerChanges(),
+ *    or a full copy through refreshFrom()
+ *
+ * HEADER (32 bytes): int magic, int version, long generation, long store id, int next local id, 4 bytes reserved
+ * - The store id is random per journal and never changes; with the local id it forms the idempotency key of a push
+ * - The next local id is written before each local insert, so a local id is never handed out twice, even after
+ *   compaction dropped every record that used it
+ * - Version 1 journals (16-byte header without either field) are read and rewritten as version 2 on open()
+ *
+ * RECORD LAYOUT (big-endian):
+ * - int length of everything after the length field (written last, so a torn write reads as end-of-journal)
+ * - byte type (EXPENSE_PUT, EXPENSE_DELETE, CATEGORY_PUT, CATEGORY_DELETE), byte flags (FLAG_DIRTY)
+ * - payload starting with int id; PUT records carry the full row, DELETE records only the id
+ * - PUT records end with the int server version the row was last pulled or pushed at (0 = not on the server yet);
+ *   records written before versions were kept end right after the row and read as version 0
+ *
+ * ID RULES:
+ * - Negative ids mark rows created locally that do not exist on the server yet
+ * - Dirty rows and dirty deletes with positive ids are pending pushes to the server
+ *
+ * VERSION RULES: local edits keep the stored server version, so a push is a versioned UPDATE against the version
+ * the edit started from, and a server edit made meanwhile surfaces as a conflict instead of being overwritten
+ *
+ * SYNC READS: compaction moves every record, so the synchroniser never keeps offsets; it reads dirty rows by id
+ * together with their edit stamp, and passes the stamp back when the push is recorded
+ *
+ * All public methods are synchronized; the mapped buffer is limited to 2 GB per generation
+ */
+public class LocalStore implements AutoCloseable {
+    private static final int MAGIC = 0x45584A4C; // "EXJL"
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32; // magic, version, long generation, long store id, int next local id
+    private static final int VERSION_1 = 1;
+    private static final int VERSION_1_HEADER_SIZE = 16; // magic, version, long generation
+    private static final int STORE_ID_OFFSET = 16;
+    private static final int NEXT_LOCAL_ID_OFFSET = 24;
+    private static final int RECORD_OVERHEAD = Integer.BYTES + 2; // length, type, flags
+    private static final int INITIAL_CAPACITY = 1 << 20;
+    private static final long COMPACTION_MIN_GARBAGE = 1 << 20;
+    private static final String FILE_PREFIX = "journal-";
+    private static final String FILE_SUFFIX = ".dat";
+
+    static final byte EXPENSE_PUT = 1;
+    static final byte EXPENSE_DELETE = 2;
+    static final byte CATEGORY_PUT = 3;
+    static final byte CATEGORY_DELETE = 4;
+    static final byte FLAG_DIRTY = 1;
+
+    private static final PaymentMethod[] PAYMENT_METHODS = PaymentMethod.values();
+
+    /**
+     * Index entry: where the current version of a row lives in the mapped buffer
+     * The stamp changes on every local edit or pull of the row and is kept when compaction moves the record
+     */
+    private static final class Entry {
+        final int offset;
+        final boolean dirty;
+        final long stamp;
+
+        Entry(int offset, boolean dirty, long stamp) {
+            this.offset = offset;
+            this.dirty = dirty;
+            this.stamp = stamp;
+        }
+    }
+
+    /**
+     * A dirty row read for pushing, with the edit stamp it had when it was read
+     */
+    static final class Pending<T> {
+        final T row;
+        final long stamp;
+
+        Pending(T row, long stamp) {
+            this.row = row;
+            this.stamp = stamp;
+        }
+    }
+
+    private final Path directory;
+    private long generation;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int tail;
+    private long garbageBytes;
+    private int headerSize = HEADER_SIZE;
+    private long storeId;
+    private int nextLocalId = -1;
+    private long edits; // Source of edit stamps
+    private boolean rewriting;
+
+    private final Map<Integer, Entry> categories = new LinkedHashMap<>();
+    private final Map<Integer, Entry> expenses = new LinkedHashMap<>();
+    private final Set<Integer> pendingCategoryDeletes = new HashSet<>();
+    private final Set<Integer> pendingExpenseDeletes = new HashSet<>();
+
+    // Reused encode buffer so a write allocates nothing but the record bytes of its strings
+    private ByteBuffer scratch = ByteBuffer.allocate(256);
+
+    private LocalStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Opens (or creates) the local store in the given directory
+     * Flow: Find newest journal generation -> map it -> replay records into the index -> upgrade a version 1
+     *       journal -> remove stale generations
+     * @param directory folder holding the journal files
+     * @return ready-to-use store
+     */
+    public static LocalStore open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        LocalStore store = new LocalStore(directory);
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                generations.add(parseGeneration(file));
+            }
+        }
+        generations.sort(Collections.reverseOrder());
+        for (long candidate : generations) {
+            if (candidate >= 0 && store.mapGeneration(candidate)) {
+                store.replay();
+                if (store.headerSize != HEADER_SIZE) {
+                    store.storeId = new SecureRandom().nextLong();
+                    store.compact(); // Writes the version 2 header into the next generation
+                }
+                store.deleteStaleGenerations();
+                return store;
+            }
+        }
+        // No complete generation on disk: start a fresh journal after any half-written ones
+        store.storeId = new SecureRandom().nextLong();
+        store.createGeneration(generations.isEmpty() ? 0 : Math.max(0, generations.get(0) + 1));
+        store.sealGeneration();
+        store.deleteStaleGenerations();
+        return store;
+    }
+
+    // ---------------------------------------------------------------- categories
+
+    public synchronized List<Category> getAllCategories() {
+        List<Category> result = new ArrayList<>(categories.size());
+        for (Entry entry : categories.values()) {
+            result.add(readCategory(buffer, entry.offset));
+        }
+        return result;
+    }
+
+    public synchronized Category getCategory(int id) {
+        Entry entry = categories.get(id);
+        return entry != null ? readCategory(buffer, entry.offset) : null;
+    }
+
+    /**
+     * Stores a new category under a negative local id
+     * @return the local id assigned to the category
+     */
+    public synchronized int createCategory(Category category) throws IOException {
+        int id = allocateLocalId();
+        category.setCategoryid(id);
+        putCategory(category, 0, true, ++edits);
+        return id;
+    }
+
+    /**
+     * Stores a local edit; the row keeps the server version it had, whatever version the caller's object carries
+     */
+    public synchronized boolean updateCategory(Category category) throws IOException {
+        Entry entry = categories.get(category.getCategoryid());
+        if (entry == null) {
+            return false;
+        }
+        putCategory(category, readCategory(buffer, entry.offset).getVersion(), true, ++edits);
+        return true;
+    }
+
+    /**
+     * @return true if a local expense still references the category
+     */
+    public synchronized boolean categoryHasExpenses(int id) {
+        for (Entry entry : expenses.values()) {
+            if (buffer.getInt(entry.offset + RECORD_OVERHEAD + Integer.BYTES) == id) { // category_id follows the id
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized boolean deleteCategory(int id) throws IOException {
+        if (!categories.containsKey(id)) {
+            return false;
+        }
+        appendDelete(CATEGORY_DELETE, id, id > 0);
+        return true;
+    }
+
+    // ---------------------------------------------------------------- expenses
+
+    public synchronized List<Expense> getAllExpenses() {
+        List<Expense> result = new ArrayList<>(expenses.size());
+        for (Entry entry : expenses.values()) {
+            result.add(readExpense(buffer, entry.offset));
+        }
+        return result;
+    }
+
+    public synchronized Expense getExpense(int id) {
+        Entry entry = expenses.get(id);
+        return entry != null ? readExpense(buffer, entry.offset) : null;
+    }
+
+    /**
+     * Stores a new expense under a negative local id
+     * @return the local id assigned to the expense
+     */
+    public synchronized int createExpense(Expense expense) throws IOException {
+        int id = allocateLocalId();
+        expense.setExpense_id(id);
+        putExpense(expense, 0, true, ++edits);
+        return id;
+    }
+
+    /**
+     * Stores a local edit; same version rule as updateCategory()
+     */
+    public synchronized boolean updateExpense(Expense expense) throws IOException {
+        Entry entry = expenses.get(expense.getExpense_id());
+        if (entry == null) {
+            return false;
+        }
+        putExpense(expense, readExpense(buffer, entry.offset).getVersion(), true, ++edits);
+        return true;
+    }
+
+    public synchronized boolean deleteExpense(int id) throws IOException {
+        if (!expenses.containsKey(id)) {
+            return false;
+        }
+        appendDelete(EXPENSE_DELETE, id, id > 0);
+        return true;
+    }
+
+    /**
+     * @return true if there are local changes that have not been pushed to the server
+     */
+    public synchronized boolean hasPendingChanges() {
+        if (!pendingCategoryDeletes.isEmpty() || !pendingExpenseDeletes.isEmpty()) {
+            return true;
+        }
+        for (Entry entry : categories.values()) {
+            if (entry.dirty) {
+                return true;
+            }
+        }
+        for (Entry entry : expenses.values()) {
+            if (entry.dirty) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Forces mapped pages to disk so records survive an OS crash, not just a process crash
+     */
+    public synchronized void force() {
+        buffer.force();
+    }
+
+    /**
+     * Rewrites live records into the next generation file, dropping superseded ones
+     * Flow: Called automatically when garbage exceeds live data, or explicitly by the caller
+     */
+    public synchronized void compact() throws IOException {
+        rewrite(Collections.<Category>emptyList(), Collections.<Expense>emptyList(), false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+
+    // ---------------------------------------------------------------- synchronisation support
+
+    synchronized List<Integer> dirtyCategoryIds() {
+        return dirtyIds(categories);
+    }
+
+    synchronized List<Integer> dirtyExpenseIds() {
+        return dirtyIds(expenses);
+    }
+
+    synchronized Set<Integer> pendingCategoryDeletes() {
+        return new HashSet<>(pendingCategoryDeletes);
+    }
+
+    synchronized Set<Integer> pendingExpenseDeletes() {
+        return new HashSet<>(pendingExpenseDeletes);
+    }
+
+    /**
+     * @return the category and its edit stamp, or null if it was deleted or is no longer dirty
+     */
+    synchronized Pending<Category> readDirtyCategory(int id) {
+        Entry entry = categories.get(id);
+        return entry != null && entry.dirty ? new Pending<>(readCategory(buffer, entry.offset), entry.stamp) : null;
+    }
+
+    /**
+     * @return the expense and its edit stamp, or null if it was deleted or is no longer dirty
+     */
+    synchronized Pending<Expense> readDirtyExpense(int id) {
+        Entry entry = expenses.get(id);
+        return entry != null && entry.dirty ? new Pending<>(readExpense(buffer, entry.offset), entry.stamp) : null;
+    }
+
+    /**
+     * @return key sent with the server insert of a local row; the same for every retry of that row's push
+     */
+    synchronized String idempotencyKey(int localId) {
+        return "offline:" + Long.toHexString(storeId) + ":" + (-localId);
+    }
+
+    /**
+     * Records that a category was written to the server
+     * Flow: Re-keys the row to the server id -> clears the dirty flag unless it was edited while being pushed
+     *       -> expenses that referenced the old local id are re-pointed to the server id
+     * @param localId id the row had when the push started
+     * @param serverId id the row has on the server
+     * @param pushedStamp edit stamp of the pushed row, used to detect concurrent local edits
+     * @param serverVersion version the row has on the server after the push; a local edit made during the push
+     *                      builds on the pushed values, so it gets this version too
+     */
+    synchronized void markCategorySynced(int localId, int serverId, long pushedStamp, int serverVersion)
+            throws IOException {
+        Entry current = categories.get(localId);
+        if (current == null) {
+            if (localId != serverId) {
+                appendDelete(CATEGORY_DELETE, serverId, true); // deleted locally while being created remotely
+            }
+            return;
+        }
+        Category category = readCategory(buffer, current.offset);
+        if (localId != serverId) {
+            appendDelete(CATEGORY_DELETE, localId, false);
+            category.setCategoryid(serverId);
+            // Each put may compact and move every record, so entries are looked up again by id
+            for (int expenseId : new ArrayList<>(expenses.keySet())) {
+                Entry entry = expenses.get(expenseId);
+                Expense row = readExpense(buffer, entry.offset);
+                if (row.getCategory_id() == localId) {
+                    row.setCategory_id(serverId);
+                    putExpense(row, row.getVersion(), entry.dirty, entry.stamp);
+                }
+            }
+        }
+        putCategory(category, serverVersion, current.stamp != pushedStamp, current.stamp);
+    }
+
+    /**
+     * Records that an expense was written to the server; same rules as markCategorySynced()
+     */
+    synchronized void markExpenseSynced(int localId, int serverId, long pushedStamp, int serverVersion)
+            throws IOException {
+        Entry current = expenses.get(localId);
+        if (current == null) {
+            if (localId != serverId) {
+                appendDelete(EXPENSE_DELETE, serverId, true);
+            }
+            return;
+        }
+        Expense expense = readExpense(buffer, current.offset);
+        if (localId != serverId) {
+            appendDelete(EXPENSE_DELETE, localId, false);
+            expense.setExpense_id(serverId);
+        }
+        putExpense(expense, serverVersion, current.stamp != pushedStamp, current.stamp);
+    }
+
+    /**
+     * Drops a pushed category the server no longer has (its update matched no row)
+     * A row edited again since the push stays, and its next push finds it missing again
+     */
+    synchronized void discardCategory(int id, long pushedStamp) throws IOException {
+        Entry current = categories.get(id);
+        if (current != null && current.stamp == pushedStamp) {
+            appendDelete(CATEGORY_DELETE, id, false);
+        }
+    }
+
+    /**
+     * Drops a pushed expense the server no longer has; same rules as discardCategory()
+     */
+    synchronized void discardExpense(int id, long pushedStamp) throws IOException {
+        Entry current = expenses.get(id);
+        if (current != null && current.stamp == pushedStamp) {
+            appendDelete(EXPENSE_DELETE, id, false);
+        }
+    }
+
+    /**
+     * Settles a parked category change (see OfflineSynchronizer.Conflict) by taking the server's row
+     * Flow: pending delete cleared -> server row stored clean, or the local row dropped when the server has none
+     *       A row edited again since it was parked stays dirty and is pushed on the next cycle
+     * @param pushedStamp edit stamp the row had when it was parked (ignored for a parked delete)
+     * @param serverRow the row as the server has it now, or null if it does not exist there
+     */
+    synchronized void acceptServerCategory(int id, long pushedStamp, Category serverRow) throws IOException {
+        Entry current = categories.get(id);
+        if (current != null && current.stamp != pushedStamp) {
+            return;
+        }
+        appendDelete(CATEGORY_DELETE, id, false);
+        if (serverRow != null) {
+            putCategory(serverRow, serverRow.getVersion(), false, ++edits);
+        }
+    }
+
+    /**
+     * Settles a parked expense change; same rules as acceptServerCategory()
+     */
+    synchronized void acceptServerExpense(int id, long pushedStamp, Expense serverRow) throws IOException {
+        Entry current = expenses.get(id);
+        if (current != null && current.stamp != pushedStamp) {
+            return;
+        }
+        appendDelete(EXPENSE_DELETE, id, false);
+        if (serverRow != null) {
+            putExpense(serverRow, serverRow.getVersion(), false, ++edits);
+        }
+    }
+
+    synchronized void markCategoryDeleteSynced(int id) throws IOException {
+        appendDelete(CATEGORY_DELETE, id, false);
+    }
+
+    synchronized void markExpenseDeleteSynced(int id) throws IOException {
+        appendDelete(EXPENSE_DELETE, id, false);
+    }
+
+    /**
+     * Replaces all clean rows with a fresh copy pulled from the server
+     * Flow: New generation file -> pulled rows written clean -> local dirty rows and pending deletes carried over on top
+     */
+    synchronized void refreshFrom(Collection<Category> serverCategories, Collection<Expense> serverExpenses) throws IOException {
+        rewrite(serverCategories, serverExpenses, true);
+    }
+
+    /**
+     * Applies rows changed or deleted on the server since the last pull (one change feed poll)
+     * Flow: Changed rows appended clean -> deleted rows removed; rows with unpushed local edits or deletes are left
+     *       alone, their push decides what the server keeps
+     */
+    synchronized void applyServerChanges(Collection<Category> changedCategories, Collection<Integer> deletedCategoryIds,
+                                         Collection<Expense> changedExpenses, Collection<Integer> deletedExpenseIds)
+            throws IOException {
+        for (Category category : changedCategories) {
+            if (isClean(categories, pendingCategoryDeletes, category.getCategoryid())) {
+                putCategory(category, category.getVersion(), false, ++edits);
+            }
+        }
+        for (Expense expense : changedExpenses) {
+            if (isClean(expenses, pendingExpenseDeletes, expense.getExpense_id())) {
+                putExpense(expense, expense.getVersion(), false, ++edits);
+            }
+        }
+        for (int id : deletedExpenseIds) {
+            Entry local = expenses.get(id);
+            if ((local != null && !local.dirty) || pendingExpenseDeletes.contains(id)) {
+                appendDelete(EXPENSE_DELETE, id, false); // a pending delete is already done on the server
+            }
+        }
+        for (int id : deletedCategoryIds) {
+            Entry local = categories.get(id);
+            if ((local != null && !local.dirty) || pendingCategoryDeletes.contains(id)) {
+                appendDelete(CATEGORY_DELETE, id, false);
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------- journal internals
+
+    /**
+     * Hands out the next negative id and records it in the header before the row is written
+     */
+    private int allocateLocalId() {
+        int id = nextLocalId--;
+        buffer.putInt(NEXT_LOCAL_ID_OFFSET, nextLocalId);
+        return id;
+    }
+
+    private static boolean isClean(Map<Integer, Entry> entries, Set<Integer> pendingDeletes, int id) {
+        Entry local = entries.get(id);
+        return (local == null || !local.dirty) && !pendingDeletes.contains(id);
+    }
+
+    private void putCategory(Category category, int version, boolean dirty, long stamp) throws IOException {
+        ByteBuffer payload = scratch(Integer.BYTES * 4
+                + utf8Length(category.getCategoryname()) + utf8Length(category.getCategorydescription()));
+        payload.putInt(category.getCategoryid());
+        putString(payload, category.getCategoryname());
+        putString(payload, category.getCategorydescription());
+        payload.putInt(version);
+        append(CATEGORY_PUT, dirty ? FLAG_DIRTY : 0, category.getCategoryid(), payload, stamp);
+    }
+
+    private void putExpense(Expense expense, int version, boolean dirty, long stamp) throws IOException {
+        ByteBuffer payload = scratch(Integer.BYTES * 5 + 1 + Long.BYTES * 2 + utf8Length(expense.getDescription()));
+        payload.putInt(expense.getExpense_id());
+        payload.putInt(expense.getCategory_id());
+        payload.put(expense.getPaymentMethod() != null ? (byte) expense.getPaymentMethod().ordinal() : -1);
+        payload.putInt(expense.getAmount());
+        payload.putLong(epochSeconds(expense.getExpense_date()));
+        payload.putLong(epochSeconds(expense.getCreated_at()));
+        putString(payload, expense.getDescription());
+        payload.putInt(version);
+        append(EXPENSE_PUT, dirty ? FLAG_DIRTY : 0, expense.getExpense_id(), payload, stamp);
+    }
+
+    private void appendDelete(byte type, int id, boolean dirty) throws IOException {
+        ByteBuffer payload = scratch(Integer.BYTES);
+        payload.putInt(id);
+        append(type, dirty ? FLAG_DIRTY : 0, id, payload, 0);
+    }
+
+    /**
+     * Appends one record at the tail and applies it to the index
+     * Flow: Grow mapping if needed -> write type, flags, payload -> write length last -> update index -> maybe compact
+     */
+    private void append(byte type, byte flags, int id, ByteBuffer payload, long stamp) throws IOException {
+        payload.flip();
+        int bodyLength = 2 + payload.remaining();
+        ensureCapacity(Integer.BYTES + bodyLength);
+        int offset = tail;
+        buffer.position(offset + Integer.BYTES);
+        buffer.put(type);
+        buffer.put(flags);
+        buffer.put(payload);
+        buffer.putInt(offset, bodyLength);
+        tail = offset + Integer.BYTES + bodyLength;
+        apply(type, flags, id, offset, stamp);
+        maybeCompact();
+    }
+
+    /**
+     * Applies one record to the in-memory index (shared by live writes and replay)
+     */
+    private void apply(byte type, byte flags, int id, int offset, long stamp) {
+        boolean dirty = (flags & FLAG_DIRTY) != 0;
+        if (id <= nextLocalId) {
+            nextLocalId = id - 1;
+        }
+        switch (type) {
+            case CATEGORY_PUT:
+                supersede(categories.put(id, new Entry(offset, dirty, stamp)));
+                break;
+            case EXPENSE_PUT:
+                supersede(expenses.put(id, new Entry(offset, dirty, stamp)));
+                break;
+            case CATEGORY_DELETE:
+                supersede(categories.remove(id));
+                trackDelete(pendingCategoryDeletes, id, dirty, offset);
+                break;
+            case EXPENSE_DELETE:
+                supersede(expenses.remove(id));
+                trackDelete(pendingExpenseDeletes, id, dirty, offset);
+                break;
+            default:
+                throw new IllegalStateException("Corrupt journal record type " + type + " at offset " + offset);
+        }
+    }
+
+    private void supersede(Entry previous) {
+        if (previous != null) {
+            garbageBytes += recordSize(previous.offset);
+        }
+    }
+
+    private void trackDelete(Set<Integer> pending, int id, boolean dirty, int offset) {
+        if (dirty && id > 0) {
+            pending.add(id);
+        } else {
+            pending.remove(id);
+            garbageBytes += recordSize(offset); // clean tombstones carry no information after compaction
+        }
+    }
+
+    private void maybeCompact() throws IOException {
+        if (rewriting) {
+            return;
+        }
+        long live = tail - headerSize - garbageBytes;
+        if (garbageBytes > COMPACTION_MIN_GARBAGE && garbageBytes > live) {
+            compact();
+        }
+    }
+
+    /**
+     * Writes the next generation: optional server rows first, then every live local record copied byte-for-byte
+     * @param skipCleanRows true when server rows replace the clean local ones
+     */
+    private void rewrite(Collection<Category> serverCategories, Collection<Expense> serverExpenses,
+                         boolean skipCleanRows) throws IOException {
+        MappedByteBuffer oldBuffer = buffer;
+        FileChannel oldChannel = channel;
+        Map<Integer, Entry> oldCategories = new LinkedHashMap<>(categories);
+        Map<Integer, Entry> oldExpenses = new LinkedHashMap<>(expenses);
+        Set<Integer> oldCategoryDeletes = new HashSet<>(pendingCategoryDeletes);
+        Set<Integer> oldExpenseDeletes = new HashSet<>(pendingExpenseDeletes);
+
+        createGeneration(generation + 1);
+        rewriting = true;
+        try {
+            writeGeneration(oldBuffer, oldCategories, oldExpenses, oldCategoryDeletes, oldExpenseDeletes,
+                    serverCategories, serverExpenses, skipCleanRows);
+        } finally {
+            rewriting = false;
+        }
+
+        sealGeneration();
+        oldChannel.close();
+        deleteStaleGenerations();
+    }
+
+    private void writeGeneration(MappedByteBuffer oldBuffer, Map<Integer, Entry> oldCategories,
+                                 Map<Integer, Entry> oldExpenses, Set<Integer> oldCategoryDeletes,
+                                 Set<Integer> oldExpenseDeletes, Collection<Category> serverCategories,
+                                 Collection<Expense> serverExpenses, boolean skipCleanRows) throws IOException {
+        for (Category category : serverCategories) {
+            if (isClean(oldCategories, oldCategoryDeletes, category.getCategoryid())) {
+                putCategory(category, category.getVersion(), false, ++edits);
+            }
+        }
+        for (Expense expense : serverExpenses) {
+            if (isClean(oldExpenses, oldExpenseDeletes, expense.getExpense_id())) {
+                putExpense(expense, expense.getVersion(), false, ++edits);
+            }
+        }
+        copyLive(oldBuffer, oldCategories, skipCleanRows);
+        copyLive(oldBuffer, oldExpenses, skipCleanRows);
+        for (int id : oldCategoryDeletes) {
+            appendDelete(CATEGORY_DELETE, id, true);
+        }
+        for (int id : oldExpenseDeletes) {
+            appendDelete(EXPENSE_DELETE, id, true);
+        }
+    }
+
+    private void copyLive(MappedByteBuffer from, Map<Integer, Entry> entries, boolean skipCleanRows) throws IOException {
+        for (Map.Entry<Integer, Entry> e : entries.entrySet()) {
+            Entry entry = e.getValue();
+            if (skipCleanRows && !entry.dirty) {
+                continue;
+            }
+            int bodyLength = from.getInt(entry.offset);
+            ByteBuffer payload = scratch(bodyLength - 2);
+            ByteBuffer source = from.duplicate();
+            source.position(entry.offset + RECORD_OVERHEAD).limit(entry.offset + Integer.BYTES + bodyLength);
+            payload.put(source);
+            append(from.get(entry.offset + Integer.BYTES), from.get(entry.offset + Integer.BYTES + 1), e.getKey(), payload,
+                    entry.stamp);
+        }
+    }
+
+    private void replay() {
+        int offset = headerSize;
+        while (offset + Integer.BYTES <= buffer.capacity()) {
+            int bodyLength = buffer.getInt(offset);
+            if (bodyLength <= 0 || offset + Integer.BYTES + bodyLength > buffer.capacity()) {
+                break; // zero-filled tail or torn write: end of journal
+            }
+            byte type = buffer.get(offset + Integer.BYTES);
+            byte flags = buffer.get(offset + Integer.BYTES + 1);
+            int id = buffer.getInt(offset + RECORD_OVERHEAD);
+            apply(type, flags, id, offset, ++edits);
+            offset += Integer.BYTES + bodyLength;
+        }
+        tail = offset;
+    }
+
+    private void createGeneration(long newGeneration) throws IOException {
+        Path file = journalPath(newGeneration);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_CAPACITY);
+        buffer.putInt(Integer.BYTES, VERSION);
+        buffer.putLong(Integer.BYTES * 2, newGeneration);
+        buffer.putLong(STORE_ID_OFFSET, storeId);
+        buffer.putInt(NEXT_LOCAL_ID_OFFSET, nextLocalId);
+        generation = newGeneration;
+        headerSize = HEADER_SIZE;
+        tail = HEADER_SIZE;
+        garbageBytes = 0;
+        categories.clear();
+        expenses.clear();
+        pendingCategoryDeletes.clear();
+        pendingExpenseDeletes.clear();
+    }
+
+    /**
+     * Marks the current generation complete by writing the magic number last
+     * Flow: Records forced to disk first -> magic written -> forced again; open() ignores generations without magic
+     */
+    private void sealGeneration() {
+        buffer.force();
+        buffer.putInt(0, MAGIC);
+        buffer.force();
+    }
+
+    /**
+     * Maps an existing generation file
+     * @return false if the file is not a sealed journal (e.g. a compaction interrupted by a crash)
+     */
+    private boolean mapGeneration(long existingGeneration) throws IOException {
+        Path file = journalPath(existingGeneration);
+        FileChannel candidate = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer mapped = candidate.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(candidate.size(), INITIAL_CAPACITY));
+        int version = mapped.getInt(Integer.BYTES);
+        if (mapped.getInt(0) != MAGIC || (version != VERSION && version != VERSION_1)) {
+            candidate.close();
+            return false;
+        }
+        channel = candidate;
+        buffer = mapped;
+        generation = existingGeneration;
+        if (version == VERSION) {
+            headerSize = HEADER_SIZE;
+            storeId = mapped.getLong(STORE_ID_OFFSET);
+            nextLocalId = mapped.getInt(NEXT_LOCAL_ID_OFFSET); // replay() lowers it further if records need it
+        } else {
+            headerSize = VERSION_1_HEADER_SIZE;
+        }
+        return true;
+    }
+
+    /**
+     * Doubles the mapped region until the next record fits
+     */
+    private void ensureCapacity(int recordSize) throws IOException {
+        long required = (long) tail + recordSize;
+        if (required <= buffer.capacity()) {
+            return;
+        }
+        long capacity = buffer.capacity();
+        while (capacity < required) {
+            capacity *= 2;
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException("Local journal generation exceeds 2 GB; compact or archive it");
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    private void deleteStaleGenerations() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                if (parseGeneration(file) != generation) {
+                    try {
+                        Files.deleteIfExists(file);
+                    } catch (IOException e) {
+                        // Still mapped on some platforms; removed on the next open
+                    }
+                }
+            }
+        }
+    }
+
+    private Path journalPath(long gen) {
+        return directory.resolve(String.format("%s%016d%s", FILE_PREFIX, gen, FILE_SUFFIX));
+    }
+
+    private static long parseGeneration(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private int recordSize(int offset) {
+        return Integer.BYTES + buffer.getInt(offset);
+    }
+
+    private static List<Integer> dirtyIds(Map<Integer, Entry> entries) {
+        List<Integer> result = new ArrayList<>();
+        for (Map.Entry<Integer, Entry> e : entries.entrySet()) {
+            if (e.getValue().dirty) {
+                result.add(e.getKey());
+            }
+        }
+        return result;
+    }
+
+    // ---------------------------------------------------------------- encoding
+
+    private ByteBuffer scratch(int size) {
+        if (scratch.capacity() < size) {
+            scratch = ByteBuffer.allocate(Math.max(size, scratch.capacity() * 2));
+        }
+        scratch.clear();
+        return scratch;
+    }
+
+    private static Category readCategory(ByteBuffer from, int offset) {
+        int[] position = {offset + RECORD_OVERHEAD};
+        int id = from.getInt(position[0]);
+        position[0] += Integer.BYTES;
+        String name = readString(from, position);
+        String description = readString(from, position);
+        Category category = new Category(id, name, description);
+        category.setVersion(readVersion(from, offset, position[0]));
+        return category;
+    }
+
+    private static Expense readExpense(ByteBuffer from, int offset) {
+        int p = offset + RECORD_OVERHEAD;
+        int id = from.getInt(p);
+        int categoryId = from.getInt(p + 4);
+        byte payment = from.get(p + 8);
+        int amount = from.getInt(p + 9);
+        long expenseDate = from.getLong(p + 13);
+        long createdAt = from.getLong(p + 21);
+        int[] position = {p + 29};
+        Expense expense = new Expense(id, categoryId, payment >= 0 ? PAYMENT_METHODS[payment] : null, amount);
+        expense.setExpense_date(toDateTime(expenseDate));
+        expense.setCreated_at(toDateTime(createdAt));
+        expense.setDescription(readString(from, position));
+        expense.setVersion(readVersion(from, offset, position[0]));
+        return expense;
+    }
+
+    /**
+     * @return the server version at 'position', or 0 for a record that ends before it (written without versions)
+     */
+    private static int readVersion(ByteBuffer from, int offset, int position) {
+        int end = offset + Integer.BYTES + from.getInt(offset);
+        return position + Integer.BYTES <= end ? from.getInt(position) : 0;
+    }
+
+    private static void putString(ByteBuffer to, String value) {
+        if (value == null) {
+            to.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        to.putInt(bytes.length);
+        to.put(bytes);
+    }
+
+    private static String readString(ByteBuffer from, int[] position) {
+        int length = from.getInt(position[0]);
+        position[0] += Integer.BYTES;
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer source = from.duplicate();
+        source.position(position[0]);
+        source.get(bytes);
+        position[0] += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int utf8Length(String value) {
+        // Upper bound: UTF-8 never needs more than 3 bytes per UTF-16 char
+        return value == null ? 0 : value.length() * 3;
+    }
+
+    private static long epochSeconds(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toEpochSecond(ZoneOffset.UTC) : Long.MIN_VALUE;
+    }
+
+    private static LocalDateTime toDateTime(long epochSeconds) {
+        return epochSeconds != Long.MIN_VALUE ? LocalDateTime.ofEpochSecond(epochSeconds, 0, ZoneOffset.UTC) : null;
+    }
+}
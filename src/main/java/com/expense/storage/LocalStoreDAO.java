@@ -0,0 +1,435 @@
+package com.expense.storage;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.expense.budget.BudgetMonitor;
+import com.expense.changes.ChangeLogEntry;
+import com.expense.dao.MainDAO;
+import com.expense.dao.TransactionCallback;
+import com.expense.partition.ExpensePartition;
+import com.expense.report.ExpenseAggregates;
+import com.expense.sketch.MonthlySketch;
+import com.model.Budget;
+import com.model.Category;
+import com.model.CategoryRef;
+import com.model.Expense;
+import com.model.ExpenseView;
+import com.model.PaymentMethod;
+import com.model.RecurringExpense;
+
+/**
+ * MainDAO implementation that reads and writes the LocalStore journal instead of MySQL
+ * Flow: MainGUI calls the usual DAO methods -> served from the memory-mapped journal -> OfflineSynchronizer pushes changes later
+ * WHY SUBCLASS: MainGUI and the export engine work unchanged whether the application is online or offline
+ * Every public MainDAO method is overridden, so nothing falls through to MySQL; server-only features throw SQLException
+ */
+public class LocalStoreDAO extends MainDAO {
+    private static final int ER_ROW_IS_REFERENCED = 1451; // Same error MainDAO.deleteCategory() raises
+
+    private final LocalStore store;
+
+    public LocalStoreDAO(LocalStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public int createCategory(Category category) throws SQLException {
+        try {
+            return store.createCategory(category);
+        } catch (IOException e) {
+            throw journalError(e);
+        }
+    }
+
+    @Override
+    public boolean updateCategory(Category category) throws SQLException {
+        try {
+            return store.updateCategory(category);
+        } catch (IOException e) {
+            throw journalError(e);
+        }
+    }
+
+    /**
+     * Refused while local expenses reference the category, like MainDAO.deleteCategory(), so the journal never
+     * queues a delete the server would reject
+     */
+    @Override
+    public boolean deleteCategory(Category category) throws SQLException {
+        if (store.categoryHasExpenses(category.getCategoryid())) {
+            throw new SQLException("Cannot delete category " + category.getCategoryid() + ": it still has expenses",
+                    "23000", ER_ROW_IS_REFERENCED);
+        }
+        try {
+            return store.deleteCategory(category.getCategoryid());
+        } catch (IOException e) {
+            throw journalError(e);
+        }
+    }
+
+    @Override
+    public List<Category> getAllCategories() {
+        return store.getAllCategories();
+    }
+
+    @Override
+    public int createExpense(Expense expense) throws SQLException {
+        try {
+            return store.createExpense(expense);
+        } catch (IOException e) {
+            throw journalError(e);
+        }
+    }
+
+    /**
+     * Only the server can enforce the key; offline the row is simply stored
+     */
+    @Override
+    public int createExpense(Expense expense, String idempotencyKey) throws SQLException {
+        return createExpense(expense);
+    }
+
+    @Override
+    public boolean updateExpense(Expense expense) throws SQLException {
+        try {
+            return store.updateExpense(expense);
+        } catch (IOException e) {
+            throw journalError(e);
+        }
+    }
+
+    @Override
+    public boolean deleteExpense(Expense expense) throws SQLException {
+        try {
+            return store.deleteExpense(expense.getExpense_id());
+        } catch (IOException e) {
+            throw journalError(e);
+        }
+    }
+
+    @Override
+    public List<Expense> getAllExpenses() {
+        return store.getAllExpenses();
+    }
+
+    @Override
+    public List<Category> getCategoriesByIds(int[] ids) {
+        List<Category> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Category category = store.getCategory(id);
+            if (category != null) {
+                result.add(category);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Expense> getExpensesByIds(int[] ids) {
+        List<Expense> result = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Expense expense = store.getExpense(id);
+            if (expense != null) {
+                result.add(expense);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long countExpensesBetween(LocalDateTime from, LocalDateTime to) {
+        return streamExpensesBetween(from, to).count();
+    }
+
+    @Override
+    public Stream<Expense> streamExpenses() {
+        return store.getAllExpenses().stream();
+    }
+
+    @Override
+    public Stream<Expense> streamExpensesBetween(LocalDateTime from, LocalDateTime to) {
+        return streamExpenses().filter(expense -> expense.getExpense_date() != null
+                && !expense.getExpense_date().isBefore(from)
+                && expense.getExpense_date().isBefore(to));
+    }
+
+    @Override
+    public List<ExpenseView> getExpenseViews() {
+        return streamExpenseViews().collect(Collectors.toList());
+    }
+
+    @Override
+    public Stream<ExpenseView> streamExpenseViews() {
+        return views(streamExpenses());
+    }
+
+    @Override
+    public Stream<ExpenseView> streamExpenseViewsBetween(LocalDateTime from, LocalDateTime to) {
+        return views(streamExpensesBetween(from, to));
+    }
+
+    /**
+     * The journal already holds Expense objects, so the views are converted from them with one shared CategoryRef.Table
+     */
+    private Stream<ExpenseView> views(Stream<Expense> expenses) {
+        CategoryRef.Table categories = new CategoryRef.Table(store.getAllCategories());
+        return expenses.map(expense -> ExpenseView.of(expense, categories.ref(expense.getCategory_id())));
+    }
+
+    @Override
+    public Stream<Category> streamCategories() {
+        return store.getAllCategories().stream();
+    }
+
+    @Override
+    public void forEachExpense(Consumer<? super Expense> consumer) {
+        store.getAllExpenses().forEach(consumer);
+    }
+
+    @Override
+    public int reassignExpenses(int fromCategoryId, int toCategoryId) throws SQLException {
+        int moved = 0;
+        for (Expense expense : store.getAllExpenses()) {
+            if (expense.getCategory_id() == fromCategoryId) {
+                expense.setCategory_id(toCategoryId);
+                updateExpense(expense);
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    @Override
+    public int mergeCategories(Category source, Category target) throws SQLException {
+        if (source.getCategoryid() == target.getCategoryid()) {
+            throw new SQLException("Cannot merge a category into itself");
+        }
+        int moved = reassignExpenses(source.getCategoryid(), target.getCategoryid());
+        deleteCategory(source);
+        return moved;
+    }
+
+    @Override
+    public int deleteCategoryWithExpenses(Category category) throws SQLException {
+        int deleted = 0;
+        for (Expense expense : store.getAllExpenses()) {
+            if (expense.getCategory_id() == category.getCategoryid()) {
+                deleteExpense(expense);
+                deleted++;
+            }
+        }
+        deleteCategory(category);
+        return deleted;
+    }
+
+    @Override
+    public int deleteExpenses(int[] expenseIds) throws SQLException {
+        int deleted = 0;
+        for (int id : expenseIds) {
+            if (deleteExpense(new Expense(id, 0, PaymentMethod.CASH, 0))) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Each row gets all of its changes in one journal entry, so no row is left half-edited
+     */
+    @Override
+    public int updateExpenses(int[] expenseIds, Integer categoryId, PaymentMethod paymentMethod, long shiftSeconds)
+            throws SQLException {
+        if (categoryId == null && paymentMethod == null && shiftSeconds == 0) {
+            return 0;
+        }
+        return updateEach(expenseIds, expense -> {
+            if (categoryId != null) {
+                expense.setCategory_id(categoryId);
+            }
+            if (paymentMethod != null) {
+                expense.setPaymentMethod(paymentMethod);
+            }
+            if (shiftSeconds != 0 && expense.getExpense_date() != null) {
+                expense.setExpense_date(expense.getExpense_date().plusSeconds(shiftSeconds));
+            }
+        });
+    }
+
+    private int updateEach(int[] expenseIds, Consumer<Expense> change) throws SQLException {
+        int updated = 0;
+        for (int id : expenseIds) {
+            Expense expense = store.getExpense(id);
+            if (expense != null) {
+                change.accept(expense);
+                updateExpense(expense);
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public ExpenseAggregates getExpenseAggregates() {
+        ExpenseAggregates.Builder builder = new ExpenseAggregates.Builder();
+        store.getAllExpenses().forEach(builder::add);
+        return builder.build();
+    }
+
+    /**
+     * Budgets live only on the server; offline totals are still tracked so alerts resume once limits are known
+     */
+    @Override
+    public BudgetMonitor getBudgetMonitor() {
+        BudgetMonitor.Builder builder = new BudgetMonitor.Builder();
+        store.getAllExpenses().forEach(builder::add);
+        return builder.build();
+    }
+
+    @Override
+    public List<Budget> getAllBudgets() throws SQLException {
+        throw new SQLException("Budgets are not available in offline mode");
+    }
+
+    @Override
+    public void saveBudget(Budget budget) throws SQLException {
+        throw new SQLException("Budgets are not available in offline mode");
+    }
+
+    @Override
+    public boolean deleteBudget(int categoryId) throws SQLException {
+        throw new SQLException("Budgets are not available in offline mode");
+    }
+
+    @Override
+    public int createRecurringExpense(RecurringExpense template) throws SQLException {
+        throw new SQLException("Recurring expenses are not available in offline mode");
+    }
+
+    @Override
+    public List<RecurringExpense> getAllRecurringExpenses() throws SQLException {
+        throw new SQLException("Recurring expenses are not available in offline mode");
+    }
+
+    @Override
+    public boolean deleteRecurringExpense(int templateId) throws SQLException {
+        throw new SQLException("Recurring expenses are not available in offline mode");
+    }
+
+    /**
+     * Generation needs the server's idempotency index; due occurrences are caught up once back online
+     */
+    @Override
+    public int materializeRecurringExpenses(LocalDate today) throws SQLException {
+        throw new SQLException("Recurring expenses are not available in offline mode");
+    }
+
+    /**
+     * Nothing to store offline - getSketches() sketches the local rows directly
+     */
+    @Override
+    public void saveSketches(Collection<MonthlySketch> sketches, YearMonth from) {
+    }
+
+    /**
+     * Offline sketches are always computed from the local rows, so nothing is ever stale
+     */
+    @Override
+    public Map<Long, Integer> getStaleSketches() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public void saveRefreshedSketches(Collection<MonthlySketch> sketches, Map<Long, Integer> rebuilt,
+                                      Map<Long, Integer> dropped) {
+    }
+
+    /**
+     * Offline there is no sketch table, so the range is sketched directly from the local rows
+     */
+    @Override
+    public List<MonthlySketch> getSketches(int categoryId, YearMonth from, YearMonth to) {
+        MonthlySketch sketch = new MonthlySketch(categoryId, from);
+        for (Expense expense : store.getAllExpenses()) {
+            if (expense.getCategory_id() == categoryId && expense.getExpense_date() != null) {
+                YearMonth month = YearMonth.from(expense.getExpense_date());
+                if (!month.isBefore(from) && !month.isAfter(to)) {
+                    sketch.add(expense);
+                }
+            }
+        }
+        return Collections.singletonList(sketch);
+    }
+
+    /**
+     * The change feed reads the server's change_log; offline this client is the only writer it can see
+     */
+    @Override
+    public long getLatestChangeId() throws SQLException {
+        throw new SQLException("The change feed is not available in offline mode");
+    }
+
+    @Override
+    public List<ChangeLogEntry> getChangesSince(long afterChangeId, int limit) throws SQLException {
+        throw new SQLException("The change feed is not available in offline mode");
+    }
+
+    @Override
+    public int pruneChangeLog(int retentionHours) throws SQLException {
+        throw new SQLException("The change feed is not available in offline mode");
+    }
+
+    /**
+     * The journal never archives, so all of its history is live
+     */
+    @Override
+    public YearMonth getFirstLiveMonth() {
+        return null;
+    }
+
+    /**
+     * Partitions are a server table layout; the journal has none
+     */
+    @Override
+    public List<ExpensePartition> getExpensePartitions() throws SQLException {
+        throw new SQLException("Partition maintenance is not available in offline mode");
+    }
+
+    @Override
+    public void partitionExpenses(int monthsAhead) throws SQLException {
+        throw new SQLException("Partition maintenance is not available in offline mode");
+    }
+
+    @Override
+    public int addExpensePartitions(int monthsAhead) throws SQLException {
+        throw new SQLException("Partition maintenance is not available in offline mode");
+    }
+
+    @Override
+    public void dropExpensePartition(ExpensePartition partition, long expectedRows) throws SQLException {
+        throw new SQLException("Partition maintenance is not available in offline mode");
+    }
+
+    /**
+     * Transactions need the server; the journal applies each write on its own
+     */
+    @Override
+    public <T> T inTransaction(TransactionCallback<T> callback) throws SQLException {
+        throw new SQLException("Transactions are not available in offline mode");
+    }
+
+    private static SQLException journalError(IOException e) {
+        return new SQLException("Local journal error: " + e.getMessage(), e);
+    }
+}
@@ -0,0 +1,441 @@
+package com.expense.storage;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.expense.changes.ChangeFeedPoller;
+import com.expense.changes.ChangeSet;
+import com.expense.dao.MainDAO;
+import com.expense.dao.OptimisticLockException;
+import com.expense.dao.ResilientExecutor;
+import com.model.Category;
+import com.model.Expense;
+import com.model.PaymentMethod;
+
+/**
+ * Pushes local journal changes to MySQL and pulls server changes back whenever the server is reachable
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. Dirty categories are pushed first (createCategory for local ids, updateCategory otherwise)
+ * 2. Dirty expenses follow, now pointing at server category ids
+ * 3. Pending deletes are sent for expenses, then categories
+ * 4. Every push is recorded in the journal right away; a push repeated after a crash is absorbed by the server
+ *    (see CRASH SAFETY)
+ * 5. The first pull copies every server row; later pulls read only the change feed since the previous one
+ * 6. Once a sync finds nothing left to push, the online listener switches the application back to MySQL;
+ *    one more cycle pushes whatever was written locally during the switch, then the synchroniser stops
+ *
+ * CONFLICTS: updates are sent with the server version the journal kept for the row, so a row someone else changed
+ * while this client was offline fails with OptimisticLockException instead of being overwritten. Such a row is
+ * parked (left dirty in the journal, skipped by later pushes, not blocking the switch back online) and handed to
+ * the conflict listener after the switch, where the user settles it against the server; resolve() then stores the
+ * server's row in the journal
+ *
+ * FAILURES: a failure that says nothing about the row (isUnavailable(): connection lost, timeout, deadlock) ends the
+ * cycle, which is retried on the next tick. Any other failure is permanent - e.g. a category delete the server
+ * refuses because it still has expenses - so the row is parked and reported the same way, instead of being
+ * retried forever and keeping the application offline
+ *
+ * WHY THIS ORDER:
+ * - Expenses reference categories, so categories must have server ids before expenses are inserted
+ * - Deleting expenses before categories avoids foreign key failures
+ *
+ * CRASH SAFETY (process dies after the server insert, before the journal records it):
+ * - Expenses are inserted with an idempotency key made of the journal's store id and the local id,
+ *   so the repeated insert returns the existing row instead of adding a second one
+ * - Categories are matched by name against the server first; a category that already exists there is adopted
+ *   (its server description wins) instead of being inserted again
+ * - Updates and deletes are naturally idempotent
+ */
+public class OfflineSynchronizer implements AutoCloseable {
+    private final LocalStore store;
+    private final MainDAO remote;
+    private final ChangeFeedPoller changeFeed;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "offline-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean online;
+    private volatile Runnable onlineListener = () -> { };
+    private volatile Consumer<List<Conflict>> conflictListener = conflicts -> { };
+    private boolean pulled; // false until a full copy was pulled after the change feed mark was set
+    private boolean handedOver;
+    // Ids of parked rows and deletes, per table; kept in memory, so a restart tries them once more
+    private final Set<Integer> parkedCategories = new HashSet<>();
+    private final Set<Integer> parkedExpenses = new HashSet<>();
+    private final List<Conflict> unreported = new ArrayList<>();
+
+    /**
+     * A local change the server did not accept as it is (edit conflict or permanent failure); it stays in the
+     * journal until resolve() settles it
+     */
+    public static final class Conflict {
+        private final boolean category;
+        private final int id;
+        private final long stamp;
+        private final Object local;
+        private final Object server;
+        private final String reason;
+
+        Conflict(boolean category, int id, long stamp, Object local, Object server, String reason) {
+            this.category = category;
+            this.id = id;
+            this.stamp = stamp;
+            this.local = local;
+            this.server = server;
+            this.reason = reason;
+        }
+
+        /**
+         * @return true for a Category change, false for an Expense change
+         */
+        public boolean isCategory() {
+            return category;
+        }
+
+        /**
+         * @return the row as edited offline (Category or Expense, carrying the version the edit started from),
+         *         or null for a delete
+         */
+        public Object getLocal() {
+            return local;
+        }
+
+        /**
+         * @return the row as the server had it when the push failed, or null if the failure was not an edit conflict
+         */
+        public Object getServer() {
+            return server;
+        }
+
+        /**
+         * @return true if someone else changed the row while this client edited it offline
+         */
+        public boolean isEditConflict() {
+            return local != null && server != null;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return (category ? "Category " : "Expense ") + id + ": " + reason;
+        }
+    }
+
+    /**
+     * @param store local journal to synchronise
+     * @param remote DAO talking to MySQL directly (not a LocalStoreDAO)
+     */
+    public OfflineSynchronizer(LocalStore store, MainDAO remote) {
+        this.store = store;
+        this.remote = remote;
+        this.changeFeed = new ChangeFeedPoller(remote);
+    }
+
+    /**
+     * @param listener called once on the sync thread when everything is pushed and the application can use
+     *                 MySQL again; the local journal must no longer be written after it returns
+     */
+    public void setOnlineListener(Runnable listener) {
+        this.onlineListener = listener;
+    }
+
+    /**
+     * @param listener called on the sync thread, after the switch back online, with the changes that were parked;
+     *                 each one should be settled with resolve()
+     */
+    public void setConflictListener(Consumer<List<Conflict>> listener) {
+        this.conflictListener = listener;
+    }
+
+    /**
+     * Starts retrying syncNow() in the background until everything is synced and handed over, or close() is called
+     * @param periodSeconds delay between attempts
+     */
+    public void start(long periodSeconds) {
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                syncNow();
+                if (hasUnparkedChanges()) {
+                    return; // Pushed what it could (e.g. an expense of a category created mid-cycle); next tick
+                }
+                if (!handedOver) {
+                    handedOver = true;
+                    onlineListener.run();
+                    reportConflicts();
+                } else {
+                    reportConflicts();
+                    scheduler.shutdown(); // Writes made during the switch are pushed too: nothing left to do
+                }
+            } catch (SQLException e) {
+                // Server still unreachable - stay offline and retry on the next tick
+                if (!isUnavailable(e)) {
+                    System.err.println("Offline sync failed, retrying: " + e.getMessage());
+                }
+            } catch (IOException e) {
+                System.err.println("Local journal error during sync: " + e.getMessage());
+            }
+        }, 0, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return true if the last sync attempt reached the server
+     */
+    public boolean isOnline() {
+        return online;
+    }
+
+    /**
+     * Runs one full push/pull cycle
+     * @return number of rows pushed to the server
+     */
+    public synchronized int syncNow() throws SQLException, IOException {
+        try {
+            int pushed = pushCategories() + pushExpenses() + pushDeletes();
+            pull();
+            online = true;
+            return pushed;
+        } catch (SQLException e) {
+            online = false;
+            throw e;
+        }
+    }
+
+    /**
+     * Settles a parked change by storing the server's current row in the journal (or dropping the local row when
+     * the server has none); called once the user has decided what the server keeps
+     * Flow: Row read from the server -> LocalStore.acceptServerX() -> no longer parked
+     */
+    public synchronized void resolve(Conflict conflict) throws SQLException, IOException {
+        int[] ids = {conflict.id};
+        if (conflict.category) {
+            List<Category> rows = conflict.id > 0 ? remote.getCategoriesByIds(ids) : Collections.<Category>emptyList();
+            store.acceptServerCategory(conflict.id, conflict.stamp, rows.isEmpty() ? null : rows.get(0));
+            parkedCategories.remove(conflict.id);
+        } else {
+            List<Expense> rows = conflict.id > 0 ? remote.getExpensesByIds(ids) : Collections.<Expense>emptyList();
+            store.acceptServerExpense(conflict.id, conflict.stamp, rows.isEmpty() ? null : rows.get(0));
+            parkedExpenses.remove(conflict.id);
+        }
+    }
+
+    /**
+     * @return true if the journal holds changes that are neither pushed nor parked
+     */
+    private synchronized boolean hasUnparkedChanges() {
+        return !unparked(store.dirtyCategoryIds(), parkedCategories).isEmpty()
+                || !unparked(store.dirtyExpenseIds(), parkedExpenses).isEmpty()
+                || !unparked(store.pendingCategoryDeletes(), parkedCategories).isEmpty()
+                || !unparked(store.pendingExpenseDeletes(), parkedExpenses).isEmpty();
+    }
+
+    private static List<Integer> unparked(Collection<Integer> ids, Set<Integer> parked) {
+        List<Integer> result = new ArrayList<>(ids);
+        result.removeAll(parked);
+        return result;
+    }
+
+    /**
+     * Leaves a change in the journal and stops pushing it until resolve()
+     */
+    private void park(boolean category, int id, long stamp, Object local, Object server, String reason) {
+        (category ? parkedCategories : parkedExpenses).add(id);
+        unreported.add(new Conflict(category, id, stamp, local, server, reason));
+    }
+
+    private void reportConflicts() {
+        List<Conflict> conflicts;
+        synchronized (this) {
+            if (unreported.isEmpty()) {
+                return;
+            }
+            conflicts = new ArrayList<>(unreported);
+            unreported.clear();
+        }
+        conflictListener.accept(conflicts);
+    }
+
+    /**
+     * Brings the local copy up to date with the server
+     * Flow: First call -> change feed mark set, then a full copy (so nothing between the two is missed)
+     *       -> later calls apply only the rows the change feed reports, unless it asks for a reload
+     */
+    private void pull() throws SQLException, IOException {
+        ChangeSet changes = changeFeed.pollNow();
+        if (!pulled || changes.isReloadRequired()) {
+            store.refreshFrom(remote.getAllCategories(), remote.getAllExpenses());
+            pulled = true;
+        } else if (!changes.isEmpty()) {
+            store.applyServerChanges(changes.getCategories(), changes.getDeletedCategoryIds(),
+                    changes.getExpenses(), changes.getDeletedExpenseIds());
+        }
+    }
+
+    private int pushCategories() throws SQLException, IOException {
+        int pushed = 0;
+        Map<String, Category> serverByName = new HashMap<>(); // Loaded once, when a local category is created
+        for (int localId : unparked(store.dirtyCategoryIds(), parkedCategories)) {
+            LocalStore.Pending<Category> dirty = store.readDirtyCategory(localId);
+            if (dirty == null) {
+                continue; // Deleted or synced since the id list was taken
+            }
+            try {
+                pushCategory(localId, dirty, serverByName);
+                pushed++;
+            } catch (OptimisticLockException conflict) {
+                park(true, localId, dirty.stamp, dirty.row, conflict.getCurrent(), conflict.getMessage());
+            } catch (SQLException e) {
+                parkOrRethrow(true, localId, dirty.stamp, dirty.row, e);
+            }
+        }
+        return pushed;
+    }
+
+    private void pushCategory(int localId, LocalStore.Pending<Category> dirty, Map<String, Category> serverByName)
+            throws SQLException, IOException {
+        Category category = dirty.row;
+        int serverId = localId;
+        if (localId < 0) {
+            if (serverByName.isEmpty()) {
+                for (Category existing : remote.getAllCategories()) {
+                    serverByName.put(existing.getCategoryname(), existing);
+                }
+            }
+            Category existing = serverByName.get(category.getCategoryname());
+            if (existing != null) {
+                serverId = existing.getCategoryid();
+                category.setVersion(existing.getVersion());
+            } else {
+                serverId = remote.createCategory(category);
+                if (serverId <= 0) {
+                    throw new SQLException("Server did not return an id for category " + category.getCategoryname());
+                }
+                category.setVersion(1); // The column default of a new row
+                Category created = new Category(serverId, category.getCategoryname(), category.getCategorydescription());
+                created.setVersion(1);
+                serverByName.put(category.getCategoryname(), created);
+            }
+        } else if (!remote.updateCategory(category)) { // Versioned: advances category.version on success
+            store.discardCategory(localId, dirty.stamp); // Deleted on the server
+            return;
+        }
+        store.markCategorySynced(localId, serverId, dirty.stamp, category.getVersion());
+    }
+
+    private int pushExpenses() throws SQLException, IOException {
+        int pushed = 0;
+        for (int localId : unparked(store.dirtyExpenseIds(), parkedExpenses)) {
+            LocalStore.Pending<Expense> dirty = store.readDirtyExpense(localId);
+            if (dirty == null) {
+                continue;
+            }
+            int categoryId = dirty.row.getCategory_id();
+            if (categoryId < 0) {
+                if (parkedCategories.contains(categoryId)) {
+                    park(false, localId, dirty.stamp, dirty.row, null, "its category could not be saved on the server");
+                }
+                continue; // Otherwise the category was created after this cycle started; pushed next time
+            }
+            try {
+                pushExpense(localId, dirty);
+                pushed++;
+            } catch (OptimisticLockException conflict) {
+                park(false, localId, dirty.stamp, dirty.row, conflict.getCurrent(), conflict.getMessage());
+            } catch (SQLException e) {
+                parkOrRethrow(false, localId, dirty.stamp, dirty.row, e);
+            }
+        }
+        return pushed;
+    }
+
+    private void pushExpense(int localId, LocalStore.Pending<Expense> dirty) throws SQLException, IOException {
+        Expense expense = dirty.row;
+        int serverId = localId;
+        if (localId < 0) {
+            serverId = remote.createExpense(expense, store.idempotencyKey(localId));
+            if (serverId <= 0) {
+                throw new SQLException("Server did not return an id for expense " + localId);
+            }
+            // The column default; if an earlier, unacknowledged push was edited on the server since, the next
+            // offline edit of the row reports a conflict rather than overwriting that edit
+            expense.setVersion(1);
+        } else if (!remote.updateExpense(expense)) { // Versioned: advances expense.version on success
+            store.discardExpense(localId, dirty.stamp); // Deleted on the server
+            return;
+        }
+        store.markExpenseSynced(localId, serverId, dirty.stamp, expense.getVersion());
+    }
+
+    private int pushDeletes() throws SQLException, IOException {
+        int pushed = 0;
+        for (int id : unparked(store.pendingExpenseDeletes(), parkedExpenses)) {
+            try {
+                remote.deleteExpense(new Expense(id, 0, PaymentMethod.CASH, 0));
+            } catch (SQLException e) {
+                parkOrRethrow(false, id, 0, null, e);
+                continue;
+            }
+            store.markExpenseDeleteSynced(id);
+            pushed++;
+        }
+        for (int id : unparked(store.pendingCategoryDeletes(), parkedCategories)) {
+            try {
+                remote.deleteCategory(new Category(id, "", "")); // Refused while the server still has its expenses
+            } catch (SQLException e) {
+                parkOrRethrow(true, id, 0, null, e);
+                continue;
+            }
+            store.markCategoryDeleteSynced(id);
+            pushed++;
+        }
+        return pushed;
+    }
+
+    /**
+     * Parks a row the server refused; rethrows failures that say nothing about the row
+     */
+    private void parkOrRethrow(boolean category, int id, long stamp, Object local, SQLException e) throws SQLException {
+        if (isUnavailable(e)) {
+            throw e;
+        }
+        park(category, id, stamp, local, null, e.getMessage());
+    }
+
+    /**
+     * @return true if the server, the connection or a lock was unavailable (ResilientExecutor's connection-failure
+     *         test, timeouts, deadlocks): the whole cycle is retried on the next tick. Anything else, such as a
+     *         delete refused for a category that still has expenses, fails the same way every time
+     */
+    static boolean isUnavailable(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLTransientException
+                    || (t instanceof SQLException && ResilientExecutor.isConnectionFailure((SQLException) t))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        changeFeed.close();
+    }
+}
@@ -0,0 +1,442 @@
+package com.expense.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Connection, pool and tuning settings, read once at startup
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. get() loads the configuration on first successful use; every later call returns the same immutable object
+ * 2. Values are layered, later sources win:
+ *    built-in defaults -> properties file -> environment variables -> system properties (-D)
+ * 3. The properties file is $EXPENSE_CONFIG / -Dexpense.config, else ~/.expense-tracker/expense-tracker.properties if present
+ * 4. Environment variable names are the keys upper-cased with '.' and camelCase humps turned into '_':
+ *    expense.pool.borrowTimeoutMillis -> EXPENSE_POOL_BORROW_TIMEOUT_MILLIS
+ * 5. Every value is type- and range-checked; unknown "expense." keys (typos) are errors too.
+ *    All problems are reported together in one IllegalStateException, before anything connects
+ *
+ * KEYS (default):
+ * - expense.db.url (localhost ExpenseTracker), expense.db.username (root), expense.db.password (empty)
+ * - expense.replica.url (none), expense.replica.maxLagSeconds (5), expense.replica.lagCheckMillis (5000)
+ * - expense.pool.size (8), expense.pool.statementCacheSize (64), expense.pool.borrowTimeoutMillis (30000),
+ *   expense.pool.warmConnections (2), expense.pool.breakerFailures (5), expense.pool.breakerOpenMillis (10000)
+ * - expense.dao.fetchSize ("streaming" = row by row; a positive size needs useCursorFetch=true in the URL),
+ *   expense.dao.batchSize (500), expense.dao.retryAttempts (3), expense.dao.retryBackoffMillis (50),
+ *   expense.dao.retryMaxBackoffMillis (2000)
+ * - expense.query.timeoutSeconds (30), expense.query.reportTimeoutSeconds (300), expense.query.bulkTimeoutSeconds (900),
+ *   expense.query.slowMillis (500); timeouts of 0 mean no limit
+ * - expense.changes.pollSeconds (5), expense.changes.pageSize (1000), expense.changes.maxRowsPerPoll (5000),
+ *   expense.changes.retentionHours (24), expense.changes.gapTimeoutMillis (60000)
+ * - expense.gui.aggregateCacheMillis (60000), expense.gui.filterDebounceMillis (200)
+ * - expense.export.bufferBytes (65536)
+ * - expense.sync.periodSeconds (30), expense.recurring.periodMinutes (60), expense.partition.monthsAhead (3)
+ */
+public final class AppConfig {
+    private static final String PREFIX = "expense.";
+    private static final String CONFIG_FILE_KEY = "expense.config";
+    private static final String STREAMING = "streaming";
+
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+    static {
+        DEFAULTS.put("expense.db.url", "jdbc:mysql://localhost:3306/ExpenseTracker?useServerPrepStmts=true&cachePrepStmts=false");
+        DEFAULTS.put("expense.db.username", "root");
+        DEFAULTS.put("expense.db.password", "");
+        DEFAULTS.put("expense.replica.url", "");
+        DEFAULTS.put("expense.replica.maxLagSeconds", "5");
+        DEFAULTS.put("expense.replica.lagCheckMillis", "5000");
+        DEFAULTS.put("expense.pool.size", "8");
+        DEFAULTS.put("expense.pool.statementCacheSize", "64");
+        DEFAULTS.put("expense.pool.borrowTimeoutMillis", "30000");
+        DEFAULTS.put("expense.pool.warmConnections", "2");
+        DEFAULTS.put("expense.pool.breakerFailures", "5");
+        DEFAULTS.put("expense.pool.breakerOpenMillis", "10000");
+        DEFAULTS.put("expense.dao.fetchSize", STREAMING);
+        DEFAULTS.put("expense.dao.batchSize", "500");
+        DEFAULTS.put("expense.dao.retryAttempts", "3");
+        DEFAULTS.put("expense.dao.retryBackoffMillis", "50");
+        DEFAULTS.put("expense.dao.retryMaxBackoffMillis", "2000");
+        DEFAULTS.put("expense.query.timeoutSeconds", "30");
+        DEFAULTS.put("expense.query.reportTimeoutSeconds", "300");
+        DEFAULTS.put("expense.query.bulkTimeoutSeconds", "900");
+        DEFAULTS.put("expense.query.slowMillis", "500");
+        DEFAULTS.put("expense.changes.pollSeconds", "5");
+        DEFAULTS.put("expense.changes.pageSize", "1000");
+        DEFAULTS.put("expense.changes.maxRowsPerPoll", "5000");
+        DEFAULTS.put("expense.changes.retentionHours", "24");
+        DEFAULTS.put("expense.changes.gapTimeoutMillis", "60000");
+        DEFAULTS.put("expense.gui.aggregateCacheMillis", "60000");
+        DEFAULTS.put("expense.gui.filterDebounceMillis", "200");
+        DEFAULTS.put("expense.export.bufferBytes", "65536");
+        DEFAULTS.put("expense.sync.periodSeconds", "30");
+        DEFAULTS.put("expense.recurring.periodMinutes", "60");
+        DEFAULTS.put("expense.partition.monthsAhead", "3");
+    }
+
+    private static AppConfig instance;
+
+    private final Map<String, String> values;
+    private final Map<String, String> sources;
+    private final List<String> problems = new ArrayList<>();
+
+    private final String dbUrl;
+    private final String dbUsername;
+    private final String dbPassword;
+    private final String replicaUrl;
+    private final long replicaMaxLagSeconds;
+    private final long replicaLagCheckMillis;
+    private final int poolSize;
+    private final int statementCacheSize;
+    private final long borrowTimeoutMillis;
+    private final int warmConnections;
+    private final int breakerFailures;
+    private final long breakerOpenMillis;
+    private final int fetchSize;
+    private final int batchSize;
+    private final int retryAttempts;
+    private final long retryBackoffMillis;
+    private final long retryMaxBackoffMillis;
+    private final int queryTimeoutSeconds;
+    private final int reportTimeoutSeconds;
+    private final int bulkTimeoutSeconds;
+    private final long slowQueryMillis;
+    private final long changePollSeconds;
+    private final int changePageSize;
+    private final int changeMaxRowsPerPoll;
+    private final int changeRetentionHours;
+    private final long changeGapTimeoutMillis;
+    private final long aggregateCacheMillis;
+    private final int filterDebounceMillis;
+    private final int exportBufferBytes;
+    private final long syncPeriodSeconds;
+    private final long recurringPeriodMinutes;
+    private final int partitionMonthsAhead;
+
+    private AppConfig(Map<String, String> values, Map<String, String> sources, List<String> loadProblems) {
+        this.values = values;
+        this.sources = sources;
+        problems.addAll(loadProblems);
+
+        dbUrl = text("expense.db.url", true);
+        dbUsername = text("expense.db.username", true);
+        dbPassword = text("expense.db.password", false);
+        replicaUrl = text("expense.replica.url", false);
+        replicaMaxLagSeconds = number("expense.replica.maxLagSeconds", 0, 86_400);
+        replicaLagCheckMillis = number("expense.replica.lagCheckMillis", 100, 3_600_000);
+        poolSize = (int) number("expense.pool.size", 1, 256);
+        statementCacheSize = (int) number("expense.pool.statementCacheSize", 0, 10_000);
+        borrowTimeoutMillis = number("expense.pool.borrowTimeoutMillis", 1, 3_600_000);
+        warmConnections = (int) number("expense.pool.warmConnections", 0, Math.max(poolSize, 1));
+        breakerFailures = (int) number("expense.pool.breakerFailures", 1, 1_000);
+        breakerOpenMillis = number("expense.pool.breakerOpenMillis", 100, 3_600_000);
+        fetchSize = fetchSize();
+        // Bulk IN lists bind batchSize ids plus a few values; MySQL allows 65,535 placeholders per statement
+        batchSize = (int) number("expense.dao.batchSize", 1, 10_000);
+        retryAttempts = (int) number("expense.dao.retryAttempts", 1, 100);
+        retryBackoffMillis = number("expense.dao.retryBackoffMillis", 1, 60_000);
+        retryMaxBackoffMillis = number("expense.dao.retryMaxBackoffMillis", retryBackoffMillis, 600_000);
+        queryTimeoutSeconds = (int) number("expense.query.timeoutSeconds", 0, 86_400);
+        reportTimeoutSeconds = (int) number("expense.query.reportTimeoutSeconds", 0, 86_400);
+        bulkTimeoutSeconds = (int) number("expense.query.bulkTimeoutSeconds", 0, 86_400);
+        slowQueryMillis = number("expense.query.slowMillis", 0, 3_600_000);
+        changePollSeconds = number("expense.changes.pollSeconds", 1, 3_600);
+        changePageSize = (int) number("expense.changes.pageSize", 1, 100_000);
+        changeMaxRowsPerPoll = (int) number("expense.changes.maxRowsPerPoll", changePageSize, 10_000_000);
+        changeRetentionHours = (int) number("expense.changes.retentionHours", 1, 24 * 365);
+        changeGapTimeoutMillis = number("expense.changes.gapTimeoutMillis", 1_000, 3_600_000);
+        aggregateCacheMillis = number("expense.gui.aggregateCacheMillis", 0, 86_400_000);
+        filterDebounceMillis = (int) number("expense.gui.filterDebounceMillis", 0, 10_000);
+        exportBufferBytes = (int) number("expense.export.bufferBytes", 4_096, 64 * 1024 * 1024);
+        syncPeriodSeconds = number("expense.sync.periodSeconds", 1, 86_400);
+        recurringPeriodMinutes = number("expense.recurring.periodMinutes", 1, 1_440);
+        partitionMonthsAhead = (int) number("expense.partition.monthsAhead", 1, 120);
+
+        if (!problems.isEmpty()) {
+            throw new IllegalStateException("Invalid configuration:\n  " + String.join("\n  ", problems));
+        }
+    }
+
+    /**
+     * @return the configuration, loaded on first call
+     * @throws IllegalStateException listing every invalid setting
+     */
+    public static synchronized AppConfig get() {
+        if (instance == null) {
+            instance = load(System.getenv(), System.getProperties());
+        }
+        return instance;
+    }
+
+    /**
+     * Layers defaults, the properties file, environment and system properties, then validates
+     */
+    static AppConfig load(Map<String, String> env, Properties system) {
+        Map<String, String> values = new LinkedHashMap<>(DEFAULTS);
+        Map<String, String> sources = new LinkedHashMap<>();
+        DEFAULTS.keySet().forEach(key -> sources.put(key, "default"));
+        List<String> problems = new ArrayList<>();
+
+        String file = system.getProperty(CONFIG_FILE_KEY, env.get(envName(CONFIG_FILE_KEY)));
+        Path path = file != null ? Paths.get(file)
+                : Paths.get(System.getProperty("user.home"), ".expense-tracker", "expense-tracker.properties");
+        if (file != null || Files.isRegularFile(path)) {
+            Properties properties = new Properties();
+            try (InputStream in = Files.newInputStream(path)) {
+                properties.load(in);
+                overlay(values, sources, properties, path.toString(), problems);
+            } catch (IOException e) {
+                problems.add(path + ": cannot be read (" + e.getMessage() + ")");
+            }
+        }
+        for (String key : DEFAULTS.keySet()) {
+            String value = env.get(envName(key));
+            if (value != null) {
+                values.put(key, value.trim());
+                sources.put(key, "env " + envName(key));
+            }
+        }
+        overlay(values, sources, system, "-D", problems);
+        return new AppConfig(values, sources, problems);
+    }
+
+    private static void overlay(Map<String, String> values, Map<String, String> sources, Properties properties,
+                                String source, List<String> problems) {
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.startsWith(PREFIX) || key.equals(CONFIG_FILE_KEY)) {
+                continue;
+            }
+            if (!DEFAULTS.containsKey(key)) {
+                problems.add(key + ": unknown setting (" + source + ")");
+                continue;
+            }
+            values.put(key, properties.getProperty(key).trim());
+            sources.put(key, source);
+        }
+    }
+
+    /**
+     * @return environment variable name for a key, e.g. expense.pool.borrowTimeoutMillis -> EXPENSE_POOL_BORROW_TIMEOUT_MILLIS
+     */
+    static String envName(String key) {
+        return key.replaceAll("([a-z0-9])([A-Z])", "$1_$2").replace('.', '_').toUpperCase();
+    }
+
+    private String text(String key, boolean required) {
+        String value = values.get(key);
+        if (required && value.isEmpty()) {
+            problems.add(key + ": must not be empty (" + sources.get(key) + ")");
+        }
+        return value.isEmpty() ? null : value;
+    }
+
+    private long number(String key, long min, long max) {
+        String value = values.get(key);
+        try {
+            long number = Long.parseLong(value.replace("_", ""));
+            if (number < min || number > max) {
+                problems.add(key + ": " + value + " is outside " + min + ".." + max + " (" + sources.get(key) + ")");
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            problems.add(key + ": '" + value + "' is not a whole number (" + sources.get(key) + ")");
+            return Long.parseLong(DEFAULTS.get(key));
+        }
+    }
+
+    private int fetchSize() {
+        String key = "expense.dao.fetchSize";
+        if (STREAMING.equalsIgnoreCase(values.get(key))) {
+            return Integer.MIN_VALUE;
+        }
+        int size = (int) number(key, 1, 1_000_000);
+        if (dbUrl != null && !dbUrl.contains("useCursorFetch=true")) {
+            // Without server cursors Connector/J ignores the fetch size and buffers the whole result
+            problems.add(key + ": a positive fetch size needs useCursorFetch=true in expense.db.url, or use 'streaming'");
+        }
+        return size;
+    }
+
+    /**
+     * @return one line per setting with its value and where it came from (password masked)
+     */
+    public String describe() {
+        StringBuilder text = new StringBuilder("Configuration:\n");
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            String value = entry.getKey().endsWith("password") && !entry.getValue().isEmpty() ? "****" : entry.getValue();
+            text.append(String.format("  %-36s %-24s [%s]%n", entry.getKey(), value, sources.get(entry.getKey())));
+        }
+        return text.toString();
+    }
+
+    public String getDbUrl() {
+        return dbUrl;
+    }
+
+    public String getDbUsername() {
+        return dbUsername;
+    }
+
+    /**
+     * @return database password (empty when none is configured)
+     */
+    public String getDbPassword() {
+        return dbPassword != null ? dbPassword : "";
+    }
+
+    /**
+     * @return read replica URL, or null when reads should all go to the primary
+     */
+    public String getReplicaUrl() {
+        return replicaUrl;
+    }
+
+    public long getReplicaMaxLagSeconds() {
+        return replicaMaxLagSeconds;
+    }
+
+    public long getReplicaLagCheckMillis() {
+        return replicaLagCheckMillis;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public long getBorrowTimeoutMillis() {
+        return borrowTimeoutMillis;
+    }
+
+    public int getWarmConnections() {
+        return warmConnections;
+    }
+
+    /**
+     * @return consecutive connection failures that open a pool's circuit breaker
+     */
+    public int getBreakerFailures() {
+        return breakerFailures;
+    }
+
+    /**
+     * @return how long an open circuit fails calls fast before letting a probe through
+     */
+    public long getBreakerOpenMillis() {
+        return breakerOpenMillis;
+    }
+
+    /**
+     * @return JDBC fetch size for streamed reads (Integer.MIN_VALUE = Connector/J row-by-row streaming)
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * @return rows per JDBC batch and ids per bulk IN list
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return tries per DAO operation, the first one included
+     */
+    public int getRetryAttempts() {
+        return retryAttempts;
+    }
+
+    /**
+     * @return backoff before the first retry; it doubles per retry up to getRetryMaxBackoffMillis()
+     */
+    public long getRetryBackoffMillis() {
+        return retryBackoffMillis;
+    }
+
+    public long getRetryMaxBackoffMillis() {
+        return retryMaxBackoffMillis;
+    }
+
+    /**
+     * @return server time limit for one interactive statement (0 = none)
+     */
+    public int getQueryTimeoutSeconds() {
+        return queryTimeoutSeconds;
+    }
+
+    /**
+     * @return server time limit for one report or streaming statement (0 = none)
+     */
+    public int getReportTimeoutSeconds() {
+        return reportTimeoutSeconds;
+    }
+
+    /**
+     * @return server time limit for one statement of a bulk or maintenance operation (0 = none)
+     */
+    public int getBulkTimeoutSeconds() {
+        return bulkTimeoutSeconds;
+    }
+
+    /**
+     * @return statements taking at least this long are written to the slow-query log
+     */
+    public long getSlowQueryMillis() {
+        return slowQueryMillis;
+    }
+
+    public long getChangePollSeconds() {
+        return changePollSeconds;
+    }
+
+    public int getChangePageSize() {
+        return changePageSize;
+    }
+
+    public int getChangeMaxRowsPerPoll() {
+        return changeMaxRowsPerPoll;
+    }
+
+    public int getChangeRetentionHours() {
+        return changeRetentionHours;
+    }
+
+    public long getChangeGapTimeoutMillis() {
+        return changeGapTimeoutMillis;
+    }
+
+    public long getAggregateCacheMillis() {
+        return aggregateCacheMillis;
+    }
+
+    public int getFilterDebounceMillis() {
+        return filterDebounceMillis;
+    }
+
+    public int getExportBufferBytes() {
+        return exportBufferBytes;
+    }
+
+    public long getSyncPeriodSeconds() {
+        return syncPeriodSeconds;
+    }
+
+    public long getRecurringPeriodMinutes() {
+        return recurringPeriodMinutes;
+    }
+
+    public int getPartitionMonthsAhead() {
+        return partitionMonthsAhead;
+    }
+}
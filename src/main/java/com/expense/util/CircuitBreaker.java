@@ -0,0 +1,179 @@
+package com.expense.util;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Fails database calls fast while the server is unreachable, instead of letting every action wait on a dead connection
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. CLOSED: ConnectionPool.borrow() passes; each connection that comes back broken (or fails to open) counts a failure,
+ *    each healthy return resets the count
+ * 2. failureThreshold consecutive failures -> OPEN: borrow() throws CircuitOpenException at once, no socket is touched
+ * 3. After openMillis -> HALF_OPEN: exactly one borrow is let through as a probe, everyone else still fails fast
+ * 4. Probe healthy -> CLOSED; probe broken -> OPEN again for another openMillis
+ *
+ * WHAT COUNTS AS A FAILURE: only a connection the driver closed (communications failure, server gone away, killed)
+ * or one that could not be opened. Deadlocks, timeouts and constraint errors leave the connection usable and say
+ * nothing about the server's health
+ *
+ * MONITORING: getState(), getConsecutiveFailures(), getRejectedCalls(), getLastFailure() and state listeners
+ */
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final List<Consumer<State>> listeners = new CopyOnWriteArrayList<>();
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private long stateChangedAt = System.currentTimeMillis();
+    private boolean probeInFlight;
+    private long rejectedCalls;
+    private String lastFailure;
+
+    /**
+     * @param name shown in log lines and exceptions (e.g. "primary", "replica")
+     * @param failureThreshold consecutive failures that open the circuit
+     * @param openMillis how long calls are rejected before a probe is allowed
+     */
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Asks to make a call
+     * @throws CircuitOpenException while the circuit is open, or half-open with the probe already out
+     */
+    public void acquire() throws CircuitOpenException {
+        State changed = null;
+        synchronized (this) {
+            if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+                changed = moveTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN && !probeInFlight) {
+                probeInFlight = true;
+            } else if (state != State.CLOSED) {
+                rejectedCalls++;
+                long retryIn = Math.max(0, openMillis - (System.currentTimeMillis() - openedAt));
+                throw new CircuitOpenException("Database (" + name + ") unavailable, retrying in "
+                        + (retryIn + 999) / 1000 + " s; last error: " + lastFailure);
+            }
+        }
+        notifyListeners(changed);
+    }
+
+    /**
+     * Records a call whose connection came back healthy
+     */
+    public void onSuccess() {
+        State changed = null;
+        synchronized (this) {
+            consecutiveFailures = 0;
+            probeInFlight = false;
+            if (state != State.CLOSED) {
+                changed = moveTo(State.CLOSED);
+            }
+        }
+        notifyListeners(changed);
+    }
+
+    /**
+     * Records a call whose connection broke or could not be opened
+     */
+    public void onFailure(String reason) {
+        State changed = null;
+        synchronized (this) {
+            lastFailure = reason;
+            consecutiveFailures++;
+            boolean probeFailed = state == State.HALF_OPEN && probeInFlight;
+            probeInFlight = false;
+            if (probeFailed || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+                openedAt = System.currentTimeMillis();
+                changed = moveTo(State.OPEN);
+            }
+        }
+        notifyListeners(changed);
+    }
+
+    /**
+     * Gives back a permission that ended without touching the server (e.g. the pool timed out waiting for a free connection)
+     */
+    public synchronized void abandon() {
+        probeInFlight = false;
+    }
+
+    private State moveTo(State next) {
+        state = next;
+        stateChangedAt = System.currentTimeMillis();
+        return next;
+    }
+
+    private void notifyListeners(State changed) {
+        if (changed == null) {
+            return;
+        }
+        System.err.println("Database circuit (" + name + ") " + changed
+                + (changed == State.OPEN ? " after " + consecutiveFailures + " failures: " + lastFailure : ""));
+        for (Consumer<State> listener : listeners) {
+            listener.accept(changed);
+        }
+    }
+
+    /**
+     * @param listener called on the thread that caused each state change
+     */
+    public void addListener(Consumer<State> listener) {
+        listeners.add(listener);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * @return calls failed fast since startup
+     */
+    public synchronized long getRejectedCalls() {
+        return rejectedCalls;
+    }
+
+    /**
+     * @return message of the most recent failure, or null
+     */
+    public synchronized String getLastFailure() {
+        return lastFailure;
+    }
+
+    public synchronized long getStateChangedAt() {
+        return stateChangedAt;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return name + " " + state + " (consecutive failures " + consecutiveFailures + ", rejected " + rejectedCalls
+                + (lastFailure != null ? ", last error: " + lastFailure : "") + ")";
+    }
+
+    /**
+     * Thrown instead of attempting a call while the circuit is open; never retried
+     */
+    public static class CircuitOpenException extends SQLTransientConnectionException {
+        private static final long serialVersionUID = 1L;
+
+        CircuitOpenException(String message) {
+            super(message, "08001");
+        }
+    }
+}
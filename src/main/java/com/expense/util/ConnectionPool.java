@@ -0,0 +1,323 @@
+package com.expense.util;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Small blocking pool of MySQL connections, each with its own PreparedStatement cache
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. DatabaseConnection.getDBConnection() -> borrow() hands out an idle connection (most recently used first)
+ * 2. No idle connection and pool not full -> a new physical connection is opened
+ * 3. Pool full -> caller waits until another DAO call returns its connection (or the timeout expires)
+ * 4. DAO closes the connection in try-with-resources -> the proxy returns it to the pool instead of closing the socket
+ * 5. prepareStatement() on the proxy goes through StatementCache, so repeated SQL skips the parse/plan step
+ * 6. close() also rolls back an open transaction and restores auto-commit, isolation level and read-only flag,
+ *    and each cached statement gets its default query timeout back, so no session setting leaks to the next borrower
+ * 7. Every borrow asks the pool's CircuitBreaker first; connections that fail to open or come back broken
+ *    count against it, so a dead server is detected once and then rejected without network waits
+ *    (a connection aborted to cancel a stream, see QueryCancellation, is discarded without counting)
+ *
+ * WHY PROXIES:
+ * - MainDAO keeps its plain try-with-resources code; closing simply means "give it back"
+ */
+public class ConnectionPool {
+    // Connections idle longer than this are validated with isValid() before being handed out
+    private static final long VALIDATE_AFTER_IDLE_MILLIS = 30_000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int maxSize;
+    private final int statementCacheSize;
+    private final long borrowTimeoutMillis;
+    private final CircuitBreaker breaker;
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private int total;
+
+    /**
+     * One physical connection with its statement cache, last-used timestamp and session defaults
+     */
+    private static final class PooledConnection {
+        final Connection physical;
+        final StatementCache cache;
+        final int defaultIsolation;
+        final boolean defaultReadOnly;
+        boolean sessionChanged; // setTransactionIsolation()/setReadOnly() called since it was borrowed
+        long lastUsed;
+        volatile boolean aborted; // Closed on purpose by abort(), not by a failure
+
+        PooledConnection(Connection physical, int statementCacheSize, StatementCache.Counters counters) throws SQLException {
+            this.physical = physical;
+            this.cache = new StatementCache(physical, statementCacheSize, counters, this::abort);
+            this.defaultIsolation = physical.getTransactionIsolation();
+            this.defaultReadOnly = physical.isReadOnly();
+        }
+
+        /**
+         * Closes the socket at once, from any thread; a read in progress fails and close() no longer drains rows
+         */
+        void abort() {
+            aborted = true;
+            try {
+                physical.abort(Runnable::run);
+            } catch (SQLException e) {
+                // Already closed
+            }
+        }
+    }
+
+    public ConnectionPool(String url, String username, String password,
+                          int maxSize, int statementCacheSize, long borrowTimeoutMillis, CircuitBreaker breaker) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.statementCacheSize = statementCacheSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.breaker = breaker;
+    }
+
+    /**
+     * Borrows a connection; closing the returned object gives it back to the pool
+     * @return pooled connection proxy
+     * @throws SQLException if no connection becomes available within the borrow timeout
+     * @throws CircuitBreaker.CircuitOpenException at once while the database is considered down
+     */
+    public Connection borrow() throws SQLException {
+        breaker.acquire();
+        PooledConnection pooled = take();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(this, pooled));
+    }
+
+    /**
+     * Opens connections until minIdle are idle, so the first DAO calls do not pay the TCP/auth handshake
+     * @param minIdle number of connections to open ahead of time
+     */
+    public void warmUp(int minIdle) throws SQLException {
+        for (int i = 0; i < minIdle; i++) {
+            synchronized (this) {
+                if (idle.size() >= minIdle || total >= maxSize) {
+                    return;
+                }
+                total++;
+            }
+            PooledConnection pooled;
+            try {
+                pooled = open();
+            } catch (SQLException e) {
+                synchronized (this) {
+                    total--;
+                }
+                throw e;
+            }
+            release(pooled, false);
+        }
+    }
+
+    /**
+     * @return health of this pool's server, for monitoring
+     */
+    public CircuitBreaker getCircuitBreaker() {
+        return breaker;
+    }
+
+    public long getStatementCacheHits() {
+        return statementCounters.hits.get();
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCounters.misses.get();
+    }
+
+    public long getStatementCacheEvictions() {
+        return statementCounters.evictions.get();
+    }
+
+    /**
+     * @return statements logged as slow (or failed after the slow threshold) since startup
+     */
+    public long getSlowQueryCount() {
+        return StatementMonitor.SLOW_QUERIES.get();
+    }
+
+    /**
+     * @return fraction of this pool's prepareStatement() calls served from the cache (0 when nothing was prepared yet)
+     */
+    public double getStatementCacheHitRatio() {
+        long hits = getStatementCacheHits();
+        long lookups = hits + getStatementCacheMisses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public synchronized int getTotalConnections() {
+        return total;
+    }
+
+    public synchronized int getIdleConnections() {
+        return idle.size();
+    }
+
+    private PooledConnection take() throws SQLException {
+        long deadline = System.currentTimeMillis() + borrowTimeoutMillis;
+        while (true) {
+            PooledConnection candidate = null;
+            boolean create = false;
+            synchronized (this) {
+                while (idle.isEmpty() && total >= maxSize) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        breaker.abandon(); // Pool exhausted: says nothing about the server
+                        throw new SQLException("Timed out waiting for a database connection (pool size " + maxSize + ")");
+                    }
+                    try {
+                        wait(remaining);
+                    } catch (InterruptedException e) {
+                        breaker.abandon();
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    }
+                }
+                if (!idle.isEmpty()) {
+                    candidate = idle.pollFirst();
+                } else {
+                    total++;
+                    create = true;
+                }
+            }
+            if (create) {
+                try {
+                    return open();
+                } catch (SQLException e) {
+                    discard(null);
+                    breaker.onFailure(e.getMessage());
+                    throw e;
+                }
+            }
+            if (isUsable(candidate)) {
+                return candidate;
+            }
+            discard(candidate);
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.lastUsed < VALIDATE_AFTER_IDLE_MILLIS) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, username, password);
+        try {
+            return new PooledConnection(physical, statementCacheSize, statementCounters);
+        } catch (SQLException e) {
+            physical.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a connection to the pool, resetting any transaction and session state the caller left behind
+     * @param broken true if the caller saw the connection fail; it is closed instead of reused
+     */
+    void release(PooledConnection pooled, boolean broken) {
+        if (!broken) {
+            try {
+                if (!pooled.physical.getAutoCommit()) {
+                    pooled.physical.rollback();
+                    pooled.physical.setAutoCommit(true);
+                }
+                if (pooled.sessionChanged) {
+                    pooled.physical.setTransactionIsolation(pooled.defaultIsolation);
+                    pooled.physical.setReadOnly(pooled.defaultReadOnly);
+                    pooled.sessionChanged = false;
+                }
+            } catch (SQLException e) {
+                broken = true;
+            }
+        }
+        if (broken) {
+            discard(pooled);
+            if (pooled.aborted) {
+                breaker.abandon(); // A cancelled stream says nothing about the server
+            } else {
+                breaker.onFailure("connection closed by the driver");
+            }
+            return;
+        }
+        breaker.onSuccess();
+        pooled.lastUsed = System.currentTimeMillis();
+        synchronized (this) {
+            idle.addFirst(pooled);
+            notifyAll();
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        if (pooled != null) {
+            pooled.cache.closeAll();
+            try {
+                pooled.physical.close();
+            } catch (SQLException e) {
+                // Already broken
+            }
+        }
+        synchronized (this) {
+            total--;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Proxy behaviour for a borrowed connection: close() returns it, prepareStatement() uses the cache
+     */
+    private static final class ConnectionHandler implements java.lang.reflect.InvocationHandler {
+        private final ConnectionPool pool;
+        private final PooledConnection pooled;
+        private boolean closed;
+
+        ConnectionHandler(ConnectionPool pool, PooledConnection pooled) {
+            this.pool = pool;
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("close".equals(name)) {
+                if (!closed) {
+                    closed = true;
+                    pool.release(pooled, pooled.physical.isClosed());
+                }
+                return null;
+            }
+            if ("isClosed".equals(name)) {
+                return closed || pooled.physical.isClosed();
+            }
+            if (closed) {
+                throw new SQLException("Connection has been returned to the pool");
+            }
+            if ("prepareStatement".equals(name)) {
+                return pooled.cache.prepare(method, args);
+            }
+            if ("setTransactionIsolation".equals(name) || "setReadOnly".equals(name)) {
+                pooled.sessionChanged = true; // Restored by release()
+            }
+            return StatementCache.invoke(pooled.physical, method, args);
+        }
+    }
+}
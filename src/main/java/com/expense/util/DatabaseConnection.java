@@ -1,7 +1,6 @@
 package com.expense.util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 /**
@@ -9,14 +8,14 @@ import java.sql.SQLException;
  * 
  * FLOW DETAILED EXPLANATION:
  * 1. Class loads -> static block executes -> MySQL driver is registered
- * 2. getDBConnection() called -> DriverManager creates connection using URL, username, password
+ * 2. getDBConnection() called -> ConnectionPool hands out a pooled connection (opening one via DriverManager if needed)
  * 3. Connection returned -> used by DAO classes for database operations
- * 4. Connection closed -> automatically by try-with-resources in calling methods
+ * 4. Connection closed -> by try-with-resources in calling methods -> returned to the pool, socket stays open
  * 
  * WHY THIS DESIGN:
  * - Static methods: No need to create instances, can be called directly
  * - Static block: Ensures MySQL driver is loaded when class is first accessed
- * - Connection pooling: Each call creates fresh connection (simple approach)
+ * - Connection pooling: Connections and their prepared statements are reused across DAO calls
  * - Exception handling: SQLException thrown to caller for proper error handling
  */
 public class DatabaseConnection {
@@ -25,16 +24,43 @@ public class DatabaseConnection {
     // HOW: Class.forName() loads the driver class into JVM
     public static final String driver = "com.mysql.cj.jdbc.Driver";
     
+    // Connection settings come from AppConfig (properties file, EXPENSE_* environment or -D), read once at startup
+    private static final AppConfig config = AppConfig.get();
+
     // Database connection URL
     // WHY: Tells DriverManager where to connect (localhost, port 3306, database name)
     // FORMAT: jdbc:mysql://host:port/database_name
-    public static final String url = "jdbc:mysql://localhost:3306/ExpenseTracker";
+    // Default adds useServerPrepStmts (statements are parsed and planned once on the server, then only executed)
+    // and cachePrepStmts=false (ConnectionPool's StatementCache does the caching, the driver's cache would be a second copy)
+    public static final String url = config.getDbUrl();
     
     // Database credentials
     // WHY: Required for MySQL authentication
-    // SECURITY: In production, these should be in configuration files
-    public static final String username = "root";
-    public static final String password = "9345";
+    // SECURITY: Never committed; set expense.db.password in the config file or EXPENSE_DB_PASSWORD
+    public static final String username = config.getDbUsername();
+    private static final String password = config.getDbPassword();
+
+    // Pool sizing
+    // WHY: A desktop client rarely runs more than a few queries at once; statements per connection
+    //      only need to cover the SQL constants in the DAO layer
+    public static final int poolSize = config.getPoolSize();
+    public static final int statementCacheSize = config.getStatementCacheSize();
+    public static final long borrowTimeoutMillis = config.getBorrowTimeoutMillis();
+
+    // Each pool fails fast while its server is down (see CircuitBreaker)
+    private static final ConnectionPool pool = new ConnectionPool(url, username, password, poolSize, statementCacheSize,
+            borrowTimeoutMillis, new CircuitBreaker("primary", config.getBreakerFailures(), config.getBreakerOpenMillis()));
+
+    // Optional read replica for reports (see DataSourceRouter); unset means every query goes to the primary
+    // e.g. EXPENSE_REPLICA_URL=jdbc:mysql://localhost:3307/ExpenseTracker?connectTimeout=2000
+    // A short connectTimeout keeps the fallback to the primary quick when the replica host is down
+    public static final String replicaUrl = config.getReplicaUrl();
+    // Reads only go to the replica while it is at most this many seconds behind the primary
+    public static final long replicaMaxLagSeconds = config.getReplicaMaxLagSeconds();
+
+    private static final ConnectionPool replicaPool = replicaUrl == null ? null
+            : new ConnectionPool(replicaUrl, username, password, poolSize, statementCacheSize, borrowTimeoutMillis,
+                    new CircuitBreaker("replica", config.getBreakerFailures(), config.getBreakerOpenMillis()));
     
     /**
      * Static initialization block - executes when class is first loaded
@@ -63,20 +89,19 @@ public class DatabaseConnection {
     }
     
     /**
-     * Creates and returns a new database connection
+     * Borrows a database connection from the pool
      * 
      * INVOCATION FLOW:
      * 1. DAO method calls getDBConnection() -> needs database connection
-     * 2. DriverManager.getConnection() -> uses registered drivers to create connection
-     * 3. MySQL driver creates TCP connection to localhost:3306
-     * 4. Database authenticates using username/password
-     * 5. Connection object returned -> used for SQL operations
-     * 6. Connection closed -> by try-with-resources in calling method
+     * 2. ConnectionPool.borrow() -> reuses an idle connection or opens a new one
+     * 3. New connections: MySQL driver creates TCP connection to localhost:3306 and authenticates
+     * 4. Connection object returned -> used for SQL operations
+     * 5. Connection closed -> by try-with-resources in calling method -> goes back to the pool
      * 
      * WHY THIS METHOD:
      * - Static: No need to create DatabaseConnection instance
      * - Throws SQLException: Caller can handle database connection errors
-     * - Fresh connection: Each call creates new connection (simple approach)
+     * - Pooled connection: TCP handshake, authentication and statement preparation are paid once
      * 
      * WHAT HAPPENS IN BACKGROUND:
      * - DriverManager checks all registered drivers
@@ -89,9 +114,24 @@ public class DatabaseConnection {
      * @throws SQLException if connection fails (server down, wrong credentials, etc.)
      */
     public static Connection getDBConnection() throws SQLException {
-        // INVOKES: DriverManager.getConnection() -> creates connection using registered drivers
-        // WHY: DriverManager automatically selects appropriate driver based on URL
-        // HOW: MySQL driver creates TCP connection to localhost:3306
-        return DriverManager.getConnection(url, username, password);
+        // INVOKES: ConnectionPool.borrow() -> DriverManager.getConnection() only when the pool needs a new connection
+        // WHY: Reusing connections keeps the per-connection prepared statement cache warm
+        // HOW: Returned proxy gives the connection back to the pool on close()
+        return pool.borrow();
+    }
+
+    /**
+     * Gives access to the pool for warm-up and statement cache statistics
+     * @return the shared connection pool
+     */
+    public static ConnectionPool getPool() {
+        return pool;
+    }
+
+    /**
+     * @return the read replica pool, or null when no replica is configured
+     */
+    public static ConnectionPool getReplicaPool() {
+        return replicaPool;
     }
 }
@@ -0,0 +1,112 @@
+package com.expense.util;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cancellation handle for the queries of one background load (a window, a report, a scan)
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. The GUI creates a handle per load and runs the DAO calls inside QueryScope.callCancellable(handle, ...)
+ * 2. Every statement executed in that scope registers itself here while it runs on the server; a streaming query
+ *    (export, duplicate index, anomaly and sketch builds) stays registered until its ResultSet is closed
+ * 3. cancel() (window closed, newer load started) marks the handle, then:
+ *    - statements still in execute: Statement.cancel(), which makes Connector/J send KILL QUERY over a second connection
+ *    - open streams: the pooled connection is aborted (socket closed, the server ends the query); the pool discards it
+ * 4. Cooperative part: later executes, and every ResultSet.next() of a query started in the scope,
+ *    throw SQLException with SQLState 70100 instead of doing more work
+ *
+ * WHY STREAMS ARE ABORTED:
+ * - Connector/J's Statement.cancel() does nothing once execute has returned, even while rows are still streaming
+ * - Closing a streaming ResultSet reads and discards every row the server still sends, so without the abort closing
+ *   a cancelled 10M-row export would still read the remaining rows; a new connection is the cheaper price
+ * - The abort runs while the stream is still registered (unregister waits for it), so it can never hit the
+ *   connection after it went back to the pool
+ */
+public final class QueryCancellation {
+    // Same SQLState MySQL reports for a query stopped by KILL QUERY (ER_QUERY_INTERRUPTED)
+    public static final String SQL_STATE = "70100";
+
+    private final Set<Statement> running = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<Statement, Runnable> streams = new IdentityHashMap<>(); // open stream -> aborts its connection
+    private volatile boolean cancelled;
+
+    /**
+     * Stops the running statements and fails every later one; safe to call more than once and from any thread
+     */
+    public void cancel() {
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            if (running.isEmpty() && streams.isEmpty()) {
+                return;
+            }
+        }
+        // Statement.cancel() opens a connection for KILL QUERY; keep that off the caller (usually the EDT)
+        Thread killer = new Thread(() -> {
+            List<Statement> statements;
+            synchronized (this) {
+                streams.values().forEach(Runnable::run);
+                streams.clear();
+                statements = new ArrayList<>(running);
+            }
+            for (Statement statement : statements) {
+                try {
+                    statement.cancel();
+                } catch (SQLException e) {
+                    // Statement already finished or its connection is gone
+                }
+            }
+        }, "query-cancel");
+        killer.setDaemon(true);
+        killer.start();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @throws SQLException with SQLState 70100 if cancel() was called
+     */
+    void check() throws SQLException {
+        if (cancelled) {
+            throw new SQLException("Query cancelled", SQL_STATE);
+        }
+    }
+
+    /**
+     * Tracks a statement while the server works on it: its execute call, or until a streaming ResultSet is closed
+     * @throws SQLException if the handle is already cancelled; the statement is then not executed
+     */
+    synchronized void register(Statement statement) throws SQLException {
+        check();
+        running.add(statement);
+    }
+
+    /**
+     * Execute returned a streaming ResultSet: from now on cancel() aborts the connection instead
+     * @param abortConnection closes the statement's pooled connection at once
+     */
+    synchronized void streaming(Statement statement, Runnable abortConnection) {
+        running.remove(statement);
+        if (cancelled) {
+            abortConnection.run(); // Cancelled while executing; the rows are already on their way
+        } else {
+            streams.put(statement, abortConnection);
+        }
+    }
+
+    synchronized void unregister(Statement statement) {
+        running.remove(statement);
+        streams.remove(statement);
+    }
+}
@@ -0,0 +1,103 @@
+package com.expense.util;
+
+/**
+ * Per-thread settings for the statements executed while the scope is open: operation name, query timeout, cancellation
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. QueryScope.call("expense aggregates", REPORT_TIMEOUT, () -> ... DAO queries ...) runs the work inside a new scope
+ * 2. StatementMonitor reads the innermost scope of the executing thread before each execute:
+ *    setQueryTimeout(timeout), registration with the cancellation handle, operation name for the slow-query log
+ * 3. Scopes nest: an inner scope overrides what it sets and inherits the rest, so a GUI scope that only adds
+ *    cancellation still gets the DAO's per-operation timeout
+ * 4. When the work returns or throws, the outer scope is restored
+ *
+ * WHY A CALLBACK, NOT try-with-resources: the scope is a thread setting, never a value the body uses; taking the work
+ * as a lambda keeps each call site to the work itself and makes it impossible to leave a scope open
+ *
+ * Without any scope statements run with expense.query.timeoutSeconds and cannot be cancelled
+ */
+public final class QueryScope {
+    private static final ThreadLocal<QueryScope> CURRENT = new ThreadLocal<>();
+    private static final QueryScope DEFAULT = new QueryScope(null, null, AppConfig.get().getQueryTimeoutSeconds(), null);
+
+    private final QueryScope outer;
+    private final String operation;
+    private final int timeoutSeconds;
+    private final QueryCancellation cancellation;
+
+    private QueryScope(QueryScope outer, String operation, int timeoutSeconds, QueryCancellation cancellation) {
+        this.outer = outer;
+        this.operation = operation;
+        this.timeoutSeconds = timeoutSeconds;
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Work run inside a scope; E is whatever checked exception the work throws (SQLException for DAO code)
+     */
+    @FunctionalInterface
+    public interface Work<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    /**
+     * Runs work with its statements named and bounded
+     * @param operation name shown in the slow-query log
+     * @param timeoutSeconds per-statement server time limit (0 = none)
+     * @return the work's result
+     */
+    public static <T, E extends Exception> T call(String operation, int timeoutSeconds, Work<T, E> work) throws E {
+        QueryScope inherited = current();
+        return callIn(new QueryScope(CURRENT.get(), operation, timeoutSeconds, inherited.cancellation), work);
+    }
+
+    /**
+     * Runs work with its statements stoppable through the handle, keeping the outer name and timeout
+     * @return the work's result
+     */
+    public static <T, E extends Exception> T callCancellable(QueryCancellation cancellation, Work<T, E> work) throws E {
+        QueryScope inherited = current();
+        return callIn(new QueryScope(CURRENT.get(), inherited.operation, inherited.timeoutSeconds, cancellation), work);
+    }
+
+    private static <T, E extends Exception> T callIn(QueryScope scope, Work<T, E> work) throws E {
+        push(scope);
+        try {
+            return work.run();
+        } finally {
+            scope.close();
+        }
+    }
+
+    private static void push(QueryScope scope) {
+        CURRENT.set(scope);
+    }
+
+    /**
+     * @return innermost open scope of this thread, or the defaults
+     */
+    static QueryScope current() {
+        QueryScope scope = CURRENT.get();
+        return scope != null ? scope : DEFAULT;
+    }
+
+    String getOperation() {
+        return operation;
+    }
+
+    int getTimeoutSeconds() {
+        return timeoutSeconds;
+    }
+
+    QueryCancellation getCancellation() {
+        return cancellation;
+    }
+
+    private void close() {
+        if (outer == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(outer);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.expense.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of PreparedStatements for one physical connection
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. DAO calls conn.prepareStatement(SQL) on a pooled connection -> routed here
+ * 2. Key = SQL text plus the prepareStatement arguments (generated keys flag, result set type, ...)
+ * 3. Hit: the already-prepared statement is handed out again (no parse/plan round trip)
+ * 4. Miss: a new statement is prepared and cached; the least recently used idle one is closed if the cache is full
+ * 5. stmt.close() in the DAO only clears parameters and marks the statement idle again
+ * 6. Binds and executes on every statement handed out (cached or not) go through a StatementMonitor:
+ *    query timeout, cancellation and slow-query logging
+ *
+ * Hit/miss counters are shared by the connections of one pool (not across pools), so the primary and the
+ * replica pool each report their own cache hit ratio
+ */
+class StatementCache {
+    /**
+     * Cache counters of one ConnectionPool, updated by every connection it opens
+     */
+    static final class Counters {
+        final AtomicLong hits = new AtomicLong();
+        final AtomicLong misses = new AtomicLong();
+        final AtomicLong evictions = new AtomicLong();
+    }
+
+    private final Connection physical;
+    private final int maxSize;
+    private final Counters counters;
+    private final Runnable abortConnection;
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    private static final class CachedStatement {
+        final PreparedStatement physical;
+        final StatementMonitor monitor;
+        PreparedStatement proxy;
+        boolean inUse;
+        boolean evicted;
+
+        CachedStatement(PreparedStatement physical, StatementMonitor monitor) {
+            this.physical = physical;
+            this.monitor = monitor;
+        }
+    }
+
+    /**
+     * @param abortConnection closes the physical connection at once; used to cancel a streaming query
+     */
+    StatementCache(Connection physical, int maxSize, Counters counters, Runnable abortConnection) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.counters = counters;
+        this.abortConnection = abortConnection;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true); // access order = LRU
+    }
+
+    /**
+     * Returns a cached statement for the prepareStatement call, preparing a new one on a miss
+     * @param method the Connection.prepareStatement overload that was called
+     * @param args its arguments (SQL first)
+     */
+    synchronized PreparedStatement prepare(Method method, Object[] args) throws SQLException {
+        String key = Arrays.deepToString(args);
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            counters.hits.incrementAndGet();
+            cached.inUse = true;
+            return cached.proxy;
+        }
+        counters.misses.incrementAndGet();
+        PreparedStatement statement = (PreparedStatement) invoke(physical, method, args);
+        if (cached != null) {
+            // Same SQL already in use on this connection: hand out an uncached (but still monitored) statement
+            return wrap(statement, (String) args[0], false).proxy;
+        }
+        cached = wrap(statement, (String) args[0], true);
+        statements.put(key, cached);
+        evictOverflow();
+        return cached.proxy;
+    }
+
+    /**
+     * Closes every cached statement; called when the physical connection is discarded
+     */
+    synchronized void closeAll() {
+        for (CachedStatement cached : statements.values()) {
+            try {
+                cached.physical.close();
+            } catch (SQLException e) {
+                // Connection is being discarded anyway
+            }
+        }
+        statements.clear();
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, CachedStatement>> eldest = statements.entrySet().iterator();
+        while (statements.size() > maxSize && eldest.hasNext()) {
+            CachedStatement candidate = eldest.next().getValue();
+            eldest.remove();
+            counters.evictions.incrementAndGet();
+            if (candidate.inUse) {
+                candidate.evicted = true; // Closed for real when the DAO closes it
+            } else {
+                try {
+                    candidate.physical.close();
+                } catch (SQLException e) {
+                    // Ignore - statement is no longer reachable
+                }
+            }
+        }
+    }
+
+    /**
+     * @param cacheable false for a one-off statement: close() then really closes it
+     */
+    private CachedStatement wrap(PreparedStatement statement, String sql, boolean cacheable) {
+        CachedStatement cached = new CachedStatement(statement, new StatementMonitor(statement, sql, abortConnection));
+        cached.inUse = true;
+        StatementMonitor monitor = cached.monitor;
+        InvocationHandler handler = (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2) {
+                monitor.bind(method, args);
+                return invoke(statement, method, args);
+            }
+            if (StatementMonitor.isExecute(method)) {
+                return monitor.execute(method, args);
+            }
+            switch (name) {
+                case "setFetchSize":
+                    monitor.setFetchSize((Integer) args[0]);
+                    return invoke(statement, method, args);
+                case "addBatch":
+                    monitor.addBatch();
+                    return invoke(statement, method, args);
+                case "close":
+                    if (cacheable) {
+                        release(cached);
+                    } else if (cached.inUse) {
+                        cached.inUse = false;
+                        monitor.finish();
+                        statement.close();
+                    }
+                    return null;
+                case "isClosed":
+                    return !cached.inUse || statement.isClosed();
+                case "getConnection":
+                    throw new SQLException("getConnection() is not supported on cached statements");
+                default:
+                    return invoke(statement, method, args);
+            }
+        };
+        cached.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, handler);
+        return cached;
+    }
+
+    private synchronized void release(CachedStatement cached) throws SQLException {
+        if (!cached.inUse) {
+            return;
+        }
+        cached.inUse = false;
+        if (cached.evicted) {
+            cached.monitor.finish();
+            cached.physical.close();
+            return;
+        }
+        cached.monitor.reset();
+        cached.physical.clearParameters();
+        cached.physical.clearBatch();
+    }
+
+    static Object invoke(Object target, Method method, Object[] args) throws SQLException {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException(cause);
+        } catch (IllegalAccessException e) {
+            throw new SQLException(e);
+        }
+    }
+}
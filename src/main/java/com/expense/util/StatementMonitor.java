@@ -0,0 +1,333 @@
+package com.expense.util;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Execution hooks for one PreparedStatement: query timeout, cancellation and the slow-query log
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. StatementCache's statement proxy forwards set*(), addBatch() and execute*() calls here
+ * 2. set*() records the Java type bound at each position (never the value) -> the bind shape, e.g. (Int x500, String)
+ * 3. execute*() applies the current QueryScope: setQueryTimeout() when it changed, registration with the
+ *    QueryCancellation handle while the server runs the statement - for a streaming query until its ResultSet is
+ *    closed, since the server keeps sending rows until then (cancelled by aborting the connection, see QueryCancellation)
+ * 4. Updates, batches and buffered queries are measured when execute returns (the driver has read every row by then);
+ *    a streaming query (fetch size set) is measured until its ResultSet is closed, so it reports its full time
+ * 5. Rows are counted by a ResultSet wrapper as next() walks them. Only streaming results and queries already
+ *    over the threshold get the wrapper, so fast buffered reads pay nothing per row
+ * 6. Anything slower than expense.query.slowMillis (or failed after that long, e.g. timed out) is logged to stderr:
+ *    SLOW QUERY 1834 ms (execute 12 ms), 48211 rows q6c1d22f0 [expense aggregates] (Int x2) SELECT ...
+ *
+ * SQL ID: hash of the SQL text, so the same statement has the same id in every log line and run;
+ * only the start of the SQL is printed, bind values are never logged
+ */
+final class StatementMonitor {
+    static final AtomicLong SLOW_QUERIES = new AtomicLong();
+
+    private static final long SLOW_NANOS = TimeUnit.MILLISECONDS.toNanos(AppConfig.get().getSlowQueryMillis());
+    private static final int SQL_PREVIEW_LENGTH = 100;
+
+    private final PreparedStatement statement;
+    private final String sql;
+    private final Runnable abortConnection;
+    private Object[] binds = new Object[8];
+    private int bindCount;
+    private int batchCount;
+    private int appliedTimeout; // JDBC default: no limit
+    private boolean streaming;
+    private Query pending;
+
+    /**
+     * One execution whose ResultSet is still open
+     */
+    private final class Query {
+        final long startNanos;
+        final String operation;
+        final QueryCancellation cancellation;
+        final boolean streaming;
+        long executeNanos;
+        long rows;
+        boolean finished;
+        boolean registered; // Still registered with the cancellation handle (streaming results)
+
+        Query(QueryScope scope, boolean streaming) {
+            this.streaming = streaming;
+            this.startNanos = System.nanoTime();
+            this.operation = scope.getOperation();
+            this.cancellation = scope.getCancellation();
+        }
+    }
+
+    StatementMonitor(PreparedStatement statement, String sql, Runnable abortConnection) {
+        this.statement = statement;
+        this.sql = sql;
+        this.abortConnection = abortConnection;
+    }
+
+    /**
+     * Records the type bound by a set*(index, value, ...) call
+     */
+    void bind(Method method, Object[] args) {
+        if (pending != null) {
+            finish(); // New parameters: the previous result set is done with
+        }
+        if (args == null || args.length < 2 || !(args[0] instanceof Integer)) {
+            return;
+        }
+        int index = (Integer) args[0] - 1;
+        if (index < 0) {
+            return;
+        }
+        if (index >= binds.length) {
+            binds = Arrays.copyOf(binds, Math.max(index + 1, binds.length * 2));
+        }
+        String name = method.getName();
+        // setObject/setNull: the value's class says more than the method; otherwise the method name is the type
+        binds[index] = "setObject".equals(name) ? (args[1] != null ? args[1].getClass() : "null")
+                : "setNull".equals(name) ? "null" : name;
+        bindCount = Math.max(bindCount, index + 1);
+    }
+
+    /**
+     * A non-zero fetch size makes Connector/J stream (or page) rows during next() instead of reading them in execute
+     */
+    void setFetchSize(int rows) {
+        streaming = rows != 0;
+    }
+
+    void addBatch() {
+        batchCount++;
+    }
+
+    /**
+     * Runs an execute*() call under the current QueryScope
+     * @return the call's result; a ResultSet comes back wrapped so rows and close are observed
+     */
+    Object execute(Method method, Object[] args) throws SQLException {
+        finish();
+        QueryScope scope = QueryScope.current();
+        int timeout = scope.getTimeoutSeconds();
+        if (timeout != appliedTimeout) {
+            statement.setQueryTimeout(timeout);
+            appliedTimeout = timeout;
+        }
+        QueryCancellation cancellation = scope.getCancellation();
+        if (cancellation != null) {
+            cancellation.register(statement);
+        }
+        Query query = new Query(scope, streaming);
+        Object result;
+        try {
+            result = StatementCache.invoke(statement, method, args);
+            // A stream stays registered until its ResultSet closes: closing it reads and discards the remaining rows,
+            // unless a cancel() in between aborted the connection
+            if (cancellation != null && streaming && result instanceof ResultSet) {
+                cancellation.streaming(statement, abortConnection);
+                query.registered = true;
+            }
+        } catch (SQLException | RuntimeException e) {
+            query.executeNanos = System.nanoTime() - query.startNanos;
+            log(query, query.executeNanos, "failed: " + e.getMessage());
+            batchCount = 0;
+            throw e;
+        } finally {
+            if (cancellation != null && !query.registered) {
+                cancellation.unregister(statement);
+            }
+        }
+        query.executeNanos = System.nanoTime() - query.startNanos;
+
+        if (result instanceof ResultSet) {
+            if (!streaming && query.executeNanos < SLOW_NANOS) {
+                return result; // Fast buffered read: nothing left to measure or cancel
+            }
+            pending = query;
+            return wrap((ResultSet) result, query);
+        }
+        if (result instanceof Integer || result instanceof Long) {
+            query.rows = ((Number) result).longValue();
+        } else if (result instanceof int[]) {
+            query.rows = Arrays.stream((int[]) result).filter(count -> count > 0).sum();
+        } else if (result instanceof long[]) {
+            query.rows = Arrays.stream((long[]) result).filter(count -> count > 0).sum();
+        } else {
+            query.rows = statement.getUpdateCount(); // execute(): -1 when it produced a result set
+        }
+        log(query, query.executeNanos, null);
+        if (method.getName().endsWith("Batch")) {
+            batchCount = 0; // executeBatch() empties the batch
+        }
+        return result;
+    }
+
+    /**
+     * Logs the open query, if any; called on ResultSet.close(), statement close and before the next execution
+     */
+    void finish() {
+        Query query = pending;
+        if (query == null) {
+            return;
+        }
+        pending = null;
+        complete(query);
+        release(query);
+    }
+
+    private void complete(Query query) {
+        if (!query.finished) {
+            query.finished = true;
+            // A buffered query's time is its execute call; walking the rows afterwards is the caller's work
+            log(query, query.streaming ? System.nanoTime() - query.startNanos : query.executeNanos, null);
+        }
+    }
+
+    /**
+     * Ends a streaming query's registration with its cancellation handle
+     */
+    private void release(Query query) {
+        if (query.registered) {
+            query.registered = false;
+            query.cancellation.unregister(statement);
+        }
+    }
+
+    /**
+     * Forgets the bind shape and puts back the driver defaults a QueryScope or a streaming read changed;
+     * called when the cached statement is returned (its parameters are cleared)
+     */
+    void reset() throws SQLException {
+        finish();
+        Arrays.fill(binds, 0, bindCount, null);
+        bindCount = 0;
+        batchCount = 0;
+        if (appliedTimeout != 0) {
+            statement.setQueryTimeout(0);
+            appliedTimeout = 0;
+        }
+        if (streaming) {
+            statement.setFetchSize(0);
+            streaming = false;
+        }
+    }
+
+    private ResultSet wrap(ResultSet rs, Query query) {
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next":
+                            if (query.cancellation != null) {
+                                query.cancellation.check();
+                            }
+                            boolean more;
+                            try {
+                                more = rs.next();
+                            } catch (SQLException e) {
+                                if (query.cancellation != null && query.cancellation.isCancelled()) {
+                                    // The connection was aborted under this read: report the cancel, not a lost server
+                                    throw new SQLException("Query cancelled", QueryCancellation.SQL_STATE, e);
+                                }
+                                throw e;
+                            }
+                            if (more) {
+                                query.rows++;
+                            }
+                            return more;
+                        case "close":
+                            complete(query);
+                            try {
+                                rs.close(); // Drains the rest of a stream, unless its connection was aborted
+                            } finally {
+                                release(query);
+                            }
+                            return null;
+                        case "getStatement":
+                            throw new SQLException("getStatement() is not supported on monitored result sets");
+                        default:
+                            return StatementCache.invoke(rs, method, args);
+                    }
+                });
+    }
+
+    private void log(Query query, long elapsedNanos, String failure) {
+        if (elapsedNanos < SLOW_NANOS) {
+            return;
+        }
+        SLOW_QUERIES.incrementAndGet();
+        StringBuilder line = new StringBuilder("SLOW QUERY ")
+                .append(TimeUnit.NANOSECONDS.toMillis(elapsedNanos)).append(" ms");
+        if (query.executeNanos > 0 && query.executeNanos < elapsedNanos) {
+            line.append(" (execute ").append(TimeUnit.NANOSECONDS.toMillis(query.executeNanos)).append(" ms)");
+        }
+        line.append(failure != null ? ", " + failure : ", " + query.rows + " rows")
+                .append(' ').append(sqlId(sql));
+        if (query.operation != null) {
+            line.append(" [").append(query.operation).append(']');
+        }
+        line.append(' ').append(shape()).append(' ').append(preview(sql));
+        System.err.println(line);
+    }
+
+    /**
+     * @return bind types in order with repeats collapsed, e.g. (Int x500) or (String, Timestamp) x120 batch
+     */
+    private String shape() {
+        StringBuilder text = new StringBuilder("(");
+        for (int i = 0; i < bindCount; ) {
+            String type = typeName(binds[i]);
+            int run = 1;
+            while (i + run < bindCount && type.equals(typeName(binds[i + run]))) {
+                run++;
+            }
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(type);
+            if (run > 1) {
+                text.append(" x").append(run);
+            }
+            i += run;
+        }
+        text.append(')');
+        if (batchCount > 0) {
+            text.append(" x").append(batchCount).append(" batch");
+        }
+        return text.toString();
+    }
+
+    private static String typeName(Object bind) {
+        if (bind == null) {
+            return "?";
+        }
+        if (bind instanceof Class) {
+            return ((Class<?>) bind).getSimpleName();
+        }
+        String name = (String) bind;
+        return name.startsWith("set") ? name.substring(3) : name;
+    }
+
+    /**
+     * @return stable short id for the SQL text
+     */
+    static String sqlId(String sql) {
+        return String.format("q%08x", sql.hashCode());
+    }
+
+    private static String preview(String sql) {
+        String text = sql.replaceAll("\\s+", " ").trim();
+        return text.length() <= SQL_PREVIEW_LENGTH ? text : text.substring(0, SQL_PREVIEW_LENGTH) + "...";
+    }
+
+    /**
+     * @return true for the Statement methods that send the statement to the server
+     */
+    static boolean isExecute(Method method) {
+        return method.getName().startsWith("execute");
+    }
+}
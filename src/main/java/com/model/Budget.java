@@ -0,0 +1,41 @@
+package com.model;
+
+/**
+ * Budget model class representing a monthly spending limit for one category
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. DAO creates Budget objects from the budgets table -> getAllBudgets()
+ * 2. BudgetMonitor uses the limit to decide when a month crosses 80% / 100%
+ * 3. GUI sets or clears a budget from the category window
+ *
+ * Table: budgets(category_id INT PRIMARY KEY REFERENCES categories(category_id) ON DELETE CASCADE,
+ *                monthly_limit INT NOT NULL)
+ */
+public class Budget {
+    // Category this budget applies to - also the primary key of the budgets table
+    private int categoryId;
+
+    // Maximum spend per calendar month, in the same unit as Expense.amount
+    private int monthlyLimit;
+
+    public Budget(int categoryId, int monthlyLimit) {
+        this.categoryId = categoryId;
+        this.monthlyLimit = monthlyLimit;
+    }
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(int categoryId) {
+        this.categoryId = categoryId;
+    }
+
+    public int getMonthlyLimit() {
+        return monthlyLimit;
+    }
+
+    public void setMonthlyLimit(int monthlyLimit) {
+        this.monthlyLimit = monthlyLimit;
+    }
+}
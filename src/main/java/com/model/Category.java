@@ -31,6 +31,11 @@ public class Category {
     // HOW: Displayed in GUI forms and tables for user reference
     private String categorydescription;
 
+    // Row version for optimistic concurrency - incremented by every UPDATE
+    // WHY: Two users editing the same category must not silently overwrite each other
+    // HOW: Read with the row, sent back in UPDATE ... WHERE version=?; 0 means "unknown" (unconditional update)
+    private int version;
+
     /**
      * Constructor for creating Category objects
      * 
@@ -173,5 +178,13 @@ public class Category {
     public void setCategoryid(int categoryid) {
         this.categoryid = categoryid;
     }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
 }
 
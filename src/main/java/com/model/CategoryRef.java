@@ -0,0 +1,69 @@
+package com.model;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable category id + name shared by every ExpenseView of the same category (flyweight)
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. A read path loads the categories once and builds a CategoryRef.Table from them
+ * 2. Each mapped expense row asks the table for its category_id -> the same CategoryRef instance is returned
+ * 3. The view stores that one reference (4 bytes with compressed oops), so a million rows hold a handful of refs
+ *    instead of a million boxed ids or copied names
+ * 4. Consumers (table rows, export joins) read the name straight from the ref - no second id -> name map lookup
+ *
+ * WHY IMMUTABLE: refs are shared across rows and threads; a rename produces new refs on the next load
+ */
+public final class CategoryRef {
+    private final int id;
+    private final String name;
+
+    public CategoryRef(int id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return category name, or null if the category was not known when the table was built
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name != null ? name : "#" + id;
+    }
+
+    /**
+     * Interning table handing out one CategoryRef per category id
+     * One instance per load (not thread-safe); ids missing from the categories get a nameless ref, also interned
+     */
+    public static final class Table {
+        private final Map<Integer, CategoryRef> refs = new HashMap<>();
+
+        public Table(Collection<Category> categories) {
+            for (Category category : categories) {
+                refs.put(category.getCategoryid(), new CategoryRef(category.getCategoryid(), category.getCategoryname()));
+            }
+        }
+
+        /**
+         * @return the shared ref for the id
+         */
+        public CategoryRef ref(int categoryId) {
+            CategoryRef ref = refs.get(categoryId);
+            if (ref == null) {
+                ref = new CategoryRef(categoryId, null);
+                refs.put(categoryId, ref);
+            }
+            return ref;
+        }
+    }
+}
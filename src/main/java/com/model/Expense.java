@@ -56,6 +56,11 @@ public class Expense {
     // HOW: Set automatically when expense is created, used for sorting
     private LocalDateTime created_at;
 
+    // Row version for optimistic concurrency - incremented by every UPDATE
+    // WHY: Detects when another user changed the row since it was loaded
+    // HOW: Sent back in UPDATE ... WHERE version=?; 0 means "unknown" (unconditional update, e.g. a row from an offline journal written before it kept versions)
+    private int version;
+
     /**
      * Constructor for creating Expense objects from database Date objects
      * 
@@ -217,4 +222,12 @@ public class Expense {
     public void setCreated_at(LocalDateTime created_at) {
         this.created_at = created_at;
     }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
 }
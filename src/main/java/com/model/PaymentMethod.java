@@ -46,5 +46,40 @@ public enum PaymentMethod {
      * - Tracking: Can be linked to bank statements
      * - Reporting: Useful for financial analysis and budgeting
      */
-    BANK_ACCOUNT
+    BANK_ACCOUNT;
+
+    // values() clones the backing array on every call, so keep one copy for decoding
+    private static final PaymentMethod[] VALUES = values();
+
+    /**
+     * Decodes the payment_method column value read from the database
+     *
+     * WHY NOT valueOf():
+     * - valueOf() hashes the name through a map and throws on unknown values
+     * - With two constants a linear scan over a cached array is cheaper per row
+     *
+     * @param value column value such as "CASH" or "BANK_ACCOUNT"
+     * @return matching PaymentMethod, or null if the column is null
+     * @throws IllegalArgumentException if the value does not name a constant
+     */
+    public static PaymentMethod fromDatabase(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (PaymentMethod method : VALUES) {
+            if (method.name().equals(value)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException("Unknown payment method: " + value);
+    }
+
+    /**
+     * Inverse of ordinal() for compact representations that store the constant as a byte
+     * @param ordinal value of ordinal(), or a negative number for "no payment method"
+     * @return matching PaymentMethod, or null for a negative ordinal
+     */
+    public static PaymentMethod fromOrdinal(int ordinal) {
+        return ordinal < 0 ? null : VALUES[ordinal];
+    }
 }
@@ -0,0 +1,37 @@
+package com.model;
+
+import java.time.LocalDate;
+
+/**
+ * How often a recurring expense repeats
+ *
+ * Occurrences are always computed from the template's start date (start + n * interval units),
+ * never from the previous occurrence, so a rent due on the 31st falls on the 28th in February
+ * and returns to the 31st in March instead of drifting
+ */
+public enum RecurrenceFrequency {
+    DAILY,
+    WEEKLY,
+    MONTHLY,
+    YEARLY;
+
+    /**
+     * @param start first occurrence
+     * @param interval number of units between occurrences (e.g. 3 with MONTHLY = quarterly)
+     * @param n zero-based occurrence index
+     * @return date of the n-th occurrence
+     */
+    public LocalDate occurrence(LocalDate start, int interval, int n) {
+        long units = (long) interval * n;
+        switch (this) {
+            case DAILY:
+                return start.plusDays(units);
+            case WEEKLY:
+                return start.plusWeeks(units);
+            case MONTHLY:
+                return start.plusMonths(units);
+            default:
+                return start.plusYears(units);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.model;
+
+import java.time.LocalDate;
+
+/**
+ * Template for an expense that repeats (rent, subscriptions, EMIs)
+ *
+ * FLOW DETAILED EXPLANATION:
+ * 1. GUI creates a template from the expense form plus a frequency and interval
+ * 2. RecurringExpenseScheduler asks MainDAO to materialise every occurrence with nextDue <= today
+ * 3. Each occurrence becomes a normal expense tagged with idempotencyKey(date), so it is inserted at most once
+ *
+ * Table: recurring_expenses(template_id INT AUTO_INCREMENT PRIMARY KEY, category_id INT, payment_method VARCHAR(20),
+ *        amount INT, description VARCHAR(255), frequency VARCHAR(10), interval_count INT, start_date DATE,
+ *        end_date DATE NULL, occurrences INT DEFAULT 0, next_due DATE NULL, INDEX(next_due))
+ * Expenses: expenses.idempotency_key VARCHAR(64) NULL, claimed in expense_idempotency(idempotency_key PRIMARY KEY,
+ *           expense_id) in the same transaction (see MainDAO.materializeRecurringExpenses)
+ */
+public class RecurringExpense {
+    private int templateId;
+    private int categoryId;
+    private PaymentMethod paymentMethod;
+    private int amount;
+    private String description;
+    private RecurrenceFrequency frequency;
+    private int interval;
+    private LocalDate startDate;
+    // Last day an occurrence may fall on, or null to repeat forever
+    private LocalDate endDate;
+    // Number of occurrences already materialised - the next one is occurrence(occurrences)
+    private int occurrences;
+    // Date of the next occurrence, or null when the template has ended
+    private LocalDate nextDue;
+
+    public RecurringExpense(int templateId, int categoryId, PaymentMethod paymentMethod, int amount, String description,
+                            RecurrenceFrequency frequency, int interval, LocalDate startDate, LocalDate endDate) {
+        this.templateId = templateId;
+        this.categoryId = categoryId;
+        this.paymentMethod = paymentMethod;
+        this.amount = amount;
+        this.description = description;
+        this.frequency = frequency;
+        this.interval = interval;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.nextDue = startDate;
+    }
+
+    /**
+     * @return date of the n-th occurrence (zero-based), or null if it falls after the end date
+     */
+    public LocalDate occurrence(int n) {
+        LocalDate date = frequency.occurrence(startDate, interval, n);
+        return endDate != null && date.isAfter(endDate) ? null : date;
+    }
+
+    /**
+     * Key stored with each generated expense; its expense_idempotency row makes re-running the scheduler harmless
+     */
+    public String idempotencyKey(LocalDate occurrence) {
+        return "recurring:" + templateId + ":" + occurrence;
+    }
+
+    public int getTemplateId() {
+        return templateId;
+    }
+
+    public void setTemplateId(int templateId) {
+        this.templateId = templateId;
+    }
+
+    public int getCategoryId() {
+        return categoryId;
+    }
+
+    public PaymentMethod getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public RecurrenceFrequency getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    public void setOccurrences(int occurrences) {
+        this.occurrences = occurrences;
+    }
+
+    public LocalDate getNextDue() {
+        return nextDue;
+    }
+
+    public void setNextDue(LocalDate nextDue) {
+        this.nextDue = nextDue;
+    }
+}